@@ -0,0 +1,308 @@
+import com.example.api.json.CategoryWriter;
+import com.example.api.json.JsonResponse;
+import com.example.api.json.JsonView;
+import com.example.api.json.ProductWriter;
+import com.example.api.json.UserWriter;
+import com.example.api.model.Category;
+import com.example.api.model.Product;
+import com.example.api.model.ProductSpecification;
+import com.example.api.model.Review;
+import com.example.api.model.User;
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Benchmark cấp phát bộ nhớ khi ghi phản hồi JSON: cách cũ (Map trung gian cho từng sản phẩm/danh mục/
+ * người dùng, gson.toJson tạo chuỗi của cả phản hồi rồi mới in ra) so với JsonResponse (ghi thẳng vào
+ * writer bằng bộ ghi theo kiểu). Trước khi đo, kiểm tra hai cách cho ra JSON giống hệt nhau.
+ *
+ * Số byte cấp phát đo bằng com.sun.management.ThreadMXBean.getThreadAllocatedBytes trên luồng chạy
+ * benchmark; writer đích bỏ qua dữ liệu để chỉ đo phần serialize (Tomcat ghi vào buffer có sẵn).
+ *
+ * Cách dùng: ./bench/json-alloc-bench.sh (hoặc xem lệnh java trong script)
+ */
+public class JsonAllocBench {
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = Integer.getInteger("iterations", 500);
+    private static final int PAGE_SIZE = Integer.getInteger("pageSize", 100);
+
+    public static void main(String[] args) throws IOException {
+        List<Product> products = new ArrayList<>();
+        List<Review> reviews = new ArrayList<>();
+        List<Category> categories = new ArrayList<>();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (int i = 1; i <= PAGE_SIZE; i++) {
+            products.add(product(i, now));
+            reviews.add(review(i, now));
+            Category category = new Category("Danh mục <" + i + ">", "danh-muc-" + i);
+            category.setId(i);
+            category.setParentId(i % 3 == 0 ? null : i / 3);
+            category.setCreatedAt(now);
+            category.setUpdatedAt(now);
+            categories.add(category);
+        }
+        User user = new User(1, "Nguyễn Văn A", "a@example.com", null, "/uploads/a.png", User.Role.USER);
+
+        Gson legacyGson = new Gson();
+        Case[] cases = {
+            new Case("Danh sách sản phẩm", PAGE_SIZE, () -> legacyProducts(products), () -> products(products)),
+            new Case("Danh sách đánh giá", PAGE_SIZE, () -> reviewPage(reviews), () -> reviewPage(reviews)),
+            new Case("Danh sách danh mục", PAGE_SIZE, () -> legacyCategories(categories), () -> categories(categories)),
+            new Case("Đăng nhập", 1, () -> legacyLogin(user), () -> login(user)),
+        };
+
+        Writer sink = new NullWriter();
+        for (Case c : cases) {
+            String before = legacyGson.toJson(c.legacy.get());
+            StringWriter after = new StringWriter();
+            JsonResponse.write(after, c.streaming.get());
+            if (!before.equals(after.toString())) {
+                System.out.println("KHÁC NHAU: " + c.name);
+                System.out.println("  cũ : " + before);
+                System.out.println("  mới: " + after);
+                System.exit(1);
+            }
+
+            Runnable legacy = () -> {
+                try {
+                    sink.write(legacyGson.toJson(c.legacy.get()));
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            };
+            Runnable streaming = () -> {
+                try {
+                    JsonResponse.write(sink, c.streaming.get());
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            };
+            long[] legacyResult = measure(legacy);
+            long[] streamingResult = measure(streaming);
+            System.out.printf("%s (%d phần tử, %d byte JSON, giống hệt)%n", c.name, c.size,
+                    before.getBytes(java.nio.charset.StandardCharsets.UTF_8).length);
+            System.out.printf("  cũ : %,10d byte/lần, %,8d ns/lần%n", legacyResult[0], legacyResult[1]);
+            System.out.printf("  mới: %,10d byte/lần, %,8d ns/lần (%.0f%% bộ nhớ)%n", streamingResult[0],
+                    streamingResult[1], 100.0 * streamingResult[0] / legacyResult[0]);
+        }
+    }
+
+    /**
+     * @return {số byte cấp phát mỗi lần, thời gian mỗi lần (ns)}
+     */
+    private static long[] measure(Runnable task) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < WARMUP; i++) {
+            task.run();
+        }
+        long bytes = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            task.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        bytes = threads.getThreadAllocatedBytes(threadId) - bytes;
+        return new long[] { bytes / ITERATIONS, elapsed / ITERATIONS };
+    }
+
+    // Cách mới: dạng hiển thị ghi thẳng bằng JsonView
+
+    private static Map<String, Object> products(List<Product> products) {
+        List<JsonView> views = new ArrayList<>(products.size());
+        for (Product product : products) {
+            views.add(ProductWriter.summary(product));
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("products", views);
+        result.put("pagination", pagination());
+        return result;
+    }
+
+    private static Map<String, Object> categories(List<Category> categories) {
+        List<JsonView> views = new ArrayList<>(categories.size());
+        for (Category category : categories) {
+            views.add(CategoryWriter.summary(category));
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("categories", views);
+        return result;
+    }
+
+    private static Map<String, Object> login(User user) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("user", UserWriter.summary(user));
+        result.put("token", "eyJhbGciOiJIUzI1NiJ9.e30.signature");
+        return result;
+    }
+
+    // Cách cũ: productToMap, categoryToMap, userToMap như trong controller trước đây
+
+    private static Map<String, Object> legacyProducts(List<Product> products) {
+        List<Map<String, Object>> maps = new ArrayList<>();
+        for (Product product : products) {
+            Map<String, Object> map = new HashMap<>();
+            map.put("id", product.getId());
+            map.put("name", product.getName());
+            map.put("description", product.getDescription());
+            map.put("category", product.getCategoryName());
+            map.put("rating", product.getRating());
+            map.put("reviewCount", product.getReviewCount());
+            map.put("isReviewed", product.isReviewed());
+            NumberFormat formatter = new DecimalFormat("#,###.##");
+            map.put("price", formatter.format(product.getPrice()) + " ₫");
+            map.put("images", product.getImages());
+            List<String> specs = new ArrayList<>();
+            for (ProductSpecification spec : product.getSpecifications()) {
+                specs.add(spec.getName() + ": " + spec.getValue());
+            }
+            map.put("specs", specs);
+            map.put("isBookmarked", product.isBookmarked());
+            maps.add(map);
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("products", maps);
+        result.put("pagination", pagination());
+        return result;
+    }
+
+    private static Map<String, Object> legacyCategories(List<Category> categories) {
+        List<Map<String, Object>> maps = new ArrayList<>();
+        for (Category category : categories) {
+            Map<String, Object> map = new HashMap<>();
+            map.put("id", category.getId());
+            map.put("name", category.getName());
+            map.put("slug", category.getSlug());
+            map.put("parent_id", category.getParentId());
+            map.put("created_at", category.getCreatedAt());
+            map.put("updated_at", category.getUpdatedAt());
+            maps.add(map);
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("categories", maps);
+        return result;
+    }
+
+    private static Map<String, Object> legacyLogin(User user) {
+        Map<String, Object> userMap = new HashMap<>();
+        userMap.put("id", user.getId());
+        userMap.put("name", user.getName());
+        userMap.put("email", user.getEmail());
+        userMap.put("avatar", user.getAvatar());
+        Map<String, Object> result = new HashMap<>();
+        result.put("user", userMap);
+        result.put("token", "eyJhbGciOiJIUzI1NiJ9.e30.signature");
+        return result;
+    }
+
+    // Review được ghi bằng reflection ở cách cũ và bằng ReviewWriter ở cách mới, dữ liệu như nhau
+
+    private static Map<String, Object> reviewPage(List<Review> reviews) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("reviews", reviews);
+        result.put("pagination", pagination());
+        return result;
+    }
+
+    private static Map<String, Object> pagination() {
+        Map<String, Object> pagination = new HashMap<>();
+        pagination.put("total", 1234);
+        pagination.put("page", 1);
+        pagination.put("limit", PAGE_SIZE);
+        pagination.put("totalPages", 13);
+        return pagination;
+    }
+
+    private static Product product(int id, Timestamp now) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Điện thoại \"Galaxy\" S" + id + " <5G> & sạc nhanh");
+        product.setSlug("dien-thoai-galaxy-s" + id);
+        product.setDescription(id % 5 == 0 ? null : "Mô tả sản phẩm " + id + " với màn hình 6.1 inch");
+        product.setPrice(new BigDecimal("12990000.50").add(BigDecimal.valueOf(id)));
+        product.setCategoryId(id % 7);
+        product.setRating(id % 4 == 0 ? 0 : 3.5 + (id % 3) * 0.25);
+        product.setReviewCount(id * 3);
+        product.setCreatedAt(now);
+        product.setUpdatedAt(now);
+        product.setCategoryName("Điện thoại");
+        product.setImages(id % 6 == 0 ? null : Arrays.asList("/uploads/p" + id + "-1.jpg", "/uploads/p" + id + "-2.jpg"));
+        List<ProductSpecification> specs = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            specs.add(new ProductSpecification("Thông số " + i, "Giá trị " + i * id));
+        }
+        product.setSpecifications(specs);
+        product.setBookmarked(id % 2 == 0);
+        product.setReviewed(id % 3 == 0);
+        return product;
+    }
+
+    private static Review review(int id, Timestamp now) {
+        Review review = new Review(id, 1, id, 1 + id % 5, "Sản phẩm tốt, giao hàng nhanh <3 #" + id, id % 11, now, now);
+        User author = new User(id, "Người dùng " + id, "user" + id + "@example.com", null,
+                id % 2 == 0 ? null : "/uploads/avatar" + id + ".png", User.Role.USER);
+        review.setUser(author);
+        review.setIsHelpful(id % 3 == 0 ? null : id % 2 == 0);
+        if (id % 4 == 0) {
+            Map<String, String> product = new LinkedHashMap<>();
+            product.put("id", String.valueOf(id));
+            product.put("name", "Sản phẩm " + id);
+            review.setProduct(product);
+        }
+        return review;
+    }
+
+    private static final class Case {
+        final String name;
+        final int size;
+        final java.util.function.Supplier<Object> legacy;
+        final java.util.function.Supplier<Object> streaming;
+
+        Case(String name, int size, java.util.function.Supplier<Object> legacy,
+             java.util.function.Supplier<Object> streaming) {
+            this.name = name;
+            this.size = size;
+            this.legacy = legacy;
+            this.streaming = streaming;
+        }
+    }
+
+    /**
+     * Writer bỏ qua dữ liệu (thay cho buffer phản hồi của Tomcat)
+     */
+    private static final class NullWriter extends Writer {
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+        }
+
+        @Override
+        public void write(int c) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,26 @@
+#!/bin/bash
+
+# Benchmark cấp phát bộ nhớ khi ghi phản hồi JSON (bench/JsonAllocBench.java): so sánh Map trung gian +
+# gson.toJson với JsonResponse ghi thẳng vào writer, sau khi kiểm tra hai cách cho ra JSON giống hệt nhau.
+# Không cần máy chủ hay cơ sở dữ liệu.
+#
+# Cách dùng:
+#   ./bench/json-alloc-bench.sh
+#   PAGE_SIZE=20 ITERATIONS=2000 ./bench/json-alloc-bench.sh
+
+PAGE_SIZE="${PAGE_SIZE:-100}"
+ITERATIONS="${ITERATIONS:-500}"
+GSON_JAR="${GSON_JAR:-$HOME/.m2/repository/com/google/code/gson/gson/2.9.0/gson-2.9.0.jar}"
+
+# Màu sắc cho output
+GREEN="\033[0;32m"
+YELLOW="\033[0;33m"
+NC="\033[0m" # No Color
+
+cd "$(dirname "$0")/.." || exit 1
+mvn -B -q compile || exit 1
+
+echo -e "${YELLOW}$PAGE_SIZE phần tử mỗi phản hồi, $ITERATIONS lần đo${NC}"
+java -Dfile.encoding=UTF-8 -DpageSize="$PAGE_SIZE" -Diterations="$ITERATIONS" -cp "target/classes:$GSON_JAR" bench/JsonAllocBench.java || exit 1
+
+echo -e "${GREEN}Hoàn tất.${NC}"
@@ -0,0 +1,52 @@
+#!/bin/bash
+
+# Benchmark xác thực JWT: gửi nhiều yêu cầu có token tới GET /api/auth/me và đo số yêu cầu/giây,
+# kèm thống kê cache token đã xác thực (jwtCache trong /api/metrics).
+#
+# So sánh trước/sau: chạy một lần với jwt.cache.enabled=false và một lần với jwt.cache.enabled=true
+# (cùng dữ liệu, cùng CONCURRENCY). Với jwt.cache.enabled=true, ngoài yêu cầu đầu tiên, mỗi yêu cầu chỉ
+# tính SHA-256 của token thay vì giải mã base64, parse JSON và xác minh chữ ký HMAC.
+#
+# Cách dùng:
+#   BASE_URL=http://localhost:8080/ReviewSystem TOKEN=<jwt> ./bench/jwt-bench.sh
+#   (TOKEN của admin, hoặc thêm ADMIN_TOKEN, để đọc jwtCache từ /api/metrics)
+#
+# Lưu ý: /api/auth/me còn đọc người dùng từ MySQL, nên chênh lệch đo được là phần xác thực token
+# trên nền một truy vấn khóa chính; dùng REQUESTS lớn để giảm nhiễu.
+
+BASE_URL="${BASE_URL:-http://localhost:8080/ReviewSystem}"
+TOKEN="${TOKEN:-}"
+ADMIN_TOKEN="${ADMIN_TOKEN:-$TOKEN}"
+REQUESTS="${REQUESTS:-5000}"
+CONCURRENCY="${CONCURRENCY:-16}"
+
+# Màu sắc cho output
+GREEN="\033[0;32m"
+YELLOW="\033[0;33m"
+NC="\033[0m" # No Color
+
+if [ -z "$TOKEN" ]; then
+    echo "Cần TOKEN (đăng nhập qua POST /api/auth/login để lấy token)"
+    exit 1
+fi
+
+URL="$BASE_URL/api/auth/me"
+
+# Làm nóng (pool kết nối, JIT)
+for _ in $(seq 1 50); do
+    curl -s -o /dev/null -H "Authorization: Bearer $TOKEN" "$URL"
+done
+
+echo -e "${YELLOW}$REQUESTS yêu cầu, $CONCURRENCY luồng song song${NC}"
+START=$(date +%s.%N)
+seq 1 "$REQUESTS" | xargs -P "$CONCURRENCY" -I{} \
+    curl -s -o /dev/null -H "Authorization: Bearer $TOKEN" "$URL"
+END=$(date +%s.%N)
+
+awk -v s="$START" -v e="$END" -v n="$REQUESTS" \
+    'BEGIN {printf "Thời gian: %.2f s, %.0f yêu cầu/giây\n", e - s, n / (e - s)}'
+
+echo -e "${YELLOW}Thống kê jwtCache:${NC}"
+curl -s -H "Authorization: Bearer $ADMIN_TOKEN" "$BASE_URL/api/metrics" | grep -o '"jwtCache":{[^}]*}'
+
+echo -e "${GREEN}Hoàn tất.${NC}"
@@ -0,0 +1,33 @@
+#!/bin/bash
+
+# Benchmark JMH cho JwtUtil.validateToken (src/test/java/com/example/api/util/JwtValidateBenchmark.java):
+# số token/giây khi xác minh đầy đủ mỗi lần, khi trúng cache token đã xác thực và khi số token xoay vòng
+# gấp đôi jwt.cache.maxSize (cache đầy). Không cần máy chủ hay cơ sở dữ liệu; xem bench/jwt-bench.sh để đo qua HTTP.
+#
+# Cách dùng:
+#   ./bench/jwt-validate-bench.sh
+#   MAX_SIZE=10000 ./bench/jwt-validate-bench.sh
+#   ./bench/jwt-validate-bench.sh cacheHit -f 3    (tham số thêm được chuyển cho JMH)
+
+MAX_SIZE="${MAX_SIZE:-1000}"
+
+# Màu sắc cho output
+GREEN="\033[0;32m"
+YELLOW="\033[0;33m"
+NC="\033[0m" # No Color
+
+cd "$(dirname "$0")/.." || exit 1
+CP_FILE="target/bench.classpath"
+mvn -B -q test-compile dependency:build-classpath -Dmdep.outputFile="$CP_FILE" -Dmdep.includeScope=test || exit 1
+
+FILTER="JwtValidateBenchmark"
+if [ $# -gt 0 ] && [[ "$1" != -* ]]; then
+    FILTER="JwtValidateBenchmark.$1"
+    shift
+fi
+
+echo -e "${YELLOW}jwt.cache.maxSize=$MAX_SIZE${NC}"
+java -cp "target/test-classes:target/classes:$(cat "$CP_FILE")" org.openjdk.jmh.Main "$FILTER" \
+    -jvmArgsAppend "-Dfile.encoding=UTF-8 -Djwt.cache.maxSize=$MAX_SIZE" "$@" || exit 1
+
+echo -e "${GREEN}Hoàn tất.${NC}"
@@ -0,0 +1,69 @@
+#!/bin/bash
+
+# Kiểm thử tải chế độ thực thi yêu cầu: đo số yêu cầu/giây, độ trễ và số phản hồi 503 của
+# GET /api/products ở 200, 2000 và 10000 client đồng thời, kèm thống kê requestExecutor và
+# connectionPool trong /api/metrics.
+#
+# So sánh: chạy một lần với request.async.enabled=false (mỗi yêu cầu giữ một luồng Tomcat) và một lần
+# với request.async.enabled=true, request.async.executor=virtual trên bản build "mvn -Pjdk21 package"
+# chạy bằng JDK 21+. Cùng dữ liệu, cùng db.pool.maxSize.
+#
+# Cách dùng:
+#   BASE_URL=http://localhost:8080/ReviewSystem ./bench/load-test.sh
+#   CONCURRENCY_LEVELS="200 2000" DURATION=60s ./bench/load-test.sh
+#   ADMIN_TOKEN=<jwt của admin> để in thống kê từ /api/metrics
+#
+# Cần wrk (khuyên dùng, hỗ trợ 10000 kết nối) hoặc ab. Với 10000 client cần nâng "ulimit -n"
+# ở cả máy chạy kiểm thử và máy chủ, và maxConnections của Connector trong Tomcat.
+
+BASE_URL="${BASE_URL:-http://localhost:8080/ReviewSystem}"
+ADMIN_TOKEN="${ADMIN_TOKEN:-}"
+URL_PATH="${URL_PATH:-/api/products?page=1&limit=20}"
+CONCURRENCY_LEVELS="${CONCURRENCY_LEVELS:-200 2000 10000}"
+DURATION="${DURATION:-30s}"
+THREADS="${THREADS:-8}"
+REQUESTS="${REQUESTS:-50000}"
+
+# Màu sắc cho output
+GREEN="\033[0;32m"
+YELLOW="\033[0;33m"
+RED="\033[0;31m"
+NC="\033[0m" # No Color
+
+URL="$BASE_URL$URL_PATH"
+
+if command -v wrk > /dev/null; then
+    TOOL="wrk"
+elif command -v ab > /dev/null; then
+    TOOL="ab"
+else
+    echo -e "${RED}Cần cài wrk hoặc ab (apache2-utils)${NC}"
+    exit 1
+fi
+
+# Làm nóng (pool kết nối, JIT, cache)
+for _ in $(seq 1 100); do
+    curl -s -o /dev/null "$URL"
+done
+
+for CONCURRENCY in $CONCURRENCY_LEVELS; do
+    echo -e "${YELLOW}$CONCURRENCY client đồng thời ($TOOL)${NC}"
+    if [ "$TOOL" = "wrk" ]; then
+        # wrk cần số kết nối >= số luồng
+        T=$(( THREADS < CONCURRENCY ? THREADS : CONCURRENCY ))
+        wrk -t "$T" -c "$CONCURRENCY" -d "$DURATION" --timeout 10s --latency "$URL" \
+            | grep -E "Requests/sec|Latency|50%|99%|Non-2xx|Socket errors"
+    else
+        N=$(( REQUESTS > CONCURRENCY ? REQUESTS : CONCURRENCY ))
+        ab -q -n "$N" -c "$CONCURRENCY" -s 10 -r "$URL" \
+            | grep -E "Requests per second|Failed requests|Non-2xx|50%|99%"
+    fi
+
+    echo -e "${YELLOW}Thống kê requestExecutor / connectionPool:${NC}"
+    METRICS=$(curl -s -H "Authorization: Bearer $ADMIN_TOKEN" "$BASE_URL/api/metrics")
+    echo "$METRICS" | grep -o '"requestExecutor":{[^}]*}'
+    echo "$METRICS" | grep -o '"connectionPool":{[^}]*}'
+    echo
+done
+
+echo -e "${GREEN}Hoàn tất.${NC}"
@@ -0,0 +1,65 @@
+#!/bin/bash
+
+# Benchmark API danh sách đánh giá: GET /api/products/{id}/reviews
+# Đo độ trễ trung bình mỗi trang và số truy vấn MySQL mỗi trang (qua biến trạng thái Questions)
+# với limit=10/50/100, có đăng nhập (để đo phần trạng thái "hữu ích" của người dùng hiện tại).
+#
+# Cách dùng:
+#   BASE_URL=http://localhost:8080/ReviewSystem TOKEN=<jwt> PRODUCT_ID=1 ./bench/review-page-bench.sh
+#
+# Lưu ý: Questions là biến toàn cục của server, nên chạy trên cơ sở dữ liệu không có tải khác.
+# Sản phẩm dùng để đo nên có ít nhất 100 đánh giá.
+
+BASE_URL="${BASE_URL:-http://localhost:8080/ReviewSystem}"
+PRODUCT_ID="${PRODUCT_ID:-1}"
+TOKEN="${TOKEN:-}"
+ITERATIONS="${ITERATIONS:-50}"
+LIMITS="${LIMITS:-10 50 100}"
+
+MYSQL_USER="${MYSQL_USER:-root}"
+MYSQL_PASSWORD="${MYSQL_PASSWORD:-ServBay.dev}"
+MYSQL_HOST="${MYSQL_HOST:-localhost}"
+
+# Màu sắc cho output
+GREEN="\033[0;32m"
+YELLOW="\033[0;33m"
+NC="\033[0m" # No Color
+
+questions() {
+    mysql -h "$MYSQL_HOST" -u "$MYSQL_USER" -p"$MYSQL_PASSWORD" -N -s \
+        -e "SHOW GLOBAL STATUS LIKE 'Questions'" 2>/dev/null | awk '{print $2}'
+}
+
+AUTH_HEADER=()
+if [ -n "$TOKEN" ]; then
+    AUTH_HEADER=(-H "Authorization: Bearer $TOKEN")
+else
+    echo -e "${YELLOW}Chưa có TOKEN: đo ở chế độ khách (không có trạng thái hữu ích).${NC}"
+fi
+
+echo -e "${YELLOW}Sản phẩm $PRODUCT_ID, $ITERATIONS lần mỗi cấu hình${NC}"
+printf "%-8s %-16s %-16s\n" "limit" "avg_latency_ms" "queries/page"
+
+for LIMIT in $LIMITS; do
+    URL="$BASE_URL/api/products/$PRODUCT_ID/reviews?limit=$LIMIT&page=1&sort=date_desc"
+
+    # Làm nóng (pool kết nối, cache statement)
+    for _ in 1 2 3; do
+        curl -s -o /dev/null "${AUTH_HEADER[@]}" "$URL"
+    done
+
+    BEFORE=$(questions)
+    TOTAL_MS=0
+    for _ in $(seq 1 "$ITERATIONS"); do
+        SECONDS_TAKEN=$(curl -s -o /dev/null -w "%{time_total}" "${AUTH_HEADER[@]}" "$URL")
+        TOTAL_MS=$(awk -v t="$TOTAL_MS" -v s="$SECONDS_TAKEN" 'BEGIN {print t + s * 1000}')
+    done
+    AFTER=$(questions)
+
+    AVG_MS=$(awk -v t="$TOTAL_MS" -v n="$ITERATIONS" 'BEGIN {printf "%.2f", t / n}')
+    # Trừ 1 cho chính câu SHOW STATUS lần đầu
+    PER_PAGE=$(awk -v b="$BEFORE" -v a="$AFTER" -v n="$ITERATIONS" 'BEGIN {printf "%.1f", (a - b - 1) / n}')
+    printf "%-8s %-16s %-16s\n" "$LIMIT" "$AVG_MS" "$PER_PAGE"
+done
+
+echo -e "${GREEN}Hoàn tất.${NC}"
@@ -0,0 +1,68 @@
+#!/bin/bash
+
+# Benchmark tìm kiếm sản phẩm: LIKE '%term%' so với FULLTEXT (natural và boolean)
+# Chạy trực tiếp các câu truy vấn giống ProductDAO.getProducts (trang đầu, limit 10, kèm COUNT)
+# trên danh mục giả lập tạo bởi bench/search-seed.sql.
+#
+# Cách dùng:
+#   MYSQL_DB=review_system_bench ./bench/search-bench.sh
+
+MYSQL_USER="${MYSQL_USER:-root}"
+MYSQL_PASSWORD="${MYSQL_PASSWORD:-ServBay.dev}"
+MYSQL_HOST="${MYSQL_HOST:-localhost}"
+MYSQL_DB="${MYSQL_DB:-review_system_bench}"
+ITERATIONS="${ITERATIONS:-5}"
+TERMS="${TERMS:-samsung|laptop dell|sạc nhanh|bluetooth}"
+
+# Màu sắc cho output
+GREEN="\033[0;32m"
+YELLOW="\033[0;33m"
+NC="\033[0m" # No Color
+
+run_sql() {
+    mysql -h "$MYSQL_HOST" -u "$MYSQL_USER" -p"$MYSQL_PASSWORD" -N -s "$MYSQL_DB" -e "$1" 2>/dev/null
+}
+
+# Thời gian trung bình (ms) của một câu truy vấn
+time_query() {
+    local sql="$1"
+    run_sql "$sql" > /dev/null # Làm nóng buffer pool
+    local start end
+    start=$(date +%s%N)
+    for _ in $(seq 1 "$ITERATIONS"); do
+        run_sql "$sql" > /dev/null
+    done
+    end=$(date +%s%N)
+    awk -v s="$start" -v e="$end" -v n="$ITERATIONS" 'BEGIN {printf "%.1f", (e - s) / n / 1000000}'
+}
+
+SELECT_SQL="SELECT p.*, c.name as category_name,
+(SELECT pi.image_path FROM product_images pi WHERE pi.product_id = p.id AND pi.is_primary = TRUE
+ORDER BY pi.sort_order, pi.id LIMIT 1) as primary_image FROM products p
+LEFT JOIN categories c ON p.category_id = c.id"
+
+echo -e "${YELLOW}Số sản phẩm: $(run_sql 'SELECT COUNT(*) FROM products'), $ITERATIONS lần mỗi truy vấn${NC}"
+printf "%-22s %-10s %-12s %-12s %-12s\n" "term" "mode" "page_ms" "count_ms" "matches"
+
+IFS='|' read -r -a TERM_LIST <<< "$TERMS"
+for TERM in "${TERM_LIST[@]}"; do
+    LIKE_WHERE="WHERE (p.name LIKE '%$TERM%' OR p.description LIKE '%$TERM%')"
+    NATURAL_WHERE="WHERE MATCH(p.name, p.description) AGAINST ('$TERM' IN NATURAL LANGUAGE MODE)"
+    BOOLEAN_TERM=$(echo "$TERM" | sed -E 's/([^ ]+)/+\1/g')
+    BOOLEAN_WHERE="WHERE MATCH(p.name, p.description) AGAINST ('$BOOLEAN_TERM' IN BOOLEAN MODE)"
+
+    for MODE in like natural boolean; do
+        case "$MODE" in
+            like) WHERE="$LIKE_WHERE"; ORDER="ORDER BY p.id DESC" ;;
+            natural) WHERE="$NATURAL_WHERE"; ORDER="ORDER BY MATCH(p.name, p.description) AGAINST ('$TERM' IN NATURAL LANGUAGE MODE) DESC, p.id DESC" ;;
+            boolean) WHERE="$BOOLEAN_WHERE"; ORDER="ORDER BY p.id DESC" ;;
+        esac
+
+        PAGE_MS=$(time_query "$SELECT_SQL $WHERE $ORDER LIMIT 10 OFFSET 0")
+        COUNT_MS=$(time_query "SELECT COUNT(*) FROM products p $WHERE")
+        MATCHES=$(run_sql "SELECT COUNT(*) FROM products p $WHERE")
+        printf "%-22s %-10s %-12s %-12s %-12s\n" "$TERM" "$MODE" "$PAGE_MS" "$COUNT_MS" "$MATCHES"
+    done
+done
+
+echo -e "${GREEN}Hoàn tất.${NC}"
@@ -0,0 +1,44 @@
+-- Tạo danh mục sản phẩm giả lập 1.000.000 sản phẩm để benchmark tìm kiếm (LIKE và FULLTEXT)
+-- Chạy trên cơ sở dữ liệu riêng cho benchmark, đã chạy create_tables.sql (cần có ít nhất 1 user và 1 category)
+--   mysql -u root -p review_system_bench < bench/search-seed.sql
+-- Xóa dữ liệu benchmark: DELETE FROM products WHERE slug LIKE 'bench-%';
+
+SET SESSION cte_max_recursion_depth = 1000001;
+
+SET @user_id = (SELECT MIN(id) FROM users);
+SET @category_count = (SELECT COUNT(*) FROM categories);
+SET @category_min = (SELECT MIN(id) FROM categories);
+
+-- Tắt chỉ mục FULLTEXT khi nạp dữ liệu rồi tạo lại sau sẽ nhanh hơn nhiều
+ALTER TABLE products DROP INDEX products_search;
+
+INSERT INTO products (name, slug, description, price, category_id, user_id)
+WITH RECURSIVE seq (n) AS (
+    SELECT 1
+    UNION ALL
+    SELECT n + 1 FROM seq WHERE n < 1000000
+)
+SELECT
+    CONCAT(
+        ELT(1 + n % 12, 'Điện thoại', 'Laptop', 'Máy tính bảng', 'Tai nghe', 'Loa', 'Đồng hồ',
+            'Máy ảnh', 'Bàn phím', 'Chuột', 'Màn hình', 'Sạc dự phòng', 'Router'),
+        ' ',
+        ELT(1 + (n DIV 12) % 10, 'Samsung', 'Apple', 'Xiaomi', 'Sony', 'Asus', 'Dell', 'Lenovo',
+            'Logitech', 'Anker', 'Oppo'),
+        ' ',
+        ELT(1 + (n DIV 120) % 8, 'Pro', 'Max', 'Lite', 'Ultra', 'Plus', 'Mini', 'Air', 'Neo'),
+        ' ', n),
+    CONCAT('bench-', n),
+    CONCAT('Sản phẩm ',
+        ELT(1 + (n DIV 7) % 6, 'chính hãng', 'giá rẻ', 'cao cấp', 'bền bỉ', 'nhỏ gọn', 'hiệu năng cao'),
+        ', ',
+        ELT(1 + (n DIV 11) % 6, 'pin lâu', 'màn hình sắc nét', 'âm thanh sống động', 'thiết kế sang trọng',
+            'kết nối bluetooth', 'sạc nhanh'),
+        ', bảo hành ', 6 + n % 19, ' tháng'),
+    100000 + (n * 7919) % 50000000,
+    @category_min + n % @category_count,
+    @user_id
+FROM seq;
+
+CREATE FULLTEXT INDEX products_search ON products(name, description);
+ANALYZE TABLE products;
@@ -0,0 +1,479 @@
+package com.example.api.cache;
+
+import com.example.api.dao.ReviewDAO;
+import com.example.api.model.Review;
+import com.example.api.model.ReviewHelpful;
+import com.example.api.util.AppConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bộ đệm ghi sau (write-behind) cho bình chọn hữu ích.
+ *
+ * Lượt bình chọn được giữ trong bộ nhớ, chia theo dải (stripe) theo reviewId, mỗi cặp
+ * (đánh giá, người dùng) chỉ giữ lần bình chọn cuối. Luồng nền ghi các lượt bình chọn vào MySQL
+ * theo lô mỗi flushIntervalMs; chênh lệch helpful_count được tính lại từ trạng thái thực trong
+ * MySQL khi ghi nên ghi lại một lô (khi thử lại hoặc phục hồi từ nhật ký) không làm sai số đếm.
+ *
+ * Khi đọc, helpful_count và trạng thái của người dùng được cộng thêm phần đang chờ ghi.
+ * Trong khoảng vài mili giây một lô đang được commit, số đếm trả về có thể lệch tạm thời.
+ *
+ * Nếu cấu hình vote.writeBehind.logDir, mỗi lượt bình chọn được ghi vào nhật ký trên đĩa trước khi
+ * trả về, và được ghi lại vào MySQL khi khởi động nếu ứng dụng dừng trước khi flush.
+ *
+ * Cấu hình: vote.writeBehind.enabled, vote.writeBehind.flushIntervalMs, vote.writeBehind.stripes,
+ * vote.writeBehind.batchSize, vote.writeBehind.logDir, vote.writeBehind.logSync (always | interval)
+ */
+public class HelpfulVoteBuffer {
+    private static final Logger LOGGER = Logger.getLogger(HelpfulVoteBuffer.class.getName());
+    private static final HelpfulVoteBuffer INSTANCE = new HelpfulVoteBuffer();
+
+    /** Giá trị vote() trả về khi bộ đệm đã dừng: người gọi ghi thẳng vào MySQL */
+    public static final int NOT_BUFFERED = -2;
+
+    // Trạng thái trước đó chưa biết (bản ghi phục hồi từ nhật ký), không tính vào phần cộng thêm khi đọc
+    static final int UNKNOWN = -2;
+
+    private final boolean enabled;
+    private final long flushIntervalMs;
+    private final int batchSize;
+    private final Stripe[] stripes;
+    private final VoteLog log;
+    private final ReviewDAO reviewDAO = new ReviewDAO();
+
+    // Lượt bình chọn giữ khóa đọc khi ghi nhật ký + bộ đệm; flush giữ khóa ghi khi đổi segment và lấy dữ liệu
+    private final ReentrantReadWriteLock drainLock = new ReentrantReadWriteLock();
+    private final Object flushMonitor = new Object();
+    private volatile ScheduledExecutorService flusher;
+    private volatile boolean active;
+
+    // Thống kê
+    private final AtomicLong votes = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong flushedVotes = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private final AtomicLong recovered = new AtomicLong();
+    private volatile long lastFlushMs;
+    private volatile long maxFlushMs;
+
+    private HelpfulVoteBuffer() {
+        this.enabled = AppConfig.getBoolean("vote.writeBehind.enabled", false);
+        this.flushIntervalMs = AppConfig.getLong("vote.writeBehind.flushIntervalMs", 200);
+        this.batchSize = AppConfig.getInt("vote.writeBehind.batchSize", 500);
+        int stripeCount = Math.max(1, AppConfig.getInt("vote.writeBehind.stripes", 16));
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(coalesced);
+        }
+        String logDir = AppConfig.get("vote.writeBehind.logDir", "");
+        this.log = logDir.isEmpty() ? null
+                : new VoteLog(new File(logDir), "always".equals(AppConfig.get("vote.writeBehind.logSync", "interval")));
+    }
+
+    public static HelpfulVoteBuffer getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return true nếu bình chọn đang đi qua bộ đệm
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Mở nhật ký, nạp lại bình chọn chưa ghi từ lần chạy trước và khởi động luồng flush
+     */
+    public synchronized void start() {
+        if (!enabled || active) {
+            return;
+        }
+        if (log != null) {
+            try {
+                for (File segment : log.open()) {
+                    VoteLog.read(segment, this::recover);
+                }
+            } catch (IOException e) {
+                // Không bật chế độ ghi sau khi không đảm bảo được độ bền đã cấu hình
+                LOGGER.log(Level.SEVERE, "Lỗi khi mở nhật ký bình chọn, dùng ghi trực tiếp: " + e.getMessage(), e);
+                return;
+            }
+        }
+
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "helpful-vote-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        active = true;
+    }
+
+    /**
+     * Dừng luồng flush, ghi nốt các bình chọn đang chờ và đóng nhật ký
+     */
+    public synchronized void stop() {
+        if (!active) {
+            return;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flusher = null;
+        // Ghi phần lớn bình chọn trong khi bình chọn mới vẫn vào bộ đệm
+        flush();
+        // Lần ghi cuối giữ khóa drain: bình chọn đến sau chờ tới khi lô cuối đã commit rồi mới ghi trực tiếp,
+        // nên không bị bình chọn cũ hơn còn trong bộ đệm ghi đè
+        synchronized (flushMonitor) {
+            drainLock.writeLock().lock();
+            try {
+                active = false;
+                flush();
+            } finally {
+                drainLock.writeLock().unlock();
+            }
+        }
+        if (log != null) {
+            try {
+                log.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Lỗi khi đóng nhật ký bình chọn: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Ghi nhận một lượt bình chọn
+     *
+     * @param reviewId  ID đánh giá
+     * @param userId    ID người dùng
+     * @param isHelpful Có hữu ích hay không
+     * @return Số lượng đánh dấu hữu ích (gồm phần đang chờ ghi), -1 nếu đánh giá không tồn tại hoặc có lỗi,
+     *         hoặc NOT_BUFFERED nếu bộ đệm đã dừng (ghi trực tiếp vào MySQL)
+     */
+    public int vote(int reviewId, int userId, boolean isHelpful) {
+        int[] state;
+        try {
+            // Đọc không khóa: helpful_count đã ghi và bình chọn trước đó của người dùng
+            state = reviewDAO.getHelpfulState(reviewId, userId);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Lỗi khi đọc trạng thái bình chọn: " + e.getMessage(), e);
+            return -1;
+        }
+        if (state == null) {
+            return -1;
+        }
+
+        drainLock.readLock().lock();
+        try {
+            if (!active) {
+                return NOT_BUFFERED;
+            }
+            if (log != null) {
+                log.append(reviewId, userId, isHelpful);
+            }
+            Stripe stripe = stripeOf(reviewId);
+            int helpfulCount;
+            stripe.lock.lock();
+            try {
+                stripe.put(reviewId, userId, isHelpful, state[1]);
+                votes.incrementAndGet();
+                helpfulCount = Math.max(0, state[0] + stripe.deltas.getOrDefault(reviewId, 0));
+            } finally {
+                stripe.lock.unlock();
+            }
+            ReviewSummaryCache.getInstance().helpfulChanged(state[2], reviewId, helpfulCount);
+            return helpfulCount;
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Lỗi khi ghi nhật ký bình chọn: " + e.getMessage(), e);
+            return -1;
+        } finally {
+            drainLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Cộng phần bình chọn đang chờ ghi vào đánh giá đọc từ MySQL
+     *
+     * @param review Đánh giá
+     * @param userId ID người dùng hiện tại (nếu đã đăng nhập)
+     */
+    public void overlay(Review review, Integer userId) {
+        if (!active) {
+            return;
+        }
+        Stripe stripe = stripeOf(review.getId());
+        stripe.lock.lock();
+        try {
+            Integer delta = stripe.deltas.get(review.getId());
+            if (delta != null) {
+                review.setHelpfulCount(Math.max(0, review.getHelpfulCount() + delta));
+            }
+            if (userId != null) {
+                long key = key(review.getId(), userId);
+                VoteEntry entry = stripe.pending.get(key);
+                if (entry == null) {
+                    entry = stripe.inflight.get(key);
+                }
+                if (entry != null) {
+                    review.setIsHelpful(entry.value);
+                }
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Thống kê bộ đệm
+     *
+     * @return Map các chỉ số
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("active", active);
+        stats.put("durable", log != null);
+        int pending = 0;
+        int inflight = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                pending += stripe.pending.size();
+                inflight += stripe.inflight.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        stats.put("pending", pending);
+        stats.put("inflight", inflight);
+        stats.put("votes", votes.get());
+        stats.put("coalesced", coalesced.get());
+        stats.put("flushedVotes", flushedVotes.get());
+        stats.put("flushes", flushes.get());
+        stats.put("failedFlushes", failedFlushes.get());
+        stats.put("recovered", recovered.get());
+        stats.put("lastFlushMs", lastFlushMs);
+        stats.put("maxFlushMs", maxFlushMs);
+        return stats;
+    }
+
+    /**
+     * Ghi các bình chọn đang chờ vào MySQL theo lô
+     */
+    private void flush() {
+        synchronized (flushMonitor) {
+            long start = System.currentTimeMillis();
+            List<File> oldSegments = new ArrayList<>();
+            List<VoteEntry> entries = new ArrayList<>();
+
+            drainLock.writeLock().lock();
+            try {
+                if (log != null) {
+                    oldSegments = log.rotate();
+                }
+                for (Stripe stripe : stripes) {
+                    stripe.lock.lock();
+                    try {
+                        stripe.drain(entries);
+                    } finally {
+                        stripe.lock.unlock();
+                    }
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Lỗi khi đổi segment nhật ký bình chọn: " + e.getMessage(), e);
+            } finally {
+                drainLock.writeLock().unlock();
+            }
+
+            boolean complete = true;
+            entries.sort((a, b) -> a.reviewId != b.reviewId ? Integer.compare(a.reviewId, b.reviewId)
+                    : Integer.compare(a.userId, b.userId));
+            for (int from = 0; from < entries.size(); from += batchSize) {
+                List<VoteEntry> batch = entries.subList(from, Math.min(entries.size(), from + batchSize));
+                List<ReviewHelpful> votesToWrite = new ArrayList<>(batch.size());
+                for (VoteEntry entry : batch) {
+                    ReviewHelpful vote = new ReviewHelpful();
+                    vote.setReviewId(entry.reviewId);
+                    vote.setUserId(entry.userId);
+                    vote.setHelpful(entry.value);
+                    votesToWrite.add(vote);
+                }
+                try {
+                    reviewDAO.applyHelpfulVotes(votesToWrite);
+                } catch (SQLException e) {
+                    // Giữ lại trong inflight, thử lại ở lần flush sau
+                    complete = false;
+                    failedFlushes.incrementAndGet();
+                    LOGGER.log(Level.SEVERE, "Lỗi khi ghi bình chọn hữu ích: " + e.getMessage(), e);
+                    break;
+                }
+                for (VoteEntry entry : batch) {
+                    Stripe stripe = stripeOf(entry.reviewId);
+                    stripe.lock.lock();
+                    try {
+                        stripe.complete(entry);
+                    } finally {
+                        stripe.lock.unlock();
+                    }
+                }
+                flushedVotes.addAndGet(batch.size());
+            }
+
+            // Segment cũ chỉ chứa các bình chọn vừa được lấy ra, xóa khi tất cả đã ghi xong
+            if (complete) {
+                for (File segment : oldSegments) {
+                    if (!segment.delete()) {
+                        LOGGER.warning("Không xóa được segment nhật ký bình chọn: " + segment);
+                    }
+                }
+            }
+
+            if (!entries.isEmpty()) {
+                flushes.incrementAndGet();
+                lastFlushMs = System.currentTimeMillis() - start;
+                maxFlushMs = Math.max(maxFlushMs, lastFlushMs);
+            }
+        }
+    }
+
+    /**
+     * Nạp một bản ghi từ nhật ký của lần chạy trước vào bộ đệm (chưa biết trạng thái trước đó)
+     */
+    private void recover(int reviewId, int userId, boolean isHelpful) {
+        Stripe stripe = stripeOf(reviewId);
+        stripe.lock.lock();
+        try {
+            stripe.put(reviewId, userId, isHelpful, UNKNOWN);
+            recovered.incrementAndGet();
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private Stripe stripeOf(int reviewId) {
+        return stripes[Math.floorMod(reviewId, stripes.length)];
+    }
+
+    private static long key(int reviewId, int userId) {
+        return ((long) reviewId << 32) | (userId & 0xffffffffL);
+    }
+
+    /**
+     * Bình chọn mới nhất của một người dùng cho một đánh giá
+     */
+    static final class VoteEntry {
+        final int reviewId;
+        final int userId;
+        // Trạng thái trước khi bình chọn: -1 chưa bình chọn, 0/1, hoặc UNKNOWN
+        final int previous;
+        boolean value;
+
+        VoteEntry(int reviewId, int userId, boolean value, int previous) {
+            this.reviewId = reviewId;
+            this.userId = userId;
+            this.value = value;
+            this.previous = previous;
+        }
+
+        /**
+         * Phần chênh lệch helpful_count mà bình chọn này đóng góp
+         */
+        int contribution() {
+            if (previous == UNKNOWN) {
+                return 0;
+            }
+            return (value ? 1 : 0) - Math.max(previous, 0);
+        }
+    }
+
+    /**
+     * Một dải của bộ đệm: bình chọn đang chờ, bình chọn đang ghi, và tổng chênh lệch theo đánh giá
+     */
+    static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<Long, VoteEntry> pending = new HashMap<>();
+        final Map<Long, VoteEntry> inflight = new HashMap<>();
+        final Map<Integer, Integer> deltas = new HashMap<>();
+        private final AtomicLong coalesced;
+
+        Stripe(AtomicLong coalesced) {
+            this.coalesced = coalesced;
+        }
+
+        void put(int reviewId, int userId, boolean value, int storedPrevious) {
+            long key = key(reviewId, userId);
+            VoteEntry entry = pending.get(key);
+            if (entry != null) {
+                addDelta(reviewId, -entry.contribution());
+                entry.value = value;
+                addDelta(reviewId, entry.contribution());
+                coalesced.incrementAndGet();
+                return;
+            }
+            // Nếu lần bình chọn trước đang được ghi, trạng thái trước đó là giá trị của nó
+            VoteEntry writing = inflight.get(key);
+            int previous = writing != null ? (writing.value ? 1 : 0) : storedPrevious;
+            if (writing != null && writing.previous == UNKNOWN) {
+                previous = UNKNOWN;
+            }
+            entry = new VoteEntry(reviewId, userId, value, previous);
+            pending.put(key, entry);
+            addDelta(reviewId, entry.contribution());
+        }
+
+        /**
+         * Chuyển bình chọn đang chờ sang đang ghi (gộp với bản ghi lỗi ở lần trước nếu có)
+         */
+        void drain(List<VoteEntry> out) {
+            for (Map.Entry<Long, VoteEntry> item : pending.entrySet()) {
+                VoteEntry entry = item.getValue();
+                VoteEntry writing = inflight.get(item.getKey());
+                if (writing != null) {
+                    VoteEntry merged = new VoteEntry(entry.reviewId, entry.userId, entry.value, writing.previous);
+                    addDelta(entry.reviewId, merged.contribution() - writing.contribution() - entry.contribution());
+                    entry = merged;
+                }
+                inflight.put(item.getKey(), entry);
+            }
+            pending.clear();
+            out.addAll(inflight.values());
+        }
+
+        /**
+         * Bỏ bình chọn đã ghi vào MySQL khỏi phần cộng thêm
+         */
+        void complete(VoteEntry entry) {
+            long key = key(entry.reviewId, entry.userId);
+            if (inflight.get(key) == entry) {
+                inflight.remove(key);
+                addDelta(entry.reviewId, -entry.contribution());
+            }
+        }
+
+        void addDelta(int reviewId, int delta) {
+            if (delta != 0) {
+                deltas.merge(reviewId, delta, (a, b) -> a + b == 0 ? null : a + b);
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.api.cache;
+
+import com.example.api.model.Product;
+import com.example.api.util.AppConfig;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Cache chi tiết sản phẩm dùng chung cho mọi người dùng (thông tin sản phẩm, tên danh mục,
+ * hình ảnh, thông số kỹ thuật), tra cứu theo ID hoặc slug.
+ *
+ * Trạng thái theo người dùng (isBookmarked, isReviewed) không được cache, nơi gọi tự
+ * bổ sung sau khi lấy bản sao từ cache.
+ *
+ * Cấu hình: cache.product.enabled, cache.product.maxSize, cache.product.ttlMs
+ */
+public class ProductCache {
+    private static final ProductCache INSTANCE = new ProductCache();
+
+    private final boolean enabled;
+    private final TtlCache<Integer, Product> byId;
+    // slug -> id, được kiểm tra lại với slug của sản phẩm trong cache khi dùng
+    private final TtlCache<String, Integer> slugIndex;
+
+    private ProductCache() {
+        this.enabled = AppConfig.getBoolean("cache.product.enabled", true);
+        int maxSize = AppConfig.getInt("cache.product.maxSize", 1000);
+        long ttlMs = AppConfig.getLong("cache.product.ttlMs", 300000);
+        this.byId = new TtlCache<>("product", maxSize, ttlMs);
+        this.slugIndex = new TtlCache<>("productSlug", maxSize, ttlMs);
+    }
+
+    public static ProductCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Lấy sản phẩm theo ID
+     *
+     * @param productId ID sản phẩm
+     * @param loader Hàm nạp sản phẩm từ cơ sở dữ liệu (không kèm trạng thái theo người dùng)
+     * @return Bản sao sản phẩm, hoặc null nếu không tìm thấy
+     */
+    public Product getById(int productId, Function<Integer, Product> loader) {
+        if (!enabled) {
+            return loader.apply(productId);
+        }
+        return copyOf(byId.get(productId, loader));
+    }
+
+    /**
+     * Lấy sản phẩm theo slug
+     *
+     * @param slug Slug sản phẩm
+     * @param idLoader Hàm nạp sản phẩm theo ID
+     * @param slugLoader Hàm nạp sản phẩm theo slug
+     * @return Bản sao sản phẩm, hoặc null nếu không tìm thấy
+     */
+    public Product getBySlug(String slug, Function<Integer, Product> idLoader, Function<String, Product> slugLoader) {
+        if (!enabled) {
+            return slugLoader.apply(slug);
+        }
+
+        Integer productId = slugIndex.getIfPresent(slug);
+        if (productId != null) {
+            Product product = byId.get(productId, idLoader);
+            if (product != null && slug.equals(product.getSlug())) {
+                return copyOf(product);
+            }
+            // Sản phẩm đã đổi slug hoặc đã bị xóa
+            slugIndex.invalidate(slug);
+        }
+
+        Product product = slugLoader.apply(slug);
+        if (product != null) {
+            slugIndex.put(slug, product.getId());
+        }
+        return product;
+    }
+
+    /**
+     * Xóa sản phẩm khỏi cache khi sản phẩm hoặc điểm đánh giá của sản phẩm thay đổi
+     *
+     * @param productId ID sản phẩm
+     */
+    public void invalidate(int productId) {
+        byId.invalidate(productId);
+    }
+
+    /**
+     * Xóa toàn bộ cache (ví dụ khi đổi tên danh mục)
+     */
+    public void invalidateAll() {
+        byId.invalidateAll();
+        slugIndex.invalidateAll();
+    }
+
+    /**
+     * Lấy thống kê của cache sản phẩm
+     *
+     * @return Map chứa thống kê theo ID và theo slug
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("byId", byId.getStats());
+        stats.put("bySlug", slugIndex.getStats());
+        return stats;
+    }
+
+    /**
+     * Tạo bản sao để nơi gọi có thể thay đổi (bổ sung trạng thái người dùng) mà không ảnh hưởng cache
+     */
+    private static Product copyOf(Product source) {
+        if (source == null) {
+            return null;
+        }
+        Product product = new Product();
+        product.setId(source.getId());
+        product.setName(source.getName());
+        product.setSlug(source.getSlug());
+        product.setDescription(source.getDescription());
+        product.setPrice(source.getPrice());
+        product.setCategoryId(source.getCategoryId());
+        product.setUserId(source.getUserId());
+        product.setRating(source.getRating());
+        product.setReviewCount(source.getReviewCount());
+        product.setRankScore(source.getRankScore());
+        product.setCreatedAt(source.getCreatedAt());
+        product.setUpdatedAt(source.getUpdatedAt());
+        product.setCategoryName(source.getCategoryName());
+        if (source.getImages() != null) {
+            product.setImages(new ArrayList<>(source.getImages()));
+        }
+        if (source.getSpecifications() != null) {
+            product.setSpecifications(new ArrayList<>(source.getSpecifications()));
+        }
+        return product;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.api.cache;
+
+import com.example.api.model.Review;
+import com.example.api.model.ReviewSummary;
+import com.example.api.util.AppConfig;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Cache tóm tắt đánh giá theo sản phẩm (GET /api/products/{id}/review-summary).
+ *
+ * Bị xóa khi đánh giá của sản phẩm được thêm/sửa/xóa, và khi một lượt bình chọn hữu ích
+ * có thể làm đổi đánh giá hữu ích nhất.
+ *
+ * Cấu hình: cache.reviewSummary.enabled, cache.reviewSummary.maxSize, cache.reviewSummary.ttlMs
+ */
+public class ReviewSummaryCache {
+    private static final ReviewSummaryCache INSTANCE = new ReviewSummaryCache();
+
+    private final boolean enabled;
+    private final TtlCache<Integer, ReviewSummary> byProductId;
+
+    private ReviewSummaryCache() {
+        this.enabled = AppConfig.getBoolean("cache.reviewSummary.enabled", true);
+        int maxSize = AppConfig.getInt("cache.reviewSummary.maxSize", 5000);
+        long ttlMs = AppConfig.getLong("cache.reviewSummary.ttlMs", 300000);
+        this.byProductId = new TtlCache<>("reviewSummary", maxSize, ttlMs);
+    }
+
+    public static ReviewSummaryCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Lấy tóm tắt đánh giá của sản phẩm
+     *
+     * @param productId ID sản phẩm
+     * @param loader Hàm nạp tóm tắt từ cơ sở dữ liệu
+     * @return Bản sao tóm tắt (đã cộng bình chọn hữu ích đang chờ ghi), hoặc null nếu không tìm thấy sản phẩm
+     */
+    public ReviewSummary get(int productId, Function<Integer, ReviewSummary> loader) {
+        ReviewSummary summary = enabled ? byProductId.get(productId, loader) : loader.apply(productId);
+        return copyOf(summary);
+    }
+
+    /**
+     * Xóa tóm tắt khi đánh giá của sản phẩm thay đổi
+     *
+     * @param productId ID sản phẩm
+     */
+    public void invalidate(int productId) {
+        byProductId.invalidate(productId);
+    }
+
+    /**
+     * Xử lý thay đổi số lượt hữu ích của một đánh giá: chỉ xóa tóm tắt nếu đánh giá đó đang là
+     * đánh giá hữu ích nhất hoặc có thể vượt qua đánh giá hữu ích nhất
+     *
+     * @param productId ID sản phẩm
+     * @param reviewId ID đánh giá
+     * @param helpfulCount Số lượt hữu ích mới
+     */
+    public void helpfulChanged(int productId, int reviewId, int helpfulCount) {
+        ReviewSummary cached = byProductId.getIfPresent(productId);
+        if (cached == null) {
+            return;
+        }
+        Review top = cached.getTopReview();
+        if (top == null || top.getId() == reviewId || helpfulCount >= top.getHelpfulCount()) {
+            byProductId.invalidate(productId);
+        }
+    }
+
+    /**
+     * Lấy thống kê của cache tóm tắt đánh giá
+     *
+     * @return Map chứa thống kê
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.putAll(byProductId.getStats());
+        return stats;
+    }
+
+    /**
+     * Tạo bản sao để cộng phần bình chọn đang chờ ghi mà không ảnh hưởng cache
+     */
+    private static ReviewSummary copyOf(ReviewSummary source) {
+        if (source == null) {
+            return null;
+        }
+        ReviewSummary summary = new ReviewSummary();
+        summary.setProductId(source.getProductId());
+        summary.setReviewCount(source.getReviewCount());
+        summary.setAverageRating(source.getAverageRating());
+        summary.setHistogram(source.getHistogram().clone());
+
+        Review top = source.getTopReview();
+        if (top != null) {
+            Review review = new Review(top.getId(), top.getProductId(), top.getUserId(), top.getRating(),
+                    top.getContent(), top.getHelpfulCount(), top.getCreatedAt(), top.getUpdatedAt());
+            review.setUser(top.getUser());
+            HelpfulVoteBuffer.getInstance().overlay(review, null);
+            summary.setTopReview(review);
+        }
+        return summary;
+    }
+}
@@ -0,0 +1,263 @@
+package com.example.api.cache;
+
+import com.example.api.util.AppConfig;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Danh sách token JWT đã thu hồi (đăng xuất), tra cứu theo jti trong bộ nhớ.
+ *
+ * Mỗi lần xác thực token chỉ kiểm tra Bloom filter: với token chưa bị thu hồi (trường hợp phổ biến)
+ * filter trả lời "không có" mà không cần tra map. Mỗi jti được giữ đến thời điểm exp của token,
+ * sau đó token tự hết hạn nên luồng dọn dẹp bỏ jti khỏi map và dựng lại filter.
+ *
+ * Nếu cấu hình auth.revocation.file, mỗi lần thu hồi được ghi thêm vào file (jti và exp) và được nạp
+ * lại khi khởi động; file được ghi gọn lại (bỏ jti đã hết hạn) khi khởi động và khi dọn dẹp.
+ *
+ * Cấu hình: auth.revocation.enabled, auth.revocation.expectedEntries, auth.revocation.falsePositiveRate,
+ * auth.revocation.sweepIntervalMs, auth.revocation.file
+ */
+public class TokenRevocationStore {
+    private static final Logger LOGGER = Logger.getLogger(TokenRevocationStore.class.getName());
+    private static final TokenRevocationStore INSTANCE = new TokenRevocationStore();
+
+    private final boolean enabled;
+    private final int expectedEntries;
+    private final double falsePositiveRate;
+    private final long sweepIntervalMs;
+    private final File file;
+
+    // jti -> thời điểm hết hạn của token (ms)
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter filter;
+    // Thu hồi, dựng lại filter và ghi file giữ khóa này; kiểm tra không cần khóa
+    private final Object writeLock = new Object();
+    private volatile ScheduledExecutorService sweeper;
+
+    // Thống kê
+    private final AtomicLong checks = new AtomicLong();
+    private final AtomicLong filterHits = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+    private final AtomicLong revocations = new AtomicLong();
+    private final AtomicLong rebuilds = new AtomicLong();
+
+    private TokenRevocationStore() {
+        this.enabled = AppConfig.getBoolean("auth.revocation.enabled", true);
+        this.expectedEntries = Math.max(1, AppConfig.getInt("auth.revocation.expectedEntries", 100000));
+        this.falsePositiveRate = AppConfig.getDouble("auth.revocation.falsePositiveRate", 0.01);
+        this.sweepIntervalMs = AppConfig.getLong("auth.revocation.sweepIntervalMs", 60000);
+        String path = AppConfig.get("auth.revocation.file", "");
+        this.file = path.isEmpty() ? null : new File(path);
+        this.filter = new BloomFilter(expectedEntries, falsePositiveRate);
+    }
+
+    public static TokenRevocationStore getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Nạp danh sách thu hồi từ file và khởi động luồng dọn dẹp
+     */
+    public synchronized void start() {
+        if (!enabled || sweeper != null) {
+            return;
+        }
+        if (file != null && file.exists()) {
+            load();
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "token-revocation-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, sweepIntervalMs, sweepIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Dừng luồng dọn dẹp (các lần thu hồi đã được ghi file ngay khi xảy ra)
+     */
+    public synchronized void stop() {
+        ScheduledExecutorService current = sweeper;
+        if (current == null) {
+            return;
+        }
+        sweeper = null;
+        current.shutdownNow();
+    }
+
+    /**
+     * Thu hồi token
+     *
+     * @param tokenId jti của token
+     * @param expiresAt Thời điểm hết hạn của token (ms)
+     * @return true nếu token được thêm vào danh sách thu hồi
+     */
+    public boolean revoke(String tokenId, long expiresAt) {
+        if (!enabled || tokenId == null || expiresAt <= System.currentTimeMillis()) {
+            return false;
+        }
+        synchronized (writeLock) {
+            if (revoked.putIfAbsent(tokenId, expiresAt) != null) {
+                return false;
+            }
+            filter.add(tokenId);
+            revocations.incrementAndGet();
+            append(tokenId, expiresAt);
+        }
+        return true;
+    }
+
+    /**
+     * Kiểm tra token đã bị thu hồi chưa
+     *
+     * @param tokenId jti của token (null với token phát hành trước khi có jti)
+     * @return true nếu token đã bị thu hồi
+     */
+    public boolean isRevoked(String tokenId) {
+        if (!enabled || tokenId == null) {
+            return false;
+        }
+        checks.incrementAndGet();
+        if (!filter.mightContain(tokenId)) {
+            return false;
+        }
+        filterHits.incrementAndGet();
+        if (revoked.containsKey(tokenId)) {
+            return true;
+        }
+        falsePositives.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Thống kê danh sách thu hồi
+     *
+     * @return Map các chỉ số
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        BloomFilter current = filter;
+        stats.put("enabled", enabled);
+        stats.put("revoked", revoked.size());
+        stats.put("filterBits", current.getBitCount());
+        stats.put("filterHashes", current.getHashCount());
+        stats.put("checks", checks.get());
+        stats.put("filterHits", filterHits.get());
+        stats.put("falsePositives", falsePositives.get());
+        stats.put("revocations", revocations.get());
+        stats.put("rebuilds", rebuilds.get());
+        stats.put("file", file != null ? file.getPath() : null);
+        return stats;
+    }
+
+    /**
+     * Bỏ các jti đã hết hạn, dựng lại filter và ghi gọn file
+     */
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        boolean removed = false;
+        for (Iterator<Long> it = revoked.values().iterator(); it.hasNext(); ) {
+            if (it.next() <= now) {
+                it.remove();
+                removed = true;
+            }
+        }
+        if (removed) {
+            synchronized (writeLock) {
+                rebuild();
+            }
+        }
+    }
+
+    private void load() {
+        long now = System.currentTimeMillis();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.indexOf('\t');
+                if (separator <= 0) {
+                    continue;
+                }
+                try {
+                    long expiresAt = Long.parseLong(line.substring(separator + 1).trim());
+                    if (expiresAt > now) {
+                        revoked.put(line.substring(0, separator), expiresAt);
+                    }
+                } catch (NumberFormatException e) {
+                    // Dòng ghi dở khi dừng đột ngột
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Lỗi khi đọc danh sách token đã thu hồi: " + e.getMessage(), e);
+        }
+        synchronized (writeLock) {
+            rebuild();
+        }
+        LOGGER.info("Đã nạp " + revoked.size() + " token đã thu hồi");
+    }
+
+    /**
+     * Dựng lại filter theo các jti còn hạn (tăng kích thước nếu vượt expectedEntries) và ghi gọn file.
+     * Gọi khi giữ writeLock.
+     */
+    private void rebuild() {
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, revoked.size() * 2), falsePositiveRate);
+        for (String tokenId : revoked.keySet()) {
+            rebuilt.add(tokenId);
+        }
+        filter = rebuilt;
+        rebuilds.incrementAndGet();
+        if (file == null) {
+            return;
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, Long> entry : revoked.entrySet()) {
+                    writer.write(entry.getKey() + "\t" + entry.getValue());
+                    writer.newLine();
+                }
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Lỗi khi ghi danh sách token đã thu hồi: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Ghi thêm một lần thu hồi vào file. Gọi khi giữ writeLock.
+     */
+    private void append(String tokenId, long expiresAt) {
+        if (file == null) {
+            return;
+        }
+        try {
+            File parent = file.getAbsoluteFile().getParentFile();
+            if (parent != null) {
+                parent.mkdirs();
+            }
+            Files.write(file.toPath(), (tokenId + "\t" + expiresAt + "\n").getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Lỗi khi ghi token đã thu hồi: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.example.api.cache;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Cache trong bộ nhớ có giới hạn kích thước (LRU) và thời gian sống (TTL) cho mỗi phần tử.
+ *
+ * - Nhiều luồng cùng yêu cầu một khóa chưa có trong cache chỉ gọi hàm nạp một lần.
+ * - Giá trị nạp xong sẽ không được lưu nếu chính khóa đó (hoặc cả cache) bị invalidate trong lúc nạp,
+ *   tránh ghi đè dữ liệu cũ lên cache sau khi dữ liệu đã thay đổi; invalidate khóa khác không ảnh hưởng.
+ * - Giá trị null (không tìm thấy) không được lưu.
+ *
+ * @param <K> Kiểu khóa
+ * @param <V> Kiểu giá trị
+ */
+public class TtlCache<K, V> {
+    private final String name;
+    private final int maxSize;
+    private final long ttlMs;
+
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+    // Phát hiện giá trị nạp đã cũ (đọc/ghi khi giữ khóa entries): epoch tăng mỗi lần invalidate,
+    // invalidatedAt ghi epoch của lần invalidate gần nhất cho các khóa đang được nạp
+    private long invalidationEpoch;
+    private long invalidatedAllAt;
+    private final Map<K, Long> invalidatedAt = new HashMap<>();
+
+    // Thống kê
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private final AtomicLong maxLoadNanos = new AtomicLong();
+
+    public TtlCache(String name, int maxSize, long ttlMs) {
+        this.name = name;
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * Lấy giá trị trong cache, nạp bằng loader nếu chưa có hoặc đã hết hạn
+     *
+     * @param key Khóa
+     * @param loader Hàm nạp giá trị khi cache không có
+     * @return Giá trị (có thể null nếu loader trả về null)
+     */
+    public V get(K key, Function<K, V> loader) {
+        V cached = getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        misses.increment();
+
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = loading.putIfAbsent(key, future);
+        if (existing != null) {
+            // Luồng khác đang nạp cùng khóa, chờ kết quả
+            return await(existing);
+        }
+
+        try {
+            long epoch;
+            synchronized (entries) {
+                epoch = invalidationEpoch;
+            }
+            long start = System.nanoTime();
+            V value = loader.apply(key);
+            recordLoad(System.nanoTime() - start);
+
+            if (value != null) {
+                synchronized (entries) {
+                    // Kiểm tra và lưu cùng một khóa với invalidate: bỏ giá trị nếu khóa (hoặc cả cache)
+                    // bị invalidate sau khi bắt đầu nạp
+                    if (invalidatedAllAt <= epoch && invalidatedAt.getOrDefault(key, 0L) <= epoch) {
+                        put(key, value);
+                    }
+                }
+            }
+            future.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            // Xóa dấu invalidate trước khi bỏ đăng ký nạp, để lần nạp sau của cùng khóa không mất dấu của nó
+            synchronized (entries) {
+                invalidatedAt.remove(key);
+            }
+            loading.remove(key, future);
+        }
+    }
+
+    /**
+     * Lấy giá trị nếu có trong cache và chưa hết hạn (không nạp)
+     *
+     * @param key Khóa
+     * @return Giá trị hoặc null
+     */
+    public V getIfPresent(K key) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.isExpired()) {
+                entries.remove(key);
+                expirations.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value;
+        }
+    }
+
+    /**
+     * Lưu giá trị vào cache
+     *
+     * @param key Khóa
+     * @param value Giá trị
+     */
+    public void put(K key, V value) {
+        put(key, value, ttlMs > 0 ? System.currentTimeMillis() + ttlMs : Long.MAX_VALUE);
+    }
+
+    /**
+     * Lưu giá trị vào cache với thời điểm hết hạn riêng (thay cho ttlMs)
+     *
+     * @param key Khóa
+     * @param value Giá trị
+     * @param expiresAt Thời điểm hết hạn (epoch millis)
+     */
+    public void put(K key, V value, long expiresAt) {
+        synchronized (entries) {
+            entries.put(key, new Entry<>(value, expiresAt));
+            Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+            while (entries.size() > maxSize && it.hasNext()) {
+                it.next();
+                it.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Xóa một khóa khỏi cache
+     *
+     * @param key Khóa
+     * @return Giá trị bị xóa hoặc null
+     */
+    public V invalidate(K key) {
+        invalidations.increment();
+        synchronized (entries) {
+            invalidationEpoch++;
+            if (loading.containsKey(key)) {
+                invalidatedAt.put(key, invalidationEpoch);
+            }
+            Entry<V> removed = entries.remove(key);
+            return removed != null ? removed.value : null;
+        }
+    }
+
+    /**
+     * Xóa toàn bộ cache
+     */
+    public void invalidateAll() {
+        invalidations.increment();
+        synchronized (entries) {
+            invalidationEpoch++;
+            invalidatedAllAt = invalidationEpoch;
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private V await(CompletableFuture<V> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bị ngắt khi chờ nạp cache " + name, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("Lỗi khi nạp cache " + name, cause);
+        }
+    }
+
+    private void recordLoad(long nanos) {
+        loads.increment();
+        loadNanos.add(nanos);
+        maxLoadNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Lấy thống kê của cache
+     *
+     * @return Map chứa tỉ lệ trúng cache, số phần tử bị loại bỏ, thời gian nạp...
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long loadCount = loads.sum();
+        stats.put("size", size());
+        stats.put("maxSize", maxSize);
+        stats.put("ttlMs", ttlMs);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", hitCount + missCount == 0 ? 0.0 : hitCount / (double) (hitCount + missCount));
+        stats.put("evictions", evictions.sum());
+        stats.put("expirations", expirations.sum());
+        stats.put("invalidations", invalidations.sum());
+        stats.put("loads", loadCount);
+        stats.put("avgLoadMs", loadCount == 0 ? 0.0 : loadNanos.sum() / (double) loadCount / 1_000_000);
+        stats.put("maxLoadMs", maxLoadNanos.get() / 1_000_000.0);
+        return stats;
+    }
+
+    /**
+     * Phần tử trong cache kèm thời điểm hết hạn
+     */
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.api.cache;
+
+import com.example.api.model.User;
+import com.example.api.util.AppConfig;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Cache vai trò người dùng theo ID, dùng khi AuthFilter tạo AuthPrincipal để kiểm tra quyền admin
+ * mà không phải đọc cả dòng users ở mỗi yêu cầu.
+ *
+ * Bị xóa khi người dùng bị xóa; TTL ngắn giới hạn thời gian một thay đổi vai trò ngoài ứng dụng
+ * (sửa trực tiếp trong MySQL) có hiệu lực.
+ *
+ * Cấu hình: cache.userRole.enabled, cache.userRole.maxSize, cache.userRole.ttlMs
+ */
+public class UserRoleCache {
+    private static final UserRoleCache INSTANCE = new UserRoleCache();
+
+    private final boolean enabled;
+    private final TtlCache<Integer, User.Role> byUserId;
+
+    private UserRoleCache() {
+        this.enabled = AppConfig.getBoolean("cache.userRole.enabled", true);
+        int maxSize = AppConfig.getInt("cache.userRole.maxSize", 10000);
+        long ttlMs = AppConfig.getLong("cache.userRole.ttlMs", 60000);
+        this.byUserId = new TtlCache<>("userRole", maxSize, ttlMs);
+    }
+
+    public static UserRoleCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Lấy vai trò của người dùng
+     *
+     * @param userId ID người dùng
+     * @param loader Hàm nạp vai trò từ cơ sở dữ liệu
+     * @return Vai trò, hoặc null nếu không tìm thấy người dùng
+     */
+    public User.Role get(int userId, Function<Integer, User.Role> loader) {
+        if (!enabled) {
+            return loader.apply(userId);
+        }
+        return byUserId.get(userId, loader);
+    }
+
+    /**
+     * Xóa vai trò khỏi cache khi người dùng thay đổi hoặc bị xóa
+     *
+     * @param userId ID người dùng
+     */
+    public void invalidate(int userId) {
+        byUserId.invalidate(userId);
+    }
+
+    /**
+     * Lấy thống kê của cache vai trò
+     *
+     * @return Map chứa thống kê
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.putAll(byUserId.getStats());
+        return stats;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.api.cache;
+
+import com.example.api.util.AppConfig;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Cache phiên bản token hiện tại của người dùng (users.token_version) theo ID.
+ *
+ * AuthFilter so sánh claim "ver" của token với giá trị này để quyết định có dùng được vai trò và
+ * thông tin người dùng nhúng trong token hay không, nên phần lớn yêu cầu không cần đọc bảng users.
+ * UserDAO xóa phần tử khi tăng token_version. Khi chạy nhiều instance, thay đổi ở instance khác
+ * có hiệu lực sau tối đa cache.userTokenVersion.ttlMs.
+ *
+ * Cấu hình: cache.userTokenVersion.enabled, cache.userTokenVersion.maxSize, cache.userTokenVersion.ttlMs
+ */
+public class UserTokenVersionCache {
+    private static final UserTokenVersionCache INSTANCE = new UserTokenVersionCache();
+
+    private final boolean enabled;
+    private final TtlCache<Integer, Integer> byUserId;
+
+    private UserTokenVersionCache() {
+        this.enabled = AppConfig.getBoolean("cache.userTokenVersion.enabled", true);
+        int maxSize = AppConfig.getInt("cache.userTokenVersion.maxSize", 100000);
+        long ttlMs = AppConfig.getLong("cache.userTokenVersion.ttlMs", 600000);
+        this.byUserId = new TtlCache<>("userTokenVersion", maxSize, ttlMs);
+    }
+
+    public static UserTokenVersionCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Lấy phiên bản token hiện tại của người dùng
+     *
+     * @param userId ID người dùng
+     * @param loader Hàm nạp phiên bản từ cơ sở dữ liệu
+     * @return Phiên bản, hoặc null nếu không tìm thấy người dùng
+     */
+    public Integer get(int userId, Function<Integer, Integer> loader) {
+        if (!enabled) {
+            return loader.apply(userId);
+        }
+        return byUserId.get(userId, loader);
+    }
+
+    /**
+     * Xóa phiên bản khỏi cache khi token_version của người dùng thay đổi
+     *
+     * @param userId ID người dùng
+     */
+    public void invalidate(int userId) {
+        byUserId.invalidate(userId);
+    }
+
+    /**
+     * Lấy thống kê của cache phiên bản token
+     *
+     * @return Map chứa thống kê
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.putAll(byUserId.getStats());
+        return stats;
+    }
+}
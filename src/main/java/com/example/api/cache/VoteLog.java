@@ -0,0 +1,146 @@
+package com.example.api.cache;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Nhật ký ghi nối tiếp (append-only) cho các lượt bình chọn hữu ích chưa được ghi vào MySQL.
+ *
+ * Nhật ký gồm các segment votes-&lt;số thứ tự&gt;.log, mỗi bản ghi 9 byte: int reviewId, int userId,
+ * byte isHelpful. Mỗi lần flush, segment hiện tại được đóng và mở segment mới; các segment cũ
+ * được xóa sau khi mọi lượt bình chọn trong đó đã ghi thành công vào MySQL.
+ * Bản ghi cuối bị cắt dở (khi tiến trình dừng đột ngột) được bỏ qua khi đọc lại.
+ */
+class VoteLog {
+    private static final String PREFIX = "votes-";
+    private static final String SUFFIX = ".log";
+    static final int RECORD_SIZE = 9;
+
+    private final File directory;
+    private final boolean syncEachAppend;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    private FileChannel channel;
+    private long sequence;
+
+    VoteLog(File directory, boolean syncEachAppend) {
+        this.directory = directory;
+        this.syncEachAppend = syncEachAppend;
+    }
+
+    /**
+     * Bản ghi bình chọn đọc lại từ nhật ký
+     */
+    interface RecordHandler {
+        void handle(int reviewId, int userId, boolean isHelpful);
+    }
+
+    /**
+     * Mở segment mới (sau các segment đang có)
+     *
+     * @return Các segment có sẵn từ lần chạy trước, theo thứ tự ghi
+     * @throws IOException nếu không tạo được thư mục/file
+     */
+    synchronized List<File> open() throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Không tạo được thư mục nhật ký bình chọn: " + directory);
+        }
+        List<File> existing = segments();
+        for (File segment : existing) {
+            sequence = Math.max(sequence, sequenceOf(segment));
+        }
+        openSegment();
+        return existing;
+    }
+
+    /**
+     * Ghi một lượt bình chọn
+     */
+    synchronized void append(int reviewId, int userId, boolean isHelpful) throws IOException {
+        record.clear();
+        record.putInt(reviewId).putInt(userId).put((byte) (isHelpful ? 1 : 0)).flip();
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+        if (syncEachAppend) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Đóng segment hiện tại và mở segment mới
+     *
+     * @return Tất cả segment trước segment mới (có thể xóa sau khi flush thành công)
+     * @throws IOException nếu không đóng/mở được file
+     */
+    synchronized List<File> rotate() throws IOException {
+        channel.force(false);
+        channel.close();
+        openSegment();
+        List<File> older = segments();
+        older.removeIf(segment -> sequenceOf(segment) >= sequence);
+        return older;
+    }
+
+    synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Đọc lại các bản ghi của một segment
+     */
+    static void read(File segment, RecordHandler handler) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(segment)))) {
+            while (true) {
+                int reviewId;
+                int userId;
+                byte helpful;
+                try {
+                    reviewId = in.readInt();
+                    userId = in.readInt();
+                    helpful = in.readByte();
+                } catch (EOFException e) {
+                    // Hết file hoặc bản ghi cuối bị cắt dở
+                    return;
+                }
+                handler.handle(reviewId, userId, helpful == 1);
+            }
+        }
+    }
+
+    private void openSegment() throws IOException {
+        sequence++;
+        File file = new File(directory, String.format("%s%016d%s", PREFIX, sequence, SUFFIX));
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    private List<File> segments() {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(PREFIX) && name.endsWith(SUFFIX));
+        List<File> list = new ArrayList<>(files != null ? Arrays.asList(files) : new ArrayList<>());
+        list.sort((a, b) -> Long.compare(sequenceOf(a), sequenceOf(b)));
+        return list;
+    }
+
+    private static long sequenceOf(File segment) {
+        String name = segment.getName();
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
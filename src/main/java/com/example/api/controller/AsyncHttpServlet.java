@@ -0,0 +1,23 @@
+package com.example.api.controller;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+/**
+ * Servlet cơ sở cho các API làm việc với cơ sở dữ liệu: doGet/doPost/... chạy qua RequestExecutor,
+ * tức trên virtual thread khi bật request.async.enabled, hoặc trên luồng của Tomcat như trước khi tắt.
+ * Tên servlet (servlet-name trong web.xml) là tên route dùng cho giới hạn riêng và thống kê.
+ */
+public abstract class AsyncHttpServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected void service(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        RequestExecutor.getInstance().execute(getServletName(), request, response, super::service);
+    }
+}
@@ -1,7 +1,13 @@
 package com.example.api.controller;
 
+import com.example.api.dto.LoginRequest;
+import com.example.api.dto.RegisterRequest;
 import com.example.api.model.User;
 import com.example.api.service.AuthService;
+import com.example.api.service.PasswordHasher;
+import com.example.api.filter.AuthFilter;
+import com.example.api.json.UserWriter;
+import com.example.api.model.AuthPrincipal;
 import com.example.api.util.JwtUtil;
 import com.google.gson.JsonObject;
 
@@ -30,26 +36,26 @@ public class AuthController {
     /**
      * Xử lý yêu cầu đăng ký
      * 
-     * @param jsonRequest Dữ liệu JSON từ request body
+     * @param registerRequest Dữ liệu đăng ký từ request body
      * @param request Yêu cầu HTTP
      * @param response Phản hồi HTTP
      * @return Kết quả xử lý dạng JSON
      */
-    public Map<String, Object> register(JsonObject jsonRequest, HttpServletRequest request, HttpServletResponse response) {
+    public Map<String, Object> register(RegisterRequest registerRequest, HttpServletRequest request, HttpServletResponse response) {
         Map<String, Object> result = new HashMap<>();
         
         try {
             // Kiểm tra json request có tồn tại
-            if (jsonRequest == null) {
+            if (registerRequest == null) {
                 response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                 result.put("error", "Vui lòng cung cấp dữ liệu đăng ký");
                 return result;
             }
             
-            String name = jsonRequest.has("name") ? jsonRequest.get("name").getAsString() : null;
-            String email = jsonRequest.has("email") ? jsonRequest.get("email").getAsString() : null;
-            String password = jsonRequest.has("password") ? jsonRequest.get("password").getAsString() : null;
-            String confirmPassword = jsonRequest.has("confirmPassword") ? jsonRequest.get("confirmPassword").getAsString() : null;
+            String name = registerRequest.getName();
+            String email = registerRequest.getEmail();
+            String password = registerRequest.getPassword();
+            String confirmPassword = registerRequest.getConfirmPassword();
             
             // Kiểm tra dữ liệu đầu vào
             if (name == null || name.trim().isEmpty() ||
@@ -74,11 +80,10 @@ public class AuthController {
             
             if (user != null) {
                 // Tạo JWT token
-                String token = JwtUtil.generateToken(user.getId());
+                String token = authService.generateToken(user);
                 
                 // Trả về thông tin người dùng và token
-                Map<String, Object> userMap = userToMap(user);
-                result.put("user", userMap);
+                result.put("user", UserWriter.summary(user));
                 result.put("token", token);
                 response.setStatus(HttpServletResponse.SC_OK);
             } else {
@@ -86,6 +91,8 @@ public class AuthController {
                 result.put("error", "Email đã tồn tại");
             }
             
+        } catch (PasswordHasher.BusyException e) {
+            setBusy(response, result);
         } catch (Exception e) {
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             result.put("error", "Có lỗi xảy ra: " + e.getMessage());
@@ -98,24 +105,24 @@ public class AuthController {
     /**
      * Xử lý yêu cầu đăng nhập
      * 
-     * @param jsonRequest Dữ liệu JSON từ request body
+     * @param loginRequest Thông tin đăng nhập từ request body
      * @param request Yêu cầu HTTP
      * @param response Phản hồi HTTP
      * @return Kết quả xử lý dạng JSON
      */
-    public Map<String, Object> login(JsonObject jsonRequest, HttpServletRequest request, HttpServletResponse response) {
+    public Map<String, Object> login(LoginRequest loginRequest, HttpServletRequest request, HttpServletResponse response) {
         Map<String, Object> result = new HashMap<>();
         
         try {
             // Kiểm tra json request có tồn tại
-            if (jsonRequest == null) {
+            if (loginRequest == null) {
                 response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                 result.put("error", "Vui lòng cung cấp thông tin đăng nhập");
                 return result;
             }
             
-            String email = jsonRequest.has("email") ? jsonRequest.get("email").getAsString() : null;
-            String password = jsonRequest.has("password") ? jsonRequest.get("password").getAsString() : null;
+            String email = loginRequest.getEmail();
+            String password = loginRequest.getPassword();
             
             // Kiểm tra dữ liệu đầu vào
             if (email == null || email.trim().isEmpty() ||
@@ -131,11 +138,10 @@ public class AuthController {
             
             if (user != null) {
                 // Tạo JWT token
-                String token = JwtUtil.generateToken(user.getId());
+                String token = authService.generateToken(user);
                 
                 // Trả về thông tin người dùng và token
-                Map<String, Object> userMap = userToMap(user);
-                result.put("user", userMap);
+                result.put("user", UserWriter.summary(user));
                 result.put("token", token);
                 response.setStatus(HttpServletResponse.SC_OK);
             } else {
@@ -143,6 +149,8 @@ public class AuthController {
                 result.put("error", "Email hoặc mật khẩu không đúng");
             }
             
+        } catch (PasswordHasher.BusyException e) {
+            setBusy(response, result);
         } catch (Exception e) {
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             result.put("error", "Có lỗi xảy ra: " + e.getMessage());
@@ -190,11 +198,10 @@ public class AuthController {
             
             if (user != null) {
                 // Tạo JWT token
-                String token = JwtUtil.generateToken(user.getId());
+                String token = authService.generateToken(user);
                 
                 // Trả về thông tin người dùng và token
-                Map<String, Object> userMap = userToMap(user);
-                result.put("user", userMap);
+                result.put("user", UserWriter.summary(user));
                 result.put("token", token);
                 response.setStatus(HttpServletResponse.SC_OK);
             } else {
@@ -306,6 +313,8 @@ public class AuthController {
                 result.put("error", "Token không hợp lệ hoặc đã hết hạn");
             }
             
+        } catch (PasswordHasher.BusyException e) {
+            setBusy(response, result);
         } catch (Exception e) {
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             result.put("error", "Có lỗi xảy ra: " + e.getMessage());
@@ -327,13 +336,19 @@ public class AuthController {
         
         try {
             // Kiểm tra xác thực
-            String authHeader = request.getHeader("Authorization");
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            if (!AuthFilter.hasBearerToken(request)) {
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 result.put("error", "Yêu cầu xác thực");
                 return result;
             }
             
+            // Thu hồi token để không dùng lại được sau khi đăng xuất
+            try {
+                JwtUtil.revokeToken(AuthFilter.getBearerToken(request));
+            } catch (Exception e) {
+                // Token không hợp lệ hoặc đã hết hạn thì không cần thu hồi
+            }
+            
             // Hủy session
             HttpSession session = request.getSession(false);
             if (session != null) {
@@ -364,28 +379,25 @@ public class AuthController {
         
         try {
             // Kiểm tra xác thực
-            String authHeader = request.getHeader("Authorization");
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            if (!AuthFilter.hasBearerToken(request)) {
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 result.put("error", "Yêu cầu xác thực");
                 return result;
             }
             
-            // Lấy token từ header
-            String token = authHeader.substring(7);
-            
             try {
-                // Giải mã token để lấy thông tin người dùng
-                Integer userId = JwtUtil.getUserIdFromToken(token);
+                // Lấy người dùng đã được AuthFilter xác thực
+                AuthPrincipal principal = AuthFilter.getPrincipal(request);
                 
-                if (userId == null) {
+                if (principal == null) {
                     response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                     result.put("error", "Token không hợp lệ hoặc đã hết hạn");
                     return result;
                 }
+                int userId = principal.getUserId();
                 
-                // Lấy thông tin người dùng từ database
-                User user = authService.getUserById(userId);
+                // Lấy thông tin người dùng từ token nếu còn đúng phiên bản, nếu không thì từ database
+                User user = principal.hasProfile() ? principal.toUser() : authService.getUserById(userId);
                 
                 if (user != null) {
                     // Lấy số lượng đánh giá của người dùng
@@ -443,19 +455,15 @@ public class AuthController {
         
         try {
             // Kiểm tra xác thực
-            String authHeader = request.getHeader("Authorization");
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            if (!AuthFilter.hasBearerToken(request)) {
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 result.put("error", "Yêu cầu xác thực");
                 return result;
             }
             
-            // Lấy token từ header
-            String token = authHeader.substring(7);
-            
             try {
-                // Giải mã token để lấy thông tin người dùng
-                Integer userId = JwtUtil.getUserIdFromToken(token);
+                // Lấy người dùng đã được AuthFilter xác thực
+                Integer userId = AuthFilter.getUserId(request);
                 
                 if (userId == null) {
                     response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
@@ -497,12 +505,20 @@ public class AuthController {
                 if (success) {
                     result.put("success", true);
                     result.put("message", "Đổi mật khẩu thành công");
+                    // Token cũ mang phiên bản cũ, trả token mới để các yêu cầu sau không phải đọc bảng users
+                    User updatedUser = authService.getUserById(userId);
+                    if (updatedUser != null) {
+                        result.put("token", authService.generateToken(updatedUser));
+                    }
                     response.setStatus(HttpServletResponse.SC_OK);
                 } else {
                     response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                     result.put("error", "Mật khẩu hiện tại không đúng");
                 }
                 
+            } catch (PasswordHasher.BusyException e) {
+                setBusy(response, result);
+                return result;
             } catch (Exception e) {
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 result.put("error", "Token không hợp lệ hoặc đã hết hạn");
@@ -531,15 +547,13 @@ public class AuthController {
         
         try {
             // Kiểm tra xác thực
-            String authHeader = request.getHeader("Authorization");
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            if (!AuthFilter.hasBearerToken(request)) {
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 result.put("error", "Chưa đăng nhập");
                 return result;
             }
             
-            String token = authHeader.substring(7);
-            Integer userId = JwtUtil.getUserIdFromToken(token);
+            Integer userId = AuthFilter.getUserId(request);
             if (userId == null) {
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 result.put("error", "Token không hợp lệ");
@@ -594,11 +608,15 @@ public class AuthController {
                     "name", updatedUser.getName(),
                     "email", updatedUser.getEmail()
                 ));
+                // Token mới mang tên đã cập nhật
+                result.put("token", authService.generateToken(updatedUser));
             } else {
                 response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
                 result.put("error", "Không thể cập nhật thông tin");
             }
             
+        } catch (PasswordHasher.BusyException e) {
+            setBusy(response, result);
         } catch (Exception e) {
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             result.put("error", "Có lỗi xảy ra: " + e.getMessage());
@@ -609,17 +627,14 @@ public class AuthController {
     }
     
     /**
-     * Chuyển đổi đối tượng User thành DTO (Data Transfer Object)
+     * Trả về 503 khi pool mã hóa mật khẩu đang quá tải, để client thử lại thay vì chờ
      * 
-     * @param user Đối tượng User
-     * @return Map chứa thông tin người dùng
+     * @param response Phản hồi HTTP
+     * @param result Kết quả trả về
      */
-    private Map<String, Object> userToMap(User user) {
-        Map<String, Object> userDto = new HashMap<>();
-        userDto.put("id", user.getId());
-        userDto.put("name", user.getName());
-        userDto.put("email", user.getEmail());
-        userDto.put("avatar", user.getAvatar());
-        return userDto;
+    private void setBusy(HttpServletResponse response, Map<String, Object> result) {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader("Retry-After", "1");
+        result.put("error", "Hệ thống đang bận, vui lòng thử lại sau");
     }
 }
@@ -1,15 +1,15 @@
 package com.example.api.controller;
 
+import com.example.api.dto.LoginRequest;
+import com.example.api.dto.RegisterRequest;
+import com.example.api.json.JsonRequestReader;
+import com.example.api.json.JsonResponse;
+import com.example.api.json.RequestBodyException;
 import com.example.api.service.AuthService;
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 
 import jakarta.servlet.ServletException;
-import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.Map;
@@ -17,16 +17,14 @@ import java.util.Map;
 /**
  * Servlet xử lý các yêu cầu API liên quan đến xác thực người dùng
  */
-public class AuthServlet extends HttpServlet {
+public class AuthServlet extends AsyncHttpServlet {
     private static final long serialVersionUID = 1L;
     private AuthController authController;
-    private Gson gson;
     
     @Override
     public void init() throws ServletException {
         super.init();
         authController = new AuthController();
-        gson = new Gson();
     }
     
     @Override
@@ -37,31 +35,10 @@ public class AuthServlet extends HttpServlet {
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
         
-        // Đọc dữ liệu JSON từ request body
-        StringBuilder buffer = new StringBuilder();
-        BufferedReader reader = request.getReader();
-        String line;
-        while ((line = reader.readLine()) != null) {
-            buffer.append(line);
-        }
-        
-        // Parse JSON từ request body
-        JsonObject jsonRequest = null;
-        if (buffer.length() > 0) {
-            try {
-                jsonRequest = JsonParser.parseString(buffer.toString()).getAsJsonObject();
-            } catch (Exception e) {
-                // Không phải JSON hợp lệ
-                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-                sendJsonResponse(response, Map.of("error", "Invalid JSON format"));
-                return;
-            }
-        }
-        
         // Lấy đường dẫn URI
         String pathInfo = request.getPathInfo();
         
-        // Xử lý các endpoint khác nhau
+        // Xử lý các endpoint khác nhau, body JSON được đọc theo từng endpoint
         Map<String, Object> result;
         
         try {
@@ -69,25 +46,29 @@ public class AuthServlet extends HttpServlet {
                 response.setStatus(HttpServletResponse.SC_NOT_FOUND);
                 result = Map.of("error", "Endpoint không hợp lệ");
             } else if (pathInfo.equals("/register")) {
-                result = authController.register(jsonRequest, request, response);
+                result = authController.register(JsonRequestReader.read(request, RegisterRequest::new), request, response);
             } else if (pathInfo.equals("/login")) {
-                result = authController.login(jsonRequest, request, response);
+                result = authController.login(JsonRequestReader.read(request, LoginRequest::new), request, response);
             } else if (pathInfo.equals("/login-provider")) {
-                result = authController.loginWithProvider(jsonRequest, request, response);
+                result = authController.loginWithProvider(JsonRequestReader.readObject(request), request, response);
             } else if (pathInfo.equals("/forgot-password")) {
-                result = authController.forgotPassword(jsonRequest, request, response);
+                result = authController.forgotPassword(JsonRequestReader.readObject(request), request, response);
             } else if (pathInfo.equals("/reset-password")) {
-                result = authController.resetPassword(jsonRequest, request, response);
+                result = authController.resetPassword(JsonRequestReader.readObject(request), request, response);
             } else if (pathInfo.equals("/logout")) {
                 result = authController.logout(request, response);
             } else if (pathInfo.equals("/change-password")) {
-                result = authController.changePassword(jsonRequest, request, response);
+                result = authController.changePassword(JsonRequestReader.readObject(request), request, response);
             } else if (pathInfo.equals("/update-profile")) {
-                result = authController.updateProfile(jsonRequest, request, response);
+                result = authController.updateProfile(JsonRequestReader.readObject(request), request, response);
             } else {
                 response.setStatus(HttpServletResponse.SC_NOT_FOUND);
                 result = Map.of("error", "Endpoint không hợp lệ");
             }
+        } catch (RequestBodyException e) {
+            // Body quá lớn hoặc không phải JSON hợp lệ
+            response.setStatus(e.getStatus());
+            result = Map.of("error", e.getMessage());
         } catch (Exception e) {
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             result = Map.of("error", "Lỗi server: " + e.getMessage());
@@ -135,7 +116,7 @@ public class AuthServlet extends HttpServlet {
     
     private void sendJsonResponse(HttpServletResponse response, Map<String, Object> data) throws IOException {
         try (PrintWriter out = response.getWriter()) {
-            out.print(gson.toJson(data));
+            JsonResponse.write(out, data);
             out.flush();
         }
     }
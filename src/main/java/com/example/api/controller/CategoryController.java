@@ -1,12 +1,13 @@
 package com.example.api.controller;
 
 import com.example.api.dao.CategoryDAO;
+import com.example.api.dto.CategoryRequest;
+import com.example.api.filter.AuthFilter;
+import com.example.api.json.CategoryWriter;
+import com.example.api.json.JsonView;
+import com.example.api.model.AuthPrincipal;
 import com.example.api.model.Category;
-import com.example.api.model.User;
-import com.example.api.service.AuthService;
-import com.example.api.util.JwtUtil;
 import com.example.api.util.SlugUtil;
-import com.google.gson.JsonObject;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -21,13 +22,9 @@ import java.util.Map;
  */
 public class CategoryController {
     private CategoryDAO categoryDAO;
-    private AuthService authService;
-    private JwtUtil jwtUtil;
     
     public CategoryController() {
         this.categoryDAO = new CategoryDAO();
-        this.authService = new AuthService();
-        this.jwtUtil = new JwtUtil();
     }
     
     /**
@@ -37,10 +34,10 @@ public class CategoryController {
         Map<String, Object> result = new HashMap<>();
         
         List<Category> categories = categoryDAO.getAllCategories();
-        List<Map<String, Object>> categoriesData = new ArrayList<>();
+        List<JsonView> categoriesData = new ArrayList<>(categories.size());
         
         for (Category category : categories) {
-            categoriesData.add(categoryToMap(category));
+            categoriesData.add(CategoryWriter.summary(category));
         }
         
         result.put("categories", categoriesData);
@@ -56,7 +53,7 @@ public class CategoryController {
         Category category = categoryDAO.getCategoryById(categoryId);
         
         if (category != null) {
-            result.put("category", categoryToMap(category));
+            result.put("category", CategoryWriter.summary(category));
         } else {
             result.put("error", "Không tìm thấy danh mục");
             response.setStatus(HttpServletResponse.SC_NOT_FOUND);
@@ -68,7 +65,7 @@ public class CategoryController {
     /**
      * Thêm danh mục mới (chỉ admin)
      */
-    public Map<String, Object> addCategory(JsonObject jsonRequest, HttpServletRequest request, HttpServletResponse response) {
+    public Map<String, Object> addCategory(CategoryRequest categoryRequest, HttpServletRequest request, HttpServletResponse response) {
             Map<String, Object> result = new HashMap<>();
             
         try {
@@ -79,13 +76,16 @@ public class CategoryController {
                 return result;
             }
             
-            // Parse thông tin danh mục từ JSON
-            String name = jsonRequest.get("name").getAsString();
-            Integer parentId = null;
+            // Thông tin danh mục từ JSON
+            String name = categoryRequest != null ? categoryRequest.getName() : null;
+            if (name == null || name.trim().isEmpty()) {
+                result.put("error", "Vui lòng nhập tên danh mục");
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                return result;
+            }
+            Integer parentId = categoryRequest.getParentId();
             
-            if (jsonRequest.has("parent_id") && !jsonRequest.get("parent_id").isJsonNull()) {
-                parentId = jsonRequest.get("parent_id").getAsInt(); 
-                
+            if (parentId != null) {
                 // Kiểm tra danh mục cha có tồn tại không
                 if (!categoryDAO.isCategoryExists(parentId)) {
                     result.put("error", "Danh mục cha không tồn tại");
@@ -110,7 +110,7 @@ public class CategoryController {
                 category.setId(categoryId);
                 result.put("success", true);
                 result.put("message", "Thêm danh mục thành công");
-                result.put("category", categoryToMap(category));
+                result.put("category", CategoryWriter.summary(category));
                 response.setStatus(HttpServletResponse.SC_CREATED);
             } else {
                 result.put("error", "Không thể thêm danh mục");
@@ -127,7 +127,7 @@ public class CategoryController {
     /**
      * Cập nhật thông tin danh mục (chỉ admin)
      */
-    public Map<String, Object> updateCategory(int categoryId, JsonObject jsonRequest, HttpServletRequest request, HttpServletResponse response) {
+    public Map<String, Object> updateCategory(int categoryId, CategoryRequest categoryRequest, HttpServletRequest request, HttpServletResponse response) {
         Map<String, Object> result = new HashMap<>();
         
         try {
@@ -146,12 +146,16 @@ public class CategoryController {
                 return result;
             }
             
-            // Parse thông tin danh mục từ JSON
-            String name = jsonRequest.get("name").getAsString();
-            Integer parentId = null;
+            // Thông tin danh mục từ JSON
+            String name = categoryRequest != null ? categoryRequest.getName() : null;
+            if (name == null || name.trim().isEmpty()) {
+                result.put("error", "Vui lòng nhập tên danh mục");
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                return result;
+            }
+            Integer parentId = categoryRequest.getParentId();
             
-            if (jsonRequest.has("parent_id") && !jsonRequest.get("parent_id").isJsonNull()) {
-                parentId = jsonRequest.get("parent_id").getAsInt();
+            if (parentId != null) {
                 
                 // Kiểm tra danh mục cha có tồn tại không
                 if (!categoryDAO.isCategoryExists(parentId)) {
@@ -182,7 +186,7 @@ public class CategoryController {
             if (success) {
                 result.put("success", true);
                 result.put("message", "Cập nhật danh mục thành công");
-                result.put("category", categoryToMap(category));
+                result.put("category", CategoryWriter.summary(category));
             } else {
                 result.put("error", "Không thể cập nhật danh mục");
                 response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
@@ -242,60 +246,10 @@ public class CategoryController {
     }
     
     /**
-     * Chuyển đối tượng Category thành Map
-     */
-    private Map<String, Object> categoryToMap(Category category) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("id", category.getId());
-        map.put("name", category.getName());
-        map.put("slug", category.getSlug());
-        map.put("parent_id", category.getParentId());
-        map.put("created_at", category.getCreatedAt());
-        map.put("updated_at", category.getUpdatedAt());
-        return map;
-    }
-    
-    /**
-     * Kiểm tra người dùng có quyền admin không
+     * Kiểm tra người dùng có quyền admin không (vai trò do AuthFilter gắn vào request)
      */
     private boolean isAdmin(HttpServletRequest request, HttpServletResponse response) {
-        try {
-            // Lấy token từ request
-            String token = extractTokenFromRequest(request);
-            if (token == null) {
-                return false;
-            }
-            
-            // Lấy ID người dùng từ token
-            int userId = jwtUtil.getUserIdFromToken(token);
-            if (userId == -1) {
-                return false;
-            }
-            
-            // Lấy thông tin người dùng
-            User user = authService.getUserById(userId);
-            if (user == null) {
-                return false;
-            }
-            
-            // Kiểm tra quyền admin
-            System.out.println("User role: " + user.getRole());
-            return user.getRole() == User.Role.ADMIN;
-        } catch (Exception e) {
-            System.err.println("Lỗi khi kiểm tra quyền admin: " + e.getMessage());
-            e.printStackTrace();
-            return false;
-        }
-    }
-    
-    /**
-     * Lấy token từ request
-     */
-    private String extractTokenFromRequest(HttpServletRequest request) {
-        String authHeader = request.getHeader("Authorization");
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            return authHeader.substring(7);
-        }
-        return null;
+        AuthPrincipal principal = AuthFilter.getPrincipal(request);
+        return principal != null && principal.isAdmin();
     }
 }
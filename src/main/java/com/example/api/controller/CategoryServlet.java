@@ -1,18 +1,17 @@
 package com.example.api.controller;
 
+import com.example.api.dto.CategoryRequest;
+import com.example.api.json.JsonRequestReader;
+import com.example.api.json.JsonResponse;
+import com.example.api.json.RequestBodyException;
 import com.example.api.model.Category;
 import com.example.api.util.JwtUtil;
 import com.example.api.util.SlugUtil;
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 
 import jakarta.servlet.ServletException;
-import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.HashMap;
@@ -22,16 +21,14 @@ import java.util.Map;
 /**
  * Servlet xu1eed lu00fd cu00e1c request API cho danh mu1ee5c
  */
-public class CategoryServlet extends HttpServlet {
+public class CategoryServlet extends AsyncHttpServlet {
     private static final long serialVersionUID = 1L;
     private CategoryController categoryController;
-    private Gson gson;
     
     @Override
     public void init() throws ServletException {
         super.init();
         categoryController = new CategoryController();
-        gson = new Gson();
     }
     
     /**
@@ -72,7 +69,7 @@ public class CategoryServlet extends HttpServlet {
         
         // Tru1ea3 vu1ec1 ku1ebft quu1ea3 du01b0u1edbi du1ea1ng JSON
         try (PrintWriter out = response.getWriter()) {
-            out.print(gson.toJson(result));
+            JsonResponse.write(out, result);
             out.flush();
         }
     }
@@ -88,21 +85,29 @@ public class CategoryServlet extends HttpServlet {
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
         
-        // Parse JSON tu1eeb request body
-        JsonObject jsonRequest = parseJsonRequest(request);
         Map<String, Object> result;
         
-        if (jsonRequest != null) {
-            result = categoryController.addCategory(jsonRequest, request, response);
-        } else {
+        try {
+            // Đọc JSON từ request body
+            CategoryRequest categoryRequest = JsonRequestReader.read(request, CategoryRequest::new);
+            
+            if (categoryRequest != null) {
+                result = categoryController.addCategory(categoryRequest, request, response);
+            } else {
+                result = new HashMap<>();
+                result.put("error", "Du1eef liu1ec7u khu00f4ng hu1ee3p lu1ec7");
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            }
+        } catch (RequestBodyException e) {
+            // Body quá lớn hoặc không phải JSON hợp lệ
             result = new HashMap<>();
-            result.put("error", "Du1eef liu1ec7u khu00f4ng hu1ee3p lu1ec7");
-            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            result.put("error", e.getMessage());
+            response.setStatus(e.getStatus());
         }
         
         // Tru1ea3 vu1ec1 ku1ebft quu1ea3 du01b0u1edbi du1ea1ng JSON
         try (PrintWriter out = response.getWriter()) {
-            out.print(gson.toJson(result));
+            JsonResponse.write(out, result);
             out.flush();
         }
     }
@@ -128,11 +133,11 @@ public class CategoryServlet extends HttpServlet {
                 try {
                     int categoryId = Integer.parseInt(pathParts[1]);
                     
-                    // Parse JSON tu1eeb request body
-                    JsonObject jsonRequest = parseJsonRequest(request);
+                    // Đọc JSON từ request body
+                    CategoryRequest categoryRequest = JsonRequestReader.read(request, CategoryRequest::new);
                     
-                    if (jsonRequest != null) {
-                        result = categoryController.updateCategory(categoryId, jsonRequest, request, response);
+                    if (categoryRequest != null) {
+                        result = categoryController.updateCategory(categoryId, categoryRequest, request, response);
                     } else {
                         result.put("error", "Du1eef liu1ec7u khu00f4ng hu1ee3p lu1ec7");
                         response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
@@ -140,6 +145,10 @@ public class CategoryServlet extends HttpServlet {
                 } catch (NumberFormatException e) {
                     result.put("error", "ID danh mu1ee5c khu00f4ng hu1ee3p lu1ec7");
                     response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                } catch (RequestBodyException e) {
+                    // Body quá lớn hoặc không phải JSON hợp lệ
+                    result.put("error", e.getMessage());
+                    response.setStatus(e.getStatus());
                 }
             } else {
                 result.put("error", "URL khu00f4ng hu1ee3p lu1ec7");
@@ -152,7 +161,7 @@ public class CategoryServlet extends HttpServlet {
         
         // Tru1ea3 vu1ec1 ku1ebft quu1ea3 du01b0u1edbi du1ea1ng JSON
         try (PrintWriter out = response.getWriter()) {
-            out.print(gson.toJson(result));
+            JsonResponse.write(out, result);
             out.flush();
         }
     }
@@ -193,33 +202,8 @@ public class CategoryServlet extends HttpServlet {
         
         // Tru1ea3 vu1ec1 ku1ebft quu1ea3 du01b0u1edbi du1ea1ng JSON
         try (PrintWriter out = response.getWriter()) {
-            out.print(gson.toJson(result));
+            JsonResponse.write(out, result);
             out.flush();
         }
     }
-    
-    /**
-     * Parse JSON tu1eeb request body
-     */
-    private JsonObject parseJsonRequest(HttpServletRequest request) throws IOException {
-        StringBuilder buffer = new StringBuilder();
-        String line;
-        
-        try (BufferedReader reader = request.getReader()) {
-            while ((line = reader.readLine()) != null) {
-                buffer.append(line);
-            }
-        }
-        
-        String data = buffer.toString();
-        if (data.isEmpty()) {
-            return null;
-        }
-        
-        try {
-            return JsonParser.parseString(data).getAsJsonObject();
-        } catch (Exception e) {
-            return null;
-        }
-    }
 }
@@ -0,0 +1,292 @@
+package com.example.api.controller;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Phản hồi đưa cho phần xử lý chạy trên executor: khi container đã tự kết thúc yêu cầu bất đồng bộ
+ * (client ngắt kết nối, lỗi I/O), mọi thao tác ghi bị bỏ qua. Sau khi AsyncContext kết thúc, Tomcat
+ * tái sử dụng đối tượng request/response nên ghi muộn có thể lỗi hoặc lọt vào phản hồi của client khác.
+ */
+final class GuardedResponse extends HttpServletResponseWrapper {
+    private final AtomicBoolean closed;
+    private PrintWriter writer;
+    private ServletOutputStream outputStream;
+
+    /**
+     * @param response Phản hồi gốc
+     * @param closed Cờ được bật khi yêu cầu đã kết thúc
+     */
+    GuardedResponse(HttpServletResponse response, AtomicBoolean closed) {
+        super(response);
+        this.closed = closed;
+    }
+
+    @Override
+    public synchronized PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            writer = new PrintWriter(closed.get() ? Writer.nullWriter() : new GuardedWriter(super.getWriter()));
+        }
+        return writer;
+    }
+
+    @Override
+    public synchronized ServletOutputStream getOutputStream() throws IOException {
+        if (outputStream == null) {
+            outputStream = new GuardedOutputStream(closed.get() ? null : super.getOutputStream());
+        }
+        return outputStream;
+    }
+
+    @Override
+    public boolean isCommitted() {
+        return closed.get() || super.isCommitted();
+    }
+
+    @Override
+    public void setStatus(int sc) {
+        if (!closed.get()) {
+            super.setStatus(sc);
+        }
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+        if (!closed.get()) {
+            super.sendError(sc, msg);
+        }
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+        if (!closed.get()) {
+            super.sendError(sc);
+        }
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        if (!closed.get()) {
+            super.sendRedirect(location);
+        }
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if (!closed.get()) {
+            super.setHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if (!closed.get()) {
+            super.addHeader(name, value);
+        }
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        if (!closed.get()) {
+            super.setIntHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        if (!closed.get()) {
+            super.addIntHeader(name, value);
+        }
+    }
+
+    @Override
+    public void setDateHeader(String name, long date) {
+        if (!closed.get()) {
+            super.setDateHeader(name, date);
+        }
+    }
+
+    @Override
+    public void addDateHeader(String name, long date) {
+        if (!closed.get()) {
+            super.addDateHeader(name, date);
+        }
+    }
+
+    @Override
+    public void addCookie(Cookie cookie) {
+        if (!closed.get()) {
+            super.addCookie(cookie);
+        }
+    }
+
+    @Override
+    public void setContentType(String type) {
+        if (!closed.get()) {
+            super.setContentType(type);
+        }
+    }
+
+    @Override
+    public void setCharacterEncoding(String charset) {
+        if (!closed.get()) {
+            super.setCharacterEncoding(charset);
+        }
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        if (!closed.get()) {
+            super.setContentLength(len);
+        }
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        if (!closed.get()) {
+            super.setContentLengthLong(len);
+        }
+    }
+
+    @Override
+    public void setLocale(Locale loc) {
+        if (!closed.get()) {
+            super.setLocale(loc);
+        }
+    }
+
+    @Override
+    public void setBufferSize(int size) {
+        if (!closed.get()) {
+            super.setBufferSize(size);
+        }
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (!closed.get()) {
+            super.flushBuffer();
+        }
+    }
+
+    @Override
+    public void reset() {
+        if (!closed.get()) {
+            super.reset();
+        }
+    }
+
+    @Override
+    public void resetBuffer() {
+        if (!closed.get()) {
+            super.resetBuffer();
+        }
+    }
+
+    /**
+     * Writer bỏ qua dữ liệu khi yêu cầu đã kết thúc
+     */
+    private final class GuardedWriter extends Writer {
+        private final Writer out;
+
+        GuardedWriter(Writer out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            if (!closed.get()) {
+                out.write(cbuf, off, len);
+            }
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            if (!closed.get()) {
+                out.write(str, off, len);
+            }
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            if (!closed.get()) {
+                out.write(c);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (!closed.get()) {
+                out.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed.get()) {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Output stream bỏ qua dữ liệu khi yêu cầu đã kết thúc
+     */
+    private final class GuardedOutputStream extends ServletOutputStream {
+        // null khi yêu cầu đã kết thúc trước lần gọi getOutputStream đầu tiên
+        private final ServletOutputStream out;
+
+        GuardedOutputStream(ServletOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (out != null && !closed.get()) {
+                out.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (out != null && !closed.get()) {
+                out.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (out != null && !closed.get()) {
+                out.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (out != null && !closed.get()) {
+                out.close();
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            return out == null || closed.get() || out.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            if (out != null) {
+                out.setWriteListener(writeListener);
+            }
+        }
+    }
+}
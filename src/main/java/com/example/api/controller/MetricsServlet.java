@@ -0,0 +1,82 @@
+package com.example.api.controller;
+
+import com.example.api.cache.HelpfulVoteBuffer;
+import com.example.api.cache.ProductCache;
+import com.example.api.cache.ReviewSummaryCache;
+import com.example.api.cache.TokenRevocationStore;
+import com.example.api.cache.UserRoleCache;
+import com.example.api.cache.UserTokenVersionCache;
+import com.example.api.filter.AuthFilter;
+import com.example.api.json.JsonRequestReader;
+import com.example.api.json.JsonResponse;
+import com.example.api.model.AuthPrincipal;
+import com.example.api.search.ProductSearchIndex;
+import com.example.api.search.SuggestIndex;
+import com.example.api.service.PasswordHasher;
+import com.example.api.service.ProductRankingJob;
+import com.example.api.service.ReviewScoreJob;
+import com.example.api.util.AppConfig;
+import com.example.api.util.DatabaseUtil;
+import com.example.api.util.JwtUtil;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Servlet trả về các chỉ số vận hành của ứng dụng (pool kết nối, cache sản phẩm, chỉ mục tìm kiếm, ...).
+ * Chỉ admin được xem (chỉ số lộ cấu hình và tải của hệ thống), trừ khi tắt metrics.requireAdmin
+ */
+public class MetricsServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+    private static final boolean REQUIRE_ADMIN = AppConfig.getBoolean("metrics.requireAdmin", true);
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        // Thiết lập response type là JSON
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (REQUIRE_ADMIN) {
+            AuthPrincipal principal = AuthFilter.getPrincipal(request);
+            if (principal == null || !principal.isAdmin()) {
+                result.put("error", principal == null ? "Chưa đăng nhập" : "Bạn không có quyền thực hiện hành động này");
+                response.setStatus(principal == null ? HttpServletResponse.SC_UNAUTHORIZED
+                        : HttpServletResponse.SC_FORBIDDEN);
+                try (PrintWriter out = response.getWriter()) {
+                    JsonResponse.write(out, result);
+                }
+                return;
+            }
+        }
+        result.put("connectionPool", DatabaseUtil.getPoolStats());
+        result.put("productCache", ProductCache.getInstance().getStats());
+        result.put("reviewSummaryCache", ReviewSummaryCache.getInstance().getStats());
+        result.put("searchIndex", ProductSearchIndex.getInstance().getStats());
+        result.put("suggestIndex", SuggestIndex.getInstance().getStats());
+        result.put("helpfulVotes", HelpfulVoteBuffer.getInstance().getStats());
+        result.put("productRanking", ProductRankingJob.getInstance().getStats());
+        result.put("reviewHelpfulScore", ReviewScoreJob.getInstance().getStats());
+        result.put("jwtCache", JwtUtil.getCacheStats());
+        result.put("userRoleCache", UserRoleCache.getInstance().getStats());
+        result.put("userTokenVersionCache", UserTokenVersionCache.getInstance().getStats());
+        result.put("tokenRevocation", TokenRevocationStore.getInstance().getStats());
+        result.put("passwordHashing", PasswordHasher.getInstance().getStats());
+        result.put("requestExecutor", RequestExecutor.getInstance().getStats());
+        result.put("requestBody", JsonRequestReader.getStats());
+
+        try (PrintWriter out = response.getWriter()) {
+            JsonResponse.write(out, result);
+            out.flush();
+        }
+    }
+}
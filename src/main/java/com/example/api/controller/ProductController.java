@@ -1,14 +1,17 @@
 package com.example.api.controller;
 
+import com.example.api.filter.AuthFilter;
+import com.example.api.json.JsonView;
+import com.example.api.json.ProductWriter;
 import com.example.api.model.Product;
 import com.example.api.model.ProductSpecification;
+import com.example.api.model.ReviewSummary;
 import com.example.api.model.User;
 import com.example.api.service.ProductService;
 import com.example.api.service.AuthService;
 import com.example.api.dao.BookmarkDAO;
 import com.example.api.dao.CategoryDAO;
 import com.example.api.util.FileUploadUtil;
-import com.example.api.util.JwtUtil;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
@@ -22,8 +25,6 @@ import jakarta.servlet.http.Part;
 
 import java.io.IOException;
 import java.math.BigDecimal;
-import java.text.DecimalFormat;
-import java.text.NumberFormat;
 import java.util.*;
 
 /**
@@ -58,6 +59,10 @@ public class ProductController {
         String categorySlug = request.getParameter("category");
         String search = request.getParameter("search");
         String sort = request.getParameter("sort");
+        // searchMode: natural, boolean, like hoặc index (mặc định theo cấu hình search.mode)
+        String searchMode = request.getParameter("searchMode");
+        // include=details: trả về đầy đủ hình ảnh, thông số và trạng thái bookmark/đã đánh giá
+        boolean includeDetails = "details".equals(request.getParameter("include"));
         
         // Chuyển đổi category slug thành category ID nếu cần
         Integer categoryId = null;
@@ -67,8 +72,28 @@ public class ProductController {
             categoryId = 1;
         }
         
+        // Phân trang theo cursor nếu client gửi tham số cursor (rỗng cho trang đầu)
+        String cursor = request.getParameter("cursor");
+        if (cursor != null) {
+            Map<String, Object> result;
+            try {
+                result = productService.getProductsByCursor(limit, categoryId, search, searchMode, sort, cursor,
+                        request.getParameter("count"), includeDetails,
+                        includeDetails ? AuthFilter.getUserId(request) : null);
+            } catch (IllegalArgumentException e) {
+                result = new HashMap<>();
+                result.put("error", e.getMessage());
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                return result;
+            }
+            formatProductPrices(result);
+            response.setStatus(HttpServletResponse.SC_OK);
+            return result;
+        }
+        
         // Lấy danh sách sản phẩm
-        Map<String, Object> result = productService.getProducts(page, limit, categoryId, search, sort);
+        Map<String, Object> result = productService.getProducts(page, limit, categoryId, search, searchMode, sort,
+                includeDetails, includeDetails ? AuthFilter.getUserId(request) : null);
         
         // Định dạng giá tiền cho các sản phẩm
         formatProductPrices(result);
@@ -77,6 +102,62 @@ public class ProductController {
         return result;
     }
     
+    /**
+     * Xử lý yêu cầu gợi ý tìm kiếm theo tiền tố (typeahead)
+     * 
+     * @param request Yêu cầu HTTP (q: chuỗi đang gõ, limit: số gợi ý mỗi loại)
+     * @param response Phản hồi HTTP
+     * @return Kết quả xử lý dạng JSON
+     */
+    public Map<String, Object> suggest(HttpServletRequest request, HttpServletResponse response) {
+        String query = request.getParameter("q");
+        int limit = getIntParameter(request, "limit", 10);
+        
+        Map<String, Object> result = productService.suggest(query != null ? query : "", limit);
+        if (result == null) {
+            result = new HashMap<>();
+            result.put("error", "Gợi ý tìm kiếm đang được khởi tạo, vui lòng thử lại sau");
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return result;
+        }
+        
+        response.setStatus(HttpServletResponse.SC_OK);
+        return result;
+    }
+    
+    /**
+     * Xử lý yêu cầu lấy tóm tắt đánh giá của sản phẩm
+     * 
+     * @param request Yêu cầu HTTP
+     * @param response Phản hồi HTTP
+     * @param productId ID sản phẩm
+     * @return Kết quả xử lý dạng JSON
+     */
+    public Map<String, Object> getReviewSummary(HttpServletRequest request, HttpServletResponse response, int productId) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        
+        ReviewSummary summary = productService.getReviewSummary(productId);
+        if (summary == null) {
+            result.put("error", "Không tìm thấy sản phẩm");
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return result;
+        }
+        
+        // Số đánh giá theo mức sao, từ 5 sao xuống 1 sao
+        Map<String, Integer> histogram = new LinkedHashMap<>();
+        for (int star = 5; star >= 1; star--) {
+            histogram.put(String.valueOf(star), summary.getHistogram()[star - 1]);
+        }
+        
+        result.put("productId", summary.getProductId());
+        result.put("reviewCount", summary.getReviewCount());
+        result.put("averageRating", summary.getAverageRating());
+        result.put("histogram", histogram);
+        result.put("topReview", summary.getTopReview());
+        response.setStatus(HttpServletResponse.SC_OK);
+        return result;
+    }
+    
     /**
      * Xử lý yêu cầu lấy chi tiết sản phẩm
      * 
@@ -89,14 +170,14 @@ public class ProductController {
         Map<String, Object> result = new HashMap<>();
         
         // Lấy ID người dùng từ token nếu có
-        Integer userId = getUserIdFromToken(request);
+        Integer userId = AuthFilter.getUserId(request);
         
         // Lấy thông tin sản phẩm
         Product product = productService.getProductById(productId, userId);
         
         if (product != null) {
-            // Chuyển đổi Product thành Map
-            result.put("product", productToMap(product));
+            // Dạng hiển thị của sản phẩm
+            result.put("product", ProductWriter.summary(product));
             response.setStatus(HttpServletResponse.SC_OK);
         } else {
             result.put("error", "Không tìm thấy sản phẩm");
@@ -118,7 +199,7 @@ public class ProductController {
         
         try {
             // Kiểm tra xác thực
-            Integer userId = getUserIdFromToken(request);
+            Integer userId = AuthFilter.getUserId(request);
             if (userId == null) {
                 result.put("error", "Yêu cầu xác thực");
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
@@ -239,7 +320,7 @@ public class ProductController {
             }
             
             // Kiểm tra xác thực
-            Integer userId = getUserIdFromToken(request);
+            Integer userId = AuthFilter.getUserId(request);
             if (userId == null) {
                 result.put("error", "Yêu cầu xác thực");
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
@@ -338,7 +419,7 @@ public class ProductController {
         
         try {
             // Kiểm tra xác thực
-            Integer userId = getUserIdFromToken(request);
+            Integer userId = AuthFilter.getUserId(request);
             if (userId == null) {
                 result.put("error", "Yêu cầu xác thực");
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
@@ -471,7 +552,7 @@ public class ProductController {
         
         try {
             // Kiểm tra xác thực
-            Integer userId = getUserIdFromToken(request);
+            Integer userId = AuthFilter.getUserId(request);
             if (userId == null) {
                 result.put("error", "Yêu cầu xác thực");
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
@@ -533,26 +614,6 @@ public class ProductController {
         return defaultValue;
     }
     
-    /**
-     * Lấy ID người dùng từ token JWT
-     * 
-     * @param request Yêu cầu HTTP
-     * @return ID người dùng hoặc null nếu không có token hợp lệ
-     */
-    private Integer getUserIdFromToken(HttpServletRequest request) {
-        String authHeader = request.getHeader("Authorization");
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            try {
-                String token = authHeader.substring(7);
-                return JwtUtil.getUserIdFromToken(token);
-            } catch (Exception e) {
-                // Token không hợp lệ
-                return null;
-            }
-        }
-        return null;
-    }
-    
     /**
      * Định dạng giá tiền cho các sản phẩm
      * 
@@ -562,61 +623,22 @@ public class ProductController {
     private void formatProductPrices(Map<String, Object> result) {
         if (result.containsKey("products")) {
             List<Product> products = (List<Product>) result.get("products");
-            List<Map<String, Object>> formattedProducts = new ArrayList<>();
-            NumberFormat formatter = new DecimalFormat("#,###.##");
+            List<JsonView> formattedProducts = new ArrayList<>(products.size());
             
             for (Product product : products) {
-                Map<String, Object> productMap = productToMap(product);
-                formattedProducts.add(productMap);
+                formattedProducts.add(ProductWriter.summary(product));
             }
             
             result.put("products", formattedProducts);
         }
     }
     
-    /**
-     * Chuyển đổi đối tượng Product thành Map
-     * 
-     * @param product Đối tượng Product
-     * @return Map chứa thông tin sản phẩm
-     */
-    private Map<String, Object> productToMap(Product product) {
-        Map<String, Object> result = new HashMap<>();
-        result.put("id", product.getId());
-        result.put("name", product.getName());
-        result.put("description", product.getDescription());
-        result.put("category", product.getCategoryName());
-        result.put("rating", product.getRating());
-        result.put("reviewCount", product.getReviewCount());
-        result.put("isReviewed", product.isReviewed());
-        
-        // Định dạng giá tiền
-        NumberFormat formatter = new DecimalFormat("#,###.##");
-        result.put("price", formatter.format(product.getPrice()) + " ₫");
-        
-        // Thêm hình ảnh
-        result.put("images", product.getImages());
-        
-        // Thêm thông số kỹ thuật
-        List<String> specs = new ArrayList<>();
-        if (product.getSpecifications() != null) {
-            for (ProductSpecification spec : product.getSpecifications()) {
-                specs.add(spec.getName() + ": " + spec.getValue());
-            }
-        }
-        result.put("specs", specs);
-        
-        // Thêm trạng thái bookmark
-        result.put("isBookmarked", product.isBookmarked());
-        
-        return result;
-    }
     /**
      * Đánh dấu bookmark vào sản phẩm
      */
     public Map<String, Object> addBookmark(int productId, HttpServletRequest request, HttpServletResponse response) {
         System.out.println("Starting addBookmark process...");
-        Integer userId = getUserIdFromToken(request);
+        Integer userId = AuthFilter.getUserId(request);
         Map<String, Object> result = new HashMap<>();
         if (userId == null) {
             System.out.println("User ID not found. Authentication required.");
@@ -660,16 +682,13 @@ public class ProductController {
         
         try {
             // Kiểm tra xác thực
-            String authHeader = request.getHeader("Authorization");
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            if (!AuthFilter.hasBearerToken(request)) {
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 result.put("error", "Chưa đăng nhập");
                 return result;
             }
             
-            // Lấy token và userId
-            String token = authHeader.substring(7);
-            Integer userId = JwtUtil.getUserIdFromToken(token);
+            Integer userId = AuthFilter.getUserId(request);
             if (userId == null) {
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 result.put("error", "Token không hợp lệ");
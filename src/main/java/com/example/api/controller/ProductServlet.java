@@ -1,16 +1,15 @@
 package com.example.api.controller;
 
-import com.google.gson.Gson;
+import com.example.api.json.JsonRequestReader;
+import com.example.api.json.JsonResponse;
+import com.example.api.json.RequestBodyException;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.MultipartConfig;
-import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.Map;
@@ -21,16 +20,14 @@ import java.util.regex.Pattern;
  * Servlet xử lý các yêu cầu API liên quan đến sản phẩm
  */
 @MultipartConfig(fileSizeThreshold = 1024 * 1024, maxFileSize = 1024 * 1024 * 5, maxRequestSize = 1024 * 1024 * 10)
-public class ProductServlet extends HttpServlet {
+public class ProductServlet extends AsyncHttpServlet {
     private static final long serialVersionUID = 1L;
     private ProductController productController;
-    private Gson gson;
 
     @Override
     public void init() throws ServletException {
         super.init();
         productController = new ProductController();
-        gson = new Gson();
     }
 
     @Override
@@ -60,6 +57,13 @@ public class ProductServlet extends HttpServlet {
             return;
         }
 
+        // Gợi ý tìm kiếm theo tiền tố
+        if (pathInfo != null && pathInfo.equals("/suggest")) {
+            Map<String, Object> result = productController.suggest(request, response);
+            sendJsonResponse(response, result);
+            return;
+        }
+
         // Xử lý các endpoint khác nhau
         Map<String, Object> result;
 
@@ -67,6 +71,10 @@ public class ProductServlet extends HttpServlet {
             if (pathInfo == null || pathInfo.equals("/")) {
                 // Lấy danh sách sản phẩm
                 result = productController.getProducts(request, response);
+            } else if (pathInfo.matches("^/\\d+/review-summary$")) {
+                // Tóm tắt đánh giá của sản phẩm
+                int productId = Integer.parseInt(pathInfo.split("/")[1]);
+                result = productController.getReviewSummary(request, response, productId);
             } else {
                 // Lấy chi tiết sản phẩm theo ID
                 try {
@@ -120,7 +128,7 @@ public class ProductServlet extends HttpServlet {
                 System.out.println("productId: " + productId);
                 Map<String, Object> result = productController.addBookmark(productId, request, response);
                 try (PrintWriter out = response.getWriter()) {
-                    out.print(gson.toJson(result));
+                    JsonResponse.write(out, result);
                     out.flush();
                 }
             }
@@ -133,12 +141,16 @@ public class ProductServlet extends HttpServlet {
         try {
             if (contentType != null && contentType.startsWith("application/json")) {
                 // Xử lý yêu cầu JSON
-                JsonObject jsonRequest = parseJsonRequest(request);
+                JsonObject jsonRequest = JsonRequestReader.readObject(request);
                 result = productController.addProductJson(jsonRequest, request, response);
             } else {
                 // Xử lý yêu cầu multipart/form-data
                 result = productController.addProduct(request, response);
             }
+        } catch (RequestBodyException e) {
+            // Body quá lớn hoặc không phải JSON hợp lệ
+            response.setStatus(e.getStatus());
+            result = Map.of("error", e.getMessage());
         } catch (Exception e) {
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             result = Map.of("error", "Lỗi server: " + e.getMessage());
@@ -237,34 +249,9 @@ public class ProductServlet extends HttpServlet {
         sendJsonResponse(response, result);
     }
 
-    /**
-     * Phân tích dữ liệu JSON từ request
-     * 
-     * @param request Yêu cầu HTTP
-     * @return Đối tượng JsonObject
-     * @throws IOException nếu có lỗi khi đọc dữ liệu
-     */
-    private JsonObject parseJsonRequest(HttpServletRequest request) throws IOException {
-        StringBuilder sb = new StringBuilder();
-        String line;
-
-        try (BufferedReader reader = request.getReader()) {
-            while ((line = reader.readLine()) != null) {
-                sb.append(line);
-            }
-        }
-
-        String requestBody = sb.toString();
-        if (requestBody.isEmpty()) {
-            return null;
-        }
-
-        return JsonParser.parseString(requestBody).getAsJsonObject();
-    }
-
     private void sendJsonResponse(HttpServletResponse response, Map<String, Object> data) throws IOException {
         try (PrintWriter out = response.getWriter()) {
-            out.print(gson.toJson(data));
+            JsonResponse.write(out, data);
             out.flush();
         }
     }
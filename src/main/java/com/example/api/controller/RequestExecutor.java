@@ -0,0 +1,403 @@
+package com.example.api.controller;
+
+import com.example.api.util.AppConfig;
+import com.example.api.util.DatabaseUtil;
+import com.example.api.util.RequestDeadline;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Chế độ xử lý yêu cầu bất đồng bộ (tùy chọn): servlet chuyển phần việc của controller sang
+ * virtual thread (JDK 21+) qua async servlet, luồng của Tomcat được trả lại ngay để nhận yêu cầu khác.
+ *
+ * JDBC vẫn là blocking nên số yêu cầu thực sự chạy cùng lúc bị giới hạn theo pool kết nối
+ * (request.async.maxConcurrent, mặc định gấp đôi db.pool.maxSize để các yêu cầu trúng cache không phải
+ * chờ). Yêu cầu vượt quá chờ trên semaphore (virtual thread chờ không tốn luồng hệ điều hành); khi có hơn
+ * request.async.maxWaiting yêu cầu chờ hoặc chờ quá request.async.admissionTimeoutMs, trả về 503 ngay
+ * thay vì để hàng nghìn luồng cùng chờ ConnectionPool rồi lỗi sau db.pool.borrowTimeoutMs.
+ *
+ * Trên JDK chưa có virtual thread, request.async.executor=virtual dùng pool luồng thường có giới hạn.
+ * Phương thức tạo virtual thread được lấy qua reflection để mã nguồn vẫn biên dịch với Java 11.
+ *
+ * Mỗi servlet là một route có thể đặt giới hạn riêng (request.async.route.{tên servlet}.maxConcurrent)
+ * để một nhóm API chậm, ví dụ danh sách sản phẩm, không chiếm hết suất của các API khác. Hạn chót
+ * request.async.timeoutMs (hoặc request.async.route.{tên servlet}.timeoutMs) được đặt vào RequestDeadline,
+ * áp dụng cả khi tắt chế độ bất đồng bộ: truy vấn đang chạy bị hủy qua Statement.setQueryTimeout khi hết hạn.
+ *
+ * Chỉ luồng xử lý mới kết thúc AsyncContext của yêu cầu đã bắt đầu xử lý: timeout của container bị tắt vì
+ * khi hết giờ Tomcat tự trả lỗi và tái sử dụng request/response trong khi phần xử lý có thể vẫn đang ghi.
+ * Yêu cầu quá hạn khi còn chờ suất xử lý nhận 503; yêu cầu đang xử lý dừng lại nhờ hạn chót bên trong
+ * (kết nối, truy vấn, mã hóa mật khẩu). Nếu container vẫn tự kết thúc yêu cầu (client ngắt kết nối),
+ * phần xử lý ghi vào GuardedResponse và mọi thao tác ghi sau đó bị bỏ qua.
+ *
+ * Cấu hình: request.async.enabled, request.async.executor (virtual | platform),
+ * request.async.platformThreads, request.async.maxConcurrent, request.async.maxWaiting,
+ * request.async.admissionTimeoutMs, request.async.timeoutMs, request.async.retryAfterSeconds,
+ * request.async.route.{tên servlet}.maxConcurrent, request.async.route.{tên servlet}.timeoutMs
+ */
+public class RequestExecutor {
+    private static final Logger LOGGER = Logger.getLogger(RequestExecutor.class.getName());
+    private static final RequestExecutor INSTANCE = new RequestExecutor();
+
+    private final boolean enabled;
+    private final String mode;
+    private final int platformThreads;
+    private final int configuredMaxConcurrent;
+    private final int maxWaiting;
+    private final long admissionTimeoutMs;
+    private final long timeoutMs;
+    private final int retryAfterSeconds;
+    private final Map<String, Route> routes = new ConcurrentHashMap<>();
+
+    private volatile ExecutorService executor;
+    private volatile Semaphore permits;
+    private volatile int maxConcurrent;
+    private volatile boolean virtualThreads;
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    // Thống kê
+    private final AtomicLong dispatched = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong maxWaitingSeen = new AtomicLong();
+
+    /**
+     * Phần xử lý của servlet chạy trên luồng của executor
+     */
+    public interface Handler {
+        /**
+         * @param request Yêu cầu HTTP
+         * @param response Phản hồi HTTP (GuardedResponse ở chế độ bất đồng bộ), chỉ ghi qua đối tượng này
+         */
+        void handle(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException;
+    }
+
+    private RequestExecutor() {
+        this.enabled = AppConfig.getBoolean("request.async.enabled", false);
+        this.mode = AppConfig.get("request.async.executor", "virtual");
+        this.platformThreads = Math.max(1, AppConfig.getInt("request.async.platformThreads", 200));
+        this.configuredMaxConcurrent = AppConfig.getInt("request.async.maxConcurrent", 0);
+        this.maxWaiting = Math.max(0, AppConfig.getInt("request.async.maxWaiting", 1000));
+        this.admissionTimeoutMs = AppConfig.getLong("request.async.admissionTimeoutMs", 1000);
+        this.timeoutMs = AppConfig.getLong("request.async.timeoutMs", 0);
+        this.retryAfterSeconds = Math.max(1, AppConfig.getInt("request.async.retryAfterSeconds", 1));
+    }
+
+    public static RequestExecutor getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Tạo executor (nếu bật chế độ bất đồng bộ)
+     */
+    public synchronized void start() {
+        if (!enabled || executor != null) {
+            return;
+        }
+        maxConcurrent = configuredMaxConcurrent > 0 ? configuredMaxConcurrent : 2 * DatabaseUtil.getPoolMaxSize();
+        permits = new Semaphore(maxConcurrent, true);
+
+        ExecutorService created = "virtual".equals(mode) ? newVirtualThreadExecutor() : null;
+        virtualThreads = created != null;
+        if (created == null) {
+            AtomicInteger counter = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(platformThreads, platformThreads, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, maxWaiting)), r -> {
+                        Thread thread = new Thread(r, "request-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }, new ThreadPoolExecutor.AbortPolicy());
+            pool.allowCoreThreadTimeOut(true);
+            created = pool;
+        }
+        executor = created;
+        LOGGER.info("Xử lý yêu cầu bất đồng bộ: " + (virtualThreads ? "virtual thread" : platformThreads + " luồng")
+                + ", tối đa " + maxConcurrent + " yêu cầu đồng thời");
+    }
+
+    /**
+     * Dừng nhận yêu cầu mới và chờ các yêu cầu đang xử lý
+     */
+    public synchronized void stop() {
+        ExecutorService current = executor;
+        if (current == null) {
+            return;
+        }
+        executor = null;
+        current.shutdown();
+        try {
+            if (!current.awaitTermination(10, TimeUnit.SECONDS)) {
+                current.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            current.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Chạy phần xử lý của servlet: trên executor nếu chế độ bất đồng bộ đang bật, ngược lại chạy
+     * ngay trên luồng hiện tại. Yêu cầu được chuyển tiếp (forward) hoặc đã ở chế độ async chạy tại chỗ.
+     *
+     * @param routeName Tên route (tên servlet)
+     * @param request Yêu cầu HTTP
+     * @param response Phản hồi HTTP
+     * @param handler Phần xử lý
+     */
+    public void execute(String routeName, HttpServletRequest request, HttpServletResponse response, Handler handler)
+            throws ServletException, IOException {
+        Route route = routes.computeIfAbsent(routeName, this::createRoute);
+        ExecutorService current = executor;
+        if (current == null || !request.isAsyncSupported() || request.isAsyncStarted()
+                || request.getDispatcherType() != DispatcherType.REQUEST) {
+            boolean owner = RequestDeadline.start(route.timeoutMs);
+            try {
+                handler.handle(request, response);
+            } finally {
+                if (owner) {
+                    RequestDeadline.clear();
+                }
+            }
+            return;
+        }
+
+        long acceptedAt = System.currentTimeMillis();
+        AsyncContext async = request.startAsync(request, response);
+        // Không dùng timeout của container, hạn chót được áp dụng trong run()
+        async.setTimeout(0);
+        // Bật khi yêu cầu đã hoặc sắp kết thúc; sau đó không ghi gì vào phản hồi nữa
+        AtomicBoolean completed = new AtomicBoolean();
+        async.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                // Không xảy ra vì timeout = 0
+            }
+
+            @Override
+            public void onComplete(AsyncEvent event) {
+                completed.set(true);
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                // Container sẽ tự kết thúc yêu cầu, phần xử lý còn chạy không được ghi nữa
+                completed.set(true);
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+                // Không cần xử lý gì
+            }
+        });
+
+        try {
+            current.execute(() -> run(route, acceptedAt, async, request, response, handler, completed));
+            dispatched.incrementAndGet();
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            route.rejected.incrementAndGet();
+            if (completed.compareAndSet(false, true)) {
+                sendBusy(response, "Hệ thống đang bận, vui lòng thử lại sau");
+                async.complete();
+            }
+        }
+    }
+
+    /**
+     * Thống kê chế độ xử lý bất đồng bộ
+     *
+     * @return Map các chỉ số
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Semaphore current = permits;
+        stats.put("enabled", executor != null);
+        stats.put("virtualThreads", virtualThreads);
+        stats.put("maxConcurrent", maxConcurrent);
+        stats.put("inFlight", current != null ? maxConcurrent - current.availablePermits() : 0);
+        stats.put("waiting", waiting.get());
+        stats.put("maxWaitingSeen", maxWaitingSeen.get());
+        stats.put("dispatched", dispatched.get());
+        stats.put("rejected", rejected.get());
+        stats.put("timedOut", timedOut.get());
+        stats.put("failed", failed.get());
+        stats.put("deadlineExpired", RequestDeadline.getExpiredCount());
+        Map<String, Object> routeStats = new LinkedHashMap<>();
+        for (Route route : routes.values()) {
+            routeStats.put(route.name, route.getStats());
+        }
+        stats.put("routes", routeStats);
+        return stats;
+    }
+
+    private void run(Route route, long acceptedAt, AsyncContext async, HttpServletRequest request,
+                     HttpServletResponse response, Handler handler, AtomicBoolean completed) {
+        boolean routeAcquired = false;
+        boolean acquired = false;
+        boolean deadlineOwner = false;
+        try {
+            int queued = waiting.incrementAndGet();
+            try {
+                maxWaitingSeen.accumulateAndGet(queued, Math::max);
+                if (queued <= maxWaiting) {
+                    long admissionDeadline = acceptedAt + admissionTimeoutMs;
+                    routeAcquired = route.tryAcquire(admissionTimeoutMs);
+                    acquired = routeAcquired && permits.tryAcquire(
+                            Math.max(0, admissionDeadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                }
+            } finally {
+                waiting.decrementAndGet();
+            }
+            if (!acquired) {
+                rejected.incrementAndGet();
+                route.rejected.incrementAndGet();
+                if (completed.compareAndSet(false, true)) {
+                    sendBusy(response, "Hệ thống đang bận, vui lòng thử lại sau");
+                    async.complete();
+                }
+                return;
+            }
+            // Hạn chót tính từ lúc nhận yêu cầu, gồm cả thời gian chờ suất xử lý
+            long elapsed = System.currentTimeMillis() - acceptedAt;
+            if (route.timeoutMs > 0 && elapsed >= route.timeoutMs) {
+                timedOut.incrementAndGet();
+                route.timedOut.incrementAndGet();
+                if (completed.compareAndSet(false, true)) {
+                    sendBusy(response, "Yêu cầu xử lý quá lâu, vui lòng thử lại sau");
+                    async.complete();
+                }
+                return;
+            }
+            if (!completed.get()) {
+                deadlineOwner = RequestDeadline.start(route.timeoutMs > 0 ? route.timeoutMs - elapsed : 0);
+                handler.handle(request, new GuardedResponse(response, completed));
+                if (route.timeoutMs > 0 && System.currentTimeMillis() - acceptedAt > route.timeoutMs) {
+                    // Phần xử lý kết thúc sau hạn chót (phản hồi vẫn do luồng này gửi)
+                    timedOut.incrementAndGet();
+                    route.timedOut.incrementAndGet();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            LOGGER.log(Level.SEVERE, "Lỗi khi xử lý yêu cầu bất đồng bộ: " + e.getMessage(), e);
+            if (!completed.get() && !response.isCommitted()) {
+                response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            }
+        } finally {
+            if (deadlineOwner) {
+                RequestDeadline.clear();
+            }
+            if (acquired) {
+                permits.release();
+            }
+            if (routeAcquired) {
+                route.release();
+            }
+            if (completed.compareAndSet(false, true)) {
+                async.complete();
+            }
+        }
+    }
+
+    private void sendBusy(HttpServletResponse response, String message) {
+        try {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+            response.setContentType("application/json");
+            response.setCharacterEncoding("UTF-8");
+            PrintWriter out = response.getWriter();
+            out.print("{\"error\":\"" + message + "\"}");
+            out.flush();
+        } catch (IOException | IllegalStateException e) {
+            // Client đã ngắt kết nối hoặc phản hồi đã được gửi
+        }
+    }
+
+    private Route createRoute(String name) {
+        String prefix = "request.async.route." + name + ".";
+        return new Route(name, AppConfig.getInt(prefix + "maxConcurrent", 0),
+                AppConfig.getLong(prefix + "timeoutMs", timeoutMs));
+    }
+
+    /**
+     * Giới hạn và thống kê của một route
+     */
+    private static final class Route {
+        private final String name;
+        private final int maxConcurrent;
+        private final long timeoutMs;
+        // null = không giới hạn riêng, chỉ dùng giới hạn chung
+        private final Semaphore permits;
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong timedOut = new AtomicLong();
+
+        Route(String name, int maxConcurrent, long timeoutMs) {
+            this.name = name;
+            this.maxConcurrent = maxConcurrent;
+            this.timeoutMs = timeoutMs;
+            this.permits = maxConcurrent > 0 ? new Semaphore(maxConcurrent, true) : null;
+        }
+
+        boolean tryAcquire(long timeoutMs) throws InterruptedException {
+            return permits == null || permits.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS);
+        }
+
+        void release() {
+            if (permits != null) {
+                permits.release();
+            }
+        }
+
+        Map<String, Object> getStats() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("maxConcurrent", maxConcurrent);
+            stats.put("inFlight", permits != null ? maxConcurrent - permits.availablePermits() : null);
+            stats.put("timeoutMs", timeoutMs);
+            stats.put("rejected", rejected.get());
+            stats.put("timedOut", timedOut.get());
+            return stats;
+        }
+    }
+
+    /**
+     * Tạo executor mỗi yêu cầu một virtual thread (Executors.newVirtualThreadPerTaskExecutor, JDK 21+)
+     *
+     * @return Executor, hoặc null nếu JDK hiện tại không hỗ trợ
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            LOGGER.warning("JDK " + System.getProperty("java.version")
+                    + " không hỗ trợ virtual thread, dùng pool luồng thường");
+            return null;
+        }
+    }
+}
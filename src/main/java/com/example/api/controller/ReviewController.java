@@ -1,10 +1,11 @@
 package com.example.api.controller;
 
 import com.example.api.dao.ReviewDAO;
+import com.example.api.dto.ReviewRequest;
+import com.example.api.filter.AuthFilter;
 import com.example.api.model.Review;
 import com.example.api.model.User;
 import com.example.api.service.AuthService;
-import com.example.api.util.JwtUtil;
 import com.google.gson.JsonObject;
 
 import io.jsonwebtoken.Claims;
@@ -44,16 +45,7 @@ public class ReviewController {
         
         try {
             // Kiểm tra xác thực
-            Integer userId = null;
-            String authHeader = request.getHeader("Authorization");
-            if (authHeader != null && authHeader.startsWith("Bearer ")) {
-                String token = authHeader.substring(7);
-                try {
-                    userId = JwtUtil.getUserIdFromToken(token);
-                } catch (Exception e) {
-                    // Token không hợp lệ
-                }
-            }
+            Integer userId = AuthFilter.getUserId(request);
             
             // Lấy danh sách đánh giá
             result = reviewDAO.getProductReviews(productId, page, limit, sort, userId);
@@ -68,30 +60,62 @@ public class ReviewController {
         return result;
     }
     
+    /**
+     * Lấy danh sách đánh giá của sản phẩm theo cursor (phân trang keyset)
+     * 
+     * @param productId ID sản phẩm
+     * @param limit Số lượng mỗi trang
+     * @param sort Cách sắp xếp
+     * @param cursor Cursor của trang trước (rỗng cho trang đầu)
+     * @param request Yêu cầu HTTP
+     * @param response Phản hồi HTTP
+     * @return Kết quả xử lý dạng JSON
+     */
+    public Map<String, Object> getProductReviewsByCursor(int productId, int limit, String sort, String cursor,
+                                                        HttpServletRequest request, HttpServletResponse response) {
+        Map<String, Object> result = new HashMap<>();
+        
+        try {
+            // Kiểm tra xác thực
+            Integer userId = AuthFilter.getUserId(request);
+            
+            result = reviewDAO.getProductReviewsByCursor(productId, limit, sort, cursor, userId);
+            response.setStatus(HttpServletResponse.SC_OK);
+            
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            result.put("error", e.getMessage());
+        } catch (Exception e) {
+            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            result.put("error", "Có lỗi xảy ra: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return result;
+    }
+    
     /**
      * Thêm đánh giá mới
      * 
      * @param productId ID sản phẩm
-     * @param jsonRequest Dữ liệu JSON từ request body
+     * @param reviewRequest Dữ liệu đánh giá từ request body
      * @param request Yêu cầu HTTP
      * @param response Phản hồi HTTP
      * @return Kết quả xử lý dạng JSON
      */
-    public Map<String, Object> addReview(int productId, JsonObject jsonRequest, 
+    public Map<String, Object> addReview(int productId, ReviewRequest reviewRequest, 
                                         HttpServletRequest request, HttpServletResponse response) {
         Map<String, Object> result = new HashMap<>();
         
         try {
             // Kiểm tra xác thực
-            String authHeader = request.getHeader("Authorization");
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            if (!AuthFilter.hasBearerToken(request)) {
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 result.put("error", "Chưa đăng nhập");
                 return result;
             }
             
-            String token = authHeader.substring(7);
-            Integer userId = JwtUtil.getUserIdFromToken(token);
+            Integer userId = AuthFilter.getUserId(request);
             if (userId == null) {
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 result.put("error", "Token không hợp lệ");
@@ -99,14 +123,14 @@ public class ReviewController {
             }
             
             // Kiểm tra dữ liệu đầu vào
-            if (jsonRequest == null) {
+            if (reviewRequest == null) {
                 response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                 result.put("error", "Vui lòng cung cấp dữ liệu đánh giá");
                 return result;
             }
             
-            Integer rating = jsonRequest.has("rating") ? jsonRequest.get("rating").getAsInt() : null;
-            String content = jsonRequest.has("content") ? jsonRequest.get("content").getAsString() : null;
+            Integer rating = reviewRequest.getRating();
+            String content = reviewRequest.getContent();
             
             if (rating == null || content == null || content.trim().isEmpty()) {
                 response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
@@ -166,26 +190,24 @@ public class ReviewController {
      * Cập nhật đánh giá
      * 
      * @param reviewId ID đánh giá
-     * @param jsonRequest Dữ liệu JSON từ request body
+     * @param reviewRequest Dữ liệu đánh giá từ request body
      * @param request Yêu cầu HTTP
      * @param response Phản hồi HTTP
      * @return Kết quả xử lý dạng JSON
      */
-    public Map<String, Object> updateReview(int reviewId, JsonObject jsonRequest, 
+    public Map<String, Object> updateReview(int reviewId, ReviewRequest reviewRequest, 
                                            HttpServletRequest request, HttpServletResponse response) {
         Map<String, Object> result = new HashMap<>();
         
         try {
             // Kiểm tra xác thực
-            String authHeader = request.getHeader("Authorization");
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            if (!AuthFilter.hasBearerToken(request)) {
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 result.put("error", "Chưa đăng nhập");
                 return result;
             }
             
-            String token = authHeader.substring(7);
-            Integer userId = JwtUtil.getUserIdFromToken(token);
+            Integer userId = AuthFilter.getUserId(request);
             if (userId == null) {
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 result.put("error", "Token không hợp lệ");
@@ -193,14 +215,14 @@ public class ReviewController {
             }
             
             // Kiểm tra dữ liệu đầu vào
-            if (jsonRequest == null) {
+            if (reviewRequest == null) {
                 response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                 result.put("error", "Vui lòng cung cấp dữ liệu đánh giá");
                 return result;
             }
             
-            Integer rating = jsonRequest.has("rating") ? jsonRequest.get("rating").getAsInt() : null;
-            String content = jsonRequest.has("content") ? jsonRequest.get("content").getAsString() : null;
+            Integer rating = reviewRequest.getRating();
+            String content = reviewRequest.getContent();
             
             if (rating == null || content == null || content.trim().isEmpty()) {
                 response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
@@ -258,15 +280,13 @@ public class ReviewController {
         
         try {
             // Kiểm tra xác thực
-            String authHeader = request.getHeader("Authorization");
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            if (!AuthFilter.hasBearerToken(request)) {
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 result.put("error", "Chưa đăng nhập");
                 return result;
             }
             
-            String token = authHeader.substring(7);
-            Integer userId = JwtUtil.getUserIdFromToken(token);
+            Integer userId = AuthFilter.getUserId(request);
             if (userId == null) {
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 result.put("error", "Token không hợp lệ");
@@ -318,15 +338,13 @@ public class ReviewController {
         
         try {
             // Kiểm tra xác thực
-            String authHeader = request.getHeader("Authorization");
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            if (!AuthFilter.hasBearerToken(request)) {
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 result.put("error", "Chưa đăng nhập");
                 return result;
             }
             
-            String token = authHeader.substring(7);
-            Integer userId = JwtUtil.getUserIdFromToken(token);
+            Integer userId = AuthFilter.getUserId(request);
             if (userId == null) {
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 result.put("error", "Token không hợp lệ");
@@ -378,15 +396,13 @@ public class ReviewController {
         
         try {
             // Kiểm tra xác thực
-            String authHeader = request.getHeader("Authorization");
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            if (!AuthFilter.hasBearerToken(request)) {
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 result.put("error", "Chưa đăng nhập");
                 return result;
             }
             
-            String token = authHeader.substring(7);
-            Integer userId = JwtUtil.getUserIdFromToken(token);
+            Integer userId = AuthFilter.getUserId(request);
             if (userId == null) {
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 result.put("error", "Token không hợp lệ");
@@ -427,10 +443,20 @@ public class ReviewController {
                 }
             }
             
-            // Lấy danh sách đánh giá của người dùng
-            result = reviewDAO.getUserReviews(userId, page, limit, sort);
+            // Phân trang theo cursor nếu có tham số cursor (rỗng cho trang đầu)
+            String cursor = request.getParameter("cursor");
+            if (cursor != null) {
+                boolean exactCount = "exact".equals(request.getParameter("count"));
+                result = reviewDAO.getUserReviewsByCursor(userId, limit, sort, cursor, exactCount);
+            } else {
+                // Lấy danh sách đánh giá của người dùng
+                result = reviewDAO.getUserReviews(userId, page, limit, sort);
+            }
             response.setStatus(HttpServletResponse.SC_OK);
             
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            result.put("error", e.getMessage());
         } catch (Exception e) {
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             result.put("error", "Có lỗi xảy ra: " + e.getMessage());
@@ -444,26 +470,24 @@ public class ReviewController {
      * Cập nhật đánh giá của người dùng
      * 
      * @param reviewId ID đánh giá
-     * @param jsonRequest Dữ liệu JSON từ request body
+     * @param reviewRequest Dữ liệu đánh giá từ request body
      * @param request Yêu cầu HTTP
      * @param response Phản hồi HTTP
      * @return Kết quả xử lý dạng JSON
      */
-    public Map<String, Object> updateUserReview(int reviewId, JsonObject jsonRequest, 
+    public Map<String, Object> updateUserReview(int reviewId, ReviewRequest reviewRequest, 
                                               HttpServletRequest request, HttpServletResponse response) {
         Map<String, Object> result = new HashMap<>();
         
         try {
             // Kiểm tra xác thực
-            String authHeader = request.getHeader("Authorization");
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            if (!AuthFilter.hasBearerToken(request)) {
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 result.put("error", "Chưa đăng nhập");
                 return result;
             }
             
-            String token = authHeader.substring(7);
-            Integer userId = JwtUtil.getUserIdFromToken(token);
+            Integer userId = AuthFilter.getUserId(request);
             if (userId == null) {
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 result.put("error", "Token không hợp lệ");
@@ -471,14 +495,14 @@ public class ReviewController {
             }
             
             // Kiểm tra dữ liệu đầu vào
-            if (jsonRequest == null) {
+            if (reviewRequest == null) {
                 response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                 result.put("error", "Vui lòng cung cấp dữ liệu đánh giá");
                 return result;
             }
             
-            Integer rating = jsonRequest.has("rating") ? jsonRequest.get("rating").getAsInt() : null;
-            String content = jsonRequest.has("content") ? jsonRequest.get("content").getAsString() : null;
+            Integer rating = reviewRequest.getRating();
+            String content = reviewRequest.getContent();
             
             if (rating == null || content == null || content.trim().isEmpty()) {
                 response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
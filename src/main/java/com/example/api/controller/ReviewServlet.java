@@ -1,15 +1,14 @@
 package com.example.api.controller;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import com.example.api.dto.ReviewRequest;
+import com.example.api.json.JsonRequestReader;
+import com.example.api.json.JsonResponse;
+import com.example.api.json.RequestBodyException;
 
 import jakarta.servlet.ServletException;
-import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.Map;
@@ -17,16 +16,14 @@ import java.util.Map;
 /**
  * Servlet xử lý các yêu cầu API liên quan đến đánh giá sản phẩm
  */
-public class ReviewServlet extends HttpServlet {
+public class ReviewServlet extends AsyncHttpServlet {
     private static final long serialVersionUID = 1L;
     private ReviewController reviewController;
-    private Gson gson;
     
     @Override
     public void init() throws ServletException {
         super.init();
         reviewController = new ReviewController();
-        gson = new Gson();
     }
     
     @Override
@@ -59,8 +56,14 @@ public class ReviewServlet extends HttpServlet {
                 int limit = getIntParameter(request, "limit", 10);
                 String sort = request.getParameter("sort");
                 
-                // Lấy danh sách đánh giá
-                result = reviewController.getProductReviews(productId, page, limit, sort, request, response);
+                // Phân trang theo cursor nếu có tham số cursor (rỗng cho trang đầu)
+                String cursor = request.getParameter("cursor");
+                if (cursor != null) {
+                    result = reviewController.getProductReviewsByCursor(productId, limit, sort, cursor, request, response);
+                } else {
+                    // Lấy danh sách đánh giá
+                    result = reviewController.getProductReviews(productId, page, limit, sort, request, response);
+                }
             }
             // lấy danh sách đánh giá của người dùng: /api/user-reviews
             else if (pathInfo != null && pathInfo.equals("/user")) {
@@ -72,25 +75,9 @@ public class ReviewServlet extends HttpServlet {
                 // Lấy ID đánh giá từ URL
                 int reviewId = Integer.parseInt(pathInfo.substring(1));
                 
-                // Lấy dữ liệu JSON từ request body
-                JsonObject jsonRequest = null;
-                try {
-                    BufferedReader reader = request.getReader();
-                    if (reader != null) {
-                        jsonRequest = JsonParser.parseReader(reader).getAsJsonObject();
-                    }
-                } catch (Exception e) {
-                    response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-                    result = Map.of("error", "Dữ liệu không hợp lệ");
-                    try (PrintWriter out = response.getWriter()) {
-                        out.print(gson.toJson(result));
-                        out.flush();
-                    }
-                    return;
-                }
-                
                 // Cập nhật đánh giá
-                result = reviewController.updateUserReview(reviewId, jsonRequest, request, response);
+                ReviewRequest reviewRequest = JsonRequestReader.read(request, ReviewRequest::new);
+                result = reviewController.updateUserReview(reviewId, reviewRequest, request, response);
             }
             // Lấy chi tiết đánh giá: /api/reviews/{reviewId}
           
@@ -107,10 +94,14 @@ public class ReviewServlet extends HttpServlet {
                 response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                 result = Map.of("error", "Endpoint không hợp lệ");
             }
+        } catch (RequestBodyException e) {
+            // Body quá lớn hoặc không phải JSON hợp lệ
+            response.setStatus(e.getStatus());
+            result = Map.of("error", e.getMessage());
         } catch (Exception e) {
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             try (PrintWriter out = response.getWriter()) {
-                out.print(gson.toJson(Map.of("error", "Có lỗi xảy ra: " + e.getMessage())));
+                JsonResponse.write(out, Map.of("error", "Có lỗi xảy ra: " + e.getMessage()));
                 out.flush();
             }
             e.printStackTrace();
@@ -119,12 +110,12 @@ public class ReviewServlet extends HttpServlet {
         
         // Trả về kết quả dưới dạng JSON
         try (PrintWriter out = response.getWriter()) {
-            out.print(gson.toJson(result));
+            JsonResponse.write(out, result);
             out.flush();
         } catch (Exception e) {
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             try (PrintWriter out = response.getWriter()) {
-                out.print(gson.toJson(Map.of("error", "Có lỗi xảy ra: " + e.getMessage())));
+                JsonResponse.write(out, Map.of("error", "Có lỗi xảy ra: " + e.getMessage()));
                 out.flush();
             }
             e.printStackTrace();
@@ -144,18 +135,7 @@ public class ReviewServlet extends HttpServlet {
         String servletPath = request.getServletPath();
         String requestURI = request.getRequestURI();
         
-        // Lấy dữ liệu JSON từ request body
-        JsonObject jsonRequest = null;
-        try {
-            BufferedReader reader = request.getReader();
-            if (reader != null) {
-                jsonRequest = JsonParser.parseReader(reader).getAsJsonObject();
-            }
-        } catch (Exception e) {
-            // Không có dữ liệu JSON hoặc không phải là JSON
-        }
-        
-        // Xử lý các endpoint khác nhau
+        // Xử lý các endpoint khác nhau, body JSON được đọc theo từng endpoint
         Map<String, Object> result = Map.of("error", "No result available");
         response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
         System.out.println("pathInfo: " + pathInfo);
@@ -169,7 +149,8 @@ public class ReviewServlet extends HttpServlet {
                 int reviewId = Integer.parseInt(pathInfo.substring(1));
                 
                 // Cập nhật đánh giá
-                result = reviewController.updateUserReview(reviewId, jsonRequest, request, response);
+                ReviewRequest reviewRequest = JsonRequestReader.read(request, ReviewRequest::new);
+                result = reviewController.updateUserReview(reviewId, reviewRequest, request, response);
             }
             // Thêm đánh giá mới: /api/product-reviews/{productId}
             else if (servletPath.equals("/api/product-reviews") && pathInfo != null && pathInfo.matches("/\\d+")) {
@@ -178,8 +159,9 @@ public class ReviewServlet extends HttpServlet {
                 int productId = Integer.parseInt(pathInfo.substring(1));
                 
                 // Thêm đánh giá mới
+                ReviewRequest reviewRequest = JsonRequestReader.read(request, ReviewRequest::new);
                 response.setStatus(HttpServletResponse.SC_OK);
-                result = reviewController.addReview(productId, jsonRequest, request, response);
+                result = reviewController.addReview(productId, reviewRequest, request, response);
             }
             // Đánh dấu đánh giá là hữu ích: /api/reviews/{reviewId}/helpful
             else if (servletPath.equals("/api/reviews") && pathInfo != null && pathInfo.matches("/\\d+/helpful")) {
@@ -187,13 +169,17 @@ public class ReviewServlet extends HttpServlet {
                 int reviewId = Integer.parseInt(pathInfo.split("/")[1]);
                 
                 // Đánh dấu đánh giá là hữu ích
-                result = reviewController.markReviewHelpful(reviewId, jsonRequest, request, response);
+                result = reviewController.markReviewHelpful(reviewId, JsonRequestReader.readObject(request), request, response);
                 response.setStatus(HttpServletResponse.SC_OK);
             }
             else {
                 response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                 result = Map.of("error", "Endpoint không hợp lệ");
             }
+        } catch (RequestBodyException e) {
+            // Body quá lớn hoặc không phải JSON hợp lệ
+            response.setStatus(e.getStatus());
+            result = Map.of("error", e.getMessage());
         } catch (Exception e) {
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             result = Map.of("error", "Có lỗi xảy ra: " + e.getMessage());
@@ -201,7 +187,7 @@ public class ReviewServlet extends HttpServlet {
         }
         // Trả về kết quả dưới dạng JSON
         try (PrintWriter out = response.getWriter()) {
-            out.print(gson.toJson(result));
+            JsonResponse.write(out, result);
             out.flush();
         }
     }
@@ -218,17 +204,6 @@ public class ReviewServlet extends HttpServlet {
         String pathInfo = request.getPathInfo();
         String servletPath = request.getServletPath();
         
-        // Lấy dữ liệu JSON từ request body
-        JsonObject jsonRequest = null;
-        try {
-            BufferedReader reader = request.getReader();
-            if (reader != null) {
-                jsonRequest = JsonParser.parseReader(reader).getAsJsonObject();
-            }
-        } catch (Exception e) {
-            // Không có dữ liệu JSON hoặc không phải là JSON
-        }
-        
         // Xử lý các endpoint khác nhau
         Map<String, Object> result;
         
@@ -239,11 +214,16 @@ public class ReviewServlet extends HttpServlet {
                 int reviewId = Integer.parseInt(pathInfo.substring(1));
                 
                 // Cập nhật đánh giá
-                result = reviewController.updateReview(reviewId, jsonRequest, request, response);
+                ReviewRequest reviewRequest = JsonRequestReader.read(request, ReviewRequest::new);
+                result = reviewController.updateReview(reviewId, reviewRequest, request, response);
             } else {
                 response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                 result = Map.of("error", "Endpoint không hợp lệ");
             }
+        } catch (RequestBodyException e) {
+            // Body quá lớn hoặc không phải JSON hợp lệ
+            response.setStatus(e.getStatus());
+            result = Map.of("error", e.getMessage());
         } catch (Exception e) {
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             result = Map.of("error", "Có lỗi xảy ra: " + e.getMessage());
@@ -252,7 +232,7 @@ public class ReviewServlet extends HttpServlet {
         
         // Trả về kết quả dưới dạng JSON
         try (PrintWriter out = response.getWriter()) {
-            out.print(gson.toJson(result));
+            JsonResponse.write(out, result);
             out.flush();
         }
     }
@@ -300,7 +280,7 @@ public class ReviewServlet extends HttpServlet {
         
         // Trả về kết quả dưới dạng JSON
         try (PrintWriter out = response.getWriter()) {
-            out.print(gson.toJson(result));
+            JsonResponse.write(out, result);
             out.flush();
         }
     }
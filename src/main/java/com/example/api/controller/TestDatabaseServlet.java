@@ -1,7 +1,7 @@
 package com.example.api.controller;
 
+import com.example.api.json.JsonResponse;
 import com.example.api.util.DatabaseUtil;
-import com.google.gson.Gson;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServlet;
@@ -24,14 +24,7 @@ import java.util.Map;
  */
 public class TestDatabaseServlet extends HttpServlet {
     private static final long serialVersionUID = 1L;
-    private Gson gson;
-    
-    @Override
-    public void init() throws ServletException {
-        super.init();
-        gson = new Gson();
-    }
-    
+        
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) 
             throws ServletException, IOException {
@@ -113,7 +106,7 @@ public class TestDatabaseServlet extends HttpServlet {
         
         // Tru1ea3 vu1ec1 ku1ebft quu1ea3 du01b0u1edbi du1ea1ng JSON
         try (PrintWriter out = response.getWriter()) {
-            out.print(gson.toJson(result));
+            JsonResponse.write(out, result);
             out.flush();
         }
     }
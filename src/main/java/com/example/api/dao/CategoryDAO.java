@@ -1,6 +1,9 @@
 package com.example.api.dao;
 
+import com.example.api.cache.ProductCache;
 import com.example.api.model.Category;
+import com.example.api.search.ProductSearchIndex;
+import com.example.api.search.SuggestIndex;
 import com.example.api.util.DatabaseUtil;
 
 import java.sql.Connection;
@@ -103,6 +106,7 @@ public class CategoryDAO {
             if (rowsAffected > 0) {
                 try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
                     if (generatedKeys.next()) {
+                        SuggestIndex.getInstance().refreshCategories();
                         return generatedKeys.getInt(1);
                     }
                 }
@@ -140,7 +144,14 @@ public class CategoryDAO {
             stmt.setInt(4, category.getId());
             
             int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+            if (rowsAffected > 0) {
+                // Tên danh mục được cache cùng chi tiết sản phẩm
+                ProductCache.getInstance().invalidateAll();
+                ProductSearchIndex.getInstance().refreshCategory(category.getId());
+                SuggestIndex.getInstance().refreshCategories();
+                return true;
+            }
+            return false;
             
         } catch (SQLException e) {
             System.err.println("Lỗi khi cập nhật danh mục: " + e.getMessage());
@@ -170,7 +181,11 @@ public class CategoryDAO {
             stmt.setInt(1, categoryId);
             
             int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+            if (rowsAffected > 0) {
+                SuggestIndex.getInstance().refreshCategories();
+                return true;
+            }
+            return false;
             
         } catch (SQLException e) {
             System.err.println("Lỗi khi xóa danh mục: " + e.getMessage());
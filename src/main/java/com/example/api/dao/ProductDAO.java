@@ -1,14 +1,24 @@
 package com.example.api.dao;
 
+import com.example.api.cache.ProductCache;
+import com.example.api.cache.ReviewSummaryCache;
 import com.example.api.model.Product;
 import com.example.api.model.ProductImage;
 import com.example.api.model.ProductSpecification;
+import com.example.api.search.ProductSearchIndex;
+import com.example.api.search.SuggestIndex;
+import com.example.api.service.ProductRankingJob;
+import com.example.api.util.AppConfig;
+import com.example.api.util.CursorUtil;
 import com.example.api.util.DatabaseUtil;
 import com.example.api.util.SlugUtil;
 
+import java.math.BigDecimal;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
@@ -21,6 +31,17 @@ import java.util.logging.Logger;
 public class ProductDAO {
 
     private static final Logger LOGGER = Logger.getLogger(ProductDAO.class.getName());
+    // Danh sách sản phẩm: ảnh chính lấy bằng subquery (một dòng mỗi sản phẩm) thay vì JOIN + GROUP BY,
+    // để ORDER BY ... LIMIT đi theo index (cột sắp xếp, id) mà không cần bảng tạm và filesort
+    private static final String LIST_SELECT =
+            "SELECT p.*, c.name as category_name, " +
+                    "(SELECT pi.image_path FROM product_images pi " +
+                    "WHERE pi.product_id = p.id AND pi.is_primary = TRUE " +
+                    "ORDER BY pi.sort_order, pi.id LIMIT 1) as primary_image " +
+                    "FROM products p " +
+                    "LEFT JOIN categories c ON p.category_id = c.id";
+
+    private final ProductHydrator hydrator = new ProductHydrator();
 
     /**
      * Lấy danh sách sản phẩm với phân trang và lọc
@@ -33,6 +54,24 @@ public class ProductDAO {
      * @return Danh sách sản phẩm
      */
     public Map<String, Object> getProducts(int page, int limit, Integer categoryId, String search, String sort) {
+        return getProducts(page, limit, categoryId, search, null, sort, false, null);
+    }
+
+    /**
+     * Lấy danh sách sản phẩm với phân trang và lọc, có thể kèm thông tin chi tiết
+     * 
+     * @param page           Số trang
+     * @param limit          Số lượng sản phẩm trên mỗi trang
+     * @param categoryId     ID danh mục (nếu có)
+     * @param search         Từ khóa tìm kiếm (nếu có)
+     * @param searchMode     Chế độ tìm kiếm: natural, boolean hoặc like (null = theo cấu hình search.mode)
+     * @param sort           Cách sắp xếp (nếu có, relevance khi có từ khóa tìm kiếm)
+     * @param includeDetails true để nạp toàn bộ hình ảnh, thông số và trạng thái bookmark/đã đánh giá
+     * @param userId         ID người dùng (nếu đã đăng nhập)
+     * @return Danh sách sản phẩm
+     */
+    public Map<String, Object> getProducts(int page, int limit, Integer categoryId, String search,
+            String searchMode, String sort, boolean includeDetails, Integer userId) {
         Map<String, Object> result = new HashMap<>();
         List<Product> products = new ArrayList<>();
 
@@ -40,33 +79,21 @@ public class ProductDAO {
         int offset = (page - 1) * limit;
 
         // Xây dựng câu truy vấn SQL cơ bản
-        StringBuilder sqlBuilder = new StringBuilder(
-                "SELECT p.*, c.name as category_name, pi.image_path as primary_image " +
-                        "FROM products p " +
-                        "LEFT JOIN categories c ON p.category_id = c.id " +
-                        "LEFT JOIN product_images pi ON p.id = pi.product_id AND pi.is_primary = TRUE ");
+        StringBuilder sqlBuilder = new StringBuilder(LIST_SELECT);
 
         // Thêm điều kiện WHERE nếu cần
         List<Object> params = new ArrayList<>();
-        boolean hasWhere = false;
-
-        if (categoryId != null) {
-            sqlBuilder.append(hasWhere ? " AND " : " WHERE ");
-            sqlBuilder.append("p.category_id = ?");
-            params.add(categoryId);
-            hasWhere = true;
-        }
-        if (search != null && !search.trim().isEmpty()) {
-            System.out.println("search product: " + search);
-            sqlBuilder.append(hasWhere ? " AND " : " WHERE ");
-            sqlBuilder.append("(p.name LIKE ? OR p.description LIKE ?)");
-            params.add("%" + search + "%");
-            params.add("%" + search + "%");
-            hasWhere = true;
-        }
-        sqlBuilder.append(" GROUP BY p.id, c.name, pi.image_path");
+        String mode = resolveSearchMode(search, searchMode);
+        String whereClause = buildFilterClause(categoryId, search, mode, params);
+        sqlBuilder.append(whereClause);
+        // Số tham số của mệnh đề WHERE (dùng lại cho câu truy vấn đếm)
+        int filterParamCount = params.size();
         // Thêm ORDER BY
-        if (sort != null) {
+        if ("relevance".equals(sort) && !"like".equals(mode) && mode != null) {
+            // Sắp xếp theo độ liên quan của FULLTEXT (MySQL chỉ tính MATCH một lần cho cùng biểu thức)
+            sqlBuilder.append(" ORDER BY ").append(matchExpression(mode)).append(" DESC, p.id DESC");
+            params.add(fulltextTerm(search, mode));
+        } else if (sort != null) {
             switch (sort) {
                 case "price_asc":
                     sqlBuilder.append(" ORDER BY p.price ASC");
@@ -74,8 +101,10 @@ public class ProductDAO {
                 case "price_desc":
                     sqlBuilder.append(" ORDER BY p.price DESC");
                     break;
+                case "rating":
                 case "rating_desc":
-                    sqlBuilder.append(" ORDER BY p.rating DESC, p.review_count DESC");
+                    // Điểm Bayes tính sẵn (products_rank_score_id_index), không tính theo từng yêu cầu
+                    sqlBuilder.append(" ORDER BY p.rank_score DESC, p.id DESC");
                     break;
                 case "newest":
                     sqlBuilder.append(" ORDER BY p.created_at DESC");
@@ -95,17 +124,14 @@ public class ProductDAO {
 
         // Truy vấn tổng số sản phẩm (không có LIMIT và OFFSET)
         StringBuilder countSqlBuilder = new StringBuilder("SELECT COUNT(*) as total FROM products p");
-        if (hasWhere) {
-            countSqlBuilder.append(" WHERE ")
-                    .append(sqlBuilder.substring(sqlBuilder.indexOf(" WHERE ") + 7, sqlBuilder.indexOf(" GROUP BY ")));
-        }
+        countSqlBuilder.append(whereClause);
 
         try (Connection conn = DatabaseUtil.getConnection()) {
             // Truy vấn tổng số sản phẩm
             int total = 0;
             try (PreparedStatement countStmt = conn.prepareStatement(countSqlBuilder.toString())) {
                 // Thiết lập tham số cho câu truy vấn đếm
-                for (int i = 0; i < params.size() - 2; i++) {
+                for (int i = 0; i < filterParamCount; i++) {
                     countStmt.setObject(i + 1, params.get(i));
                 }
 
@@ -141,6 +167,11 @@ public class ProductDAO {
                 }
             }
 
+            // Nạp chi tiết cho cả trang trong một lần gọi thay vì từng sản phẩm
+            if (includeDetails) {
+                hydrator.hydrate(conn, products, userId);
+            }
+
             // Tạo thông tin phân trang
             Map<String, Object> pagination = new HashMap<>();
             pagination.put("total", total);
@@ -160,48 +191,340 @@ public class ProductDAO {
     }
 
     /**
-     * Lấy thông tin chi tiết sản phẩm theo ID
+     * Lấy danh sách sản phẩm theo cursor (phân trang keyset)
      * 
-     * @param productId ID sản phẩm
-     * @param userId    ID người dùng (nếu đã đăng nhập)
-     * @return Thông tin sản phẩm hoặc null nếu không tìm thấy
+     * Thay vì OFFSET, trang tiếp theo bắt đầu ngay sau khóa sắp xếp (và id) của sản phẩm
+     * cuối cùng ở trang trước, nên chi phí mỗi trang không tăng theo độ sâu.
+     * 
+     * @param limit          Số lượng sản phẩm trên mỗi trang
+     * @param categoryId     ID danh mục (nếu có)
+     * @param search         Từ khóa tìm kiếm (nếu có)
+     * @param searchMode     Chế độ tìm kiếm: natural, boolean hoặc like (null = theo cấu hình search.mode)
+     * @param sort           Cách sắp xếp (price_asc, price_desc, rating/rating_desc, newest, mặc định id).
+     *                       relevance không hỗ trợ keyset nên dùng thứ tự mặc định
+     * @param cursor         Cursor nhận từ trang trước (null hoặc rỗng cho trang đầu)
+     * @param countMode      Cách đếm tổng: "exact", "approx" hoặc null (không đếm)
+     * @param includeDetails true để nạp toàn bộ hình ảnh, thông số và trạng thái bookmark/đã đánh giá
+     * @param userId         ID người dùng (nếu đã đăng nhập)
+     * @return Danh sách sản phẩm và thông tin phân trang (nextCursor, hasMore)
+     * @throws IllegalArgumentException nếu cursor không hợp lệ hoặc không khớp cách sắp xếp
      */
-    public Product getProductById(int productId, Integer userId) {
-        String sql = "SELECT p.*, c.name as category_name FROM products p " +
-                "LEFT JOIN categories c ON p.category_id = c.id " +
-                "WHERE p.id = ?";
+    public Map<String, Object> getProductsByCursor(int limit, Integer categoryId, String search, String searchMode,
+            String sort, String cursor, String countMode, boolean includeDetails, Integer userId) {
+        Map<String, Object> result = new HashMap<>();
+        List<Product> products = new ArrayList<>();
+        String sortKey = normalizeCursorSort(sort);
 
-        try (Connection conn = DatabaseUtil.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(sql)) {
+        List<Object> params = new ArrayList<>();
+        String whereClause = buildFilterClause(categoryId, search, resolveSearchMode(search, searchMode), params);
+        List<Object> countParams = new ArrayList<>(params);
 
-            stmt.setInt(1, productId);
+        StringBuilder sqlBuilder = new StringBuilder(LIST_SELECT);
+        sqlBuilder.append(whereClause);
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    Product product = mapResultSetToProduct(rs);
-                    product.setCategoryName(rs.getString("category_name"));
+        List<String> cursorValues = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            cursorValues = CursorUtil.decode(cursor);
+            if (cursorValues == null || cursorValues.isEmpty() || !sortKey.equals(cursorValues.get(0))) {
+                throw new IllegalArgumentException("Cursor không hợp lệ");
+            }
+            sqlBuilder.append(whereClause.isEmpty() ? " WHERE " : " AND ");
+            appendKeysetCondition(sqlBuilder, params, sortKey, cursorValues);
+        }
+
+        switch (sortKey) {
+            case "price_asc":
+                sqlBuilder.append(" ORDER BY p.price ASC, p.id ASC");
+                break;
+            case "price_desc":
+                sqlBuilder.append(" ORDER BY p.price DESC, p.id DESC");
+                break;
+            case "rating":
+                sqlBuilder.append(" ORDER BY p.rank_score DESC, p.id DESC");
+                break;
+            case "newest":
+                sqlBuilder.append(" ORDER BY p.created_at DESC, p.id DESC");
+                break;
+            default:
+                sqlBuilder.append(" ORDER BY p.id DESC");
+                break;
+        }
+        // Lấy thêm một dòng để biết còn trang tiếp theo hay không
+        sqlBuilder.append(" LIMIT ?");
+        params.add(limit + 1);
+
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            String nextCursor = null;
+            boolean hasMore = false;
+
+            try (PreparedStatement stmt = conn.prepareStatement(sqlBuilder.toString())) {
+                for (int i = 0; i < params.size(); i++) {
+                    stmt.setObject(i + 1, params.get(i));
+                }
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        if (products.size() == limit) {
+                            hasMore = true;
+                            break;
+                        }
 
-                    // Lấy danh sách hình ảnh
-                    product.setImages(getProductImages(conn, productId));
+                        Product product = mapResultSetToProduct(rs);
+                        product.setCategoryName(rs.getString("category_name"));
 
-                    // Lấy danh sách thông số kỹ thuật
-                    product.setSpecifications(getProductSpecifications(conn, productId));
+                        String primaryImage = rs.getString("primary_image");
+                        if (primaryImage != null) {
+                            List<String> images = new ArrayList<>();
+                            images.add(primaryImage);
+                            product.setImages(images);
+                        }
 
-                    // Kiểm tra xem sản phẩm có được bookmark bởi người dùng không
-                    if (userId != null) {
-                        product.setBookmarked(isProductBookmarked(conn, productId, userId));
+                        products.add(product);
+                        if (products.size() == limit) {
+                            nextCursor = encodeCursor(sortKey, rs);
+                        }
                     }
+                }
+            }
 
-                    // Kiểm tra xem người dùng đã đánh giá chưa
-                    if (userId != null) {
-                        product.setReviewed(isProductReviewed(conn, productId, userId));
-                        System.out.println("Reviewed: " + product.isReviewed());
+            if (includeDetails) {
+                hydrator.hydrate(conn, products, userId);
+            }
+
+            Map<String, Object> pagination = new HashMap<>();
+            pagination.put("limit", limit);
+            pagination.put("hasMore", hasMore);
+            if (hasMore) {
+                pagination.put("nextCursor", nextCursor);
+            }
+
+            if ("approx".equals(countMode) && whereClause.isEmpty()) {
+                // Ước lượng từ thống kê bảng của InnoDB, không quét bảng
+                String approxSql = "SELECT TABLE_ROWS FROM information_schema.TABLES " +
+                        "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'products'";
+                try (PreparedStatement stmt = conn.prepareStatement(approxSql);
+                        ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        pagination.put("total", rs.getLong(1));
+                        pagination.put("totalApproximate", true);
                     }
+                }
+            } else if ("exact".equals(countMode) || "approx".equals(countMode)) {
+                String countSql = "SELECT COUNT(*) as total FROM products p" + whereClause;
+                try (PreparedStatement stmt = conn.prepareStatement(countSql)) {
+                    for (int i = 0; i < countParams.size(); i++) {
+                        stmt.setObject(i + 1, countParams.get(i));
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (rs.next()) {
+                            pagination.put("total", rs.getInt("total"));
+                            pagination.put("totalApproximate", false);
+                        }
+                    }
+                }
+            }
+
+            result.put("products", products);
+            result.put("pagination", pagination);
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return result;
+    }
+
+    /**
+     * Xây dựng mệnh đề WHERE cho bộ lọc danh mục và từ khóa tìm kiếm
+     * 
+     * @param categoryId ID danh mục (nếu có)
+     * @param search     Từ khóa tìm kiếm (nếu có)
+     * @param searchMode Chế độ tìm kiếm đã xác định bởi resolveSearchMode (null nếu không tìm kiếm)
+     * @param params     Danh sách tham số, được bổ sung theo thứ tự xuất hiện
+     * @return Mệnh đề " WHERE ..." hoặc chuỗi rỗng nếu không có bộ lọc
+     */
+    private String buildFilterClause(Integer categoryId, String search, String searchMode, List<Object> params) {
+        List<String> conditions = new ArrayList<>();
+
+        if (categoryId != null) {
+            conditions.add("p.category_id = ?");
+            params.add(categoryId);
+        }
+        if (searchMode != null) {
+            if ("like".equals(searchMode)) {
+                conditions.add("(p.name LIKE ? OR p.description LIKE ?)");
+                params.add("%" + search.trim() + "%");
+                params.add("%" + search.trim() + "%");
+            } else {
+                // Dùng chỉ mục FULLTEXT products_search(name, description)
+                conditions.add(matchExpression(searchMode));
+                params.add(fulltextTerm(search, searchMode));
+            }
+        }
+
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    /**
+     * Xác định chế độ tìm kiếm thực tế
+     * 
+     * FULLTEXT của InnoDB bỏ qua các từ ngắn hơn innodb_ft_min_token_size (mặc định 3),
+     * nên từ khóa chỉ gồm các từ ngắn sẽ dùng LIKE.
+     * 
+     * @param search     Từ khóa tìm kiếm
+     * @param searchMode Chế độ client yêu cầu (natural, boolean, like, index) hoặc null
+     * @return natural, boolean, like, hoặc null nếu không có từ khóa
+     */
+    private String resolveSearchMode(String search, String searchMode) {
+        if (search == null || search.trim().isEmpty()) {
+            return null;
+        }
+        String mode = searchMode != null ? searchMode : AppConfig.get("search.mode", "natural");
+        if ("index".equals(mode)) {
+            // Chỉ mục trong bộ nhớ chưa sẵn sàng hoặc không hỗ trợ (phân trang cursor), dùng FULLTEXT
+            mode = "natural";
+        }
+        if (!"natural".equals(mode) && !"boolean".equals(mode)) {
+            return "like";
+        }
+
+        int minTokenLength = AppConfig.getInt("search.minTokenLength", 3);
+        for (String token : search.trim().split("[\\s\\p{Punct}]+")) {
+            if (token.length() >= minTokenLength) {
+                return mode;
+            }
+        }
+        return "like";
+    }
+
+    /**
+     * Biểu thức MATCH ... AGAINST theo chế độ tìm kiếm (một tham số)
+     */
+    private String matchExpression(String searchMode) {
+        return "boolean".equals(searchMode)
+                ? "MATCH(p.name, p.description) AGAINST (? IN BOOLEAN MODE)"
+                : "MATCH(p.name, p.description) AGAINST (? IN NATURAL LANGUAGE MODE)";
+    }
+
+    /**
+     * Chuẩn bị từ khóa cho MATCH ... AGAINST.
+     * Chế độ boolean giữ lại các toán tử (+ - " * ( ) ~ < >) và bỏ các ký tự khác.
+     */
+    private String fulltextTerm(String search, String searchMode) {
+        String term = search.trim();
+        if ("boolean".equals(searchMode)) {
+            term = term.replaceAll("[^\\p{L}\\p{N}\\s+\\-\"*()~<>]", " ").trim();
+        }
+        return term;
+    }
+
+    /**
+     * Chuẩn hóa cách sắp xếp cho phân trang keyset
+     */
+    private String normalizeCursorSort(String sort) {
+        if (sort == null) {
+            return "id";
+        }
+        switch (sort) {
+            case "price_asc":
+            case "price_desc":
+            case "newest":
+                return sort;
+            case "rating":
+            case "rating_desc":
+                return "rating";
+            default:
+                return "id";
+        }
+    }
 
-                    return product;
+    /**
+     * Thêm điều kiện "sau cursor" theo cách sắp xếp.
+     * Dùng dạng (a < ? OR (a = ? AND id < ?)) để MySQL dùng được range scan trên chỉ mục.
+     */
+    private void appendKeysetCondition(StringBuilder sql, List<Object> params, String sortKey, List<String> values) {
+        try {
+            switch (sortKey) {
+                case "price_asc":
+                case "price_desc": {
+                    checkCursorSize(values, 3);
+                    String op = "price_asc".equals(sortKey) ? ">" : "<";
+                    BigDecimal price = new BigDecimal(values.get(1));
+                    int id = Integer.parseInt(values.get(2));
+                    sql.append("(p.price ").append(op).append(" ? OR (p.price = ? AND p.id ").append(op).append(" ?))");
+                    params.add(price);
+                    params.add(price);
+                    params.add(id);
+                    break;
+                }
+                case "rating": {
+                    checkCursorSize(values, 3);
+                    double rankScore = Double.parseDouble(values.get(1));
+                    int id = Integer.parseInt(values.get(2));
+                    sql.append("(p.rank_score < ? OR (p.rank_score = ? AND p.id < ?))");
+                    params.add(rankScore);
+                    params.add(rankScore);
+                    params.add(id);
+                    break;
+                }
+                case "newest": {
+                    checkCursorSize(values, 3);
+                    Timestamp createdAt = new Timestamp(Long.parseLong(values.get(1)));
+                    int id = Integer.parseInt(values.get(2));
+                    sql.append("(p.created_at < ? OR (p.created_at = ? AND p.id < ?))");
+                    params.add(createdAt);
+                    params.add(createdAt);
+                    params.add(id);
+                    break;
+                }
+                default: {
+                    checkCursorSize(values, 2);
+                    sql.append("p.id < ?");
+                    params.add(Integer.parseInt(values.get(1)));
+                    break;
                 }
             }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor không hợp lệ", e);
+        }
+    }
+
+    private void checkCursorSize(List<String> values, int expected) {
+        if (values.size() != expected) {
+            throw new IllegalArgumentException("Cursor không hợp lệ");
+        }
+    }
+
+    /**
+     * Tạo cursor từ dòng hiện tại của ResultSet (sản phẩm cuối cùng của trang)
+     */
+    private String encodeCursor(String sortKey, ResultSet rs) throws SQLException {
+        String id = String.valueOf(rs.getInt("id"));
+        switch (sortKey) {
+            case "price_asc":
+            case "price_desc":
+                return CursorUtil.encode(sortKey, rs.getBigDecimal("price").toPlainString(), id);
+            case "rating":
+                // Double.toString đọc lại được đúng giá trị nên so sánh bằng trong keyset vẫn chính xác
+                return CursorUtil.encode(sortKey, Double.toString(rs.getDouble("rank_score")), id);
+            case "newest":
+                return CursorUtil.encode(sortKey, String.valueOf(rs.getTimestamp("created_at").getTime()), id);
+            default:
+                return CursorUtil.encode(sortKey, id);
+        }
+    }
 
+    /**
+     * Lấy thông tin chi tiết sản phẩm theo ID
+     * 
+     * @param productId ID sản phẩm
+     * @param userId    ID người dùng (nếu đã đăng nhập)
+     * @return Thông tin sản phẩm hoặc null nếu không tìm thấy
+     */
+    public Product getProductById(int productId, Integer userId) {
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            // Sản phẩm, hình ảnh, thông số, bookmark và trạng thái đánh giá được nạp trong một lần gọi
+            return hydrator.loadProduct(conn, false, productId, userId, this::mapResultSetToProduct);
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -217,40 +540,253 @@ public class ProductDAO {
      * @return Thông tin sản phẩm hoặc null nếu không tìm thấy
      */
     public Product getProductBySlug(String slug, Integer userId) {
-        String sql = "SELECT p.*, c.name as category_name FROM products p " +
-                "LEFT JOIN categories c ON p.category_id = c.id " +
-                "WHERE p.slug = ?";
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            return hydrator.loadProduct(conn, true, slug, userId, this::mapResultSetToProduct);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    /**
+     * Bổ sung trạng thái bookmark và đã đánh giá của người dùng cho sản phẩm (một truy vấn)
+     * 
+     * @param product Sản phẩm (thường lấy từ ProductCache)
+     * @param userId  ID người dùng
+     */
+    public void loadUserFlags(Product product, int userId) {
+        String sql = "SELECT EXISTS(SELECT 1 FROM bookmarks WHERE product_id = ? AND user_id = ?) as bookmarked, " +
+                "EXISTS(SELECT 1 FROM reviews WHERE product_id = ? AND user_id = ?) as reviewed";
 
         try (Connection conn = DatabaseUtil.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setString(1, slug);
+            stmt.setInt(1, product.getId());
+            stmt.setInt(2, userId);
+            stmt.setInt(3, product.getId());
+            stmt.setInt(4, userId);
 
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    Product product = mapResultSetToProduct(rs);
-                    product.setCategoryName(rs.getString("category_name"));
+                    product.setBookmarked(rs.getBoolean("bookmarked"));
+                    product.setReviewed(rs.getBoolean("reviewed"));
+                }
+            }
 
-                    // Lấy danh sách hình ảnh
-                    product.setImages(getProductImages(conn, product.getId()));
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Lỗi khi lấy trạng thái bookmark/đánh giá của sản phẩm: " + e.getMessage(), e);
+        }
+    }
 
-                    // Lấy danh sách thông số kỹ thuật
-                    product.setSpecifications(getProductSpecifications(conn, product.getId()));
+    /**
+     * Nạp hình ảnh, thông số và trạng thái bookmark/đã đánh giá cho danh sách sản phẩm
+     * (dùng cho kết quả lấy từ chỉ mục tìm kiếm)
+     *
+     * @param products Danh sách sản phẩm
+     * @param userId   ID người dùng (nếu đã đăng nhập)
+     */
+    public void loadDetails(List<Product> products, Integer userId) {
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            hydrator.hydrate(conn, products, userId);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Lỗi khi nạp chi tiết sản phẩm: " + e.getMessage(), e);
+        }
+    }
 
-                    // Kiểm tra xem sản phẩm có được bookmark bởi người dùng không
-                    if (userId != null) {
-                        product.setBookmarked(isProductBookmarked(conn, product.getId(), userId));
+    /**
+     * Lấy một lô sản phẩm đầy đủ (tên danh mục, hình ảnh, thông số) theo thứ tự ID,
+     * dùng để xây dựng chỉ mục tìm kiếm
+     *
+     * @param afterId ID của sản phẩm cuối cùng ở lô trước (0 cho lô đầu)
+     * @param limit   Số sản phẩm tối đa
+     * @return Danh sách sản phẩm có ID lớn hơn afterId
+     * @throws SQLException nếu có lỗi truy vấn
+     */
+    public List<Product> getProductsForIndex(int afterId, int limit) throws SQLException {
+        String sql = "SELECT p.*, c.name as category_name FROM products p " +
+                "LEFT JOIN categories c ON p.category_id = c.id " +
+                "WHERE p.id > ? ORDER BY p.id LIMIT ?";
+
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            List<Product> products = new ArrayList<>();
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setInt(1, afterId);
+                stmt.setInt(2, limit);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        Product product = mapResultSetToProduct(rs);
+                        product.setCategoryName(rs.getString("category_name"));
+                        products.add(product);
                     }
+                }
+            }
+            hydrator.hydrate(conn, products, null);
+            return products;
+        }
+    }
 
-                    return product;
+    /**
+     * Lấy một lô sản phẩm (chỉ thông tin trong bảng products) theo thứ tự ID,
+     * dùng để xây dựng gợi ý tìm kiếm
+     *
+     * @param afterId ID của sản phẩm cuối cùng ở lô trước (0 cho lô đầu)
+     * @param limit   Số sản phẩm tối đa
+     * @return Danh sách sản phẩm có ID lớn hơn afterId
+     * @throws SQLException nếu có lỗi truy vấn
+     */
+    public List<Product> getProductSummaries(int afterId, int limit) throws SQLException {
+        String sql = "SELECT * FROM products WHERE id > ? ORDER BY id LIMIT ?";
+        List<Product> products = new ArrayList<>();
+
+        try (Connection conn = DatabaseUtil.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, afterId);
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    products.add(mapResultSetToProduct(rs));
                 }
             }
+        }
+        return products;
+    }
 
-        } catch (SQLException e) {
-            e.printStackTrace();
+    /**
+     * Lấy một sản phẩm (chỉ thông tin trong bảng products), dùng để cập nhật gợi ý tìm kiếm
+     *
+     * @param productId ID sản phẩm
+     * @return Sản phẩm, hoặc null nếu không tồn tại
+     * @throws SQLException nếu có lỗi truy vấn
+     */
+    public Product getProductSummary(int productId) throws SQLException {
+        String sql = "SELECT * FROM products WHERE id = ?";
+
+        try (Connection conn = DatabaseUtil.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, productId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? mapResultSetToProduct(rs) : null;
+            }
         }
+    }
 
-        return null;
+    /**
+     * Lấy điểm xếp hạng (rank_score) của một lô sản phẩm theo thứ tự ID,
+     * dùng để cập nhật chỉ mục tìm kiếm sau khi tính lại toàn bộ điểm
+     *
+     * @param afterId ID của sản phẩm cuối cùng ở lô trước (0 cho lô đầu)
+     * @param limit   Số sản phẩm tối đa
+     * @return Map ID sản phẩm -> rank_score, theo thứ tự ID tăng dần
+     * @throws SQLException nếu có lỗi truy vấn
+     */
+    public Map<Integer, Double> getRankScores(int afterId, int limit) throws SQLException {
+        String sql = "SELECT id, rank_score FROM products WHERE id > ? ORDER BY id LIMIT ?";
+        Map<Integer, Double> scores = new LinkedHashMap<>();
+
+        try (Connection conn = DatabaseUtil.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, afterId);
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    scores.put(rs.getInt("id"), rs.getDouble("rank_score"));
+                }
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Lấy các sản phẩm đầy đủ (tên danh mục, hình ảnh, thông số) theo danh sách ID
+     *
+     * @param productIds Danh sách ID sản phẩm
+     * @return Các sản phẩm còn tồn tại
+     * @throws SQLException nếu có lỗi truy vấn
+     */
+    public List<Product> getProductsByIds(List<Integer> productIds) throws SQLException {
+        List<Product> products = new ArrayList<>();
+        if (productIds.isEmpty()) {
+            return products;
+        }
+
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            for (int from = 0; from < productIds.size(); from += 100) {
+                List<Integer> chunk = productIds.subList(from, Math.min(productIds.size(), from + 100));
+                String sql = "SELECT p.*, c.name as category_name FROM products p " +
+                        "LEFT JOIN categories c ON p.category_id = c.id " +
+                        "WHERE p.id IN (" + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")";
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        stmt.setInt(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            Product product = mapResultSetToProduct(rs);
+                            product.setCategoryName(rs.getString("category_name"));
+                            products.add(product);
+                        }
+                    }
+                }
+            }
+            hydrator.hydrate(conn, products, null);
+        }
+        return products;
+    }
+
+    /**
+     * Lấy ID của tất cả sản phẩm
+     *
+     * @return Danh sách ID
+     * @throws SQLException nếu có lỗi truy vấn
+     */
+    public List<Integer> getAllProductIds() throws SQLException {
+        return queryIds("SELECT id FROM products");
+    }
+
+    /**
+     * Lấy ID các sản phẩm có thay đổi (sản phẩm, hình ảnh, thông số hoặc danh mục) từ thời điểm cho trước
+     *
+     * @param since Thời điểm
+     * @return Danh sách ID sản phẩm
+     * @throws SQLException nếu có lỗi truy vấn
+     */
+    public List<Integer> getProductIdsChangedSince(Timestamp since) throws SQLException {
+        return queryIds("SELECT id FROM products WHERE updated_at >= ? " +
+                "UNION SELECT product_id FROM product_images WHERE updated_at >= ? " +
+                "UNION SELECT product_id FROM product_specifications WHERE updated_at >= ? " +
+                "UNION SELECT p.id FROM products p JOIN categories c ON p.category_id = c.id WHERE c.updated_at >= ?",
+                since, since, since, since);
+    }
+
+    /**
+     * Lấy ID các sản phẩm thuộc danh mục
+     *
+     * @param categoryId ID danh mục
+     * @return Danh sách ID sản phẩm
+     * @throws SQLException nếu có lỗi truy vấn
+     */
+    public List<Integer> getProductIdsByCategory(int categoryId) throws SQLException {
+        return queryIds("SELECT id FROM products WHERE category_id = ?", categoryId);
+    }
+
+    /**
+     * Thực thi truy vấn trả về một cột ID
+     */
+    private List<Integer> queryIds(String sql, Object... params) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (Connection conn = DatabaseUtil.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getInt(1));
+                }
+            }
+        }
+        return ids;
     }
 
     /**
@@ -311,6 +847,9 @@ public class ProductDAO {
 
                             conn.commit(); // Commit transaction
                             System.out.println("Transaction committed successfully!");
+                            ProductSearchIndex.getInstance().refresh(productId);
+                            SuggestIndex.getInstance().refreshProduct(productId);
+                            ProductRankingJob.getInstance().markDirty(productId);
                             return productId;
                         } else {
                             System.out.println("Không thể lấy ID sản phẩm đã tạo");
@@ -387,6 +926,9 @@ public class ProductDAO {
                     }
 
                     conn.commit(); // Commit transaction
+                    ProductCache.getInstance().invalidate(product.getId());
+                    ProductSearchIndex.getInstance().refresh(product.getId());
+                    SuggestIndex.getInstance().refreshProduct(product.getId());
                     return true;
                 }
 
@@ -420,7 +962,14 @@ public class ProductDAO {
             stmt.setInt(1, productId);
 
             int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+            if (rowsAffected > 0) {
+                ProductCache.getInstance().invalidate(productId);
+                ReviewSummaryCache.getInstance().invalidate(productId);
+                ProductSearchIndex.getInstance().remove(productId);
+                SuggestIndex.getInstance().refreshProduct(productId);
+                return true;
+            }
+            return false;
 
         } catch (SQLException e) {
             e.printStackTrace();
@@ -429,147 +978,123 @@ public class ProductDAO {
     }
 
     /**
-     * Kiểm tra sản phẩm có tồn tại không
+     * Điểm trung bình của toàn bộ đánh giá (C trong điểm Bayes), 3 nếu chưa có đánh giá nào
      * 
-     * @param productId ID sản phẩm
-     * @return true nếu tồn tại, false nếu không
+     * @return Điểm trung bình
+     * @throws SQLException Nếu có lỗi SQL
      */
-    public boolean productExists(int productId) {
-        String sql = "SELECT id FROM products WHERE id = ?";
+    public double getGlobalRatingMean() throws SQLException {
+        String sql = "SELECT COALESCE(SUM(rating_sum) / NULLIF(SUM(review_count), 0), 3) AS mean FROM products";
 
         try (Connection conn = DatabaseUtil.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, productId);
-
-            try (ResultSet rs = stmt.executeQuery()) {
-                return rs.next();
-            }
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
+                PreparedStatement stmt = conn.prepareStatement(sql);
+                ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getDouble("mean") : 3.0;
         }
     }
 
     /**
-     * Kiểm tra người dùng có quyền chỉnh sửa sản phẩm không
+     * Tính lại rank_score của toàn bộ sản phẩm (giữ nguyên updated_at)
      * 
-     * @param productId ID sản phẩm
-     * @param userId    ID người dùng
-     * @return true nếu có quyền, false nếu không
+     * @param priorWeight Trọng số tiên nghiệm m
+     * @param priorMean   Điểm trung bình toàn cục C
+     * @return Số sản phẩm được cập nhật
+     * @throws SQLException Nếu có lỗi SQL
      */
-    public boolean canUserEditProduct(int productId, int userId) {
-        String sql = "SELECT id FROM products WHERE id = ? AND user_id = ?";
+    public int updateAllRankScores(double priorWeight, double priorMean) throws SQLException {
+        String sql = "UPDATE products SET rank_score = (rating_sum + ? * ?) / (review_count + ?), " +
+                "updated_at = updated_at";
 
         try (Connection conn = DatabaseUtil.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, productId);
-            stmt.setInt(2, userId);
-
-            try (ResultSet rs = stmt.executeQuery()) {
-                return rs.next();
-            }
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
+            stmt.setDouble(1, priorWeight);
+            stmt.setDouble(2, priorMean);
+            stmt.setDouble(3, priorWeight);
+            return stmt.executeUpdate();
         }
     }
 
     /**
-     * Lấy danh sách hình ảnh của sản phẩm
+     * Tính lại rank_score của các sản phẩm có đánh giá thay đổi (giữ nguyên updated_at)
      * 
-     * @param conn      Kết nối đến cơ sở dữ liệu
-     * @param productId ID sản phẩm
-     * @return Danh sách đường dẫn hình ảnh
+     * @param productIds  Danh sách ID sản phẩm
+     * @param priorWeight Trọng số tiên nghiệm m
+     * @param priorMean   Điểm trung bình toàn cục C
+     * @throws SQLException Nếu có lỗi SQL
      */
-    private List<String> getProductImages(Connection conn, int productId) throws SQLException {
-        List<String> images = new ArrayList<>();
-
-        String sql = "SELECT image_path FROM product_images WHERE product_id = ? ORDER BY is_primary DESC, sort_order ASC";
-
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, productId);
+    public void updateRankScores(List<Integer> productIds, double priorWeight, double priorMean)
+            throws SQLException {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        StringBuilder sql = new StringBuilder(
+                "UPDATE products SET rank_score = (rating_sum + ? * ?) / (review_count + ?), " +
+                        "updated_at = updated_at WHERE id IN (");
+        for (int i = 0; i < productIds.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(")");
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    images.add(rs.getString("image_path"));
-                }
+        try (Connection conn = DatabaseUtil.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            stmt.setDouble(1, priorWeight);
+            stmt.setDouble(2, priorMean);
+            stmt.setDouble(3, priorWeight);
+            int index = 4;
+            for (Integer productId : productIds) {
+                stmt.setInt(index++, productId);
             }
+            stmt.executeUpdate();
         }
-
-        return images;
     }
 
     /**
-     * Lấy danh sách thông số kỹ thuật của sản phẩm
+     * Kiểm tra sản phẩm có tồn tại không
      * 
-     * @param conn      Kết nối đến cơ sở dữ liệu
      * @param productId ID sản phẩm
-     * @return Danh sách thông số kỹ thuật
+     * @return true nếu tồn tại, false nếu không
      */
-    private List<ProductSpecification> getProductSpecifications(Connection conn, int productId) throws SQLException {
-        List<ProductSpecification> specifications = new ArrayList<>();
+    public boolean productExists(int productId) {
+        String sql = "SELECT id FROM products WHERE id = ?";
 
-        String sql = "SELECT id, name, value FROM product_specifications WHERE product_id = ?";
+        try (Connection conn = DatabaseUtil.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, productId);
 
             try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    ProductSpecification spec = new ProductSpecification();
-                    spec.setId(rs.getInt("id"));
-                    spec.setProductId(productId);
-                    spec.setName(rs.getString("name"));
-                    spec.setValue(rs.getString("value"));
-                    specifications.add(spec);
-                }
+                return rs.next();
             }
-        }
 
-        return specifications;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
     }
 
     /**
-     * Kiểm tra sản phẩm có được bookmark bởi người dùng không
+     * Kiểm tra người dùng có quyền chỉnh sửa sản phẩm không
      * 
-     * @param conn      Kết nối đến cơ sở dữ liệu
      * @param productId ID sản phẩm
      * @param userId    ID người dùng
-     * @return true nếu đã bookmark, false nếu chưa
+     * @return true nếu có quyền, false nếu không
      */
-    private boolean isProductBookmarked(Connection conn, int productId, int userId) throws SQLException {
-        String sql = "SELECT id FROM bookmarks WHERE product_id = ? AND user_id = ?";
+    public boolean canUserEditProduct(int productId, int userId) {
+        String sql = "SELECT id FROM products WHERE id = ? AND user_id = ?";
+
+        try (Connection conn = DatabaseUtil.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, productId);
             stmt.setInt(2, userId);
 
             try (ResultSet rs = stmt.executeQuery()) {
                 return rs.next();
             }
-        }
-    }
 
-    /**
-     * Kiểm tra người dùng đã đánh giá sản phẩm chưa
-     *
-     * @param conn      Kết nối DB
-     * @param productId ID sản phẩm
-     * @param userId    ID người dùng
-     * @return true nếu đã đánh giá, false nếu chưa
-     */
-    private boolean isProductReviewed(Connection conn, int productId, int userId) throws SQLException {
-        String sql = "SELECT id FROM reviews WHERE product_id = ? AND user_id = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, productId);
-            stmt.setInt(2, userId);
-            try (ResultSet rs = stmt.executeQuery()) {
-                return rs.next();
-            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
         }
     }
 
@@ -668,6 +1193,7 @@ public class ProductDAO {
         product.setUserId(rs.getInt("user_id"));
         product.setRating(rs.getDouble("rating"));
         product.setReviewCount(rs.getInt("review_count"));
+        product.setRankScore(rs.getDouble("rank_score"));
         product.setCreatedAt(rs.getTimestamp("created_at"));
         product.setUpdatedAt(rs.getTimestamp("updated_at"));
         return product;
@@ -0,0 +1,231 @@
+package com.example.api.dao;
+
+import com.example.api.model.Product;
+import com.example.api.model.ProductSpecification;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Nạp chi tiết sản phẩm (hình ảnh, thông số kỹ thuật, trạng thái bookmark/đã đánh giá)
+ * cho một hoặc nhiều sản phẩm trong một lần gọi đến cơ sở dữ liệu.
+ *
+ * Các truy vấn chi tiết được gộp thành một câu UNION ALL cùng dạng cột, phân biệt bằng cột detail_kind,
+ * nên mỗi lần nạp chỉ gửi một câu lệnh (không cần allowMultiQueries). Khi nạp một sản phẩm, dòng sản phẩm
+ * được LEFT JOIN với phần chi tiết trong cùng câu lệnh. Danh sách sản phẩm được gom theo IN
+ * nên số câu lệnh không phụ thuộc số sản phẩm.
+ */
+public class ProductHydrator {
+
+    // Kích thước danh sách IN được làm tròn lên để cache statement dùng lại được câu SQL
+    private static final int[] IN_BUCKETS = { 1, 4, 10, 20, 50, 100 };
+    private static final int MAX_IN_SIZE = IN_BUCKETS[IN_BUCKETS.length - 1];
+
+    // Giá trị của cột detail_kind
+    private static final int KIND_IMAGE = 1;
+    private static final int KIND_SPEC = 2;
+    private static final int KIND_BOOKMARK = 3;
+    private static final int KIND_REVIEWED = 4;
+
+    // Hình ảnh: ảnh chính trước, sau đó theo sort_order; thông số theo id
+    private static final String DETAIL_ORDER = "detail_kind, detail_product_id, detail_sort1 DESC, detail_sort2";
+
+    /**
+     * Lấy một sản phẩm kèm toàn bộ thông tin chi tiết
+     *
+     * @param conn   Kết nối đến cơ sở dữ liệu
+     * @param bySlug true nếu tìm theo slug, false nếu tìm theo ID
+     * @param key    ID (Integer) hoặc slug (String) của sản phẩm
+     * @param userId ID người dùng (nếu đã đăng nhập)
+     * @param mapper Hàm chuyển ResultSet thành Product
+     * @return Sản phẩm hoặc null nếu không tìm thấy
+     */
+    public Product loadProduct(Connection conn, boolean bySlug, Object key, Integer userId, RowMapper mapper)
+            throws SQLException {
+        // Truy vấn con dùng lại điều kiện tìm sản phẩm để không cần biết trước ID
+        String productIdExpr = bySlug ? "(SELECT id FROM products WHERE slug = ?)" : "?";
+
+        StringBuilder sql = new StringBuilder("SELECT p.*, c.name as category_name, d.* FROM products p " +
+                "LEFT JOIN categories c ON p.category_id = c.id LEFT JOIN (");
+        List<Object> params = new ArrayList<>();
+        appendDetailUnion(sql, params, "= " + productIdExpr, userId, key);
+        sql.append(") d ON d.detail_product_id = p.id WHERE ")
+                .append(bySlug ? "p.slug = ?" : "p.id = ?")
+                .append(" ORDER BY ").append(DETAIL_ORDER);
+        params.add(key);
+
+        Product product = null;
+        try (PreparedStatement stmt = prepare(conn, sql.toString(), params);
+             ResultSet rs = stmt.executeQuery()) {
+            Map<Integer, Product> byId = new HashMap<>();
+            while (rs.next()) {
+                // Mỗi dòng lặp lại cột sản phẩm, chỉ đọc ở dòng đầu tiên
+                if (product == null) {
+                    product = mapper.map(rs);
+                    product.setCategoryName(rs.getString("category_name"));
+                    product.setImages(new ArrayList<>());
+                    product.setSpecifications(new ArrayList<>());
+                    byId.put(product.getId(), product);
+                }
+                readDetail(rs, byId);
+            }
+        }
+        return product;
+    }
+
+    /**
+     * Nạp hình ảnh, thông số kỹ thuật và trạng thái bookmark/đã đánh giá cho danh sách sản phẩm
+     *
+     * @param conn     Kết nối đến cơ sở dữ liệu
+     * @param products Danh sách sản phẩm cần nạp chi tiết
+     * @param userId   ID người dùng (nếu đã đăng nhập)
+     */
+    public void hydrate(Connection conn, Collection<Product> products, Integer userId) throws SQLException {
+        if (products.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, Product> byId = new LinkedHashMap<>();
+        for (Product product : products) {
+            product.setImages(new ArrayList<>());
+            product.setSpecifications(new ArrayList<>());
+            byId.put(product.getId(), product);
+        }
+
+        List<Integer> ids = new ArrayList<>(byId.keySet());
+        StringBuilder sql = new StringBuilder();
+        List<Object> params = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += MAX_IN_SIZE) {
+            List<Integer> chunk = ids.subList(from, Math.min(ids.size(), from + MAX_IN_SIZE));
+            Object[] padded = padIds(chunk);
+            if (sql.length() > 0) {
+                sql.append(" UNION ALL ");
+            }
+            appendDetailUnion(sql, params, "IN (" + placeholders(padded.length) + ")", userId, padded);
+        }
+        sql.append(" ORDER BY ").append(DETAIL_ORDER);
+
+        try (PreparedStatement stmt = prepare(conn, sql.toString(), params);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                readDetail(rs, byId);
+            }
+        }
+    }
+
+    /**
+     * Thêm các nhánh UNION ALL cho hình ảnh, thông số, bookmark và đánh giá với điều kiện product_id cho trước.
+     * Mọi nhánh có cùng dạng cột: detail_kind, detail_product_id, detail_id, detail_name, detail_value,
+     * detail_sort1, detail_sort2
+     */
+    private void appendDetailUnion(StringBuilder sql, List<Object> params, String productIdCondition,
+            Integer userId, Object... keyParams) {
+        sql.append("SELECT ").append(KIND_IMAGE).append(" AS detail_kind, product_id AS detail_product_id, ")
+                .append("id AS detail_id, image_path AS detail_name, NULL AS detail_value, ")
+                .append("is_primary AS detail_sort1, sort_order AS detail_sort2 ")
+                .append("FROM product_images WHERE product_id ").append(productIdCondition);
+        Collections.addAll(params, keyParams);
+
+        sql.append(" UNION ALL SELECT ").append(KIND_SPEC).append(", product_id, id, name, value, 0, id ")
+                .append("FROM product_specifications WHERE product_id ").append(productIdCondition);
+        Collections.addAll(params, keyParams);
+
+        if (userId != null) {
+            sql.append(" UNION ALL SELECT ").append(KIND_BOOKMARK).append(", product_id, NULL, NULL, NULL, 0, 0 ")
+                    .append("FROM bookmarks WHERE user_id = ? AND product_id ").append(productIdCondition);
+            params.add(userId);
+            Collections.addAll(params, keyParams);
+
+            sql.append(" UNION ALL SELECT ").append(KIND_REVIEWED).append(", product_id, NULL, NULL, NULL, 0, 0 ")
+                    .append("FROM reviews WHERE user_id = ? AND product_id ").append(productIdCondition);
+            params.add(userId);
+            Collections.addAll(params, keyParams);
+        }
+    }
+
+    /**
+     * Áp dụng một dòng chi tiết vào sản phẩm tương ứng (bỏ qua nếu dòng không có chi tiết)
+     */
+    private static void readDetail(ResultSet rs, Map<Integer, Product> byId) throws SQLException {
+        int kind = rs.getInt("detail_kind");
+        if (rs.wasNull()) {
+            return;
+        }
+        Product product = byId.get(rs.getInt("detail_product_id"));
+        if (product == null) {
+            return;
+        }
+
+        switch (kind) {
+            case KIND_IMAGE:
+                product.getImages().add(rs.getString("detail_name"));
+                break;
+            case KIND_SPEC:
+                ProductSpecification spec = new ProductSpecification();
+                spec.setId(rs.getInt("detail_id"));
+                spec.setProductId(product.getId());
+                spec.setName(rs.getString("detail_name"));
+                spec.setValue(rs.getString("detail_value"));
+                product.getSpecifications().add(spec);
+                break;
+            case KIND_BOOKMARK:
+                product.setBookmarked(true);
+                break;
+            case KIND_REVIEWED:
+                product.setReviewed(true);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static PreparedStatement prepare(Connection conn, String sql, List<Object> params) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement(sql);
+        for (int i = 0; i < params.size(); i++) {
+            stmt.setObject(i + 1, params.get(i));
+        }
+        return stmt;
+    }
+
+    /**
+     * Làm tròn số phần tử lên kích thước bucket gần nhất bằng cách lặp lại ID cuối
+     */
+    private static Object[] padIds(List<Integer> ids) {
+        int size = MAX_IN_SIZE;
+        for (int bucket : IN_BUCKETS) {
+            if (bucket >= ids.size()) {
+                size = bucket;
+                break;
+            }
+        }
+        Object[] padded = new Object[size];
+        for (int i = 0; i < size; i++) {
+            padded[i] = ids.get(Math.min(i, ids.size() - 1));
+        }
+        return padded;
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(i == 0 ? "?" : ", ?");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Chuyển một dòng ResultSet thành Product
+     */
+    public interface RowMapper {
+        Product map(ResultSet rs) throws SQLException;
+    }
+}
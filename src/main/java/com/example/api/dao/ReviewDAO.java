@@ -1,14 +1,27 @@
 package com.example.api.dao;
 
+import com.example.api.cache.HelpfulVoteBuffer;
+import com.example.api.cache.ProductCache;
+import com.example.api.cache.ReviewSummaryCache;
 import com.example.api.model.Review;
+import com.example.api.model.ReviewHelpful;
+import com.example.api.model.ReviewSummary;
 import com.example.api.model.User;
+import com.example.api.search.ProductSearchIndex;
+import com.example.api.search.SuggestIndex;
+import com.example.api.service.ProductRankingJob;
+import com.example.api.service.ReviewScoreJob;
+import com.example.api.util.AppConfig;
+import com.example.api.util.CursorUtil;
 import com.example.api.util.DatabaseUtil;
 
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -18,6 +31,34 @@ import java.util.logging.Logger;
 public class ReviewDAO {
     private static final Logger LOGGER = Logger.getLogger(ReviewDAO.class.getName());
     
+    /**
+     * Điểm hữu ích có suy giảm theo thời gian (sort=helpful_desc), tính từ helpful_count và created_at:
+     * LOG10(1 + helpful_count) + (UNIX_TIMESTAMP(created_at) - HELPFUL_SCORE_EPOCH) / decaySeconds.
+     * Đánh giá mới hơn decaySeconds cần ít hơn 10 lần lượt hữu ích để đứng ngang đánh giá cũ.
+     */
+    private static final long HELPFUL_SCORE_EPOCH = 1704067200L; // 2024-01-01 00:00:00 UTC
+    private static final long HELPFUL_SCORE_DECAY_SECONDS =
+            Math.max(1, AppConfig.getLong("review.helpfulScore.decaySeconds", 15552000));
+    private static final String HELPFUL_SCORE_SQL = "helpful_score = LOG10(1 + helpful_count) + " +
+            "(UNIX_TIMESTAMP(created_at) - " + HELPFUL_SCORE_EPOCH + ") / " + HELPFUL_SCORE_DECAY_SECONDS + ", " +
+            "updated_at = updated_at";
+    
+    /**
+     * Câu truy vấn đánh giá của người dùng kèm thông tin sản phẩm và ảnh chính (chưa có ORDER BY).
+     * Tham số: userId
+     */
+    private static final String USER_REVIEW_QUERY = "SELECT r.*, " +
+            "p.name as product_name, " +
+            "p.slug as product_slug, " +
+            "p.price as product_price, " +
+            "p.rating as product_rating, " +
+            "p.review_count as product_review_count, " +
+            "pi.image_path as product_image " +
+            "FROM reviews r " +
+            "JOIN products p ON r.product_id = p.id " +
+            "LEFT JOIN product_images pi ON p.id = pi.product_id AND pi.is_primary = true " +
+            "WHERE r.user_id = ? ";
+    
     /**
      * Lấy danh sách đánh giá của sản phẩm
      * 
@@ -33,101 +74,43 @@ public class ReviewDAO {
         List<Review> reviews = new ArrayList<>();
         
         try (Connection conn = DatabaseUtil.getConnection()) {
-            // Đếm tổng số đánh giá
-            String countQuery = "SELECT COUNT(*) FROM reviews WHERE product_id = ?";
-            try (PreparedStatement countStmt = conn.prepareStatement(countQuery)) {
-                countStmt.setInt(1, productId);
-                ResultSet countRs = countStmt.executeQuery();
-                int total = 0;
-                if (countRs.next()) {
-                    total = countRs.getInt(1);
-                }
-                
-                // Tính toán phân trang
-                int offset = (page - 1) * limit;
-                int totalPages = (int) Math.ceil((double) total / limit);
-                
-                // Tạo thông tin phân trang
-                Map<String, Object> pagination = new HashMap<>();
-                pagination.put("total", total);
-                pagination.put("page", page);
-                pagination.put("limit", limit);
-                pagination.put("totalPages", totalPages);
-                result.put("pagination", pagination);
-                
-                // Nếu không có đánh giá, trả về danh sách rỗng
-                if (total == 0) {
-                    result.put("reviews", reviews);
-                    return result;
-                }
-            }
+            // Tổng số đánh giá lấy từ cột products.review_count thay vì COUNT(*)
+            int total = getProductReviewCount(conn, productId);
+            
+            // Tính toán phân trang
+            int totalPages = (int) Math.ceil((double) total / limit);
             
-            // Xác định cách sắp xếp
-            String orderBy;
-            switch (sort) {
-                case "rating_desc":
-                    orderBy = "r.rating DESC";
-                    break;
-                case "helpful_desc":
-                    orderBy = "r.helpful_count DESC";
-                    break;
-                case "date_desc":
-                default:
-                    orderBy = "r.created_at DESC";
-                    break;
+            // Tạo thông tin phân trang
+            Map<String, Object> pagination = new HashMap<>();
+            pagination.put("total", total);
+            pagination.put("page", page);
+            pagination.put("limit", limit);
+            pagination.put("totalPages", totalPages);
+            result.put("pagination", pagination);
+            
+            // Nếu không có đánh giá, trả về danh sách rỗng
+            if (total == 0) {
+                result.put("reviews", reviews);
+                return result;
             }
             
-            // Truy vấn lấy đánh giá với thông tin người dùng
-            String query = "SELECT r.*, u.id as user_id, u.name as user_name, u.avatar as user_avatar " +
-                           "FROM reviews r " +
-                           "JOIN users u ON r.user_id = u.id " +
-                           "WHERE r.product_id = ? " +
-                           "ORDER BY " + orderBy + " " +
+            String query = productReviewQuery(userId) +
+                           "ORDER BY " + reviewOrderBy(normalizeReviewSort(sort)) + " " +
                            "LIMIT ? OFFSET ?";
             
             try (PreparedStatement stmt = conn.prepareStatement(query)) {
-                stmt.setInt(1, productId);
-                stmt.setInt(2, limit);
-                stmt.setInt(3, (page - 1) * limit);
-                
-                ResultSet rs = stmt.executeQuery();
+                int paramIndex = 1;
+                if (userId != null) {
+                    stmt.setInt(paramIndex++, userId);
+                }
+                stmt.setInt(paramIndex++, productId);
+                stmt.setInt(paramIndex++, limit);
+                stmt.setInt(paramIndex, (page - 1) * limit);
                 
-                while (rs.next()) {
-                    Review review = new Review();
-                    review.setId(rs.getInt("id"));
-                    review.setProductId(rs.getInt("product_id"));
-                    review.setUserId(rs.getInt("user_id"));
-                    review.setRating(rs.getInt("rating"));
-                    review.setContent(rs.getString("content"));
-                    review.setHelpfulCount(rs.getInt("helpful_count"));
-                    review.setCreatedAt(rs.getTimestamp("created_at"));
-                    review.setUpdatedAt(rs.getTimestamp("updated_at"));
-                    
-                    // Thêm thông tin người dùng
-                    User user = new User();
-                    user.setId(rs.getInt("user_id"));
-                    user.setName(rs.getString("user_name"));
-                    user.setAvatar(rs.getString("user_avatar"));
-                    review.setUser(user);
-                    
-                    // Kiểm tra người dùng hiện tại đã đánh dấu đánh giá này là hữu ích chưa
-                    if (userId != null) {
-                        String helpfulQuery = "SELECT is_helpful FROM review_helpful WHERE review_id = ? AND user_id = ?";
-                        try (PreparedStatement helpfulStmt = conn.prepareStatement(helpfulQuery)) {
-                            helpfulStmt.setInt(1, review.getId());
-                            helpfulStmt.setInt(2, userId);
-                            ResultSet helpfulRs = helpfulStmt.executeQuery();
-                            if (helpfulRs.next()) {
-                                review.setIsHelpful(helpfulRs.getBoolean("is_helpful"));
-                            } else {
-                                review.setIsHelpful(false);
-                            }
-                        }
-                    } else {
-                        review.setIsHelpful(false);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        reviews.add(mapProductReview(rs, userId));
                     }
-                    
-                    reviews.add(review);
                 }
             }
             
@@ -140,6 +123,105 @@ public class ReviewDAO {
         return result;
     }
     
+    /**
+     * Lấy danh sách đánh giá của sản phẩm theo cursor (phân trang keyset)
+     * 
+     * @param productId ID sản phẩm
+     * @param limit Số lượng đánh giá mỗi trang
+     * @param sort Sắp xếp (date_desc, rating_desc, helpful_desc)
+     * @param cursor Cursor nhận từ trang trước (null hoặc rỗng cho trang đầu)
+     * @param userId ID người dùng hiện tại (nếu đã đăng nhập)
+     * @return Map chứa danh sách đánh giá và thông tin phân trang (nextCursor, hasMore, total)
+     * @throws IllegalArgumentException nếu cursor không hợp lệ hoặc không khớp cách sắp xếp
+     */
+    public Map<String, Object> getProductReviewsByCursor(int productId, int limit, String sort, String cursor,
+                                                         Integer userId) {
+        Map<String, Object> result = new HashMap<>();
+        List<Review> reviews = new ArrayList<>();
+        String sortKey = normalizeReviewSort(sort);
+        
+        List<Object> params = new ArrayList<>();
+        if (userId != null) {
+            params.add(userId);
+        }
+        params.add(productId);
+        
+        StringBuilder query = new StringBuilder(productReviewQuery(userId));
+        appendReviewKeyset(query, params, sortKey, cursor);
+        query.append("ORDER BY ").append(reviewOrderBy(sortKey)).append(" LIMIT ?");
+        // Lấy thêm một dòng để biết còn trang tiếp theo hay không
+        params.add(limit + 1);
+        
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            Map<String, Object> pagination = readReviewPage(conn, query.toString(), params, limit, sortKey,
+                    reviews, rs -> mapProductReview(rs, userId));
+            pagination.put("total", getProductReviewCount(conn, productId));
+            
+            result.put("reviews", reviews);
+            result.put("pagination", pagination);
+            
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Lỗi khi lấy danh sách đánh giá: " + e.getMessage(), e);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Câu truy vấn đánh giá của sản phẩm kèm thông tin người dùng (chưa có ORDER BY).
+     * Nếu đã đăng nhập, lấy luôn trạng thái "hữu ích" của người dùng hiện tại bằng LEFT JOIN
+     * (tối đa một dòng nhờ khóa unique review_id + user_id) thay vì truy vấn riêng cho từng đánh giá.
+     * Tham số: [userId nếu có], productId
+     */
+    private String productReviewQuery(Integer userId) {
+        return "SELECT r.*, u.id as user_id, u.name as user_name, u.avatar as user_avatar" +
+               (userId != null ? ", rh.is_helpful as current_user_helpful " : " ") +
+               "FROM reviews r " +
+               "JOIN users u ON r.user_id = u.id " +
+               (userId != null ? "LEFT JOIN review_helpful rh ON rh.review_id = r.id AND rh.user_id = ? " : "") +
+               "WHERE r.product_id = ? ";
+    }
+    
+    /**
+     * Chuyển một dòng kết quả của productReviewQuery thành Review
+     */
+    private Review mapProductReview(ResultSet rs, Integer userId) throws SQLException {
+        Review review = new Review();
+        review.setId(rs.getInt("id"));
+        review.setProductId(rs.getInt("product_id"));
+        review.setUserId(rs.getInt("user_id"));
+        review.setRating(rs.getInt("rating"));
+        review.setContent(rs.getString("content"));
+        review.setHelpfulCount(rs.getInt("helpful_count"));
+        review.setCreatedAt(rs.getTimestamp("created_at"));
+        review.setUpdatedAt(rs.getTimestamp("updated_at"));
+        
+        // Thêm thông tin người dùng
+        User user = new User();
+        user.setId(rs.getInt("user_id"));
+        user.setName(rs.getString("user_name"));
+        user.setAvatar(rs.getString("user_avatar"));
+        review.setUser(user);
+        
+        // Người dùng hiện tại đã đánh dấu đánh giá này là hữu ích chưa (NULL nếu chưa đánh dấu)
+        review.setIsHelpful(userId != null && rs.getBoolean("current_user_helpful"));
+        HelpfulVoteBuffer.getInstance().overlay(review, userId);
+        return review;
+    }
+    
+    /**
+     * Lấy số đánh giá của sản phẩm từ cột products.review_count
+     */
+    private int getProductReviewCount(Connection conn, int productId) throws SQLException {
+        String query = "SELECT review_count FROM products WHERE id = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setInt(1, productId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+    
     /**
      * Thêm đánh giá mới
      * 
@@ -160,33 +242,47 @@ public class ReviewDAO {
                 }
             }
             
-            // Thêm đánh giá mới
-            String query = "INSERT INTO reviews (product_id, user_id, rating, content, helpful_count) VALUES (?, ?, ?, ?, 0)";
-            try (PreparedStatement stmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
-                stmt.setInt(1, review.getProductId());
-                stmt.setInt(2, review.getUserId());
-                stmt.setInt(3, review.getRating());
-                stmt.setString(4, review.getContent());
+            conn.setAutoCommit(false); // Thêm đánh giá và cập nhật tổng hợp rating trong cùng transaction
+            int reviewId = -1;
+            try {
+                // Thêm đánh giá mới
+                // Đánh giá mới chưa có lượt hữu ích: helpful_score chỉ gồm phần thời gian
+                String query = "INSERT INTO reviews (product_id, user_id, rating, content, helpful_count, helpful_score) " +
+                               "VALUES (?, ?, ?, ?, 0, (UNIX_TIMESTAMP() - " + HELPFUL_SCORE_EPOCH + ") / " +
+                               HELPFUL_SCORE_DECAY_SECONDS + ")";
+                try (PreparedStatement stmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+                    stmt.setInt(1, review.getProductId());
+                    stmt.setInt(2, review.getUserId());
+                    stmt.setInt(3, review.getRating());
+                    stmt.setString(4, review.getContent());
+                    
+                    if (stmt.executeUpdate() > 0) {
+                        try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                            if (generatedKeys.next()) {
+                                reviewId = generatedKeys.getInt(1);
+                            }
+                        }
+                    }
+                }
                 
-                int affectedRows = stmt.executeUpdate();
-                if (affectedRows == 0) {
+                if (reviewId == -1) {
+                    conn.rollback();
                     return -1;
                 }
                 
-                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        int reviewId = generatedKeys.getInt(1);
-                        
-                        // Cập nhật rating trung bình của sản phẩm
-                        updateProductRating(conn, review.getProductId());
-                        
-                        return reviewId;
-                    } else {
-                        return -1;
-                    }
-                }
+                // Cộng đánh giá mới vào tổng hợp rating của sản phẩm
+                applyRatingDelta(conn, review.getProductId(), 1, 0, review.getRating());
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
             
+            productRatingChanged(review.getProductId());
+            return reviewId;
+            
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Lỗi khi thêm đánh giá: " + e.getMessage(), e);
             return -1;
@@ -204,35 +300,54 @@ public class ReviewDAO {
      */
     public boolean updateReview(int reviewId, int rating, String content, int userId) {
         try (Connection conn = DatabaseUtil.getConnection()) {
-            // Kiểm tra quyền cập nhật
-            String checkQuery = "SELECT product_id FROM reviews WHERE id = ? AND user_id = ?";
+            conn.setAutoCommit(false); // Đọc rating cũ và cập nhật tổng hợp trong cùng transaction
             int productId;
-            try (PreparedStatement checkStmt = conn.prepareStatement(checkQuery)) {
-                checkStmt.setInt(1, reviewId);
-                checkStmt.setInt(2, userId);
-                ResultSet rs = checkStmt.executeQuery();
-                if (!rs.next()) {
-                    // Không tìm thấy đánh giá hoặc không có quyền
-                    return false;
+            try {
+                // Kiểm tra quyền cập nhật, khóa dòng để rating cũ không đổi đến khi commit
+                String checkQuery = "SELECT product_id, rating FROM reviews WHERE id = ? AND user_id = ? FOR UPDATE";
+                int oldRating;
+                try (PreparedStatement checkStmt = conn.prepareStatement(checkQuery)) {
+                    checkStmt.setInt(1, reviewId);
+                    checkStmt.setInt(2, userId);
+                    try (ResultSet rs = checkStmt.executeQuery()) {
+                        if (!rs.next()) {
+                            // Không tìm thấy đánh giá hoặc không có quyền
+                            conn.rollback();
+                            return false;
+                        }
+                        productId = rs.getInt("product_id");
+                        oldRating = rs.getInt("rating");
+                    }
                 }
-                productId = rs.getInt("product_id");
-            }
-            
-            // Cập nhật đánh giá
-            String query = "UPDATE reviews SET rating = ?, content = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?";
-            try (PreparedStatement stmt = conn.prepareStatement(query)) {
-                stmt.setInt(1, rating);
-                stmt.setString(2, content);
-                stmt.setInt(3, reviewId);
                 
-                int affectedRows = stmt.executeUpdate();
-                if (affectedRows > 0) {
-                    // Cập nhật rating trung bình của sản phẩm
-                    updateProductRating(conn, productId);
-                    return true;
+                // Cập nhật đánh giá
+                String query = "UPDATE reviews SET rating = ?, content = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?";
+                try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                    stmt.setInt(1, rating);
+                    stmt.setString(2, content);
+                    stmt.setInt(3, reviewId);
+                    
+                    if (stmt.executeUpdate() == 0) {
+                        conn.rollback();
+                        return false;
+                    }
+                }
+                
+                // Chỉ cần điều chỉnh tổng hợp khi số sao thay đổi
+                if (oldRating != rating) {
+                    applyRatingDelta(conn, productId, 0, oldRating, rating);
                 }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
             
+            productRatingChanged(productId);
+            return true;
+            
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Lỗi khi cập nhật đánh giá: " + e.getMessage(), e);
         }
@@ -249,33 +364,49 @@ public class ReviewDAO {
      */
     public boolean deleteReview(int reviewId, int userId) {
         try (Connection conn = DatabaseUtil.getConnection()) {
-            // Kiểm tra quyền xóa
-            String checkQuery = "SELECT product_id FROM reviews WHERE id = ? AND user_id = ?";
+            conn.setAutoCommit(false); // Xóa đánh giá và trừ khỏi tổng hợp trong cùng transaction
             int productId;
-            try (PreparedStatement checkStmt = conn.prepareStatement(checkQuery)) {
-                checkStmt.setInt(1, reviewId);
-                checkStmt.setInt(2, userId);
-                ResultSet rs = checkStmt.executeQuery();
-                if (!rs.next()) {
-                    // Không tìm thấy đánh giá hoặc không có quyền
-                    return false;
+            try {
+                // Kiểm tra quyền xóa
+                String checkQuery = "SELECT product_id, rating FROM reviews WHERE id = ? AND user_id = ? FOR UPDATE";
+                int oldRating;
+                try (PreparedStatement checkStmt = conn.prepareStatement(checkQuery)) {
+                    checkStmt.setInt(1, reviewId);
+                    checkStmt.setInt(2, userId);
+                    try (ResultSet rs = checkStmt.executeQuery()) {
+                        if (!rs.next()) {
+                            // Không tìm thấy đánh giá hoặc không có quyền
+                            conn.rollback();
+                            return false;
+                        }
+                        productId = rs.getInt("product_id");
+                        oldRating = rs.getInt("rating");
+                    }
                 }
-                productId = rs.getInt("product_id");
-            }
-            
-            // Xóa đánh giá
-            String query = "DELETE FROM reviews WHERE id = ?";
-            try (PreparedStatement stmt = conn.prepareStatement(query)) {
-                stmt.setInt(1, reviewId);
                 
-                int affectedRows = stmt.executeUpdate();
-                if (affectedRows > 0) {
-                    // Cập nhật rating trung bình của sản phẩm
-                    updateProductRating(conn, productId);
-                    return true;
+                // Xóa đánh giá
+                String query = "DELETE FROM reviews WHERE id = ?";
+                try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                    stmt.setInt(1, reviewId);
+                    
+                    if (stmt.executeUpdate() == 0) {
+                        conn.rollback();
+                        return false;
+                    }
                 }
+                
+                applyRatingDelta(conn, productId, -1, oldRating, 0);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
             
+            productRatingChanged(productId);
+            return true;
+            
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Lỗi khi xóa đánh giá: " + e.getMessage(), e);
         }
@@ -286,112 +417,325 @@ public class ReviewDAO {
     /**
      * Đánh dấu đánh giá là hữu ích
      * 
+     * Một round trip duy nhất: gọi thủ tục mark_review_helpful (migration V10), thủ tục này cập nhật
+     * helpful_count theo chênh lệch giữa giá trị mới và trạng thái trước đó của người dùng
+     * (đọc qua LEFT JOIN trong cùng câu UPDATE, đồng thời khóa dòng đánh giá), upsert review_helpful,
+     * rồi trả về helpful_count mới trong cùng một transaction phía server.
+     * Không đếm lại COUNT(*) trên review_helpful.
+     * Khi bật vote.writeBehind.enabled, lượt bình chọn được ghi vào HelpfulVoteBuffer và ghi xuống MySQL theo lô.
+     * 
      * @param reviewId ID đánh giá
      * @param userId ID người dùng
      * @param isHelpful Có hữu ích hay không
      * @return Số lượng đánh dấu hữu ích mới, hoặc -1 nếu có lỗi
      */
     public int markReviewHelpful(int reviewId, int userId, boolean isHelpful) {
+        HelpfulVoteBuffer buffer = HelpfulVoteBuffer.getInstance();
+        if (buffer.isActive()) {
+            int helpfulCount = buffer.vote(reviewId, userId, isHelpful);
+            if (helpfulCount != HelpfulVoteBuffer.NOT_BUFFERED) {
+                return helpfulCount;
+            }
+        }
+        
+        String query = "CALL mark_review_helpful(?, ?, ?)";
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setInt(1, reviewId);
+            stmt.setInt(2, userId);
+            stmt.setBoolean(3, isHelpful);
+            
+            // Thủ tục trả về một ResultSet (rỗng nếu đánh giá không tồn tại) và một kết quả trạng thái của CALL
+            int[] state = null;
+            boolean hasResultSet = stmt.execute();
+            while (hasResultSet || stmt.getUpdateCount() != -1) {
+                if (hasResultSet) {
+                    try (ResultSet rs = stmt.getResultSet()) {
+                        if (rs.next()) {
+                            state = new int[] { rs.getInt("helpful_count"), rs.getInt("product_id") };
+                        }
+                    }
+                }
+                hasResultSet = stmt.getMoreResults();
+            }
+            return helpfulCountChanged(state, reviewId);
+            
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Lỗi khi đánh dấu đánh giá là hữu ích: " + e.getMessage(), e);
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Báo cho cache tóm tắt đánh giá về số lượt hữu ích mới
+     * 
+     * @param state {helpful_count, product_id}, hoặc null nếu đánh giá không tồn tại
+     * @return helpful_count, hoặc -1 nếu đánh giá không tồn tại
+     */
+    private int helpfulCountChanged(int[] state, int reviewId) {
+        if (state == null) {
+            return -1;
+        }
+        ReviewSummaryCache.getInstance().helpfulChanged(state[1], reviewId, state[0]);
+        ReviewScoreJob.getInstance().markDirty(reviewId);
+        return state[0];
+    }
+    
+    /**
+     * Đọc helpful_count đã ghi và bình chọn hiện tại của người dùng (không khóa)
+     * 
+     * @param reviewId ID đánh giá
+     * @param userId ID người dùng
+     * @return {helpful_count, is_helpful (-1 nếu chưa bình chọn), product_id}, hoặc null nếu đánh giá không tồn tại
+     * @throws SQLException Nếu có lỗi SQL
+     */
+    public int[] getHelpfulState(int reviewId, int userId) throws SQLException {
+        String query = "SELECT r.helpful_count, rh.is_helpful, r.product_id FROM reviews r " +
+                       "LEFT JOIN review_helpful rh ON rh.review_id = r.id AND rh.user_id = ? " +
+                       "WHERE r.id = ?";
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setInt(1, userId);
+            stmt.setInt(2, reviewId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                int helpfulCount = rs.getInt("helpful_count");
+                boolean voted = rs.getObject("is_helpful") != null;
+                return new int[] { helpfulCount, voted ? (rs.getBoolean("is_helpful") ? 1 : 0) : -1,
+                                   rs.getInt("product_id") };
+            }
+        }
+    }
+    
+    /**
+     * Ghi một lô bình chọn hữu ích (mỗi cặp đánh giá/người dùng xuất hiện một lần) trong một transaction
+     * 
+     * Khóa các dòng đánh giá theo thứ tự id, đọc bình chọn đang lưu, upsert review_helpful bằng một câu
+     * INSERT nhiều dòng và cập nhật helpful_count của mỗi đánh giá theo tổng chênh lệch bằng một câu UPDATE.
+     * Chênh lệch tính từ trạng thái đang lưu nên ghi lại cùng một lô không làm sai số đếm.
+     * Bình chọn cho đánh giá hoặc người dùng không còn tồn tại bị bỏ qua.
+     * 
+     * @param votes Các lượt bình chọn
+     * @throws SQLException Nếu có lỗi SQL (transaction đã được rollback)
+     */
+    public void applyHelpfulVotes(List<ReviewHelpful> votes) throws SQLException {
+        if (votes.isEmpty()) {
+            return;
+        }
+        Set<Integer> reviewIds = new HashSet<>();
+        Set<Integer> userIds = new HashSet<>();
+        for (ReviewHelpful vote : votes) {
+            reviewIds.add(vote.getReviewId());
+            userIds.add(vote.getUserId());
+        }
+        
         try (Connection conn = DatabaseUtil.getConnection()) {
             conn.setAutoCommit(false);
-            
             try {
-                // Kiểm tra xem đánh giá có tồn tại không
-                String checkReviewQuery = "SELECT id FROM reviews WHERE id = ?";
-                try (PreparedStatement checkStmt = conn.prepareStatement(checkReviewQuery)) {
-                    checkStmt.setInt(1, reviewId);
-                    ResultSet rs = checkStmt.executeQuery();
-                    if (!rs.next()) {
-                        // Đánh giá không tồn tại
-                        return -1;
+                // ID đánh giá -> ID sản phẩm, để xóa tóm tắt đánh giá của sản phẩm sau khi commit
+                Map<Integer, Integer> existingReviews = new HashMap<>();
+                String lockQuery = "SELECT id, product_id FROM reviews WHERE id IN (" + placeholders(reviewIds.size()) +
+                                   ") ORDER BY id FOR UPDATE";
+                try (PreparedStatement stmt = conn.prepareStatement(lockQuery)) {
+                    int index = 1;
+                    for (Integer reviewId : reviewIds) {
+                        stmt.setInt(index++, reviewId);
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            existingReviews.put(rs.getInt("id"), rs.getInt("product_id"));
+                        }
                     }
                 }
+                Set<Integer> existingUsers = selectIds(conn,
+                        "SELECT id FROM users WHERE id IN (" + placeholders(userIds.size()) + ")", userIds);
                 
-                // Kiểm tra xem người dùng đã đánh dấu đánh giá này chưa
-                String checkQuery = "SELECT id, is_helpful FROM review_helpful WHERE review_id = ? AND user_id = ?";
-                boolean exists = false;
-                boolean currentValue = false;
-                int helpfulId = 0;
-                
-                try (PreparedStatement checkStmt = conn.prepareStatement(checkQuery)) {
-                    checkStmt.setInt(1, reviewId);
-                    checkStmt.setInt(2, userId);
-                    ResultSet rs = checkStmt.executeQuery();
-                    if (rs.next()) {
-                        exists = true;
-                        helpfulId = rs.getInt("id");
-                        currentValue = rs.getBoolean("is_helpful");
+                List<ReviewHelpful> valid = new ArrayList<>(votes.size());
+                for (ReviewHelpful vote : votes) {
+                    if (existingReviews.containsKey(vote.getReviewId()) && existingUsers.contains(vote.getUserId())) {
+                        valid.add(vote);
                     }
                 }
+                if (valid.isEmpty()) {
+                    conn.commit();
+                    return;
+                }
                 
-                if (exists) {
-                    // Nếu giá trị mới giống giá trị cũ, không cần cập nhật
-                    if (currentValue == isHelpful) {
-                        // Lấy số lượng đánh dấu hữu ích hiện tại
-                        String countQuery = "SELECT helpful_count FROM reviews WHERE id = ?";
-                        try (PreparedStatement countStmt = conn.prepareStatement(countQuery)) {
-                            countStmt.setInt(1, reviewId);
-                            ResultSet countRs = countStmt.executeQuery();
-                            if (countRs.next()) {
-                                conn.commit();
-                                return countRs.getInt("helpful_count");
-                            }
-                        }
+                // Bình chọn đang lưu của các cặp trong lô
+                StringBuilder pairs = new StringBuilder();
+                for (int i = 0; i < valid.size(); i++) {
+                    pairs.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+                }
+                Map<Long, Boolean> stored = new HashMap<>();
+                String selectQuery = "SELECT review_id, user_id, is_helpful FROM review_helpful " +
+                                     "WHERE (review_id, user_id) IN (" + pairs + ") FOR UPDATE";
+                try (PreparedStatement stmt = conn.prepareStatement(selectQuery)) {
+                    int index = 1;
+                    for (ReviewHelpful vote : valid) {
+                        stmt.setInt(index++, vote.getReviewId());
+                        stmt.setInt(index++, vote.getUserId());
                     }
-                    
-                    // Cập nhật đánh dấu
-                    String updateQuery = "UPDATE review_helpful SET is_helpful = ? WHERE id = ?";
-                    try (PreparedStatement updateStmt = conn.prepareStatement(updateQuery)) {
-                        updateStmt.setBoolean(1, isHelpful);
-                        updateStmt.setInt(2, helpfulId);
-                        updateStmt.executeUpdate();
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            stored.put(pairKey(rs.getInt("review_id"), rs.getInt("user_id")),
+                                       rs.getBoolean("is_helpful"));
+                        }
                     }
-                } else {
-                    // Thêm đánh dấu mới
-                    String insertQuery = "INSERT INTO review_helpful (review_id, user_id, is_helpful) VALUES (?, ?, ?)";
-                    try (PreparedStatement insertStmt = conn.prepareStatement(insertQuery)) {
-                        insertStmt.setInt(1, reviewId);
-                        insertStmt.setInt(2, userId);
-                        insertStmt.setBoolean(3, isHelpful);
-                        insertStmt.executeUpdate();
+                }
+                
+                Map<Integer, Integer> deltas = new HashMap<>();
+                for (ReviewHelpful vote : valid) {
+                    Boolean previous = stored.get(pairKey(vote.getReviewId(), vote.getUserId()));
+                    int delta = (vote.isHelpful() ? 1 : 0) - (Boolean.TRUE.equals(previous) ? 1 : 0);
+                    if (delta != 0) {
+                        deltas.merge(vote.getReviewId(), delta, Integer::sum);
                     }
                 }
                 
-                // Cập nhật số lượng đánh dấu hữu ích trong bảng reviews
-                String updateHelpfulCountQuery = "UPDATE reviews SET helpful_count = " +
-                                                "(SELECT COUNT(*) FROM review_helpful WHERE review_id = ? AND is_helpful = true) " +
-                                                "WHERE id = ?";
-                try (PreparedStatement updateStmt = conn.prepareStatement(updateHelpfulCountQuery)) {
-                    updateStmt.setInt(1, reviewId);
-                    updateStmt.setInt(2, reviewId);
-                    updateStmt.executeUpdate();
+                StringBuilder rows = new StringBuilder();
+                for (int i = 0; i < valid.size(); i++) {
+                    rows.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+                }
+                String upsertQuery = "INSERT INTO review_helpful (review_id, user_id, is_helpful) VALUES " + rows +
+                                     " ON DUPLICATE KEY UPDATE is_helpful = VALUES(is_helpful)";
+                try (PreparedStatement stmt = conn.prepareStatement(upsertQuery)) {
+                    int index = 1;
+                    for (ReviewHelpful vote : valid) {
+                        stmt.setInt(index++, vote.getReviewId());
+                        stmt.setInt(index++, vote.getUserId());
+                        stmt.setBoolean(index++, vote.isHelpful());
+                    }
+                    stmt.executeUpdate();
                 }
                 
-                // Lấy số lượng đánh dấu hữu ích mới
-                String countQuery = "SELECT helpful_count FROM reviews WHERE id = ?";
-                try (PreparedStatement countStmt = conn.prepareStatement(countQuery)) {
-                    countStmt.setInt(1, reviewId);
-                    ResultSet countRs = countStmt.executeQuery();
-                    if (countRs.next()) {
-                        int helpfulCount = countRs.getInt("helpful_count");
-                        conn.commit();
-                        return helpfulCount;
+                deltas.values().removeIf(delta -> delta == 0);
+                if (!deltas.isEmpty()) {
+                    StringBuilder cases = new StringBuilder();
+                    for (int i = 0; i < deltas.size(); i++) {
+                        cases.append("WHEN ? THEN ? ");
+                    }
+                    String updateQuery = "UPDATE reviews SET helpful_count = " +
+                                         "GREATEST(CAST(helpful_count AS SIGNED) + CASE id " + cases + "ELSE 0 END, 0) " +
+                                         "WHERE id IN (" + placeholders(deltas.size()) + ")";
+                    try (PreparedStatement stmt = conn.prepareStatement(updateQuery)) {
+                        int index = 1;
+                        for (Map.Entry<Integer, Integer> entry : deltas.entrySet()) {
+                            stmt.setInt(index++, entry.getKey());
+                            stmt.setInt(index++, entry.getValue());
+                        }
+                        for (Integer reviewId : deltas.keySet()) {
+                            stmt.setInt(index++, reviewId);
+                        }
+                        stmt.executeUpdate();
                     }
                 }
                 
                 conn.commit();
+                Set<Integer> productIds = new HashSet<>();
+                for (Integer reviewId : deltas.keySet()) {
+                    ReviewScoreJob.getInstance().markDirty(reviewId);
+                    productIds.add(existingReviews.get(reviewId));
+                }
+                // Khi ghi sau, tóm tắt có thể đã được nạp lại từ MySQL trước khi lô này được ghi
+                for (Integer productId : productIds) {
+                    ReviewSummaryCache.getInstance().invalidate(productId);
+                }
             } catch (SQLException e) {
                 conn.rollback();
                 throw e;
             } finally {
                 conn.setAutoCommit(true);
             }
-            
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Lỗi khi đánh dấu đánh giá là hữu ích: " + e.getMessage(), e);
         }
-        
-        return -1;
+    }
+    
+    /**
+     * Tính lại helpful_score của các đánh giá (giữ nguyên updated_at)
+     * 
+     * @param reviewIds Danh sách ID đánh giá
+     * @throws SQLException Nếu có lỗi SQL
+     */
+    public void updateHelpfulScores(List<Integer> reviewIds) throws SQLException {
+        if (reviewIds.isEmpty()) {
+            return;
+        }
+        String query = "UPDATE reviews SET " + HELPFUL_SCORE_SQL +
+                       " WHERE id IN (" + placeholders(reviewIds.size()) + ")";
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            int index = 1;
+            for (Integer reviewId : reviewIds) {
+                stmt.setInt(index++, reviewId);
+            }
+            stmt.executeUpdate();
+        }
+    }
+    
+    /**
+     * Tính lại helpful_score của các đánh giá có afterId < id <= toId (giữ nguyên updated_at)
+     * 
+     * @param afterId ID bắt đầu (không gồm)
+     * @param toId ID kết thúc (gồm)
+     * @throws SQLException Nếu có lỗi SQL
+     */
+    public void updateHelpfulScoreRange(int afterId, int toId) throws SQLException {
+        String query = "UPDATE reviews SET " + HELPFUL_SCORE_SQL + " WHERE id > ? AND id <= ?";
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setInt(1, afterId);
+            stmt.setInt(2, toId);
+            stmt.executeUpdate();
+        }
+    }
+    
+    /**
+     * @return ID đánh giá lớn nhất (0 nếu chưa có đánh giá)
+     * @throws SQLException Nếu có lỗi SQL
+     */
+    public int getMaxReviewId() throws SQLException {
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT COALESCE(MAX(id), 0) FROM reviews");
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+    
+    private static Set<Integer> selectIds(Connection conn, String query, Set<Integer> ids) throws SQLException {
+        Set<Integer> found = new HashSet<>();
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            int index = 1;
+            for (Integer id : ids) {
+                stmt.setInt(index++, id);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    found.add(rs.getInt(1));
+                }
+            }
+        }
+        return found;
+    }
+    
+    private static String placeholders(int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append(i == 0 ? "?" : ", ?");
+        }
+        return builder.toString();
+    }
+    
+    private static long pairKey(int reviewId, int userId) {
+        return ((long) reviewId << 32) | (userId & 0xffffffffL);
+    }
+    
+    private static void setParameters(PreparedStatement stmt, Object[] params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            stmt.setObject(i + 1, params[i]);
+        }
     }
     
     /**
@@ -429,6 +773,7 @@ public class ReviewDAO {
                     user.setAvatar(rs.getString("user_avatar"));
                     review.setUser(user);
                     
+                    HelpfulVoteBuffer.getInstance().overlay(review, null);
                     return review;
                 }
             }
@@ -441,26 +786,132 @@ public class ReviewDAO {
     }
     
     /**
-     * Cập nhật điểm đánh giá trung bình của sản phẩm
+     * Lấy tóm tắt đánh giá của sản phẩm từ dữ liệu tổng hợp sẵn
+     * 
+     * Số đánh giá theo từng mức sao đọc từ products.rating_1..rating_5 (được cập nhật khi ghi đánh giá),
+     * đánh giá hữu ích nhất lấy bằng một lần đọc chỉ mục (product_id, helpful_count, id).
+     * Không phụ thuộc số lượng đánh giá của sản phẩm.
      * 
-     * @param conn Kết nối cơ sở dữ liệu
      * @param productId ID sản phẩm
+     * @return Tóm tắt đánh giá, hoặc null nếu không tìm thấy sản phẩm
+     */
+    public ReviewSummary getReviewSummary(int productId) {
+        String summaryQuery = "SELECT review_count, rating_sum, rating_1, rating_2, rating_3, rating_4, rating_5 " +
+                              "FROM products WHERE id = ?";
+        String topReviewQuery = "SELECT r.*, u.name as user_name, u.avatar as user_avatar " +
+                                "FROM reviews r " +
+                                "JOIN users u ON r.user_id = u.id " +
+                                "WHERE r.product_id = ? AND r.helpful_count > 0 " +
+                                "ORDER BY r.helpful_count DESC, r.id DESC LIMIT 1";
+        
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            ReviewSummary summary = new ReviewSummary();
+            summary.setProductId(productId);
+            
+            try (PreparedStatement stmt = conn.prepareStatement(summaryQuery)) {
+                stmt.setInt(1, productId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) {
+                        return null;
+                    }
+                    int reviewCount = rs.getInt("review_count");
+                    int[] histogram = new int[5];
+                    for (int star = 1; star <= 5; star++) {
+                        histogram[star - 1] = rs.getInt("rating_" + star);
+                    }
+                    summary.setReviewCount(reviewCount);
+                    summary.setHistogram(histogram);
+                    summary.setAverageRating(reviewCount == 0 ? 0.0
+                            : Math.round(rs.getLong("rating_sum") * 100.0 / reviewCount) / 100.0);
+                }
+            }
+            
+            if (summary.getReviewCount() > 0) {
+                try (PreparedStatement stmt = conn.prepareStatement(topReviewQuery)) {
+                    stmt.setInt(1, productId);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (rs.next()) {
+                            Review review = new Review();
+                            review.setId(rs.getInt("id"));
+                            review.setProductId(rs.getInt("product_id"));
+                            review.setUserId(rs.getInt("user_id"));
+                            review.setRating(rs.getInt("rating"));
+                            review.setContent(rs.getString("content"));
+                            review.setHelpfulCount(rs.getInt("helpful_count"));
+                            review.setCreatedAt(rs.getTimestamp("created_at"));
+                            review.setUpdatedAt(rs.getTimestamp("updated_at"));
+                            
+                            User user = new User();
+                            user.setId(rs.getInt("user_id"));
+                            user.setName(rs.getString("user_name"));
+                            user.setAvatar(rs.getString("user_avatar"));
+                            review.setUser(user);
+                            summary.setTopReview(review);
+                        }
+                    }
+                }
+            }
+            return summary;
+            
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Lỗi khi lấy tóm tắt đánh giá: " + e.getMessage(), e);
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Điều chỉnh tổng hợp rating của sản phẩm theo chênh lệch (gọi trong transaction ghi đánh giá)
+     * 
+     * Không tính lại AVG/COUNT trên toàn bộ đánh giá: review_count, rating_sum và số đánh giá
+     * theo từng mức sao (rating_1..rating_5) được cộng/trừ, rating tính lại từ rating_sum / review_count.
+     * MySQL gán các cột theo thứ tự từ trái sang phải nên rating dùng giá trị đã cập nhật.
+     * 
+     * @param conn Kết nối cơ sở dữ liệu (đang trong transaction)
+     * @param productId ID sản phẩm
+     * @param countDelta Chênh lệch số đánh giá (1 khi thêm, -1 khi xóa, 0 khi sửa)
+     * @param oldRating Số sao bị bỏ đi (0 nếu không có)
+     * @param newRating Số sao được thêm (0 nếu không có)
      * @throws SQLException Nếu có lỗi SQL
      */
-    private void updateProductRating(Connection conn, int productId) throws SQLException {
-        String query = "UPDATE products p SET " +
-                       "p.rating = (SELECT AVG(r.rating) FROM reviews r WHERE r.product_id = ?), " +
-                       "p.review_count = (SELECT COUNT(*) FROM reviews r WHERE r.product_id = ?) " +
-                       "WHERE p.id = ?";
+    private void applyRatingDelta(Connection conn, int productId, int countDelta, int oldRating, int newRating)
+            throws SQLException {
+        String query = "UPDATE products SET " +
+                       "review_count = review_count + ?, " +
+                       "rating_sum = rating_sum + ?, " +
+                       "rating_1 = rating_1 + ?, rating_2 = rating_2 + ?, rating_3 = rating_3 + ?, " +
+                       "rating_4 = rating_4 + ?, rating_5 = rating_5 + ?, " +
+                       "rating = IF(review_count = 0, NULL, ROUND(rating_sum / review_count, 2)) " +
+                       "WHERE id = ?";
+        
+        int[] starDeltas = new int[6];
+        starDeltas[oldRating]--;
+        starDeltas[newRating]++;
         
         try (PreparedStatement stmt = conn.prepareStatement(query)) {
-            stmt.setInt(1, productId);
-            stmt.setInt(2, productId);
-            stmt.setInt(3, productId);
+            stmt.setInt(1, countDelta);
+            stmt.setInt(2, newRating - oldRating);
+            for (int star = 1; star <= 5; star++) {
+                stmt.setInt(2 + star, starDeltas[star]);
+            }
+            stmt.setInt(8, productId);
             stmt.executeUpdate();
         }
     }
     
+    /**
+     * Cập nhật các bản sao dữ liệu sản phẩm sau khi rating/review_count thay đổi (sau commit)
+     * 
+     * @param productId ID sản phẩm
+     */
+    private void productRatingChanged(int productId) {
+        ProductCache.getInstance().invalidate(productId);
+        ReviewSummaryCache.getInstance().invalidate(productId);
+        ProductRankingJob.getInstance().markDirty(productId);
+        ProductSearchIndex.getInstance().refresh(productId);
+        SuggestIndex.getInstance().refreshProduct(productId);
+    }
+    
     /**
      * Lấy danh sách đánh giá của người dùng
      * 
@@ -476,62 +927,27 @@ public class ReviewDAO {
         
         try (Connection conn = DatabaseUtil.getConnection()) {
             // Đếm tổng số đánh giá của người dùng
-            String countQuery = "SELECT COUNT(*) FROM reviews WHERE user_id = ?";
-            try (PreparedStatement countStmt = conn.prepareStatement(countQuery)) {
-                countStmt.setInt(1, userId);
-                ResultSet countRs = countStmt.executeQuery();
-                int total = 0;
-                if (countRs.next()) {
-                    total = countRs.getInt(1);
-                }
-                
-                // Tính toán phân trang
-                int offset = (page - 1) * limit;
-                int totalPages = (int) Math.ceil((double) total / limit);
-                
-                // Tạo thông tin phân trang
-                Map<String, Object> pagination = new HashMap<>();
-                pagination.put("total", total);
-                pagination.put("page", page);
-                pagination.put("limit", limit);
-                pagination.put("totalPages", totalPages);
-                result.put("pagination", pagination);
-                
-                // Nếu không có đánh giá, trả về danh sách rỗng
-                if (total == 0) {
-                    result.put("reviews", reviews);
-                    return result;
-                }
-            }
+            int total = countUserReviews(conn, userId);
+            
+            // Tính toán phân trang
+            int totalPages = (int) Math.ceil((double) total / limit);
             
-            // Xác định cách sắp xếp
-            String orderBy;
-            switch (sort) {
-                case "rating_desc":
-                    orderBy = "r.rating DESC";
-                    break;
-                case "helpful_desc":
-                    orderBy = "r.helpful_count DESC";
-                    break;
-                case "date_desc":
-                default:
-                    orderBy = "r.created_at DESC";
-                    break;
+            // Tạo thông tin phân trang
+            Map<String, Object> pagination = new HashMap<>();
+            pagination.put("total", total);
+            pagination.put("page", page);
+            pagination.put("limit", limit);
+            pagination.put("totalPages", totalPages);
+            result.put("pagination", pagination);
+            
+            // Nếu không có đánh giá, trả về danh sách rỗng
+            if (total == 0) {
+                result.put("reviews", reviews);
+                return result;
             }
             
-            // Truy vấn lấy đánh giá với thông tin sản phẩm và ảnh chính
-            String query = "SELECT r.*, " +
-                           "p.name as product_name, " +
-                           "p.slug as product_slug, " +
-                           "p.price as product_price, " +
-                           "p.rating as product_rating, " +
-                           "p.review_count as product_review_count, " +
-                           "pi.image_path as product_image " +
-                           "FROM reviews r " +
-                           "JOIN products p ON r.product_id = p.id " +
-                           "LEFT JOIN product_images pi ON p.id = pi.product_id AND pi.is_primary = true " +
-                           "WHERE r.user_id = ? " +
-                           "ORDER BY " + orderBy + " " +
+            String query = USER_REVIEW_QUERY +
+                           "ORDER BY " + reviewOrderBy(normalizeReviewSort(sort)) + " " +
                            "LIMIT ? OFFSET ?";
             
             try (PreparedStatement stmt = conn.prepareStatement(query)) {
@@ -539,36 +955,10 @@ public class ReviewDAO {
                 stmt.setInt(2, limit);
                 stmt.setInt(3, (page - 1) * limit);
                 
-                ResultSet rs = stmt.executeQuery();
-                
-                while (rs.next()) {
-                    Review review = new Review();
-                    review.setId(rs.getInt("id"));
-                    review.setProductId(rs.getInt("product_id"));
-                    review.setUserId(userId);
-                    review.setRating(rs.getInt("rating"));
-                    review.setContent(rs.getString("content"));
-                    review.setHelpfulCount(rs.getInt("helpful_count"));
-                    review.setCreatedAt(rs.getTimestamp("created_at"));
-                    review.setUpdatedAt(rs.getTimestamp("updated_at"));
-                    
-                    // Thêm thông tin sản phẩm vào review
-                    Map<String, String> product = new HashMap<>();
-                    product.put("name", rs.getString("product_name"));
-                    product.put("slug", rs.getString("product_slug"));
-                    product.put("price", String.valueOf(rs.getDouble("product_price")));
-                    product.put("rating", String.format("%.1f", rs.getDouble("product_rating")));
-                    product.put("reviewCount", String.valueOf(rs.getInt("product_review_count")));
-                    
-                    // Thêm ảnh sản phẩm nếu có
-                    String imagePath = rs.getString("product_image");
-                    if (imagePath != null) {
-                        product.put("image", imagePath);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        reviews.add(mapUserReview(rs, userId));
                     }
-                    
-                    review.setProduct(product);
-                    
-                    reviews.add(review);
                 }
             }
             
@@ -580,4 +970,204 @@ public class ReviewDAO {
         
         return result;
     }
+    
+    /**
+     * Lấy danh sách đánh giá của người dùng theo cursor (phân trang keyset)
+     * 
+     * @param userId ID người dùng
+     * @param limit Số lượng đánh giá mỗi trang
+     * @param sort Sắp xếp (date_desc, rating_desc, helpful_desc)
+     * @param cursor Cursor nhận từ trang trước (null hoặc rỗng cho trang đầu)
+     * @param exactCount true để đếm tổng số đánh giá (COUNT), false để bỏ qua
+     * @return Map chứa danh sách đánh giá và thông tin phân trang (nextCursor, hasMore)
+     * @throws IllegalArgumentException nếu cursor không hợp lệ hoặc không khớp cách sắp xếp
+     */
+    public Map<String, Object> getUserReviewsByCursor(int userId, int limit, String sort, String cursor,
+                                                      boolean exactCount) {
+        Map<String, Object> result = new HashMap<>();
+        List<Review> reviews = new ArrayList<>();
+        String sortKey = normalizeReviewSort(sort);
+        
+        List<Object> params = new ArrayList<>();
+        params.add(userId);
+        
+        StringBuilder query = new StringBuilder(USER_REVIEW_QUERY);
+        appendReviewKeyset(query, params, sortKey, cursor);
+        query.append("ORDER BY ").append(reviewOrderBy(sortKey)).append(" LIMIT ?");
+        params.add(limit + 1);
+        
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            Map<String, Object> pagination = readReviewPage(conn, query.toString(), params, limit, sortKey,
+                    reviews, rs -> mapUserReview(rs, userId));
+            if (exactCount) {
+                pagination.put("total", countUserReviews(conn, userId));
+            }
+            
+            result.put("reviews", reviews);
+            result.put("pagination", pagination);
+            
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Lỗi khi lấy danh sách đánh giá của người dùng: " + e.getMessage(), e);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Chuyển một dòng kết quả của USER_REVIEW_QUERY thành Review
+     */
+    private Review mapUserReview(ResultSet rs, int userId) throws SQLException {
+        Review review = new Review();
+        review.setId(rs.getInt("id"));
+        review.setProductId(rs.getInt("product_id"));
+        review.setUserId(userId);
+        review.setRating(rs.getInt("rating"));
+        review.setContent(rs.getString("content"));
+        review.setHelpfulCount(rs.getInt("helpful_count"));
+        review.setCreatedAt(rs.getTimestamp("created_at"));
+        review.setUpdatedAt(rs.getTimestamp("updated_at"));
+        
+        // Thêm thông tin sản phẩm vào review
+        Map<String, String> product = new HashMap<>();
+        product.put("name", rs.getString("product_name"));
+        product.put("slug", rs.getString("product_slug"));
+        product.put("price", String.valueOf(rs.getDouble("product_price")));
+        product.put("rating", String.format("%.1f", rs.getDouble("product_rating")));
+        product.put("reviewCount", String.valueOf(rs.getInt("product_review_count")));
+        
+        // Thêm ảnh sản phẩm nếu có
+        String imagePath = rs.getString("product_image");
+        if (imagePath != null) {
+            product.put("image", imagePath);
+        }
+        
+        review.setProduct(product);
+        HelpfulVoteBuffer.getInstance().overlay(review, null);
+        return review;
+    }
+    
+    private int countUserReviews(Connection conn, int userId) throws SQLException {
+        String countQuery = "SELECT COUNT(*) FROM reviews WHERE user_id = ?";
+        try (PreparedStatement countStmt = conn.prepareStatement(countQuery)) {
+            countStmt.setInt(1, userId);
+            try (ResultSet countRs = countStmt.executeQuery()) {
+                return countRs.next() ? countRs.getInt(1) : 0;
+            }
+        }
+    }
+    
+    /**
+     * Chuẩn hóa cách sắp xếp đánh giá (mặc định date_desc)
+     */
+    private String normalizeReviewSort(String sort) {
+        if ("rating_desc".equals(sort) || "helpful_desc".equals(sort)) {
+            return sort;
+        }
+        return "date_desc";
+    }
+    
+    /**
+     * ORDER BY theo cách sắp xếp, luôn kết thúc bằng r.id để thứ tự ổn định giữa các trang
+     */
+    private String reviewOrderBy(String sortKey) {
+        return reviewSortColumn(sortKey) + " DESC, r.id DESC";
+    }
+    
+    private String reviewSortColumn(String sortKey) {
+        switch (sortKey) {
+            case "rating_desc":
+                return "r.rating";
+            case "helpful_desc":
+                // Điểm hữu ích có suy giảm theo thời gian (chỉ mục (product_id|user_id, helpful_score, id))
+                return "r.helpful_score";
+            default:
+                return "r.created_at";
+        }
+    }
+    
+    /**
+     * Thêm điều kiện "sau cursor" vào truy vấn (dạng (a < ? OR (a = ? AND id < ?)) để dùng được chỉ mục)
+     */
+    private void appendReviewKeyset(StringBuilder query, List<Object> params, String sortKey, String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return;
+        }
+        List<String> values = CursorUtil.decode(cursor);
+        if (values == null || values.size() != 3 || !sortKey.equals(values.get(0))) {
+            throw new IllegalArgumentException("Cursor không hợp lệ");
+        }
+        
+        Object value;
+        int id;
+        try {
+            if ("date_desc".equals(sortKey)) {
+                value = new Timestamp(Long.parseLong(values.get(1)));
+            } else if ("helpful_desc".equals(sortKey)) {
+                value = Double.valueOf(values.get(1));
+            } else {
+                value = Integer.valueOf(values.get(1));
+            }
+            id = Integer.parseInt(values.get(2));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor không hợp lệ", e);
+        }
+        
+        String column = reviewSortColumn(sortKey);
+        query.append("AND (").append(column).append(" < ? OR (").append(column).append(" = ? AND r.id < ?)) ");
+        params.add(value);
+        params.add(value);
+        params.add(id);
+    }
+    
+    /**
+     * Đọc một trang đánh giá (truy vấn lấy limit + 1 dòng) và tạo thông tin phân trang
+     */
+    private Map<String, Object> readReviewPage(Connection conn, String query, List<Object> params, int limit,
+                                               String sortKey, List<Review> reviews, ReviewMapper mapper)
+            throws SQLException {
+        String nextCursor = null;
+        boolean hasMore = false;
+        
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (reviews.size() == limit) {
+                        hasMore = true;
+                        break;
+                    }
+                    reviews.add(mapper.map(rs));
+                    if (reviews.size() == limit) {
+                        String value;
+                        if ("date_desc".equals(sortKey)) {
+                            value = String.valueOf(rs.getTimestamp("created_at").getTime());
+                        } else if ("helpful_desc".equals(sortKey)) {
+                            value = Double.toString(rs.getDouble("helpful_score"));
+                        } else {
+                            value = String.valueOf(rs.getInt("rating"));
+                        }
+                        nextCursor = CursorUtil.encode(sortKey, value, String.valueOf(rs.getInt("id")));
+                    }
+                }
+            }
+        }
+        
+        Map<String, Object> pagination = new HashMap<>();
+        pagination.put("limit", limit);
+        pagination.put("hasMore", hasMore);
+        if (hasMore) {
+            pagination.put("nextCursor", nextCursor);
+        }
+        return pagination;
+    }
+    
+    /**
+     * Chuyển một dòng ResultSet thành Review
+     */
+    private interface ReviewMapper {
+        Review map(ResultSet rs) throws SQLException;
+    }
 }
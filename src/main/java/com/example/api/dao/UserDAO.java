@@ -1,5 +1,7 @@
 package com.example.api.dao;
 
+import com.example.api.cache.UserRoleCache;
+import com.example.api.cache.UserTokenVersionCache;
 import com.example.api.model.User;
 import com.example.api.model.User.Role;
 import com.example.api.util.DatabaseUtil;
@@ -54,40 +56,6 @@ public class UserDAO {
         }
     }
     
-    /**
-     * Kiểm tra đăng nhập của người dùng
-     * 
-     * @param email email người dùng
-     * @param password mật khẩu người dùng
-     * @return User nếu đăng nhập thành công, null nếu thất bại
-     */
-    public User login(String email, String password) {
-        String sql = "SELECT * FROM users WHERE email = ?";
-        
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setString(1, email);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    String storedPassword = rs.getString("password");
-                    
-                    // Kiểm tra mật khẩu (nên sử dụng thư viện mã hóa để so sánh)
-                    if (storedPassword.equals(password)) { // Đây chỉ là so sánh đơn giản, trong thực tế cần sử dụng BCrypt hoặc tương tự
-                        return mapResultSetToUser(rs);
-                    }
-                }
-            }
-            
-            return null;
-            
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return null;
-        }
-    }
-    
     /**
      * Đăng nhập bằng Google/Email
      * 
@@ -177,13 +145,14 @@ public class UserDAO {
                     int userId = rs.getInt("user_id");
                     
                     // Cập nhật mật khẩu
-                    String updatePasswordSql = "UPDATE users SET password = ? WHERE id = ?";
+                    String updatePasswordSql = "UPDATE users SET password = ?, token_version = token_version + 1 WHERE id = ?";
                     
                     try (PreparedStatement updateStmt = conn.prepareStatement(updatePasswordSql)) {
                         updateStmt.setString(1, newPassword); // Nên mã hóa mật khẩu trước khi lưu
                         updateStmt.setInt(2, userId);
                         
                         int rowsAffected = updateStmt.executeUpdate();
+                        userChanged(userId);
                         
                         // Xóa token đã sử dụng
                         if (rowsAffected > 0) {
@@ -262,6 +231,67 @@ public class UserDAO {
         }
     }
     
+    /**
+     * Lấy vai trò của người dùng (chỉ đọc cột role)
+     * 
+     * @param id ID người dùng
+     * @return Vai trò, hoặc null nếu không tìm thấy người dùng
+     */
+    public Role getUserRole(int id) {
+        String sql = "SELECT role FROM users WHERE id = ?";
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setInt(1, id);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    try {
+                        return Role.valueOf(rs.getString("role"));
+                    } catch (IllegalArgumentException | NullPointerException e) {
+                        // Mặc định là USER nếu không tìm thấy role hợp lệ
+                        return Role.USER;
+                    }
+                }
+            }
+            
+            return null;
+            
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Lỗi khi lấy vai trò người dùng: " + e.getMessage(), e);
+            return null;
+        }
+    }
+    
+    /**
+     * Lấy phiên bản token hiện tại của người dùng (chỉ đọc cột token_version)
+     * 
+     * @param id ID người dùng
+     * @return Phiên bản, hoặc null nếu không tìm thấy người dùng
+     */
+    public Integer getTokenVersion(int id) {
+        String sql = "SELECT token_version FROM users WHERE id = ?";
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setInt(1, id);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt("token_version");
+                }
+            }
+            
+            return null;
+            
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Lỗi khi lấy phiên bản token của người dùng: " + e.getMessage(), e);
+            return null;
+        }
+    }
+    
     /**
      * Lấy danh sách tất cả người dùng
      * 
@@ -294,13 +324,14 @@ public class UserDAO {
      */
     public boolean updateUser(User user) {
         try (Connection conn = DatabaseUtil.getConnection()) {
-            String query = "UPDATE users SET name = ?, password = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?";
+            String query = "UPDATE users SET name = ?, password = ?, token_version = token_version + 1, updated_at = CURRENT_TIMESTAMP WHERE id = ?";
             try (PreparedStatement stmt = conn.prepareStatement(query)) {
                 stmt.setString(1, user.getName());
                 stmt.setString(2, user.getPassword());
                 stmt.setInt(3, user.getId());
                 
                 int affectedRows = stmt.executeUpdate();
+                userChanged(user.getId());
                 return affectedRows > 0;
             }
         } catch (SQLException e) {
@@ -317,7 +348,7 @@ public class UserDAO {
      * @return true nếu thành công, false nếu thất bại
      */
     public boolean updatePassword(int userId, String newPassword) {
-        String sql = "UPDATE users SET password = ? WHERE id = ?";
+        String sql = "UPDATE users SET password = ?, token_version = token_version + 1 WHERE id = ?";
         
         try (Connection conn = DatabaseUtil.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -326,6 +357,7 @@ public class UserDAO {
             stmt.setInt(2, userId);
             
             int rowsAffected = stmt.executeUpdate();
+            userChanged(userId);
             return rowsAffected > 0;
             
         } catch (SQLException e) {
@@ -334,6 +366,34 @@ public class UserDAO {
         }
     }
     
+    /**
+     * Lưu mật khẩu được mã hóa lại khi đăng nhập (cùng mật khẩu, thuật toán/cost mới).
+     * Không tăng token_version nên các token đang dùng vẫn giữ nguyên claims; chỉ ghi nếu mật khẩu
+     * chưa bị đổi kể từ lúc đọc, để không ghi đè lần đổi mật khẩu diễn ra cùng lúc
+     * 
+     * @param userId ID người dùng
+     * @param oldHash Mật khẩu đã mã hóa đọc được khi đăng nhập
+     * @param newHash Mật khẩu mã hóa lại
+     * @return true nếu đã cập nhật
+     */
+    public boolean rehashPassword(int userId, String oldHash, String newHash) {
+        String sql = "UPDATE users SET password = ? WHERE id = ? AND password = ?";
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, newHash);
+            stmt.setInt(2, userId);
+            stmt.setString(3, oldHash);
+            
+            return stmt.executeUpdate() > 0;
+            
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Lỗi khi mã hóa lại mật khẩu: " + e.getMessage(), e);
+            return false;
+        }
+    }
+    
     /**
      * Xóa người dùng
      * 
@@ -349,6 +409,7 @@ public class UserDAO {
             stmt.setInt(1, userId);
             
             int rowsAffected = stmt.executeUpdate();
+            userChanged(userId);
             return rowsAffected > 0;
             
         } catch (SQLException e) {
@@ -504,5 +565,13 @@ public class UserDAO {
         return null;
     }
     
-   
+    /**
+     * Xóa vai trò và phiên bản token đã cache khi thông tin người dùng thay đổi hoặc người dùng bị xóa
+     * 
+     * @param userId ID người dùng
+     */
+    private void userChanged(int userId) {
+        UserRoleCache.getInstance().invalidate(userId);
+        UserTokenVersionCache.getInstance().invalidate(userId);
+    }
 }
@@ -0,0 +1,37 @@
+package com.example.api.dto;
+
+import com.example.api.json.JsonRequestBody;
+import com.example.api.json.JsonRequestReader;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+
+/**
+ * Dữ liệu yêu cầu thêm và cập nhật danh mục: { "name": "...", "parent_id": 1 }
+ */
+public class CategoryRequest implements JsonRequestBody {
+    private String name;
+    private Integer parentId;
+
+    @Override
+    public boolean readField(String field, JsonReader in) throws IOException {
+        switch (field) {
+            case "name":
+                name = JsonRequestReader.readString(in);
+                return true;
+            case "parent_id":
+                parentId = JsonRequestReader.readInteger(in);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Integer getParentId() {
+        return parentId;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.api.dto;
+
+import com.example.api.json.JsonRequestBody;
+import com.example.api.json.JsonRequestReader;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+
+/**
+ * Dữ liệu yêu cầu đăng nhập: { "email": "...", "password": "..." }
+ */
+public class LoginRequest implements JsonRequestBody {
+    private String email;
+    private String password;
+
+    @Override
+    public boolean readField(String name, JsonReader in) throws IOException {
+        switch (name) {
+            case "email":
+                email = JsonRequestReader.readString(in);
+                return true;
+            case "password":
+                password = JsonRequestReader.readString(in);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.api.dto;
+
+import com.example.api.json.JsonRequestBody;
+import com.example.api.json.JsonRequestReader;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+
+/**
+ * Dữ liệu yêu cầu đăng ký: { "name", "email", "password", "confirmPassword" }
+ */
+public class RegisterRequest implements JsonRequestBody {
+    private String name;
+    private String email;
+    private String password;
+    private String confirmPassword;
+
+    @Override
+    public boolean readField(String field, JsonReader in) throws IOException {
+        switch (field) {
+            case "name":
+                name = JsonRequestReader.readString(in);
+                return true;
+            case "email":
+                email = JsonRequestReader.readString(in);
+                return true;
+            case "password":
+                password = JsonRequestReader.readString(in);
+                return true;
+            case "confirmPassword":
+                confirmPassword = JsonRequestReader.readString(in);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public String getConfirmPassword() {
+        return confirmPassword;
+    }
+}
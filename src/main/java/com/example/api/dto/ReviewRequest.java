@@ -0,0 +1,37 @@
+package com.example.api.dto;
+
+import com.example.api.json.JsonRequestBody;
+import com.example.api.json.JsonRequestReader;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+
+/**
+ * Dữ liệu yêu cầu thêm và cập nhật đánh giá: { "rating": 5, "content": "..." }
+ */
+public class ReviewRequest implements JsonRequestBody {
+    private Integer rating;
+    private String content;
+
+    @Override
+    public boolean readField(String name, JsonReader in) throws IOException {
+        switch (name) {
+            case "rating":
+                rating = JsonRequestReader.readInteger(in);
+                return true;
+            case "content":
+                content = JsonRequestReader.readString(in);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public Integer getRating() {
+        return rating;
+    }
+
+    public String getContent() {
+        return content;
+    }
+}
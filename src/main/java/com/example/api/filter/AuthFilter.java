@@ -0,0 +1,149 @@
+package com.example.api.filter;
+
+import com.example.api.cache.UserRoleCache;
+import com.example.api.cache.UserTokenVersionCache;
+import com.example.api.dao.UserDAO;
+import com.example.api.model.AuthPrincipal;
+import com.example.api.model.User;
+import com.example.api.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+
+/**
+ * Filter xác thực bearer token một lần cho mỗi yêu cầu và gắn AuthPrincipal (ID người dùng, vai trò)
+ * vào request. Filter không chặn yêu cầu: controller tự quyết định endpoint nào cần đăng nhập
+ * thông qua getPrincipal và hasBearerToken.
+ *
+ * Nếu claim "ver" của token bằng phiên bản hiện tại của người dùng (UserTokenVersionCache), vai trò và
+ * thông tin hồ sơ được lấy thẳng từ claims; nếu không (token cũ hoặc thông tin đã đổi), vai trò được
+ * đọc lại qua UserRoleCache và principal không mang thông tin hồ sơ.
+ */
+public class AuthFilter implements Filter {
+    private static final String PRINCIPAL_ATTRIBUTE = AuthFilter.class.getName() + ".principal";
+    private static final String RESOLVED_ATTRIBUTE = AuthFilter.class.getName() + ".resolved";
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private static final UserDAO USER_DAO = new UserDAO();
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        // Không cần xử lý gì
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        if (request instanceof HttpServletRequest) {
+            resolve((HttpServletRequest) request);
+        }
+        chain.doFilter(request, response);
+    }
+
+    @Override
+    public void destroy() {
+        // Không cần xử lý gì
+    }
+
+    /**
+     * Lấy người dùng đã xác thực của yêu cầu
+     *
+     * @param request Yêu cầu HTTP
+     * @return AuthPrincipal, hoặc null nếu không có token hoặc token không hợp lệ
+     */
+    public static AuthPrincipal getPrincipal(HttpServletRequest request) {
+        // Yêu cầu không đi qua filter (ví dụ filter chưa được cấu hình) thì xác thực tại chỗ
+        if (request.getAttribute(RESOLVED_ATTRIBUTE) == null) {
+            resolve(request);
+        }
+        return (AuthPrincipal) request.getAttribute(PRINCIPAL_ATTRIBUTE);
+    }
+
+    /**
+     * Lấy ID người dùng đã xác thực của yêu cầu
+     *
+     * @param request Yêu cầu HTTP
+     * @return ID người dùng, hoặc null nếu không có token hoặc token không hợp lệ
+     */
+    public static Integer getUserId(HttpServletRequest request) {
+        AuthPrincipal principal = getPrincipal(request);
+        return principal != null ? principal.getUserId() : null;
+    }
+
+    /**
+     * Kiểm tra yêu cầu có header "Authorization: Bearer ..." hay không, để phân biệt
+     * "Chưa đăng nhập" với "Token không hợp lệ"
+     *
+     * @param request Yêu cầu HTTP
+     * @return true nếu có bearer token
+     */
+    public static boolean hasBearerToken(HttpServletRequest request) {
+        return getBearerToken(request) != null;
+    }
+
+    /**
+     * Lấy bearer token của yêu cầu (ví dụ để thu hồi khi đăng xuất)
+     *
+     * @param request Yêu cầu HTTP
+     * @return Token, hoặc null nếu không có header "Authorization: Bearer ..."
+     */
+    public static String getBearerToken(HttpServletRequest request) {
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader != null && authHeader.startsWith(BEARER_PREFIX)) {
+            return authHeader.substring(BEARER_PREFIX.length());
+        }
+        return null;
+    }
+
+    private static void resolve(HttpServletRequest request) {
+        request.setAttribute(RESOLVED_ATTRIBUTE, Boolean.TRUE);
+        String token = getBearerToken(request);
+        if (token == null) {
+            return;
+        }
+        Claims claims;
+        int userId;
+        try {
+            claims = JwtUtil.validateToken(token);
+            userId = Integer.parseInt(claims.getSubject());
+        } catch (Exception e) {
+            // Token không hợp lệ hoặc đã hết hạn
+            return;
+        }
+        AuthPrincipal principal = fromClaims(userId, claims);
+        if (principal == null) {
+            principal = new AuthPrincipal(userId, UserRoleCache.getInstance().get(userId, USER_DAO::getUserRole));
+        }
+        request.setAttribute(PRINCIPAL_ATTRIBUTE, principal);
+    }
+
+    /**
+     * Tạo principal từ claims nếu token mang claims ở phiên bản hiện tại của người dùng
+     *
+     * @return AuthPrincipal, hoặc null nếu phải đọc lại thông tin từ cơ sở dữ liệu
+     */
+    private static AuthPrincipal fromClaims(int userId, Claims claims) {
+        Integer version = claims.get(JwtUtil.CLAIM_VERSION, Integer.class);
+        String role = claims.get(JwtUtil.CLAIM_ROLE, String.class);
+        if (version == null || role == null) {
+            return null;
+        }
+        if (!version.equals(UserTokenVersionCache.getInstance().get(userId, USER_DAO::getTokenVersion))) {
+            return null;
+        }
+        User.Role parsedRole;
+        try {
+            parsedRole = User.Role.valueOf(role);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        Number createdAt = claims.get(JwtUtil.CLAIM_CREATED_AT, Number.class);
+        return new AuthPrincipal(userId, parsedRole,
+                claims.get(JwtUtil.CLAIM_NAME, String.class),
+                claims.get(JwtUtil.CLAIM_EMAIL, String.class),
+                claims.get(JwtUtil.CLAIM_AVATAR, String.class),
+                createdAt != null ? createdAt.longValue() : null);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.api.json;
+
+import com.example.api.model.Category;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Bộ ghi JSON cho Category (cùng kết quả với Gson reflection) và dạng hiển thị danh mục của API
+ * (trước đây là CategoryController.categoryToMap).
+ */
+public class CategoryWriter extends ModelWriter<Category> {
+
+    CategoryWriter(Gson gson) {
+        super(gson);
+    }
+
+    /**
+     * Dạng hiển thị danh mục
+     *
+     * @param category Danh mục
+     * @return JsonView ghi các trường id, name, slug, parent_id, created_at, updated_at
+     */
+    public static JsonView summary(Category category) {
+        return (out, gson) -> writeSummary(out, gson, category);
+    }
+
+    @Override
+    protected void writeFields(JsonWriter out, Category category) throws IOException {
+        out.name("id").value(category.getId());
+        out.name("name").value(category.getName());
+        out.name("slug").value(category.getSlug());
+        out.name("parentId").value(category.getParentId());
+        out.name("createdAt");
+        writeValue(out, gson, category.getCreatedAt());
+        out.name("updatedAt");
+        writeValue(out, gson, category.getUpdatedAt());
+    }
+
+    /**
+     * Thứ tự khóa giữ nguyên như HashMap của categoryToMap trước đây để phản hồi không đổi từng byte
+     */
+    private static void writeSummary(JsonWriter out, Gson gson, Category category) throws IOException {
+        out.beginObject();
+        out.name("updated_at");
+        writeValue(out, gson, category.getUpdatedAt());
+        out.name("parent_id").value(category.getParentId());
+        out.name("name").value(category.getName());
+        out.name("created_at");
+        writeValue(out, gson, category.getCreatedAt());
+        out.name("id").value(category.getId());
+        out.name("slug").value(category.getSlug());
+        out.endObject();
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.api.json;
+
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+
+/**
+ * Đối tượng yêu cầu được JsonRequestReader đọc trực tiếp từ body JSON, từng trường một,
+ * không qua cây JsonObject trung gian.
+ */
+public interface JsonRequestBody {
+
+    /**
+     * Đọc giá trị của một trường trong body
+     *
+     * @param name Tên trường
+     * @param in JsonReader đang đứng trước giá trị của trường
+     * @return true nếu đã đọc giá trị, false nếu không phải trường của yêu cầu (giá trị sẽ được bỏ qua)
+     * @throws IOException nếu giá trị sai kiểu hoặc body vượt quá kích thước cho phép
+     */
+    boolean readField(String name, JsonReader in) throws IOException;
+}
@@ -0,0 +1,246 @@
+package com.example.api.json;
+
+import com.example.api.util.AppConfig;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.EOFException;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Đọc body JSON của yêu cầu theo luồng (JsonReader trên reader của request).
+ *
+ * Với các yêu cầu có kiểu riêng (JsonRequestBody: đánh giá, đăng nhập, đăng ký, danh mục), giá trị được
+ * gán thẳng vào đối tượng yêu cầu trong lúc đọc, trường lạ bị bỏ qua; không đọc cả body vào
+ * StringBuilder và không dựng cây JsonObject. Body lớn hơn request.json.maxBytes bị từ chối với 413
+ * ngay từ Content-Length, hoặc ngay khi đọc vượt giới hạn nếu client không gửi Content-Length;
+ * JSON sai cú pháp hoặc sai kiểu bị từ chối với 400 trước khi tới controller.
+ *
+ * Cấu hình: request.json.maxBytes
+ */
+public final class JsonRequestReader {
+    private static final long MAX_BYTES = AppConfig.getLong("request.json.maxBytes", 65536);
+
+    // Thống kê
+    private static final AtomicLong READ = new AtomicLong();
+    private static final AtomicLong TOO_LARGE = new AtomicLong();
+    private static final AtomicLong MALFORMED = new AtomicLong();
+
+    private JsonRequestReader() {
+    }
+
+    /**
+     * Đọc body vào đối tượng yêu cầu
+     *
+     * @param request Yêu cầu HTTP
+     * @param factory Hàm tạo đối tượng yêu cầu rỗng
+     * @return Đối tượng yêu cầu, hoặc null nếu body rỗng hoặc là null
+     * @throws RequestBodyException nếu body quá lớn hoặc không hợp lệ
+     * @throws IOException nếu có lỗi khi đọc body
+     */
+    public static <T extends JsonRequestBody> T read(HttpServletRequest request, Supplier<T> factory)
+            throws IOException {
+        JsonReader in = open(request);
+        try {
+            if (!startObject(in)) {
+                return null;
+            }
+            T body = factory.get();
+            while (in.hasNext()) {
+                if (!body.readField(in.nextName(), in)) {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            endDocument(in);
+            READ.incrementAndGet();
+            return body;
+        } catch (MalformedJsonException | EOFException | IllegalStateException | NumberFormatException e) {
+            throw malformed();
+        }
+    }
+
+    /**
+     * Đọc body thành JsonObject, cho các yêu cầu chưa có kiểu riêng (vẫn áp dụng giới hạn kích thước)
+     *
+     * @param request Yêu cầu HTTP
+     * @return JsonObject, hoặc null nếu body rỗng hoặc là null
+     * @throws RequestBodyException nếu body quá lớn hoặc không hợp lệ
+     * @throws IOException nếu có lỗi khi đọc body
+     */
+    public static JsonObject readObject(HttpServletRequest request) throws IOException {
+        JsonReader in = open(request);
+        try {
+            JsonToken token;
+            try {
+                token = in.peek();
+            } catch (EOFException e) {
+                return null;
+            }
+            if (token == JsonToken.NULL) {
+                return null;
+            }
+            if (token != JsonToken.BEGIN_OBJECT) {
+                throw malformed();
+            }
+            JsonElement element = JsonParser.parseReader(in);
+            endDocument(in);
+            READ.incrementAndGet();
+            return element.getAsJsonObject();
+        } catch (JsonIOException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        } catch (JsonParseException | MalformedJsonException | EOFException | IllegalStateException e) {
+            throw malformed();
+        }
+    }
+
+    /**
+     * Đọc giá trị chuỗi (số và boolean được chuyển thành chuỗi như JsonElement.getAsString)
+     *
+     * @param in JsonReader
+     * @return Chuỗi, hoặc null nếu giá trị là null
+     * @throws IOException nếu giá trị là object hoặc mảng
+     */
+    public static String readString(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.BOOLEAN) {
+            return String.valueOf(in.nextBoolean());
+        }
+        return in.nextString();
+    }
+
+    /**
+     * Đọc giá trị số nguyên (chấp nhận cả chuỗi số như "7"). Khác JsonElement.getAsInt trước đây,
+     * số có phần thập phân như 4.5 không bị cắt thành 4 mà bị từ chối với 400
+     *
+     * @param in JsonReader
+     * @return Số nguyên, hoặc null nếu giá trị là null
+     * @throws IOException nếu giá trị không phải số nguyên
+     */
+    public static Integer readInteger(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextInt();
+    }
+
+    /**
+     * Thống kê đọc body JSON
+     *
+     * @return Map các chỉ số
+     */
+    public static Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxBytes", MAX_BYTES);
+        stats.put("read", READ.get());
+        stats.put("tooLarge", TOO_LARGE.get());
+        stats.put("malformed", MALFORMED.get());
+        return stats;
+    }
+
+    private static JsonReader open(HttpServletRequest request) throws IOException {
+        if (request.getContentLengthLong() > MAX_BYTES) {
+            throw tooLarge();
+        }
+        JsonReader in = new JsonReader(new LimitedReader(request.getReader(), MAX_BYTES));
+        // Giống JsonParser.parseReader trước đây
+        in.setLenient(true);
+        return in;
+    }
+
+    /**
+     * @return false nếu body rỗng hoặc là null
+     */
+    private static boolean startObject(JsonReader in) throws IOException {
+        JsonToken token;
+        try {
+            token = in.peek();
+        } catch (EOFException e) {
+            return false;
+        }
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return false;
+        }
+        in.beginObject();
+        return true;
+    }
+
+    private static void endDocument(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.END_DOCUMENT) {
+            throw malformed();
+        }
+    }
+
+    private static RequestBodyException tooLarge() {
+        TOO_LARGE.incrementAndGet();
+        return new RequestBodyException(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE,
+                "Dữ liệu gửi lên vượt quá " + MAX_BYTES + " byte");
+    }
+
+    private static RequestBodyException malformed() {
+        MALFORMED.incrementAndGet();
+        return new RequestBodyException(HttpServletResponse.SC_BAD_REQUEST, "Dữ liệu JSON không hợp lệ");
+    }
+
+    /**
+     * Reader dừng với 413 khi đọc quá số ký tự cho phép (body không có Content-Length)
+     */
+    private static final class LimitedReader extends FilterReader {
+        private final long limit;
+        private long count;
+
+        LimitedReader(Reader in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = super.read();
+            if (c != -1) {
+                count(1);
+            }
+            return c;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        private void count(int n) throws RequestBodyException {
+            count += n;
+            if (count > limit) {
+                throw tooLarge();
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.api.json;
+
+import com.example.api.model.Category;
+import com.example.api.model.Product;
+import com.example.api.model.Review;
+import com.example.api.model.User;
+import com.example.api.util.AppConfig;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonNull;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Ghi phản hồi JSON của API.
+ *
+ * Kết quả của controller được ghi thẳng vào writer của phản hồi bằng JsonWriter thay vì tạo chuỗi JSON
+ * của cả phản hồi bằng gson.toJson rồi mới in ra. Product, Review, Category, User và các JsonView
+ * (dạng hiển thị sản phẩm, danh mục, người dùng) được ghi bằng bộ ghi riêng thay vì reflection hoặc
+ * Map trung gian. Cấu hình Gson giữ như new Gson() nên JSON trả về giống hệt từng byte như trước.
+ *
+ * Cấu hình: json.streaming.enabled (false = tạo chuỗi JSON rồi mới ghi như trước, để so sánh)
+ */
+public final class JsonResponse {
+    private static final boolean STREAMING = AppConfig.getBoolean("json.streaming.enabled", true);
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapterFactory(new WriterFactory())
+            .create();
+
+    private JsonResponse() {
+    }
+
+    /**
+     * @return Gson dùng chung, đã đăng ký các bộ ghi theo kiểu
+     */
+    public static Gson gson() {
+        return GSON;
+    }
+
+    /**
+     * Ghi dữ liệu dưới dạng JSON
+     *
+     * @param out Writer của phản hồi (không bị đóng)
+     * @param data Dữ liệu (thường là Map kết quả của controller)
+     * @throws IOException nếu có lỗi khi ghi
+     */
+    public static void write(Writer out, Object data) throws IOException {
+        if (!STREAMING) {
+            out.write(GSON.toJson(data));
+            return;
+        }
+        JsonWriter writer = GSON.newJsonWriter(out);
+        if (data == null) {
+            GSON.toJson(JsonNull.INSTANCE, writer);
+        } else {
+            GSON.toJson(data, data.getClass(), writer);
+        }
+        writer.flush();
+    }
+
+    /**
+     * Chọn bộ ghi cho các kiểu model và JsonView
+     */
+    private static final class WriterFactory implements TypeAdapterFactory {
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            Class<? super T> rawType = type.getRawType();
+            if (rawType == Product.class) {
+                return (TypeAdapter<T>) new ProductWriter(gson);
+            }
+            if (rawType == Review.class) {
+                return (TypeAdapter<T>) new ReviewWriter(gson);
+            }
+            if (rawType == Category.class) {
+                return (TypeAdapter<T>) new CategoryWriter(gson);
+            }
+            if (rawType == User.class) {
+                return (TypeAdapter<T>) new UserWriter(gson);
+            }
+            if (JsonView.class.isAssignableFrom(rawType)) {
+                return (TypeAdapter<T>) new JsonViewWriter(gson);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Ghi JsonView bằng chính phương thức write của nó
+     */
+    private static final class JsonViewWriter extends TypeAdapter<JsonView> {
+        private final Gson gson;
+
+        JsonViewWriter(Gson gson) {
+            this.gson = gson;
+        }
+
+        @Override
+        public void write(JsonWriter out, JsonView view) throws IOException {
+            if (view == null) {
+                out.nullValue();
+            } else {
+                view.write(out, gson);
+            }
+        }
+
+        @Override
+        public JsonView read(JsonReader in) {
+            throw new UnsupportedOperationException("Chỉ hỗ trợ ghi JSON");
+        }
+    }
+}
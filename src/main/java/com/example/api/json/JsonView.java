@@ -0,0 +1,22 @@
+package com.example.api.json;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Dạng hiển thị của một model trong phản hồi API, tự ghi JSON thay vì dựng Map trung gian.
+ * JsonResponse ghi mọi JsonView bằng phương thức write.
+ */
+public interface JsonView {
+
+    /**
+     * Ghi JSON của dạng hiển thị
+     *
+     * @param out JsonWriter của phản hồi
+     * @param gson Gson dùng chung (để ghi ngày giờ như trước)
+     * @throws IOException nếu có lỗi khi ghi
+     */
+    void write(JsonWriter out, Gson gson) throws IOException;
+}
@@ -0,0 +1,103 @@
+package com.example.api.json;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lớp cơ sở của các bộ ghi JSON theo kiểu model (chỉ ghi, không đọc).
+ *
+ * Mỗi bộ ghi cho ra đúng JSON mà Gson tạo bằng reflection cho model đó: các trường theo thứ tự khai báo,
+ * trường null bị bỏ qua, ngày giờ ghi bằng adapter mặc định của Gson. Khi thêm trường vào model phải
+ * bổ sung vào bộ ghi tương ứng.
+ *
+ * @param <T> Kiểu model
+ */
+abstract class ModelWriter<T> extends TypeAdapter<T> {
+    protected final Gson gson;
+
+    ModelWriter(Gson gson) {
+        this.gson = gson;
+    }
+
+    @Override
+    public void write(JsonWriter out, T value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        writeFields(out, value);
+        out.endObject();
+    }
+
+    /**
+     * Ghi các trường của model (giữa beginObject và endObject)
+     */
+    protected abstract void writeFields(JsonWriter out, T value) throws IOException;
+
+    @Override
+    public T read(JsonReader in) {
+        throw new UnsupportedOperationException("Chỉ hỗ trợ ghi JSON");
+    }
+
+    /**
+     * Ghi giá trị bằng adapter Gson theo kiểu thực tế (ngày giờ, enum, ...), như khi Gson tự serialize
+     */
+    @SuppressWarnings("unchecked")
+    static void writeValue(JsonWriter out, Gson gson, Object value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+        ((TypeAdapter<Object>) gson.getAdapter(value.getClass())).write(out, value);
+    }
+
+    /**
+     * Ghi số thực, từ chối NaN/vô cực giống adapter double mặc định của Gson
+     */
+    static void writeDouble(JsonWriter out, double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException(value
+                    + " is not a valid double value as per JSON specification. To override this"
+                    + " behavior, use GsonBuilder.serializeSpecialFloatingPointValues() method.");
+        }
+        out.value(value);
+    }
+
+    /**
+     * Ghi danh sách chuỗi (phần tử null ghi thành null như Gson)
+     */
+    static void writeStrings(JsonWriter out, List<String> values) throws IOException {
+        if (values == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (String value : values) {
+            out.value(value);
+        }
+        out.endArray();
+    }
+
+    /**
+     * Ghi Map chuỗi - chuỗi theo thứ tự duyệt của Map
+     */
+    static void writeStringMap(JsonWriter out, Map<String, String> values) throws IOException {
+        if (values == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            out.name(String.valueOf(entry.getKey()));
+            out.value(entry.getValue());
+        }
+        out.endObject();
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.api.json;
+
+import com.example.api.model.Product;
+import com.example.api.model.ProductSpecification;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.util.List;
+
+/**
+ * Bộ ghi JSON cho Product (cùng kết quả với Gson reflection) và dạng hiển thị sản phẩm của API
+ * (trước đây là ProductController.productToMap).
+ */
+public class ProductWriter extends ModelWriter<Product> {
+    // DecimalFormat không thread-safe
+    private static final ThreadLocal<NumberFormat> PRICE_FORMAT =
+            ThreadLocal.withInitial(() -> new DecimalFormat("#,###.##"));
+
+    ProductWriter(Gson gson) {
+        super(gson);
+    }
+
+    /**
+     * Dạng hiển thị sản phẩm trong danh sách và chi tiết sản phẩm
+     *
+     * @param product Sản phẩm
+     * @return JsonView ghi các trường id, name, description, category, rating, reviewCount, isReviewed,
+     *         price (đã định dạng), images, specs, isBookmarked
+     */
+    public static JsonView summary(Product product) {
+        return (out, gson) -> writeSummary(out, product);
+    }
+
+    @Override
+    protected void writeFields(JsonWriter out, Product product) throws IOException {
+        out.name("id").value(product.getId());
+        out.name("name").value(product.getName());
+        out.name("slug").value(product.getSlug());
+        out.name("description").value(product.getDescription());
+        out.name("price").value(product.getPrice());
+        out.name("categoryId").value(product.getCategoryId());
+        out.name("userId").value(product.getUserId());
+        out.name("rating");
+        writeDouble(out, product.getRating());
+        out.name("reviewCount").value(product.getReviewCount());
+        out.name("rankScore");
+        writeDouble(out, product.getRankScore());
+        out.name("createdAt");
+        writeValue(out, gson, product.getCreatedAt());
+        out.name("updatedAt");
+        writeValue(out, gson, product.getUpdatedAt());
+        out.name("categoryName").value(product.getCategoryName());
+        out.name("images");
+        writeStrings(out, product.getImages());
+        out.name("specifications");
+        writeSpecifications(out, product.getSpecifications());
+        out.name("isBookmarked").value(product.isBookmarked());
+        out.name("isReviewed").value(product.isReviewed());
+    }
+
+    private void writeSpecifications(JsonWriter out, List<ProductSpecification> specifications) throws IOException {
+        if (specifications == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (ProductSpecification spec : specifications) {
+            if (spec == null) {
+                out.nullValue();
+                continue;
+            }
+            out.beginObject();
+            out.name("id").value(spec.getId());
+            out.name("productId").value(spec.getProductId());
+            out.name("name").value(spec.getName());
+            out.name("value").value(spec.getValue());
+            out.name("createdAt");
+            writeValue(out, gson, spec.getCreatedAt());
+            out.name("updatedAt");
+            writeValue(out, gson, spec.getUpdatedAt());
+            out.endObject();
+        }
+        out.endArray();
+    }
+
+    /**
+     * Thứ tự khóa giữ nguyên như HashMap của productToMap trước đây để phản hồi không đổi từng byte
+     */
+    private static void writeSummary(JsonWriter out, Product product) throws IOException {
+        out.beginObject();
+        out.name("specs");
+        out.beginArray();
+        if (product.getSpecifications() != null) {
+            for (ProductSpecification spec : product.getSpecifications()) {
+                out.value(spec.getName() + ": " + spec.getValue());
+            }
+        }
+        out.endArray();
+        out.name("isBookmarked").value(product.isBookmarked());
+        out.name("images");
+        writeStrings(out, product.getImages());
+        out.name("reviewCount").value(product.getReviewCount());
+        out.name("price").value(PRICE_FORMAT.get().format(product.getPrice()) + " ₫");
+        out.name("isReviewed").value(product.isReviewed());
+        out.name("name").value(product.getName());
+        out.name("rating");
+        writeDouble(out, product.getRating());
+        out.name("description").value(product.getDescription());
+        out.name("id").value(product.getId());
+        out.name("category").value(product.getCategoryName());
+        out.endObject();
+    }
+}
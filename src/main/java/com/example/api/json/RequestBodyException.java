@@ -0,0 +1,24 @@
+package com.example.api.json;
+
+import java.io.IOException;
+
+/**
+ * Body của yêu cầu bị từ chối: quá lớn (413) hoặc không phải JSON hợp lệ (400).
+ */
+public class RequestBodyException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final int status;
+
+    public RequestBodyException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    /**
+     * @return Mã trạng thái HTTP trả về cho client
+     */
+    public int getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.api.json;
+
+import com.example.api.model.Review;
+import com.example.api.model.User;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Bộ ghi JSON cho Review (cùng kết quả với Gson reflection), dùng cho danh sách đánh giá
+ * và đánh giá hữu ích nhất trong tóm tắt đánh giá.
+ */
+public class ReviewWriter extends ModelWriter<Review> {
+    private final TypeAdapter<User> userWriter;
+
+    ReviewWriter(Gson gson) {
+        super(gson);
+        this.userWriter = gson.getAdapter(User.class);
+    }
+
+    @Override
+    protected void writeFields(JsonWriter out, Review review) throws IOException {
+        out.name("id").value(review.getId());
+        out.name("productId").value(review.getProductId());
+        out.name("userId").value(review.getUserId());
+        out.name("rating").value(review.getRating());
+        out.name("content").value(review.getContent());
+        out.name("helpfulCount").value(review.getHelpfulCount());
+        out.name("createdAt");
+        writeValue(out, gson, review.getCreatedAt());
+        out.name("updatedAt");
+        writeValue(out, gson, review.getUpdatedAt());
+        out.name("user");
+        userWriter.write(out, review.getUser());
+        out.name("isHelpful").value(review.getIsHelpful());
+        out.name("product");
+        writeStringMap(out, review.getProduct());
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.api.json;
+
+import com.example.api.model.User;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Bộ ghi JSON cho User (cùng kết quả với Gson reflection, dùng cho người viết trong Review) và
+ * dạng hiển thị người dùng của API (trước đây là AuthController.userToMap).
+ */
+public class UserWriter extends ModelWriter<User> {
+
+    UserWriter(Gson gson) {
+        super(gson);
+    }
+
+    /**
+     * Dạng hiển thị người dùng trả về khi đăng ký, đăng nhập và lấy thông tin cá nhân
+     *
+     * @param user Người dùng
+     * @return JsonView ghi các trường id, name, email, avatar
+     */
+    public static JsonView summary(User user) {
+        return (out, gson) -> writeSummary(out, user);
+    }
+
+    @Override
+    protected void writeFields(JsonWriter out, User user) throws IOException {
+        out.name("id").value(user.getId());
+        out.name("name").value(user.getName());
+        out.name("email").value(user.getEmail());
+        out.name("password").value(user.getPassword());
+        out.name("avatar").value(user.getAvatar());
+        out.name("provider").value(user.getProvider());
+        out.name("providerId").value(user.getProviderId());
+        out.name("role");
+        writeValue(out, gson, user.getRole());
+        out.name("createdAt");
+        writeValue(out, gson, user.getCreatedAt());
+        out.name("updatedAt");
+        writeValue(out, gson, user.getUpdatedAt());
+    }
+
+    /**
+     * Thứ tự khóa giữ nguyên như HashMap của userToMap trước đây để phản hồi không đổi từng byte
+     */
+    private static void writeSummary(JsonWriter out, User user) throws IOException {
+        out.beginObject();
+        out.name("name").value(user.getName());
+        out.name("id").value(user.getId());
+        out.name("avatar").value(user.getAvatar());
+        out.name("email").value(user.getEmail());
+        out.endObject();
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.api.listener;
+
+import com.example.api.cache.HelpfulVoteBuffer;
+import com.example.api.controller.RequestExecutor;
+import com.example.api.cache.TokenRevocationStore;
+import com.example.api.search.ProductSearchIndex;
+import com.example.api.search.SuggestIndex;
+import com.example.api.service.PasswordHasher;
+import com.example.api.service.ProductRankingJob;
+import com.example.api.service.ReviewScoreJob;
+import com.example.api.util.DatabaseUtil;
+
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+
+/**
+ * Listener quản lý vòng đời các tài nguyên dùng chung của ứng dụng
+ */
+public class AppContextListener implements ServletContextListener {
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        // Nạp danh sách token đã thu hồi trước khi nhận yêu cầu
+        TokenRevocationStore.getInstance().start();
+        // Pool kết nối được khởi tạo khi dùng lần đầu; chỉ mục tìm kiếm (nếu bật) và gợi ý được xây dựng nền
+        ProductSearchIndex.getInstance().start();
+        SuggestIndex.getInstance().start();
+        // Bộ đệm bình chọn hữu ích (nếu bật) ghi lại các bình chọn còn trong nhật ký
+        HelpfulVoteBuffer.getInstance().start();
+        // Tính lại điểm xếp hạng cho sort=rating (lần đầu tính toàn bộ)
+        ProductRankingJob.getInstance().start();
+        // Cập nhật theo lô điểm hữu ích cho sort=helpful_desc
+        ReviewScoreJob.getInstance().start();
+        // Xử lý yêu cầu trên virtual thread (nếu bật request.async.enabled)
+        RequestExecutor.getInstance().start();
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        // Chờ các yêu cầu đang xử lý bất đồng bộ trước khi dừng các thành phần khác
+        RequestExecutor.getInstance().stop();
+        // Dừng cập nhật chỉ mục và ghi snapshot trước khi đóng pool
+        ProductRankingJob.getInstance().stop();
+        ProductSearchIndex.getInstance().stop();
+        SuggestIndex.getInstance().stop();
+        // Ghi nốt các bình chọn đang chờ khi pool còn mở
+        HelpfulVoteBuffer.getInstance().stop();
+        ReviewScoreJob.getInstance().stop();
+        TokenRevocationStore.getInstance().stop();
+        PasswordHasher.getInstance().stop();
+        // Đóng pool kết nối để giải phóng kết nối vật lý
+        DatabaseUtil.shutdown();
+    }
+}
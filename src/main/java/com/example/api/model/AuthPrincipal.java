@@ -0,0 +1,87 @@
+package com.example.api.model;
+
+import java.util.Date;
+
+/**
+ * Người dùng đã xác thực của một yêu cầu, do AuthFilter tạo một lần từ bearer token
+ * và gắn vào request. Không thay đổi sau khi tạo.
+ *
+ * Thông tin hồ sơ (tên, email, ảnh đại diện, ngày tạo) chỉ có khi token mang claims ở phiên bản
+ * hiện tại của người dùng; khi đó hasProfile() trả về true và nơi gọi không cần đọc bảng users.
+ */
+public final class AuthPrincipal {
+    private final int userId;
+    // null nếu không còn tìm thấy người dùng
+    private final User.Role role;
+    private final String name;
+    private final String email;
+    private final String avatar;
+    private final Long createdAt;
+
+    public AuthPrincipal(int userId, User.Role role) {
+        this(userId, role, null, null, null, null);
+    }
+
+    public AuthPrincipal(int userId, User.Role role, String name, String email, String avatar, Long createdAt) {
+        this.userId = userId;
+        this.role = role;
+        this.name = name;
+        this.email = email;
+        this.avatar = avatar;
+        this.createdAt = createdAt;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public User.Role getRole() {
+        return role;
+    }
+
+    public boolean isAdmin() {
+        return role == User.Role.ADMIN;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getAvatar() {
+        return avatar;
+    }
+
+    /**
+     * Kiểm tra principal có đủ thông tin hồ sơ lấy từ token hay không
+     *
+     * @return true nếu có thể dùng toUser() thay cho truy vấn bảng users
+     */
+    public boolean hasProfile() {
+        return role != null && name != null && email != null && createdAt != null;
+    }
+
+    /**
+     * Tạo đối tượng User từ thông tin hồ sơ trong token (không có mật khẩu)
+     *
+     * @return User mới
+     */
+    public User toUser() {
+        User user = new User(userId, name, email, null, avatar, role);
+        user.setCreatedAt(createdAt != null ? new Date(createdAt) : null);
+        return user;
+    }
+
+    @Override
+    public String toString() {
+        return "AuthPrincipal{" +
+                "userId=" + userId +
+                ", role=" + role +
+                ", name='" + name + '\'' +
+                ", email='" + email + '\'' +
+                '}';
+    }
+}
@@ -17,6 +17,8 @@ public class Product {
     private int userId;
     private double rating;
     private int reviewCount;
+    // Điểm xếp hạng cho sort=rating (trung bình Bayes, do ProductRankingJob tính)
+    private double rankScore;
     private Date createdAt;
     private Date updatedAt;
     
@@ -104,6 +106,14 @@ public class Product {
         this.reviewCount = reviewCount;
     }
     
+    public double getRankScore() {
+        return rankScore;
+    }
+    
+    public void setRankScore(double rankScore) {
+        this.rankScore = rankScore;
+    }
+    
     public Date getCreatedAt() {
         return createdAt;
     }
@@ -0,0 +1,57 @@
+package com.example.api.model;
+
+/**
+ * Model tóm tắt đánh giá của sản phẩm: số đánh giá theo từng mức sao, điểm trung bình
+ * và đánh giá hữu ích nhất
+ */
+public class ReviewSummary {
+    private int productId;
+    private int reviewCount;
+    private double averageRating;
+    // histogram[i] = số đánh giá i + 1 sao
+    private int[] histogram = new int[5];
+    private Review topReview;
+
+    public ReviewSummary() {
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public void setProductId(int productId) {
+        this.productId = productId;
+    }
+
+    public int getReviewCount() {
+        return reviewCount;
+    }
+
+    public void setReviewCount(int reviewCount) {
+        this.reviewCount = reviewCount;
+    }
+
+    public double getAverageRating() {
+        return averageRating;
+    }
+
+    public void setAverageRating(double averageRating) {
+        this.averageRating = averageRating;
+    }
+
+    public int[] getHistogram() {
+        return histogram;
+    }
+
+    public void setHistogram(int[] histogram) {
+        this.histogram = histogram;
+    }
+
+    public Review getTopReview() {
+        return topReview;
+    }
+
+    public void setTopReview(Review topReview) {
+        this.topReview = topReview;
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.api.search;
+
+import com.example.api.search.ProductSearchIndex.IndexedDoc;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Đọc/ghi snapshot của chỉ mục tìm kiếm để khởi động lại không phải phân tích lại toàn bộ sản phẩm.
+ *
+ * Định dạng (DataOutputStream, big-endian):
+ * <pre>
+ * int     magic "RSIX"
+ * int     version
+ * long    savedAt (epoch millis, dùng để đối chiếu với products.updated_at)
+ * int     termCount, sau đó termCount chuỗi (từ điển)
+ * int     docCount, sau đó mỗi document:
+ *           int id, str name, str slug, str description, str price, int categoryId, int userId,
+ *           str categoryName, double rating, int reviewCount, double rankScore, str image, long createdAt,
+ *           long updatedAt,
+ *           int length, int n, sau đó n cặp (int chỉ số từ trong từ điển, int tần suất)
+ * </pre>
+ * Chuỗi được ghi dưới dạng int độ dài byte UTF-8 (-1 nếu null) kèm nội dung.
+ * File được ghi ra file tạm rồi đổi tên để không để lại snapshot hỏng khi dừng giữa chừng.
+ */
+class IndexSnapshot {
+    private static final int MAGIC = 0x52534958; // "RSIX"
+    private static final int VERSION = 2;
+
+    private IndexSnapshot() {
+    }
+
+    /**
+     * Nội dung đọc được từ snapshot
+     */
+    static final class Contents {
+        final long savedAt;
+        final List<IndexedDoc> documents;
+
+        Contents(long savedAt, List<IndexedDoc> documents) {
+            this.savedAt = savedAt;
+            this.documents = documents;
+        }
+    }
+
+    /**
+     * Ghi snapshot
+     *
+     * @param file      File đích
+     * @param savedAt   Thời điểm chụp dữ liệu
+     * @param documents Các document trong chỉ mục
+     * @throws IOException nếu có lỗi ghi file
+     */
+    static void write(File file, long savedAt, List<IndexedDoc> documents) throws IOException {
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> terms = new ArrayList<>();
+        for (IndexedDoc doc : documents) {
+            for (String term : doc.terms) {
+                if (!dictionary.containsKey(term)) {
+                    dictionary.put(term, terms.size());
+                    terms.add(term);
+                }
+            }
+        }
+
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(savedAt);
+
+            out.writeInt(terms.size());
+            for (String term : terms) {
+                writeString(out, term);
+            }
+
+            out.writeInt(documents.size());
+            for (IndexedDoc doc : documents) {
+                SearchDocument d = doc.document;
+                out.writeInt(d.id);
+                writeString(out, d.name);
+                writeString(out, d.slug);
+                writeString(out, d.description);
+                writeString(out, d.price != null ? d.price.toPlainString() : null);
+                out.writeInt(d.categoryId);
+                out.writeInt(d.userId);
+                writeString(out, d.categoryName);
+                out.writeDouble(d.rating);
+                out.writeInt(d.reviewCount);
+                out.writeDouble(d.rankScore);
+                writeString(out, d.image);
+                out.writeLong(d.createdAt);
+                out.writeLong(d.updatedAt);
+
+                out.writeInt(doc.length);
+                out.writeInt(doc.terms.length);
+                for (int i = 0; i < doc.terms.length; i++) {
+                    out.writeInt(dictionary.get(doc.terms[i]));
+                    out.writeInt(doc.frequencies[i]);
+                }
+            }
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Đọc snapshot
+     *
+     * @param file File snapshot
+     * @return Nội dung snapshot
+     * @throws IOException nếu file lỗi hoặc không đúng định dạng/phiên bản
+     */
+    static Contents read(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Không phải file snapshot chỉ mục");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Phiên bản snapshot không được hỗ trợ: " + version);
+            }
+            long savedAt = in.readLong();
+
+            String[] terms = new String[in.readInt()];
+            for (int i = 0; i < terms.length; i++) {
+                terms[i] = readString(in);
+            }
+
+            int docCount = in.readInt();
+            List<IndexedDoc> documents = new ArrayList<>(docCount);
+            for (int n = 0; n < docCount; n++) {
+                int id = in.readInt();
+                String name = readString(in);
+                String slug = readString(in);
+                String description = readString(in);
+                String price = readString(in);
+                int categoryId = in.readInt();
+                int userId = in.readInt();
+                String categoryName = readString(in);
+                double rating = in.readDouble();
+                int reviewCount = in.readInt();
+                double rankScore = in.readDouble();
+                String image = readString(in);
+                long createdAt = in.readLong();
+                long updatedAt = in.readLong();
+                SearchDocument document = new SearchDocument(id, name, slug, description,
+                        price != null ? new BigDecimal(price) : null, categoryId, userId, categoryName, rating,
+                        reviewCount, rankScore, image, createdAt, updatedAt);
+
+                int length = in.readInt();
+                int termCount = in.readInt();
+                String[] docTerms = new String[termCount];
+                int[] frequencies = new int[termCount];
+                for (int i = 0; i < termCount; i++) {
+                    docTerms[i] = terms[in.readInt()];
+                    frequencies[i] = in.readInt();
+                }
+                documents.add(new IndexedDoc(document, docTerms, frequencies, length));
+            }
+            return new Contents(savedAt, documents);
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            throw new IOException("Snapshot chỉ mục bị hỏng", e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,767 @@
+package com.example.api.search;
+
+import com.example.api.dao.ProductDAO;
+import com.example.api.model.Product;
+import com.example.api.model.ProductSpecification;
+import com.example.api.util.AppConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Chỉ mục đảo ngược trong bộ nhớ cho tìm kiếm sản phẩm (tên, mô tả, tên danh mục, giá trị thông số).
+ *
+ * - Chuẩn hóa tiếng Việt qua TextAnalyzer (bỏ dấu, chữ thường)
+ * - Xếp hạng BM25 với trọng số theo trường (tên 3, danh mục 2, mô tả 1, thông số 1)
+ * - Mở rộng từ khóa theo tiền tố và lỗi chính tả (Damerau-Levenshtein 1, hoặc 2 với từ dài)
+ * - Ưu tiên sản phẩm khớp mọi từ, nếu không có thì trả về sản phẩm khớp một phần
+ *
+ * Chỉ mục được xây dựng nền khi ứng dụng khởi động (từ file snapshot nếu có, sau đó đối chiếu với
+ * cơ sở dữ liệu), và được cập nhật khi thêm/sửa/xóa sản phẩm, đánh giá hoặc danh mục. Mọi cập nhật
+ * chạy tuần tự trên một luồng riêng nên không chặn request ghi.
+ *
+ * Cấu hình: search.index.enabled, search.index.snapshotFile, search.index.snapshotIntervalMs
+ */
+public class ProductSearchIndex {
+    private static final Logger LOGGER = Logger.getLogger(ProductSearchIndex.class.getName());
+    private static final ProductSearchIndex INSTANCE = new ProductSearchIndex();
+
+    // Tham số BM25
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Trọng số các trường (tần suất từ được nhân với trọng số)
+    private static final int NAME_WEIGHT = 3;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int SPECIFICATION_WEIGHT = 1;
+
+    // Hệ số điểm của từ mở rộng so với từ khớp chính xác
+    private static final double PREFIX_FACTOR = 0.7;
+    private static final double TYPO_FACTOR = 0.5;
+    private static final int MAX_EXPANSIONS = 50;
+    private static final int MAX_QUERY_TOKENS = 10;
+
+    private static final int BUILD_BATCH_SIZE = 500;
+    // Thời gian chờ trước khi xây dựng lại khi lỗi (gấp đôi sau mỗi lần lỗi, tối đa BUILD_RETRY_MAX_MS)
+    private static final long BUILD_RETRY_MIN_MS = 1000;
+    private static final long BUILD_RETRY_MAX_MS = 60000;
+    // Bù sai lệch đồng hồ giữa ứng dụng và MySQL khi đối chiếu snapshot
+    private static final long RECONCILE_MARGIN_MS = 60000;
+
+    private final boolean enabled;
+    private final File snapshotFile;
+    private final long snapshotIntervalMs;
+    private final ProductDAO productDAO = new ProductDAO();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Posting> postings = new TreeMap<>();
+    private final Map<Integer, IndexedDoc> docs = new HashMap<>();
+    private long totalLength;
+
+    private final Set<Integer> pending = ConcurrentHashMap.newKeySet();
+    private volatile ScheduledExecutorService executor;
+    private volatile boolean ready;
+    private volatile boolean dirty;
+    // Chỉ dùng trên luồng cập nhật
+    private long buildRetryMs = BUILD_RETRY_MIN_MS;
+
+    // Thống kê
+    private volatile String source = "none";
+    private volatile long buildMs;
+    private volatile long lastSnapshotAt;
+    private final AtomicLong searches = new AtomicLong();
+    private final AtomicLong totalSearchNanos = new AtomicLong();
+    private final AtomicLong updates = new AtomicLong();
+    private final AtomicLong buildFailures = new AtomicLong();
+
+    private ProductSearchIndex() {
+        this.enabled = AppConfig.getBoolean("search.index.enabled", false);
+        String file = AppConfig.get("search.index.snapshotFile", "");
+        this.snapshotFile = file.isEmpty() ? null : new File(file);
+        this.snapshotIntervalMs = AppConfig.getLong("search.index.snapshotIntervalMs", 600000);
+    }
+
+    public static ProductSearchIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Khởi động luồng cập nhật và xây dựng chỉ mục nền (không chặn khởi động ứng dụng)
+     */
+    public synchronized void start() {
+        if (!enabled || executor != null) {
+            return;
+        }
+        ScheduledThreadPoolExecutor created = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "product-search-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Lần thử xây dựng lại đang chờ bị hủy khi dừng
+        created.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        executor = created;
+        executor.execute(this::build);
+        if (snapshotFile != null && snapshotIntervalMs > 0) {
+            executor.scheduleWithFixedDelay(() -> {
+                if (ready && dirty) {
+                    saveSnapshot();
+                }
+            }, snapshotIntervalMs, snapshotIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Dừng luồng cập nhật và ghi snapshot nếu chỉ mục có thay đổi
+     */
+    public synchronized void stop() {
+        ScheduledExecutorService current = executor;
+        if (current == null) {
+            return;
+        }
+        executor = null;
+        current.shutdown();
+        try {
+            if (!current.awaitTermination(10, TimeUnit.SECONDS)) {
+                current.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            current.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        if (ready && dirty && snapshotFile != null) {
+            saveSnapshot();
+        }
+    }
+
+    /**
+     * @return true nếu chỉ mục đã sẵn sàng phục vụ tìm kiếm
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Nạp lại sản phẩm từ cơ sở dữ liệu vào chỉ mục (bất đồng bộ, gộp các yêu cầu trùng)
+     *
+     * @param productId ID sản phẩm vừa thêm/sửa hoặc có đánh giá thay đổi
+     */
+    public void refresh(int productId) {
+        ScheduledExecutorService current = executor;
+        if (current == null || !pending.add(productId)) {
+            return;
+        }
+        current.execute(() -> {
+            pending.remove(productId);
+            reload(Collections.singletonList(productId));
+        });
+    }
+
+    /**
+     * Nạp lại rank_score của toàn bộ sản phẩm (bất đồng bộ), sau khi ProductRankingJob tính lại toàn bộ điểm:
+     * lần tính đó giữ nguyên updated_at nên refresh từng sản phẩm và đối chiếu snapshot không thấy thay đổi
+     */
+    public void refreshRankScores() {
+        ScheduledExecutorService current = executor;
+        if (current == null) {
+            return;
+        }
+        // Cùng luồng với build nên chạy sau khi xây dựng xong
+        current.execute(this::reloadRankScores);
+    }
+
+    /**
+     * Xóa sản phẩm khỏi chỉ mục
+     *
+     * @param productId ID sản phẩm đã xóa
+     */
+    public void remove(int productId) {
+        if (executor == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeInternal(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // Nạp lại để loại bỏ bản cũ có thể được ghi vào bởi lần xây dựng đang chạy
+        refresh(productId);
+    }
+
+    /**
+     * Nạp lại các sản phẩm của danh mục (khi tên danh mục thay đổi)
+     *
+     * @param categoryId ID danh mục
+     */
+    public void refreshCategory(int categoryId) {
+        ScheduledExecutorService current = executor;
+        if (current == null) {
+            return;
+        }
+        current.execute(() -> {
+            try {
+                reload(productDAO.getProductIdsByCategory(categoryId));
+            } catch (SQLException e) {
+                LOGGER.log(Level.SEVERE, "Lỗi khi cập nhật chỉ mục theo danh mục: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Tìm kiếm sản phẩm
+     *
+     * @param query      Từ khóa tìm kiếm
+     * @param categoryId ID danh mục (nếu có)
+     * @param sort       Cách sắp xếp: relevance (mặc định), price_asc, price_desc, rating_desc, newest
+     * @param page       Số trang
+     * @param limit      Số lượng sản phẩm trên mỗi trang
+     * @return Danh sách sản phẩm và thông tin phân trang (cùng dạng với ProductDAO.getProducts),
+     *         hoặc null nếu chỉ mục chưa sẵn sàng
+     */
+    public Map<String, Object> search(String query, Integer categoryId, String sort, int page, int limit) {
+        if (!ready) {
+            return null;
+        }
+        long start = System.nanoTime();
+        List<String> tokens = TextAnalyzer.tokenizeQuery(query, MAX_QUERY_TOKENS);
+
+        List<Hit> hits;
+        lock.readLock().lock();
+        try {
+            hits = collectHits(tokens, categoryId);
+        } finally {
+            lock.readLock().unlock();
+        }
+        hits.sort(comparator(sort));
+
+        int offset = (page - 1) * limit;
+        List<Product> products = new ArrayList<>();
+        for (int i = offset; i < hits.size() && i < offset + limit; i++) {
+            products.add(hits.get(i).document.toProduct());
+        }
+
+        Map<String, Object> pagination = new HashMap<>();
+        pagination.put("total", hits.size());
+        pagination.put("page", page);
+        pagination.put("limit", limit);
+        pagination.put("totalPages", (int) Math.ceil((double) hits.size() / limit));
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("products", products);
+        result.put("pagination", pagination);
+
+        searches.incrementAndGet();
+        totalSearchNanos.addAndGet(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Thống kê chỉ mục
+     *
+     * @return Map các chỉ số
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ready", ready);
+        lock.readLock().lock();
+        try {
+            stats.put("documents", docs.size());
+            stats.put("terms", postings.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("source", source);
+        stats.put("buildMs", buildMs);
+        stats.put("buildFailures", buildFailures.get());
+        stats.put("lastSnapshotAt", lastSnapshotAt);
+        stats.put("updates", updates.get());
+        stats.put("pendingRefreshes", pending.size());
+        long count = searches.get();
+        stats.put("searches", count);
+        stats.put("avgSearchMs", count == 0 ? 0.0 : totalSearchNanos.get() / 1_000_000.0 / count);
+        return stats;
+    }
+
+    /**
+     * Xây dựng chỉ mục: từ snapshot (rồi đối chiếu với cơ sở dữ liệu) hoặc nạp toàn bộ sản phẩm
+     */
+    private void build() {
+        long start = System.currentTimeMillis();
+        // Bỏ phần đã nạp ở lần thử trước (snapshot được nạp lại từ đầu, sản phẩm được nạp lại từ MySQL)
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            docs.clear();
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            if (!loadSnapshot()) {
+                int afterId = 0;
+                List<Product> batch;
+                do {
+                    batch = productDAO.getProductsForIndex(afterId, BUILD_BATCH_SIZE);
+                    for (Product product : batch) {
+                        upsert(product);
+                        afterId = product.getId();
+                    }
+                } while (batch.size() == BUILD_BATCH_SIZE);
+                source = "database";
+            }
+            buildMs = System.currentTimeMillis() - start;
+            ready = true;
+            LOGGER.info("Chỉ mục tìm kiếm sẵn sàng: " + docs.size() + " sản phẩm (" + source + ", " + buildMs + " ms)");
+            if (snapshotFile != null && dirty) {
+                saveSnapshot();
+            }
+        } catch (SQLException e) {
+            buildFailures.incrementAndGet();
+            LOGGER.log(Level.SEVERE, "Lỗi khi xây dựng chỉ mục tìm kiếm, thử lại sau " + buildRetryMs + " ms: " +
+                    e.getMessage(), e);
+            scheduleRebuild();
+        }
+    }
+
+    /**
+     * Xây dựng lại sau khi lỗi (cơ sở dữ liệu chưa sẵn sàng lúc khởi động), chờ lâu dần giữa các lần thử
+     */
+    private void scheduleRebuild() {
+        ScheduledExecutorService current = executor;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.schedule(this::build, buildRetryMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Đang dừng
+            return;
+        }
+        buildRetryMs = Math.min(buildRetryMs * 2, BUILD_RETRY_MAX_MS);
+    }
+
+    /**
+     * Nạp chỉ mục từ snapshot và cập nhật các sản phẩm thay đổi sau thời điểm ghi snapshot
+     *
+     * @return true nếu đã nạp từ snapshot
+     */
+    private boolean loadSnapshot() throws SQLException {
+        if (snapshotFile == null || !snapshotFile.isFile()) {
+            return false;
+        }
+
+        IndexSnapshot.Contents contents;
+        try {
+            contents = IndexSnapshot.read(snapshotFile);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Không đọc được snapshot chỉ mục, xây dựng lại từ đầu: " + e.getMessage(), e);
+            return false;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (IndexedDoc doc : contents.documents) {
+                addInternal(doc);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        // Đối chiếu: sản phẩm đã xóa, sản phẩm mới hoặc có thay đổi kể từ khi ghi snapshot
+        Set<Integer> existing = new HashSet<>(productDAO.getAllProductIds());
+        List<Integer> stale = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Integer productId : docs.keySet()) {
+                if (!existing.contains(productId)) {
+                    stale.add(productId);
+                }
+            }
+            for (Integer productId : existing) {
+                if (!docs.containsKey(productId)) {
+                    stale.add(productId);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        stale.addAll(productDAO.getProductIdsChangedSince(new Timestamp(contents.savedAt - RECONCILE_MARGIN_MS)));
+        reload(new ArrayList<>(new HashSet<>(stale)));
+
+        source = "snapshot";
+        return true;
+    }
+
+    /**
+     * Ghi snapshot chỉ mục ra file
+     */
+    private void saveSnapshot() {
+        long savedAt = System.currentTimeMillis();
+        List<IndexedDoc> snapshot;
+        lock.readLock().lock();
+        try {
+            snapshot = new ArrayList<>(docs.values());
+            dirty = false;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        try {
+            IndexSnapshot.write(snapshotFile, savedAt, snapshot);
+            lastSnapshotAt = savedAt;
+        } catch (IOException e) {
+            dirty = true;
+            LOGGER.log(Level.SEVERE, "Lỗi khi ghi snapshot chỉ mục tìm kiếm: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Cập nhật rank_score của các document theo từng lô ID
+     */
+    private void reloadRankScores() {
+        try {
+            int afterId = 0;
+            int changed = 0;
+            Map<Integer, Double> batch;
+            do {
+                batch = productDAO.getRankScores(afterId, BUILD_BATCH_SIZE);
+                lock.writeLock().lock();
+                try {
+                    for (Map.Entry<Integer, Double> entry : batch.entrySet()) {
+                        afterId = entry.getKey();
+                        IndexedDoc doc = docs.get(entry.getKey());
+                        if (doc != null && doc.document.rankScore != entry.getValue()) {
+                            docs.put(entry.getKey(), new IndexedDoc(doc.document.withRankScore(entry.getValue()),
+                                    doc.terms, doc.frequencies, doc.length));
+                            changed++;
+                        }
+                    }
+                    if (changed > 0) {
+                        dirty = true;
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            } while (batch.size() == BUILD_BATCH_SIZE);
+            LOGGER.info("Đã cập nhật điểm xếp hạng trong chỉ mục tìm kiếm: " + changed + " sản phẩm");
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Lỗi khi cập nhật điểm xếp hạng trong chỉ mục tìm kiếm: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Nạp lại các sản phẩm từ cơ sở dữ liệu, xóa khỏi chỉ mục các sản phẩm không còn tồn tại
+     */
+    private void reload(List<Integer> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        try {
+            Set<Integer> missing = new HashSet<>(productIds);
+            for (Product product : productDAO.getProductsByIds(productIds)) {
+                upsert(product);
+                missing.remove(product.getId());
+            }
+            if (!missing.isEmpty()) {
+                lock.writeLock().lock();
+                try {
+                    for (Integer productId : missing) {
+                        removeInternal(productId);
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Lỗi khi cập nhật chỉ mục tìm kiếm: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Thêm hoặc thay thế sản phẩm trong chỉ mục
+     */
+    private void upsert(Product product) {
+        // Phân tích văn bản ngoài khóa ghi
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = TextAnalyzer.addField(product.getName(), NAME_WEIGHT, frequencies);
+        length += TextAnalyzer.addField(product.getCategoryName(), CATEGORY_WEIGHT, frequencies);
+        length += TextAnalyzer.addField(product.getDescription(), DESCRIPTION_WEIGHT, frequencies);
+        if (product.getSpecifications() != null) {
+            for (ProductSpecification spec : product.getSpecifications()) {
+                length += TextAnalyzer.addField(spec.getValue(), SPECIFICATION_WEIGHT, frequencies);
+            }
+        }
+
+        String[] terms = new String[frequencies.size()];
+        int[] termFrequencies = new int[frequencies.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            terms[i] = entry.getKey();
+            termFrequencies[i] = entry.getValue();
+            i++;
+        }
+        IndexedDoc doc = new IndexedDoc(SearchDocument.fromProduct(product), terms, termFrequencies, length);
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(product.getId());
+            addInternal(doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Thêm document vào chỉ mục (gọi khi giữ khóa ghi)
+     */
+    private void addInternal(IndexedDoc doc) {
+        int productId = doc.document.id;
+        for (int i = 0; i < doc.terms.length; i++) {
+            Posting posting = postings.computeIfAbsent(doc.terms[i], Posting::new);
+            posting.add(productId, doc.frequencies[i]);
+            // Dùng chung chuỗi với từ điển để giảm bộ nhớ
+            doc.terms[i] = posting.term;
+        }
+        docs.put(productId, doc);
+        totalLength += doc.length;
+        dirty = true;
+        updates.incrementAndGet();
+    }
+
+    /**
+     * Xóa document khỏi chỉ mục (gọi khi giữ khóa ghi)
+     */
+    private void removeInternal(int productId) {
+        IndexedDoc doc = docs.remove(productId);
+        if (doc == null) {
+            return;
+        }
+        for (String term : doc.terms) {
+            Posting posting = postings.get(term);
+            if (posting != null && posting.remove(productId) && posting.size == 0) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= doc.length;
+        dirty = true;
+        updates.incrementAndGet();
+    }
+
+    /**
+     * Tính điểm các sản phẩm khớp từ khóa (gọi khi giữ khóa đọc)
+     */
+    private List<Hit> collectHits(List<String> tokens, Integer categoryId) {
+        List<Hit> hits = new ArrayList<>();
+        if (tokens.isEmpty() || docs.isEmpty()) {
+            return hits;
+        }
+
+        double documentCount = docs.size();
+        double averageLength = Math.max(1.0, (double) totalLength / docs.size());
+        Map<Integer, Hit> byId = new HashMap<>();
+
+        for (String token : tokens) {
+            // Điểm của từ khóa = điểm cao nhất trong các từ mở rộng của nó
+            Map<Integer, Double> best = new HashMap<>();
+            for (Map.Entry<String, Double> expansion : expand(token).entrySet()) {
+                Posting posting = postings.get(expansion.getKey());
+                double idf = Math.log(1 + (documentCount - posting.size + 0.5) / (posting.size + 0.5));
+                for (int i = 0; i < posting.size; i++) {
+                    IndexedDoc doc = docs.get(posting.ids[i]);
+                    if (categoryId != null && doc.document.categoryId != categoryId) {
+                        continue;
+                    }
+                    double tf = posting.frequencies[i];
+                    double norm = K1 * (1 - B + B * doc.length / averageLength);
+                    double score = expansion.getValue() * idf * tf * (K1 + 1) / (tf + norm);
+                    best.merge(posting.ids[i], score, Math::max);
+                }
+            }
+            for (Map.Entry<Integer, Double> entry : best.entrySet()) {
+                Hit hit = byId.computeIfAbsent(entry.getKey(), id -> new Hit(docs.get(id).document));
+                hit.score += entry.getValue();
+                hit.matchedTokens++;
+            }
+        }
+
+        // Ưu tiên sản phẩm khớp mọi từ khóa
+        for (Hit hit : byId.values()) {
+            if (hit.matchedTokens == tokens.size()) {
+                hits.add(hit);
+            }
+        }
+        if (hits.isEmpty()) {
+            hits.addAll(byId.values());
+        }
+        return hits;
+    }
+
+    /**
+     * Mở rộng một từ khóa thành các từ trong từ điển kèm hệ số điểm
+     * (khớp chính xác, tiền tố, hoặc sai chính tả khi không có từ khớp chính xác)
+     */
+    private Map<String, Double> expand(String token) {
+        Map<String, Double> expansions = new LinkedHashMap<>();
+        boolean exact = postings.containsKey(token);
+        if (exact) {
+            expansions.put(token, 1.0);
+        }
+
+        if (token.length() >= 2) {
+            for (String term : postings.subMap(token, false, token + Character.MAX_VALUE, false).keySet()) {
+                if (expansions.size() >= MAX_EXPANSIONS) {
+                    break;
+                }
+                expansions.put(term, PREFIX_FACTOR);
+            }
+        }
+
+        if (!exact && token.length() >= 4) {
+            int maxDistance = token.length() >= 8 ? 2 : 1;
+            // Giả định ký tự đầu tiên được gõ đúng để giới hạn phạm vi duyệt từ điển
+            char first = token.charAt(0);
+            String from = String.valueOf(first);
+            String to = String.valueOf((char) (first + 1));
+            int added = 0;
+            for (String term : postings.subMap(from, true, to, false).keySet()) {
+                if (added >= MAX_EXPANSIONS) {
+                    break;
+                }
+                if (Math.abs(term.length() - token.length()) <= maxDistance && !expansions.containsKey(term)
+                        && TextAnalyzer.editDistance(token, term, maxDistance) <= maxDistance) {
+                    expansions.put(term, TYPO_FACTOR);
+                    added++;
+                }
+            }
+        }
+        return expansions;
+    }
+
+    /**
+     * Thứ tự kết quả theo cách sắp xếp, cùng giá trị thì sản phẩm mới hơn (ID lớn hơn) đứng trước
+     */
+    private static Comparator<Hit> comparator(String sort) {
+        Comparator<Hit> byId = Comparator.comparingInt((Hit hit) -> hit.document.id).reversed();
+        if (sort == null) {
+            sort = "relevance";
+        }
+        switch (sort) {
+            case "price_asc":
+                return Comparator.comparing((Hit hit) -> hit.document.price,
+                        Comparator.nullsLast(Comparator.naturalOrder())).thenComparing(byId);
+            case "price_desc":
+                return Comparator.comparing((Hit hit) -> hit.document.price,
+                        Comparator.nullsLast(Comparator.reverseOrder())).thenComparing(byId);
+            case "rating":
+            case "rating_desc":
+                // Cùng thứ tự với MySQL: rank_score (điểm Bayes do ProductRankingJob tính) rồi id
+                return Comparator.comparingDouble((Hit hit) -> hit.document.rankScore).reversed()
+                        .thenComparing(byId);
+            case "newest":
+                return Comparator.comparingLong((Hit hit) -> hit.document.createdAt).reversed().thenComparing(byId);
+            default:
+                return Comparator.comparingDouble((Hit hit) -> hit.score).reversed().thenComparing(byId);
+        }
+    }
+
+    /**
+     * Sản phẩm đã phân tích: document lưu trữ và tần suất có trọng số của từng từ
+     */
+    static final class IndexedDoc {
+        final SearchDocument document;
+        final String[] terms;
+        final int[] frequencies;
+        final int length;
+
+        IndexedDoc(SearchDocument document, String[] terms, int[] frequencies, int length) {
+            this.document = document;
+            this.terms = terms;
+            this.frequencies = frequencies;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Danh sách sản phẩm chứa một từ (mảng song song ID / tần suất, sắp xếp theo ID để tìm bằng
+     * tìm kiếm nhị phân; xây dựng theo thứ tự ID nên thêm thường là nối vào cuối)
+     */
+    static final class Posting {
+        final String term;
+        int[] ids = new int[2];
+        int[] frequencies = new int[2];
+        int size;
+
+        Posting(String term) {
+            this.term = term;
+        }
+
+        void add(int productId, int frequency) {
+            // ID lớn hơn mọi ID đang có: nối vào cuối, không cần tìm
+            int index = size == 0 || ids[size - 1] < productId
+                    ? -size - 1
+                    : Arrays.binarySearch(ids, 0, size, productId);
+            if (index >= 0) {
+                frequencies[index] = frequency;
+                return;
+            }
+            int insertAt = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            System.arraycopy(frequencies, insertAt, frequencies, insertAt + 1, size - insertAt);
+            ids[insertAt] = productId;
+            frequencies[insertAt] = frequency;
+            size++;
+        }
+
+        boolean remove(int productId) {
+            int index = Arrays.binarySearch(ids, 0, size, productId);
+            if (index < 0) {
+                return false;
+            }
+            size--;
+            System.arraycopy(ids, index + 1, ids, index, size - index);
+            System.arraycopy(frequencies, index + 1, frequencies, index, size - index);
+            return true;
+        }
+    }
+
+    /**
+     * Sản phẩm khớp truy vấn cùng điểm tích lũy
+     */
+    private static final class Hit {
+        final SearchDocument document;
+        double score;
+        int matchedTokens;
+
+        Hit(SearchDocument document) {
+            this.document = document;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.api.search;
+
+import com.example.api.model.Product;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Các trường hiển thị của sản phẩm được lưu trong chỉ mục tìm kiếm,
+ * đủ để trả kết quả tìm kiếm mà không cần truy vấn MySQL.
+ */
+public final class SearchDocument {
+    final int id;
+    final String name;
+    final String slug;
+    final String description;
+    final BigDecimal price;
+    final int categoryId;
+    final int userId;
+    final String categoryName;
+    final double rating;
+    final int reviewCount;
+    final double rankScore;
+    final String image;
+    final long createdAt;
+    final long updatedAt;
+
+    SearchDocument(int id, String name, String slug, String description, BigDecimal price, int categoryId,
+            int userId, String categoryName, double rating, int reviewCount, double rankScore, String image,
+            long createdAt, long updatedAt) {
+        this.id = id;
+        this.name = name;
+        this.slug = slug;
+        this.description = description;
+        this.price = price;
+        this.categoryId = categoryId;
+        this.userId = userId;
+        this.categoryName = categoryName;
+        this.rating = rating;
+        this.reviewCount = reviewCount;
+        this.rankScore = rankScore;
+        this.image = image;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * Bản sao với điểm xếp hạng mới (document được đọc ngoài khóa nên không sửa tại chỗ)
+     *
+     * @param score rank_score mới
+     * @return Document mới
+     */
+    SearchDocument withRankScore(double score) {
+        return new SearchDocument(id, name, slug, description, price, categoryId, userId, categoryName, rating,
+                reviewCount, score, image, createdAt, updatedAt);
+    }
+
+    /**
+     * Tạo document từ sản phẩm đã nạp đầy đủ (tên danh mục, hình ảnh)
+     *
+     * @param product Sản phẩm
+     * @return Document lưu trong chỉ mục
+     */
+    static SearchDocument fromProduct(Product product) {
+        String image = product.getImages() != null && !product.getImages().isEmpty()
+                ? product.getImages().get(0)
+                : null;
+        return new SearchDocument(product.getId(), product.getName(), product.getSlug(), product.getDescription(),
+                product.getPrice(), product.getCategoryId(), product.getUserId(), product.getCategoryName(),
+                product.getRating(), product.getReviewCount(), product.getRankScore(), image,
+                product.getCreatedAt() != null ? product.getCreatedAt().getTime() : 0L,
+                product.getUpdatedAt() != null ? product.getUpdatedAt().getTime() : 0L);
+    }
+
+    /**
+     * Chuyển thành Product để hiển thị giống danh sách sản phẩm (chỉ có ảnh chính, không có thông số)
+     *
+     * @return Sản phẩm
+     */
+    public Product toProduct() {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setSlug(slug);
+        product.setDescription(description);
+        product.setPrice(price);
+        product.setCategoryId(categoryId);
+        product.setUserId(userId);
+        product.setCategoryName(categoryName);
+        product.setRating(rating);
+        product.setReviewCount(reviewCount);
+        product.setRankScore(rankScore);
+        product.setCreatedAt(new Timestamp(createdAt));
+        product.setUpdatedAt(new Timestamp(updatedAt));
+        if (image != null) {
+            List<String> images = new ArrayList<>();
+            images.add(image);
+            product.setImages(images);
+        }
+        return product;
+    }
+
+    public int getId() {
+        return id;
+    }
+}
@@ -0,0 +1,372 @@
+package com.example.api.search;
+
+import com.example.api.dao.CategoryDAO;
+import com.example.api.dao.ProductDAO;
+import com.example.api.model.Category;
+import com.example.api.model.Product;
+import com.example.api.search.SuggestTrie.Suggestion;
+import com.example.api.util.AppConfig;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Gợi ý tìm kiếm (typeahead) cho tên sản phẩm và danh mục theo tiền tố.
+ *
+ * Tên được chuẩn hóa như chỉ mục tìm kiếm (bỏ dấu, chữ thường) và được thêm vào radix trie
+ * tại mỗi vị trí bắt đầu từ, nên "sam" khớp cả "Điện thoại Samsung". Trọng số sản phẩm dựa trên
+ * rating và review_count. Trie được xây dựng nền khi khởi động (thử lại với thời gian chờ tăng dần nếu
+ * cơ sở dữ liệu lỗi) và cập nhật khi ghi sản phẩm/danh mục.
+ *
+ * Cấu hình: suggest.enabled, suggest.topK
+ */
+public class SuggestIndex {
+    private static final Logger LOGGER = Logger.getLogger(SuggestIndex.class.getName());
+    private static final SuggestIndex INSTANCE = new SuggestIndex();
+
+    // Số vị trí bắt đầu từ tối đa được thêm vào trie cho mỗi tên
+    private static final int MAX_WORD_STARTS = 5;
+    // Độ dài khóa tối đa (tiền tố dài hơn hiếm khi cần cho gợi ý)
+    private static final int MAX_KEY_LENGTH = 48;
+    private static final int BUILD_BATCH_SIZE = 1000;
+    // Thời gian chờ trước khi xây dựng lại khi lỗi (gấp đôi sau mỗi lần lỗi, tối đa BUILD_RETRY_MAX_MS)
+    private static final long BUILD_RETRY_MIN_MS = 1000;
+    private static final long BUILD_RETRY_MAX_MS = 60000;
+
+    private final boolean enabled;
+    private final int topK;
+    private final ProductDAO productDAO = new ProductDAO();
+    private final CategoryDAO categoryDAO = new CategoryDAO();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final SuggestTrie products;
+    private final SuggestTrie categories;
+    private final Map<Integer, Suggestion> productSuggestions = new HashMap<>();
+    private final Map<Integer, Suggestion> categorySuggestions = new HashMap<>();
+
+    private final Set<Integer> pending = ConcurrentHashMap.newKeySet();
+    private volatile ScheduledExecutorService executor;
+    private volatile boolean ready;
+    private volatile long buildMs;
+    // Chỉ dùng trên luồng cập nhật
+    private long buildRetryMs = BUILD_RETRY_MIN_MS;
+    private final AtomicLong buildFailures = new AtomicLong();
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong totalLookupNanos = new AtomicLong();
+
+    private SuggestIndex() {
+        this.enabled = AppConfig.getBoolean("suggest.enabled", true);
+        this.topK = AppConfig.getInt("suggest.topK", 10);
+        this.products = new SuggestTrie(topK);
+        this.categories = new SuggestTrie(topK);
+    }
+
+    public static SuggestIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Khởi động luồng cập nhật và xây dựng trie nền
+     */
+    public synchronized void start() {
+        if (!enabled || executor != null) {
+            return;
+        }
+        ScheduledThreadPoolExecutor created = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "product-suggest-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Lần thử xây dựng lại đang chờ bị hủy khi dừng
+        created.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        executor = created;
+        executor.execute(this::build);
+    }
+
+    /**
+     * Dừng luồng cập nhật
+     */
+    public synchronized void stop() {
+        ScheduledExecutorService current = executor;
+        if (current == null) {
+            return;
+        }
+        executor = null;
+        current.shutdown();
+        try {
+            if (!current.awaitTermination(5, TimeUnit.SECONDS)) {
+                current.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            current.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return true nếu trie đã xây dựng xong
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Lấy gợi ý cho tiền tố
+     *
+     * @param query Chuỗi người dùng đang gõ
+     * @param limit Số gợi ý tối đa mỗi loại (không vượt quá suggest.topK)
+     * @return Map gồm "products" và "categories" (id, name, slug), hoặc null nếu chưa sẵn sàng
+     */
+    public Map<String, Object> suggest(String query, int limit) {
+        if (!ready) {
+            return null;
+        }
+        long start = System.nanoTime();
+        String prefix = normalizeQuery(query);
+        int size = Math.max(1, Math.min(limit, topK));
+
+        List<Suggestion> productMatches;
+        List<Suggestion> categoryMatches;
+        lock.readLock().lock();
+        try {
+            productMatches = prefix.isEmpty() ? Collections.emptyList() : products.lookup(prefix, size);
+            categoryMatches = prefix.isEmpty() ? Collections.emptyList() : categories.lookup(prefix, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("query", query);
+        result.put("products", toMaps(productMatches));
+        result.put("categories", toMaps(categoryMatches));
+
+        lookups.incrementAndGet();
+        totalLookupNanos.addAndGet(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Nạp lại gợi ý của sản phẩm (bất đồng bộ, gộp yêu cầu trùng); sản phẩm không còn tồn tại sẽ bị xóa
+     *
+     * @param productId ID sản phẩm
+     */
+    public void refreshProduct(int productId) {
+        ScheduledExecutorService current = executor;
+        if (current == null || !pending.add(productId)) {
+            return;
+        }
+        current.execute(() -> {
+            pending.remove(productId);
+            try {
+                // Gợi ý chỉ cần các cột của bảng products (tên, slug, rating, review_count)
+                Product product = productDAO.getProductSummary(productId);
+                if (product == null) {
+                    removeProduct(productId);
+                } else {
+                    putProduct(product);
+                }
+            } catch (SQLException e) {
+                LOGGER.log(Level.SEVERE, "Lỗi khi cập nhật gợi ý sản phẩm: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Nạp lại gợi ý danh mục (bất đồng bộ)
+     */
+    public void refreshCategories() {
+        ScheduledExecutorService current = executor;
+        if (current == null) {
+            return;
+        }
+        current.execute(this::loadCategories);
+    }
+
+    /**
+     * Thống kê trie gợi ý
+     *
+     * @return Map các chỉ số
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ready", ready);
+        lock.readLock().lock();
+        try {
+            stats.put("products", productSuggestions.size());
+            stats.put("categories", categorySuggestions.size());
+            stats.put("nodes", products.nodeCount() + categories.nodeCount());
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("buildMs", buildMs);
+        stats.put("buildFailures", buildFailures.get());
+        long count = lookups.get();
+        stats.put("lookups", count);
+        stats.put("avgLookupMs", count == 0 ? 0.0 : totalLookupNanos.get() / 1_000_000.0 / count);
+        return stats;
+    }
+
+    private void build() {
+        long start = System.currentTimeMillis();
+        try {
+            loadCategories();
+            int afterId = 0;
+            List<Product> batch;
+            do {
+                batch = productDAO.getProductSummaries(afterId, BUILD_BATCH_SIZE);
+                for (Product product : batch) {
+                    putProduct(product);
+                    afterId = product.getId();
+                }
+            } while (batch.size() == BUILD_BATCH_SIZE);
+            buildMs = System.currentTimeMillis() - start;
+            ready = true;
+            LOGGER.info("Gợi ý tìm kiếm sẵn sàng: " + productSuggestions.size() + " sản phẩm (" + buildMs + " ms)");
+        } catch (SQLException e) {
+            buildFailures.incrementAndGet();
+            LOGGER.log(Level.SEVERE, "Lỗi khi xây dựng gợi ý tìm kiếm, thử lại sau " + buildRetryMs + " ms: " +
+                    e.getMessage(), e);
+            scheduleRebuild();
+        }
+    }
+
+    /**
+     * Xây dựng lại sau khi lỗi (cơ sở dữ liệu chưa sẵn sàng lúc khởi động), chờ lâu dần giữa các lần thử
+     */
+    private void scheduleRebuild() {
+        ScheduledExecutorService current = executor;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.schedule(this::build, buildRetryMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Đang dừng
+            return;
+        }
+        buildRetryMs = Math.min(buildRetryMs * 2, BUILD_RETRY_MAX_MS);
+    }
+
+    private void loadCategories() {
+        List<Category> all = categoryDAO.getAllCategories();
+        lock.writeLock().lock();
+        try {
+            Set<Integer> existing = new HashSet<>();
+            for (Category category : all) {
+                existing.add(category.getId());
+                Suggestion old = categorySuggestions.get(category.getId());
+                if (old != null && old.text.equals(category.getName())) {
+                    continue;
+                }
+                if (old != null) {
+                    categories.remove(old);
+                }
+                Suggestion suggestion = new Suggestion(category.getId(), category.getName(), category.getSlug(),
+                        0, keys(category.getName()));
+                categories.add(suggestion);
+                categorySuggestions.put(category.getId(), suggestion);
+            }
+            categorySuggestions.values().removeIf(old -> {
+                if (existing.contains(old.id)) {
+                    return false;
+                }
+                categories.remove(old);
+                return true;
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void putProduct(Product product) {
+        Suggestion suggestion = new Suggestion(product.getId(), product.getName(), product.getSlug(),
+                weight(product.getRating(), product.getReviewCount()), keys(product.getName()));
+        lock.writeLock().lock();
+        try {
+            Suggestion old = productSuggestions.put(product.getId(), suggestion);
+            if (old != null) {
+                products.remove(old);
+            }
+            products.add(suggestion);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeProduct(int productId) {
+        lock.writeLock().lock();
+        try {
+            Suggestion old = productSuggestions.remove(productId);
+            if (old != null) {
+                products.remove(old);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Trọng số gợi ý: rating được làm mượt về 3 sao với ít đánh giá, nhân độ phổ biến log(số đánh giá)
+     */
+    private static double weight(double rating, int reviewCount) {
+        double smoothed = (rating * reviewCount + 3.0 * 5) / (reviewCount + 5);
+        return smoothed * Math.log(2 + reviewCount);
+    }
+
+    /**
+     * Các khóa của một tên: phần tên bắt đầu từ mỗi vị trí từ (đã chuẩn hóa)
+     */
+    private static String[] keys(String name) {
+        List<String> tokens = TextAnalyzer.tokenize(name);
+        Set<String> keys = new LinkedHashSet<>();
+        for (int i = 0; i < tokens.size() && i < MAX_WORD_STARTS; i++) {
+            String key = String.join(" ", tokens.subList(i, tokens.size()));
+            keys.add(key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key);
+        }
+        return keys.toArray(new String[0]);
+    }
+
+    /**
+     * Chuẩn hóa chuỗi đang gõ, giữ dấu cách cuối để "dien " không khớp "dienthoai"
+     */
+    private static String normalizeQuery(String query) {
+        if (query == null) {
+            return "";
+        }
+        String prefix = String.join(" ", TextAnalyzer.tokenize(query));
+        if (!prefix.isEmpty() && Character.isWhitespace(query.charAt(query.length() - 1))) {
+            prefix += " ";
+        }
+        return prefix.length() > MAX_KEY_LENGTH ? prefix.substring(0, MAX_KEY_LENGTH) : prefix;
+    }
+
+    private static List<Map<String, Object>> toMaps(List<Suggestion> suggestions) {
+        List<Map<String, Object>> list = new ArrayList<>(suggestions.size());
+        for (Suggestion suggestion : suggestions) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("id", suggestion.id);
+            item.put("name", suggestion.text);
+            item.put("slug", suggestion.slug);
+            list.add(item);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,297 @@
+package com.example.api.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Radix trie (cạnh nén nhiều ký tự) lưu sẵn top-k gợi ý có trọng số cao nhất tại mỗi nút,
+ * nên tra cứu một tiền tố chỉ tốn chi phí đi theo tiền tố đó rồi đọc danh sách có sẵn.
+ *
+ * Một gợi ý có thể được thêm với nhiều khóa (ví dụ mỗi vị trí bắt đầu từ trong tên), top-k
+ * của mỗi nút không chứa trùng gợi ý. Lớp này không đồng bộ, nơi gọi tự giữ khóa.
+ */
+class SuggestTrie {
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Suggestion[] NO_SUGGESTIONS = new Suggestion[0];
+
+    private final int topK;
+    private final Node root = new Node("");
+    private int nodeCount = 1;
+
+    SuggestTrie(int topK) {
+        this.topK = topK;
+    }
+
+    /**
+     * Gợi ý lưu trong trie
+     */
+    static final class Suggestion {
+        final int id;
+        final String text;
+        final String slug;
+        final double weight;
+        final String[] keys;
+
+        Suggestion(int id, String text, String slug, double weight, String[] keys) {
+            this.id = id;
+            this.text = text;
+            this.slug = slug;
+            this.weight = weight;
+            this.keys = keys;
+        }
+    }
+
+    private static final class Node {
+        String label;
+        char[] firstChars = new char[0];
+        Node[] children = NO_CHILDREN;
+        Suggestion[] terminals = NO_SUGGESTIONS;
+        Suggestion[] top = NO_SUGGESTIONS;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        int childIndex(char c) {
+            return Arrays.binarySearch(firstChars, c);
+        }
+
+        void putChild(Node child) {
+            char c = child.label.charAt(0);
+            int index = childIndex(c);
+            if (index >= 0) {
+                children[index] = child;
+                return;
+            }
+            int insertAt = -index - 1;
+            char[] chars = new char[firstChars.length + 1];
+            Node[] nodes = new Node[children.length + 1];
+            System.arraycopy(firstChars, 0, chars, 0, insertAt);
+            System.arraycopy(children, 0, nodes, 0, insertAt);
+            chars[insertAt] = c;
+            nodes[insertAt] = child;
+            System.arraycopy(firstChars, insertAt, chars, insertAt + 1, firstChars.length - insertAt);
+            System.arraycopy(children, insertAt, nodes, insertAt + 1, children.length - insertAt);
+            firstChars = chars;
+            children = nodes;
+        }
+
+        void removeChild(int index) {
+            char[] chars = new char[firstChars.length - 1];
+            Node[] nodes = new Node[children.length - 1];
+            System.arraycopy(firstChars, 0, chars, 0, index);
+            System.arraycopy(children, 0, nodes, 0, index);
+            System.arraycopy(firstChars, index + 1, chars, index, chars.length - index);
+            System.arraycopy(children, index + 1, nodes, index, nodes.length - index);
+            firstChars = chars;
+            children = nodes;
+        }
+    }
+
+    /**
+     * Thêm gợi ý với tất cả các khóa của nó
+     */
+    void add(Suggestion suggestion) {
+        for (String key : suggestion.keys) {
+            List<Node> path = new ArrayList<>();
+            Node node = insertPath(key, path);
+            node.terminals = append(node.terminals, suggestion);
+            updateTop(path);
+        }
+    }
+
+    /**
+     * Xóa gợi ý (theo đúng các khóa đã dùng khi thêm)
+     */
+    void remove(Suggestion suggestion) {
+        for (String key : suggestion.keys) {
+            List<Node> path = findPath(key);
+            if (path == null) {
+                continue;
+            }
+            Node node = path.get(path.size() - 1);
+            node.terminals = without(node.terminals, suggestion);
+            prune(path);
+            updateTop(path);
+        }
+    }
+
+    /**
+     * Lấy top-k gợi ý cho tiền tố đã chuẩn hóa
+     *
+     * @param prefix Tiền tố
+     * @param limit  Số gợi ý tối đa (không vượt quá topK)
+     * @return Danh sách gợi ý theo trọng số giảm dần
+     */
+    List<Suggestion> lookup(String prefix, int limit) {
+        Node node = root;
+        int position = 0;
+        while (position < prefix.length()) {
+            int index = node.childIndex(prefix.charAt(position));
+            if (index < 0) {
+                return Collections.emptyList();
+            }
+            Node child = node.children[index];
+            int common = commonPrefix(child.label, prefix, position);
+            if (position + common == prefix.length()) {
+                // Tiền tố kết thúc trong (hoặc ở cuối) nhãn của nút con
+                node = child;
+                break;
+            }
+            if (common < child.label.length()) {
+                return Collections.emptyList();
+            }
+            position += common;
+            node = child;
+        }
+        Suggestion[] top = node.top;
+        return Arrays.asList(Arrays.copyOf(top, Math.min(top.length, limit)));
+    }
+
+    int nodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Đi theo khóa, tách cạnh hoặc tạo nút khi cần; path nhận các nút từ gốc tới nút cuối
+     */
+    private Node insertPath(String key, List<Node> path) {
+        Node node = root;
+        path.add(node);
+        int position = 0;
+        while (position < key.length()) {
+            int index = node.childIndex(key.charAt(position));
+            if (index < 0) {
+                Node leaf = new Node(key.substring(position));
+                node.putChild(leaf);
+                nodeCount++;
+                path.add(leaf);
+                return leaf;
+            }
+            Node child = node.children[index];
+            int common = commonPrefix(child.label, key, position);
+            if (common < child.label.length()) {
+                // Tách cạnh: node -> split -> child
+                Node split = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                split.putChild(child);
+                split.top = child.top;
+                node.putChild(split);
+                nodeCount++;
+                child = split;
+            }
+            position += common;
+            node = child;
+            path.add(node);
+        }
+        return node;
+    }
+
+    /**
+     * Tìm đường đi tới nút kết thúc đúng khóa, null nếu không có
+     */
+    private List<Node> findPath(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int position = 0;
+        while (position < key.length()) {
+            int index = node.childIndex(key.charAt(position));
+            if (index < 0) {
+                return null;
+            }
+            Node child = node.children[index];
+            int common = commonPrefix(child.label, key, position);
+            if (common < child.label.length()) {
+                return null;
+            }
+            position += common;
+            node = child;
+            path.add(node);
+        }
+        return path;
+    }
+
+    /**
+     * Xóa các nút rỗng ở cuối đường đi và gộp nút chỉ còn một con vào con của nó
+     */
+    private void prune(List<Node> path) {
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node node = path.get(i);
+            Node parent = path.get(i - 1);
+            if (node.terminals.length > 0) {
+                break;
+            }
+            if (node.children.length == 0) {
+                parent.removeChild(parent.childIndex(node.label.charAt(0)));
+                nodeCount--;
+                path.remove(i);
+            } else if (node.children.length == 1) {
+                Node child = node.children[0];
+                child.label = node.label + child.label;
+                parent.putChild(child);
+                nodeCount--;
+                path.set(i, child);
+                break;
+            } else {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Tính lại top-k từ nút cuối ngược lên gốc
+     */
+    private void updateTop(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            List<Suggestion> candidates = new ArrayList<>(Arrays.asList(node.terminals));
+            for (Node child : node.children) {
+                candidates.addAll(Arrays.asList(child.top));
+            }
+            candidates.sort((a, b) -> a.weight != b.weight ? Double.compare(b.weight, a.weight)
+                    : Integer.compare(b.id, a.id));
+
+            List<Suggestion> top = new ArrayList<>(topK);
+            Set<Integer> seen = new HashSet<>();
+            for (Suggestion candidate : candidates) {
+                if (top.size() == topK) {
+                    break;
+                }
+                if (seen.add(candidate.id)) {
+                    top.add(candidate);
+                }
+            }
+            node.top = top.toArray(NO_SUGGESTIONS);
+        }
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static Suggestion[] append(Suggestion[] array, Suggestion suggestion) {
+        Suggestion[] result = Arrays.copyOf(array, array.length + 1);
+        result[array.length] = suggestion;
+        return result;
+    }
+
+    private static Suggestion[] without(Suggestion[] array, Suggestion suggestion) {
+        List<Suggestion> result = new ArrayList<>(array.length);
+        for (Suggestion item : array) {
+            if (item != suggestion) {
+                result.add(item);
+            }
+        }
+        return result.toArray(NO_SUGGESTIONS);
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.api.search;
+
+import com.example.api.util.SlugUtil;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Tách từ và chuẩn hóa văn bản tiếng Việt cho chỉ mục tìm kiếm:
+ * bỏ dấu (SlugUtil.foldDiacritics), chuyển chữ thường, tách theo ký tự không phải chữ/số.
+ */
+public class TextAnalyzer {
+    private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int MAX_TOKEN_LENGTH = 40;
+
+    private TextAnalyzer() {
+    }
+
+    /**
+     * Tách văn bản thành danh sách từ đã chuẩn hóa (giữ thứ tự, có thể trùng lặp)
+     *
+     * @param text Văn bản
+     * @return Danh sách từ
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String folded = SlugUtil.foldDiacritics(text).toLowerCase(Locale.ROOT);
+        for (String token : SEPARATOR.split(folded)) {
+            if (!token.isEmpty() && token.length() <= MAX_TOKEN_LENGTH) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Tách từ khóa tìm kiếm thành các từ không trùng lặp
+     *
+     * @param query Từ khóa tìm kiếm
+     * @param maxTokens Số từ tối đa
+     * @return Danh sách từ không trùng lặp
+     */
+    public static List<String> tokenizeQuery(String query, int maxTokens) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        return tokens.size() > maxTokens ? tokens.subList(0, maxTokens) : tokens;
+    }
+
+    /**
+     * Cộng tần suất có trọng số của các từ trong một trường văn bản
+     *
+     * @param text Văn bản của trường
+     * @param weight Trọng số của trường
+     * @param frequencies Map từ -> tần suất có trọng số (được cập nhật)
+     * @return Độ dài có trọng số của trường
+     */
+    static int addField(String text, int weight, Map<String, Integer> frequencies) {
+        List<String> tokens = tokenize(text);
+        for (String token : tokens) {
+            frequencies.merge(token, weight, Integer::sum);
+        }
+        return tokens.size() * weight;
+    }
+
+    /**
+     * Khoảng cách Damerau-Levenshtein (hoán vị liền kề) có giới hạn
+     *
+     * @param a Chuỗi thứ nhất
+     * @param b Chuỗi thứ hai
+     * @param max Khoảng cách tối đa quan tâm
+     * @return Khoảng cách, hoặc max + 1 nếu vượt quá max
+     */
+    static int editDistance(String a, String b, int max) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > max) {
+            return max + 1;
+        }
+
+        int[] prevPrev = new int[m + 1];
+        int[] prev = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            prev[j] = j;
+        }
+
+        for (int i = 1; i <= n; i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= m; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(prev[j] + 1, current[j - 1] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, prevPrev[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] tmp = prevPrev;
+            prevPrev = prev;
+            prev = current;
+            current = tmp;
+        }
+        return Math.min(prev[m], max + 1);
+    }
+}
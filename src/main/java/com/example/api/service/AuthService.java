@@ -1,17 +1,18 @@
 package com.example.api.service;
 
+import com.example.api.cache.UserTokenVersionCache;
 import com.example.api.dao.UserDAO;
 import com.example.api.model.User;
-import com.example.api.util.PasswordUtil;
+import com.example.api.util.JwtUtil;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import org.mindrot.jbcrypt.BCrypt;
 
 /**
  * Lớp dịch vụ xử lý các chức năng xác thực người dùng
  */
 public class AuthService {
     private UserDAO userDAO;
+    private final PasswordHasher passwordHasher = PasswordHasher.getInstance();
     private static final Logger LOGGER = Logger.getLogger(AuthService.class.getName());
     
     public AuthService() {
@@ -33,7 +34,7 @@ public class AuthService {
         }
         
         // Mã hóa mật khẩu bằng BCrypt
-        String hashedPassword = BCrypt.hashpw(password, BCrypt.gensalt());
+        String hashedPassword = passwordHasher.hash(password);
         
         // Tạo người dùng mới
         User user = new User();
@@ -60,29 +61,25 @@ public class AuthService {
     public User login(String email, String password) {
         User user = userDAO.findByEmail(email);
         
-        if (user != null) {
-            String storedPassword = user.getPassword();
-            
-            // Kiểm tra xem mật khẩu có phải định dạng BCrypt không
-            if (storedPassword.startsWith("$2a$") || storedPassword.startsWith("$2b$") || storedPassword.startsWith("$2y$")) {
-                // Mật khẩu đã được mã hóa bằng BCrypt
-                if (BCrypt.checkpw(password, storedPassword)) {
-                    return user;
-                }
-            } else {
-                // Mật khẩu cũ sử dụng SHA-256
-                if (PasswordUtil.checkPassword(password, storedPassword)) {
-                    // Nếu đăng nhập thành công với mật khẩu cũ, cập nhật sang BCrypt
-                    String newHashedPassword = BCrypt.hashpw(password, BCrypt.gensalt());
-                    if (userDAO.updatePassword(user.getId(), newHashedPassword)) {
-                        user.setPassword(newHashedPassword);
-                        return user;
-                    }
+        if (user == null || !passwordHasher.verify(password, user.getPassword())) {
+            return null;
+        }
+        
+        // Mật khẩu cũ (SHA-256) hoặc BCrypt với cost khác cấu hình: mã hóa lại khi đã biết mật khẩu
+        if (passwordHasher.needsRehash(user.getPassword())) {
+            try {
+                String newHashedPassword = passwordHasher.hash(password);
+                // Không dùng updatePassword: mã hóa lại không phải đổi mật khẩu, không thu hồi token đang dùng
+                if (userDAO.rehashPassword(user.getId(), user.getPassword(), newHashedPassword)) {
+                    user.setPassword(newHashedPassword);
                 }
+            } catch (PasswordHasher.BusyException e) {
+                // Pool đang bận: vẫn cho đăng nhập, mã hóa lại ở lần đăng nhập sau
+                LOGGER.fine("Bỏ qua mã hóa lại mật khẩu: " + e.getMessage());
             }
         }
         
-        return null;
+        return user;
     }
     
     /**
@@ -116,7 +113,7 @@ public class AuthService {
      */
     public boolean resetPassword(String token, String newPassword) {
         // Mã hóa mật khẩu mới bằng BCrypt
-        String hashedPassword = BCrypt.hashpw(newPassword, BCrypt.gensalt());
+        String hashedPassword = passwordHasher.hash(newPassword);
         
         return userDAO.resetPassword(token, hashedPassword);
     }
@@ -142,19 +139,36 @@ public class AuthService {
             
             // Nếu có cập nhật mật khẩu
             if (password != null) {
-                String hashedPassword = BCrypt.hashpw(password, BCrypt.gensalt());
+                String hashedPassword = passwordHasher.hash(password);
                 currentUser.setPassword(hashedPassword);
             }
             
             // Lưu vào database
             return userDAO.updateUser(currentUser);
             
+        } catch (PasswordHasher.BusyException e) {
+            throw e;
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Lỗi khi cập nhật thông tin người dùng: " + e.getMessage(), e);
             return false;
         }
     }
     
+    /**
+     * Tạo JWT token cho người dùng, kèm vai trò và thông tin hồ sơ ở phiên bản token hiện tại
+     * 
+     * @param user Người dùng (đã có ID)
+     * @return JWT token
+     */
+    public String generateToken(User user) {
+        Integer version = UserTokenVersionCache.getInstance().get(user.getId(), userDAO::getTokenVersion);
+        if (version == null) {
+            // Không đọc được phiên bản: token chỉ mang ID, các yêu cầu sau đọc thông tin từ bảng users
+            return JwtUtil.generateToken(user.getId());
+        }
+        return JwtUtil.generateToken(user, version);
+    }
+    
     /**
      * Lấy thông tin người dùng theo ID
      * 
@@ -186,12 +200,12 @@ public class AuthService {
         }
         
         // Kiểm tra mật khẩu hiện tại bằng BCrypt
-        if (!BCrypt.checkpw(currentPassword, user.getPassword())) {
+        if (!passwordHasher.verify(currentPassword, user.getPassword())) {
             return false;
         }
         
         // Mã hóa mật khẩu mới bằng BCrypt
-        String hashedPassword = BCrypt.hashpw(newPassword, BCrypt.gensalt());
+        String hashedPassword = passwordHasher.hash(newPassword);
         
         // Cập nhật mật khẩu
         return userDAO.updatePassword(userId, hashedPassword);
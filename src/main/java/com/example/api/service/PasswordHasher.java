@@ -0,0 +1,196 @@
+package com.example.api.service;
+
+import com.example.api.util.AppConfig;
+import com.example.api.util.PasswordUtil;
+import com.example.api.util.RequestDeadline;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Mã hóa và kiểm tra mật khẩu (BCrypt) trên một pool luồng riêng có giới hạn.
+ *
+ * BCrypt cố ý tốn CPU (vài chục đến vài trăm ms mỗi lần với cost 10-12). Chạy trên luồng xử lý
+ * yêu cầu, một đợt đăng nhập dồn dập sẽ chiếm hết CPU và luồng của Tomcat khiến các yêu cầu đọc
+ * sản phẩm phải chờ. Ở đây số phép băm đồng thời bị giới hạn bởi password.hash.threads, số yêu cầu
+ * chờ bởi password.hash.queueSize; khi hàng đợi đầy hoặc chờ quá password.hash.timeoutMs,
+ * BusyException được ném ra để controller trả về 503 thay vì xếp hàng vô hạn. Thời gian chờ cũng không
+ * vượt quá hạn chót của yêu cầu (RequestDeadline) để yêu cầu quá hạn không bị giữ thêm.
+ *
+ * Cấu hình: password.bcrypt.cost, password.hash.threads, password.hash.queueSize, password.hash.timeoutMs
+ */
+public class PasswordHasher {
+    private static final Logger LOGGER = Logger.getLogger(PasswordHasher.class.getName());
+    private static final PasswordHasher INSTANCE = new PasswordHasher();
+
+    private final int cost;
+    private final int threads;
+    private final int queueSize;
+    private final long timeoutMs;
+    private final ThreadPoolExecutor executor;
+
+    // Thống kê
+    private final AtomicLong hashes = new AtomicLong();
+    private final AtomicLong verifications = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final AtomicLong maxQueued = new AtomicLong();
+
+    private PasswordHasher() {
+        int configuredCost = AppConfig.getInt("password.bcrypt.cost", 10);
+        this.cost = Math.max(PasswordUtil.MIN_BCRYPT_COST, Math.min(PasswordUtil.MAX_BCRYPT_COST, configuredCost));
+        int defaultThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.threads = Math.max(1, AppConfig.getInt("password.hash.threads", defaultThreads));
+        this.queueSize = Math.max(1, AppConfig.getInt("password.hash.queueSize", 64));
+        this.timeoutMs = AppConfig.getLong("password.hash.timeoutMs", 5000);
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize), r -> {
+                    Thread thread = new Thread(r, "password-hash-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        if (configuredCost != cost) {
+            LOGGER.warning("password.bcrypt.cost = " + configuredCost + " ngoài khoảng cho phép, dùng " + cost);
+        }
+    }
+
+    public static PasswordHasher getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Lỗi khi pool mã hóa mật khẩu đang quá tải
+     */
+    public static class BusyException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public BusyException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Mã hóa mật khẩu bằng BCrypt với cost đã cấu hình
+     *
+     * @param password Mật khẩu
+     * @return Mật khẩu đã mã hóa
+     * @throws BusyException nếu pool đang quá tải
+     */
+    public String hash(String password) {
+        hashes.incrementAndGet();
+        return run(() -> PasswordUtil.hash(password, cost));
+    }
+
+    /**
+     * Kiểm tra mật khẩu (BCrypt hoặc định dạng SHA-256 cũ)
+     *
+     * @param password Mật khẩu
+     * @param storedPassword Mật khẩu đã mã hóa
+     * @return true nếu mật khẩu khớp
+     * @throws BusyException nếu pool đang quá tải
+     */
+    public boolean verify(String password, String storedPassword) {
+        verifications.incrementAndGet();
+        return run(() -> PasswordUtil.verify(password, storedPassword));
+    }
+
+    /**
+     * Kiểm tra mật khẩu đã mã hóa có cần mã hóa lại theo cost hiện tại không
+     *
+     * @param storedPassword Mật khẩu đã mã hóa
+     * @return true nếu là định dạng cũ hoặc cost khác cấu hình
+     */
+    public boolean needsRehash(String storedPassword) {
+        return PasswordUtil.needsRehash(storedPassword, cost);
+    }
+
+    /**
+     * Thống kê pool mã hóa mật khẩu
+     *
+     * @return Map các chỉ số
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long completed = executor.getCompletedTaskCount();
+        stats.put("cost", cost);
+        stats.put("threads", threads);
+        stats.put("active", executor.getActiveCount());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("maxQueued", maxQueued.get());
+        stats.put("queueSize", queueSize);
+        stats.put("hashes", hashes.get());
+        stats.put("verifications", verifications.get());
+        stats.put("completed", completed);
+        stats.put("rejected", rejected.get());
+        stats.put("timedOut", timedOut.get());
+        stats.put("avgMs", completed == 0 ? 0.0 : totalNanos.get() / 1_000_000.0 / completed);
+        stats.put("maxMs", maxNanos.get() / 1_000_000.0);
+        return stats;
+    }
+
+    /**
+     * Dừng pool
+     */
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    private <T> T run(Callable<T> task) {
+        long waitMs = Math.min(timeoutMs, RequestDeadline.remainingMillis());
+        if (waitMs <= 0) {
+            timedOut.incrementAndGet();
+            throw new BusyException("Yêu cầu đã vượt quá thời gian xử lý cho phép");
+        }
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    return task.call();
+                } finally {
+                    long elapsed = System.nanoTime() - start;
+                    totalNanos.addAndGet(elapsed);
+                    maxNanos.accumulateAndGet(elapsed, Math::max);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw new BusyException("Hàng đợi mã hóa mật khẩu đã đầy");
+        }
+        maxQueued.accumulateAndGet(executor.getQueue().size(), Math::max);
+
+        try {
+            return future.get(waitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timedOut.incrementAndGet();
+            throw new BusyException("Quá thời gian chờ mã hóa mật khẩu");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new BusyException("Bị gián đoạn khi chờ mã hóa mật khẩu");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
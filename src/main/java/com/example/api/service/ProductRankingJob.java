@@ -0,0 +1,170 @@
+package com.example.api.service;
+
+import com.example.api.dao.ProductDAO;
+import com.example.api.search.ProductSearchIndex;
+import com.example.api.util.AppConfig;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Tính lại định kỳ điểm xếp hạng products.rank_score dùng cho sort=rating.
+ *
+ * Điểm là trung bình Bayes (rating_sum + m * C) / (review_count + m): C là điểm trung bình của toàn bộ
+ * đánh giá, m là trọng số tiên nghiệm, nên sản phẩm có ít đánh giá bị kéo về C thay vì đứng đầu chỉ
+ * với một đánh giá 5 sao. Mỗi lần chạy chỉ cập nhật các sản phẩm có đánh giá thay đổi (tập "dirty"
+ * do ReviewDAO đánh dấu); toàn bộ sản phẩm chỉ được tính lại khi khởi động hoặc khi C lệch quá
+ * rank.priorRefreshDelta so với lần tính trước.
+ *
+ * Cấu hình: rank.enabled, rank.intervalMs, rank.priorWeight, rank.priorRefreshDelta, rank.batchSize
+ */
+public class ProductRankingJob {
+    private static final Logger LOGGER = Logger.getLogger(ProductRankingJob.class.getName());
+    private static final ProductRankingJob INSTANCE = new ProductRankingJob();
+
+    private final boolean enabled;
+    private final long intervalMs;
+    private final double priorWeight;
+    private final double priorRefreshDelta;
+    private final int batchSize;
+    private final ProductDAO productDAO = new ProductDAO();
+
+    private final Set<Integer> dirty = ConcurrentHashMap.newKeySet();
+    private volatile ScheduledExecutorService scheduler;
+    // Điểm trung bình toàn cục dùng ở lần tính toàn bộ gần nhất (NaN = chưa tính)
+    private volatile double priorMean = Double.NaN;
+
+    // Thống kê
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong fullRuns = new AtomicLong();
+    private final AtomicLong updatedProducts = new AtomicLong();
+    private final AtomicLong failedRuns = new AtomicLong();
+    private volatile long lastRunMs;
+
+    private ProductRankingJob() {
+        this.enabled = AppConfig.getBoolean("rank.enabled", true);
+        this.intervalMs = AppConfig.getLong("rank.intervalMs", 60000);
+        this.priorWeight = AppConfig.getDouble("rank.priorWeight", 10);
+        this.priorRefreshDelta = AppConfig.getDouble("rank.priorRefreshDelta", 0.05);
+        this.batchSize = AppConfig.getInt("rank.batchSize", 500);
+    }
+
+    public static ProductRankingJob getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Khởi động job (lần chạy đầu tính lại toàn bộ)
+     */
+    public synchronized void start() {
+        if (!enabled || scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "product-ranking");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::run, 0, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Dừng job
+     */
+    public synchronized void stop() {
+        ScheduledExecutorService current = scheduler;
+        if (current == null) {
+            return;
+        }
+        scheduler = null;
+        current.shutdown();
+        try {
+            if (!current.awaitTermination(5, TimeUnit.SECONDS)) {
+                current.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            current.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Đánh dấu sản phẩm cần tính lại điểm ở lần chạy tới
+     *
+     * @param productId ID sản phẩm
+     */
+    public void markDirty(int productId) {
+        if (enabled) {
+            dirty.add(productId);
+        }
+    }
+
+    /**
+     * Thống kê job
+     *
+     * @return Map các chỉ số
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("priorWeight", priorWeight);
+        stats.put("priorMean", Double.isNaN(priorMean) ? null : priorMean);
+        stats.put("dirty", dirty.size());
+        stats.put("runs", runs.get());
+        stats.put("fullRuns", fullRuns.get());
+        stats.put("updatedProducts", updatedProducts.get());
+        stats.put("failedRuns", failedRuns.get());
+        stats.put("lastRunMs", lastRunMs);
+        return stats;
+    }
+
+    private void run() {
+        long start = System.currentTimeMillis();
+        List<Integer> drained = new ArrayList<>();
+        try {
+            double mean = productDAO.getGlobalRatingMean();
+            if (Double.isNaN(priorMean) || Math.abs(mean - priorMean) > priorRefreshDelta) {
+                // Các sản phẩm bị đánh dấu trước thời điểm này đều được tính lại trong lần cập nhật toàn bộ
+                dirty.clear();
+                int updated = productDAO.updateAllRankScores(priorWeight, mean);
+                priorMean = mean;
+                fullRuns.incrementAndGet();
+                updatedProducts.addAndGet(updated);
+                ProductSearchIndex.getInstance().refreshRankScores();
+            } else {
+                for (Iterator<Integer> it = dirty.iterator(); it.hasNext(); ) {
+                    drained.add(it.next());
+                    it.remove();
+                }
+                for (int from = 0; from < drained.size(); from += batchSize) {
+                    List<Integer> batch = drained.subList(from, Math.min(drained.size(), from + batchSize));
+                    productDAO.updateRankScores(batch, priorWeight, priorMean);
+                    updatedProducts.addAndGet(batch.size());
+                }
+                // Chỉ mục tìm kiếm trong bộ nhớ sắp xếp rating_desc theo rank_score
+                for (Integer productId : drained) {
+                    ProductSearchIndex.getInstance().refresh(productId);
+                }
+            }
+            runs.incrementAndGet();
+        } catch (SQLException | RuntimeException e) {
+            // Đánh dấu lại để thử ở lần chạy sau
+            dirty.addAll(drained);
+            failedRuns.incrementAndGet();
+            LOGGER.log(Level.SEVERE, "Lỗi khi tính điểm xếp hạng sản phẩm: " + e.getMessage(), e);
+        }
+        lastRunMs = System.currentTimeMillis() - start;
+    }
+}
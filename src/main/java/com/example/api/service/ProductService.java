@@ -1,8 +1,15 @@
 package com.example.api.service;
 
+import com.example.api.cache.ProductCache;
+import com.example.api.cache.ReviewSummaryCache;
 import com.example.api.dao.ProductDAO;
+import com.example.api.dao.ReviewDAO;
 import com.example.api.model.Product;
 import com.example.api.model.ProductSpecification;
+import com.example.api.model.ReviewSummary;
+import com.example.api.search.ProductSearchIndex;
+import com.example.api.search.SuggestIndex;
+import com.example.api.util.AppConfig;
 
 import java.util.List;
 import java.util.Map;
@@ -12,9 +19,11 @@ import java.util.Map;
  */
 public class ProductService {
     private ProductDAO productDAO;
+    private ReviewDAO reviewDAO;
     
     public ProductService() {
         this.productDAO = new ProductDAO();
+        this.reviewDAO = new ReviewDAO();
     }
     
     /**
@@ -31,15 +40,123 @@ public class ProductService {
         return productDAO.getProducts(page, limit, categoryId, search, sort);
     }
     
+    /**
+     * Lấy danh sách sản phẩm với phân trang, lọc và chế độ tìm kiếm, có thể kèm thông tin chi tiết
+     * 
+     * @param page Số trang
+     * @param limit Số lượng sản phẩm trên mỗi trang
+     * @param categoryId ID danh mục (nếu có)
+     * @param search Từ khóa tìm kiếm (nếu có)
+     * @param searchMode Chế độ tìm kiếm: natural, boolean, like hoặc index (null = theo cấu hình)
+     * @param sort Cách sắp xếp (nếu có)
+     * @param includeDetails true để nạp hình ảnh, thông số, bookmark, đã đánh giá
+     * @param userId ID người dùng (nếu đã đăng nhập)
+     * @return Danh sách sản phẩm và thông tin phân trang
+     */
+    public Map<String, Object> getProducts(int page, int limit, Integer categoryId, String search,
+            String searchMode, String sort, boolean includeDetails, Integer userId) {
+        if (useSearchIndex(search, searchMode)) {
+            // Tìm trong chỉ mục bộ nhớ, null nếu chỉ mục chưa sẵn sàng thì dùng MySQL
+            Map<String, Object> result = ProductSearchIndex.getInstance().search(search, categoryId, sort, page, limit);
+            if (result != null) {
+                if (includeDetails) {
+                    @SuppressWarnings("unchecked")
+                    List<Product> products = (List<Product>) result.get("products");
+                    productDAO.loadDetails(products, userId);
+                }
+                return result;
+            }
+        }
+        return productDAO.getProducts(page, limit, categoryId, search, searchMode, sort, includeDetails, userId);
+    }
+    
+    /**
+     * Kiểm tra yêu cầu tìm kiếm có dùng chỉ mục trong bộ nhớ không
+     * (searchMode=index hoặc cấu hình search.mode=index)
+     */
+    private boolean useSearchIndex(String search, String searchMode) {
+        if (search == null || search.trim().isEmpty()) {
+            return false;
+        }
+        String mode = searchMode != null ? searchMode : AppConfig.get("search.mode", "natural");
+        return "index".equals(mode);
+    }
+    
+    /**
+     * Lấy danh sách sản phẩm theo cursor (phân trang keyset)
+     * 
+     * @param limit Số lượng sản phẩm trên mỗi trang
+     * @param categoryId ID danh mục (nếu có)
+     * @param search Từ khóa tìm kiếm (nếu có)
+     * @param searchMode Chế độ tìm kiếm: natural, boolean, like (null = theo cấu hình)
+     * @param sort Cách sắp xếp (nếu có)
+     * @param cursor Cursor của trang trước (null hoặc rỗng cho trang đầu)
+     * @param countMode Cách đếm tổng: "exact", "approx" hoặc null
+     * @param includeDetails true để nạp đầy đủ chi tiết sản phẩm
+     * @param userId ID người dùng (nếu đã đăng nhập)
+     * @return Danh sách sản phẩm và thông tin phân trang
+     * @throws IllegalArgumentException nếu cursor không hợp lệ
+     */
+    public Map<String, Object> getProductsByCursor(int limit, Integer categoryId, String search, String searchMode,
+            String sort, String cursor, String countMode, boolean includeDetails, Integer userId) {
+        return productDAO.getProductsByCursor(limit, categoryId, search, searchMode, sort, cursor, countMode,
+                includeDetails, userId);
+    }
+    
+    /**
+     * Gợi ý tên sản phẩm và danh mục theo tiền tố
+     * 
+     * @param query Chuỗi người dùng đang gõ
+     * @param limit Số gợi ý tối đa mỗi loại
+     * @return Gợi ý sản phẩm và danh mục, hoặc null nếu gợi ý chưa sẵn sàng
+     */
+    public Map<String, Object> suggest(String query, int limit) {
+        return SuggestIndex.getInstance().suggest(query, limit);
+    }
+    
+    /**
+     * Lấy tóm tắt đánh giá của sản phẩm (số đánh giá theo mức sao, điểm trung bình, đánh giá hữu ích nhất)
+     * 
+     * @param productId ID sản phẩm
+     * @return Tóm tắt đánh giá, hoặc null nếu không tìm thấy sản phẩm
+     */
+    public ReviewSummary getReviewSummary(int productId) {
+        return ReviewSummaryCache.getInstance().get(productId, reviewDAO::getReviewSummary);
+    }
+    
     /**
      * Lấy thông tin chi tiết sản phẩm theo ID
      * 
+     * Phần dùng chung được lấy từ ProductCache, trạng thái bookmark/đã đánh giá
+     * của người dùng được bổ sung riêng.
+     * 
      * @param productId ID sản phẩm
      * @param userId ID người dùng (nếu đã đăng nhập)
      * @return Thông tin sản phẩm hoặc null nếu không tìm thấy
      */
     public Product getProductById(int productId, Integer userId) {
-        return productDAO.getProductById(productId, userId);
+        Product product = ProductCache.getInstance().getById(productId, id -> productDAO.getProductById(id, null));
+        if (product != null && userId != null) {
+            productDAO.loadUserFlags(product, userId);
+        }
+        return product;
+    }
+    
+    /**
+     * Lấy thông tin chi tiết sản phẩm theo slug
+     * 
+     * @param slug Slug sản phẩm
+     * @param userId ID người dùng (nếu đã đăng nhập)
+     * @return Thông tin sản phẩm hoặc null nếu không tìm thấy
+     */
+    public Product getProductBySlug(String slug, Integer userId) {
+        Product product = ProductCache.getInstance().getBySlug(slug,
+                id -> productDAO.getProductById(id, null),
+                s -> productDAO.getProductBySlug(s, null));
+        if (product != null && userId != null) {
+            productDAO.loadUserFlags(product, userId);
+        }
+        return product;
     }
     
     /**
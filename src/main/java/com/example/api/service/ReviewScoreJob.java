@@ -0,0 +1,170 @@
+package com.example.api.service;
+
+import com.example.api.dao.ReviewDAO;
+import com.example.api.util.AppConfig;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Cập nhật theo lô điểm hữu ích reviews.helpful_score dùng cho sort=helpful_desc.
+ *
+ * Điểm chỉ phụ thuộc helpful_count và created_at (phần thời gian không đổi theo thời điểm tính),
+ * nên chỉ cần tính lại các đánh giá vừa có bình chọn hữu ích: ReviewDAO đánh dấu các đánh giá này và
+ * job ghi chúng bằng một câu UPDATE ... WHERE id IN cho mỗi lô. Khi khởi động, toàn bộ đánh giá được
+ * tính lại theo từng khoảng ID để bù các bình chọn chưa kịp cập nhật điểm ở lần chạy trước
+ * (hoặc khi đổi review.helpfulScore.decaySeconds).
+ *
+ * Cấu hình: review.helpfulScore.enabled, review.helpfulScore.intervalMs, review.helpfulScore.batchSize,
+ * review.helpfulScore.rebuildOnStart
+ */
+public class ReviewScoreJob {
+    private static final Logger LOGGER = Logger.getLogger(ReviewScoreJob.class.getName());
+    private static final ReviewScoreJob INSTANCE = new ReviewScoreJob();
+
+    private final boolean enabled;
+    private final long intervalMs;
+    private final int batchSize;
+    private final boolean rebuildOnStart;
+    private final ReviewDAO reviewDAO = new ReviewDAO();
+
+    private final Set<Integer> dirty = ConcurrentHashMap.newKeySet();
+    private volatile ScheduledExecutorService scheduler;
+
+    // Thống kê
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong updatedReviews = new AtomicLong();
+    private final AtomicLong failedRuns = new AtomicLong();
+    private volatile long rebuildMs = -1;
+    private volatile long lastRunMs;
+
+    private ReviewScoreJob() {
+        this.enabled = AppConfig.getBoolean("review.helpfulScore.enabled", true);
+        this.intervalMs = AppConfig.getLong("review.helpfulScore.intervalMs", 5000);
+        this.batchSize = Math.max(1, AppConfig.getInt("review.helpfulScore.batchSize", 1000));
+        this.rebuildOnStart = AppConfig.getBoolean("review.helpfulScore.rebuildOnStart", true);
+    }
+
+    public static ReviewScoreJob getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Khởi động job (tính lại toàn bộ trước nếu bật rebuildOnStart)
+     */
+    public synchronized void start() {
+        if (!enabled || scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "review-helpful-score");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (rebuildOnStart) {
+            scheduler.execute(this::rebuild);
+        }
+        scheduler.scheduleWithFixedDelay(this::run, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Dừng job, ghi nốt các đánh giá đang chờ
+     */
+    public synchronized void stop() {
+        ScheduledExecutorService current = scheduler;
+        if (current == null) {
+            return;
+        }
+        scheduler = null;
+        current.shutdown();
+        try {
+            if (!current.awaitTermination(5, TimeUnit.SECONDS)) {
+                current.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            current.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        run();
+    }
+
+    /**
+     * Đánh dấu đánh giá có helpful_count thay đổi
+     *
+     * @param reviewId ID đánh giá
+     */
+    public void markDirty(int reviewId) {
+        if (enabled) {
+            dirty.add(reviewId);
+        }
+    }
+
+    /**
+     * Thống kê job
+     *
+     * @return Map các chỉ số
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("dirty", dirty.size());
+        stats.put("runs", runs.get());
+        stats.put("updatedReviews", updatedReviews.get());
+        stats.put("failedRuns", failedRuns.get());
+        stats.put("rebuildMs", rebuildMs);
+        stats.put("lastRunMs", lastRunMs);
+        return stats;
+    }
+
+    private void run() {
+        long start = System.currentTimeMillis();
+        List<Integer> drained = new ArrayList<>();
+        for (Iterator<Integer> it = dirty.iterator(); it.hasNext(); ) {
+            drained.add(it.next());
+            it.remove();
+        }
+        if (drained.isEmpty()) {
+            return;
+        }
+        try {
+            for (int from = 0; from < drained.size(); from += batchSize) {
+                List<Integer> batch = drained.subList(from, Math.min(drained.size(), from + batchSize));
+                reviewDAO.updateHelpfulScores(batch);
+                updatedReviews.addAndGet(batch.size());
+            }
+            runs.incrementAndGet();
+        } catch (SQLException e) {
+            // Đánh dấu lại để thử ở lần chạy sau
+            dirty.addAll(drained);
+            failedRuns.incrementAndGet();
+            LOGGER.log(Level.SEVERE, "Lỗi khi cập nhật điểm hữu ích của đánh giá: " + e.getMessage(), e);
+        }
+        lastRunMs = System.currentTimeMillis() - start;
+    }
+
+    private void rebuild() {
+        long start = System.currentTimeMillis();
+        try {
+            int maxId = reviewDAO.getMaxReviewId();
+            for (int afterId = 0; afterId < maxId; afterId += batchSize) {
+                reviewDAO.updateHelpfulScoreRange(afterId, Math.min(maxId, afterId + batchSize));
+            }
+            rebuildMs = System.currentTimeMillis() - start;
+            LOGGER.info("Đã tính lại điểm hữu ích của đánh giá (" + rebuildMs + " ms)");
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Lỗi khi tính lại điểm hữu ích của đánh giá: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.api.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Lớp tiện ích đọc cấu hình ứng dụng.
+ *
+ * Thứ tự ưu tiên (cao đến thấp):
+ * 1. System property (-Ddb.pool.maxSize=20)
+ * 2. File cấu hình bên ngoài chỉ định bởi -Dapp.config hoặc biến môi trường APP_CONFIG
+ * 3. File application.properties trong classpath
+ */
+public class AppConfig {
+    private static final Logger LOGGER = Logger.getLogger(AppConfig.class.getName());
+    private static final String CLASSPATH_FILE = "application.properties";
+    private static final Properties PROPERTIES = load();
+
+    private AppConfig() {
+    }
+
+    /**
+     * Đọc cấu hình từ classpath và file bên ngoài (nếu có)
+     *
+     * @return Tập cấu hình đã gộp
+     */
+    private static Properties load() {
+        Properties properties = new Properties();
+
+        try (InputStream in = AppConfig.class.getClassLoader().getResourceAsStream(CLASSPATH_FILE)) {
+            if (in != null) {
+                properties.load(in);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Không thể đọc " + CLASSPATH_FILE + ": " + e.getMessage(), e);
+        }
+
+        String externalFile = System.getProperty("app.config", System.getenv("APP_CONFIG"));
+        if (externalFile != null && !externalFile.trim().isEmpty()) {
+            Path path = Paths.get(externalFile.trim());
+            try (InputStream in = Files.newInputStream(path)) {
+                properties.load(in);
+                LOGGER.info("Đã nạp cấu hình từ " + path.toAbsolutePath());
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Không thể đọc file cấu hình " + path + ": " + e.getMessage(), e);
+            }
+        }
+
+        return properties;
+    }
+
+    /**
+     * Lấy giá trị cấu hình dạng chuỗi
+     *
+     * @param key Tên cấu hình
+     * @param defaultValue Giá trị mặc định
+     * @return Giá trị cấu hình hoặc giá trị mặc định
+     */
+    public static String get(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null) {
+            value = PROPERTIES.getProperty(key);
+        }
+        return value != null ? value.trim() : defaultValue;
+    }
+
+    /**
+     * Lấy giá trị cấu hình dạng int
+     *
+     * @param key Tên cấu hình
+     * @param defaultValue Giá trị mặc định
+     * @return Giá trị cấu hình hoặc giá trị mặc định nếu không hợp lệ
+     */
+    public static int getInt(String key, int defaultValue) {
+        String value = get(key, null);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            LOGGER.warning("Giá trị cấu hình không hợp lệ " + key + "=" + value);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Lấy giá trị cấu hình dạng long
+     *
+     * @param key Tên cấu hình
+     * @param defaultValue Giá trị mặc định
+     * @return Giá trị cấu hình hoặc giá trị mặc định nếu không hợp lệ
+     */
+    public static long getLong(String key, long defaultValue) {
+        String value = get(key, null);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            LOGGER.warning("Giá trị cấu hình không hợp lệ " + key + "=" + value);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Lấy giá trị cấu hình dạng số thực
+     *
+     * @param key Tên cấu hình
+     * @param defaultValue Giá trị mặc định
+     * @return Giá trị cấu hình hoặc giá trị mặc định nếu không hợp lệ
+     */
+    public static double getDouble(String key, double defaultValue) {
+        String value = get(key, null);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            LOGGER.warning("Giá trị cấu hình không hợp lệ " + key + "=" + value);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Lấy giá trị cấu hình dạng boolean
+     *
+     * @param key Tên cấu hình
+     * @param defaultValue Giá trị mặc định
+     * @return Giá trị cấu hình hoặc giá trị mặc định
+     */
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = get(key, null);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        return Boolean.parseBoolean(value);
+    }
+}
@@ -0,0 +1,497 @@
+package com.example.api.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pool kết nối JDBC đơn giản dùng cho DatabaseUtil.
+ *
+ * Hỗ trợ số kết nối tối thiểu/tối đa, loại bỏ kết nối nhàn rỗi, kiểm tra kết nối
+ * khi mượn, phát hiện rò rỉ kết nối và thống kê thời gian chờ khi mượn.
+ * Kết nối trả về cho DAO là một proxy: gọi close() sẽ trả kết nối về pool
+ * thay vì đóng kết nối vật lý. PreparedStatement được cache theo từng kết nối
+ * vật lý (xem StatementCache).
+ *
+ * Khi luồng hiện tại có hạn chót (RequestDeadline), thời gian chờ mượn không vượt quá phần còn lại
+ * và mỗi statement tạo qua proxy được đặt setQueryTimeout theo phần còn lại đó.
+ */
+public class ConnectionPool {
+    private static final Logger LOGGER = Logger.getLogger(ConnectionPool.class.getName());
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minIdle;
+    private final int maxSize;
+    private final long borrowTimeoutMs;
+    private final long idleTimeoutMs;
+    private final long maxLifetimeMs;
+    private final long leakThresholdMs;
+    private final long validationBypassMs;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+    private final int serverPrepareThreshold;
+
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> all = ConcurrentHashMap.newKeySet();
+    private final Semaphore permits;
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    // Thống kê
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder borrowWaitNanos = new LongAdder();
+    private final AtomicLong maxBorrowWaitNanos = new AtomicLong();
+    private final LongAdder borrowTimeouts = new LongAdder();
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder destroyedCount = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final LongAdder leaksDetected = new LongAdder();
+
+    public ConnectionPool(String url, String user, String password) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = Math.max(1, AppConfig.getInt("db.pool.maxSize", 10));
+        this.minIdle = Math.min(maxSize, Math.max(0, AppConfig.getInt("db.pool.minIdle", 2)));
+        this.borrowTimeoutMs = AppConfig.getLong("db.pool.borrowTimeoutMs", 5000);
+        this.idleTimeoutMs = AppConfig.getLong("db.pool.idleTimeoutMs", 600000);
+        this.maxLifetimeMs = AppConfig.getLong("db.pool.maxLifetimeMs", 1800000);
+        this.leakThresholdMs = AppConfig.getLong("db.pool.leakDetectionThresholdMs", 0);
+        this.validationBypassMs = AppConfig.getLong("db.pool.validationBypassMs", 500);
+        this.validationTimeoutSeconds = AppConfig.getInt("db.pool.validationTimeoutSeconds", 3);
+        this.statementCacheSize = Math.max(0, AppConfig.getInt("db.statementCache.size", 64));
+        this.serverPrepareThreshold = AppConfig.getInt("db.statementCache.serverPrepareThreshold", 3);
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "db-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long housekeepingMs = AppConfig.getLong("db.pool.housekeepingIntervalMs", 30000);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, housekeepingMs, housekeepingMs, TimeUnit.MILLISECONDS);
+
+        LOGGER.info("Khởi tạo pool kết nối: minIdle=" + minIdle + ", maxSize=" + maxSize
+                + ", statementCacheSize=" + statementCacheSize);
+    }
+
+    /**
+     * Mượn một kết nối từ pool
+     *
+     * @return Connection (proxy), gọi close() để trả về pool
+     * @throws SQLException nếu hết thời gian chờ hoặc không thể tạo kết nối
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Pool kết nối đã bị đóng");
+        }
+
+        long start = System.nanoTime();
+        long remaining = RequestDeadline.remainingMillis();
+        if (remaining <= 0) {
+            throw RequestDeadline.expired();
+        }
+        try {
+            if (!permits.tryAcquire(Math.min(borrowTimeoutMs, remaining), TimeUnit.MILLISECONDS)) {
+                borrowTimeouts.increment();
+                if (remaining < borrowTimeoutMs) {
+                    throw RequestDeadline.expired();
+                }
+                throw new SQLTransientConnectionException("Hết thời gian chờ kết nối sau " + borrowTimeoutMs
+                        + "ms (active=" + (all.size() - idle.size()) + ", max=" + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Bị ngắt khi chờ kết nối", e);
+        }
+
+        try {
+            PooledConnection pooled = takeValidIdle();
+            if (pooled == null) {
+                pooled = create();
+            }
+            recordWait(System.nanoTime() - start);
+            return pooled.lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Lấy một kết nối nhàn rỗi còn dùng được (ưu tiên kết nối vừa trả về gần nhất)
+     */
+    private PooledConnection takeValidIdle() {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (isExpired(pooled)) {
+                destroy(pooled);
+                continue;
+            }
+            if (System.currentTimeMillis() - pooled.lastReturnedAt <= validationBypassMs) {
+                return pooled;
+            }
+            try {
+                if (pooled.physical.isValid(validationTimeoutSeconds)) {
+                    return pooled;
+                }
+            } catch (SQLException e) {
+                // Coi như kết nối hỏng
+            }
+            validationFailures.increment();
+            destroy(pooled);
+        }
+        return null;
+    }
+
+    private PooledConnection create() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, user, password);
+        PooledConnection pooled = new PooledConnection(physical);
+        all.add(pooled);
+        createdCount.increment();
+        return pooled;
+    }
+
+    private void destroy(PooledConnection pooled) {
+        all.remove(pooled);
+        destroyedCount.increment();
+        if (pooled.statements != null) {
+            pooled.statements.closeAll();
+        }
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            LOGGER.log(Level.FINE, "Lỗi khi đóng kết nối vật lý: " + e.getMessage(), e);
+        }
+    }
+
+    private boolean isExpired(PooledConnection pooled) {
+        return maxLifetimeMs > 0 && System.currentTimeMillis() - pooled.createdAt > maxLifetimeMs;
+    }
+
+    private void recordWait(long nanos) {
+        borrowCount.increment();
+        borrowWaitNanos.add(nanos);
+        maxBorrowWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Trả kết nối về pool, khôi phục trạng thái mặc định trước khi cho mượn lại
+     */
+    private void release(PooledConnection pooled) {
+        try {
+            boolean reusable = !closed && !isExpired(pooled);
+            if (reusable) {
+                try {
+                    if (!pooled.physical.getAutoCommit()) {
+                        pooled.physical.rollback();
+                        pooled.physical.setAutoCommit(true);
+                    }
+                    pooled.physical.clearWarnings();
+                } catch (SQLException e) {
+                    reusable = false;
+                }
+            }
+
+            if (reusable) {
+                pooled.lastReturnedAt = System.currentTimeMillis();
+                idle.offerFirst(pooled);
+            } else {
+                destroy(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Dọn dẹp định kỳ: loại bỏ kết nối nhàn rỗi quá lâu hoặc quá tuổi, bổ sung đủ minIdle
+     */
+    private void housekeep() {
+        if (closed) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            for (PooledConnection pooled : idle) {
+                boolean idleTooLong = idleTimeoutMs > 0 && now - pooled.lastReturnedAt > idleTimeoutMs
+                        && idle.size() > minIdle;
+                if ((idleTooLong || isExpired(pooled)) && idle.remove(pooled)) {
+                    destroy(pooled);
+                }
+            }
+
+            // Giữ một permit khi tạo để tổng số kết nối không vượt quá maxSize
+            while (!closed && all.size() < maxSize && idle.size() < minIdle && permits.tryAcquire()) {
+                try {
+                    PooledConnection pooled = create();
+                    pooled.lastReturnedAt = System.currentTimeMillis();
+                    idle.offerLast(pooled);
+                } finally {
+                    permits.release();
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Lỗi khi dọn dẹp pool kết nối: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Đóng pool và toàn bộ kết nối vật lý
+     */
+    public void shutdown() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            destroy(pooled);
+        }
+        LOGGER.info("Đã đóng pool kết nối");
+    }
+
+    /**
+     * @return Số kết nối tối đa của pool
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Lấy thống kê hiện tại của pool
+     *
+     * @return Map chứa các chỉ số của pool
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        int total = all.size();
+        int idleCount = idle.size();
+        long borrows = borrowCount.sum();
+
+        stats.put("total", total);
+        stats.put("idle", idleCount);
+        stats.put("active", total - idleCount);
+        stats.put("maxSize", maxSize);
+        stats.put("minIdle", minIdle);
+        stats.put("waiting", permits.getQueueLength());
+        stats.put("borrowCount", borrows);
+        stats.put("avgBorrowWaitMs", borrows == 0 ? 0.0 : borrowWaitNanos.sum() / (double) borrows / 1_000_000);
+        stats.put("maxBorrowWaitMs", maxBorrowWaitNanos.get() / 1_000_000.0);
+        stats.put("borrowTimeouts", borrowTimeouts.sum());
+        stats.put("created", createdCount.sum());
+        stats.put("destroyed", destroyedCount.sum());
+        stats.put("validationFailures", validationFailures.sum());
+        stats.put("leaksDetected", leaksDetected.sum());
+        stats.put("statementCache", StatementCache.getStats());
+        return stats;
+    }
+
+    /**
+     * Kết nối vật lý được quản lý bởi pool
+     */
+    private final class PooledConnection {
+        private final Connection physical;
+        private final StatementCache statements;
+        private final long createdAt = System.currentTimeMillis();
+        private volatile long lastReturnedAt = createdAt;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statements = statementCacheSize > 0
+                    ? new StatementCache(physical, statementCacheSize, serverPrepareThreshold)
+                    : null;
+        }
+
+        /**
+         * Tạo proxy mới cho mỗi lần mượn để proxy cũ không dùng lại được sau khi close()
+         */
+        Connection lease() {
+            LeaseHandler handler = new LeaseHandler(this);
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(), new Class<?>[] { Connection.class }, handler);
+        }
+    }
+
+    /**
+     * Xử lý các lời gọi trên proxy của một lần mượn kết nối
+     */
+    private final class LeaseHandler implements InvocationHandler {
+        private final PooledConnection pooled;
+        private final ScheduledFuture<?> leakTask;
+        // Statement không được cache, đóng khi trả kết nối nếu DAO quên đóng
+        private final List<Statement> uncached = new ArrayList<>();
+        private boolean released;
+
+        LeaseHandler(PooledConnection pooled) {
+            this.pooled = pooled;
+            if (leakThresholdMs > 0) {
+                Exception borrowedAt = new Exception("Kết nối được mượn tại đây");
+                String threadName = Thread.currentThread().getName();
+                this.leakTask = housekeeper.schedule(() -> {
+                    leaksDetected.increment();
+                    LOGGER.log(Level.WARNING, "Nghi ngờ rò rỉ kết nối: luồng " + threadName + " giữ kết nối quá "
+                            + leakThresholdMs + "ms", borrowedAt);
+                }, leakThresholdMs, TimeUnit.MILLISECONDS);
+            } else {
+                this.leakTask = null;
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    synchronized (this) {
+                        if (!released) {
+                            released = true;
+                            if (leakTask != null) {
+                                leakTask.cancel(false);
+                            }
+                            closeStatements();
+                            release(pooled);
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    synchronized (this) {
+                        return released || pooled.physical.isClosed();
+                    }
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.physical + "]";
+                default:
+                    break;
+            }
+
+            synchronized (this) {
+                if (released) {
+                    throw new SQLException("Kết nối đã được trả về pool");
+                }
+            }
+
+            if (pooled.statements != null && "prepareStatement".equals(name)) {
+                Statement cached = null;
+                if (args.length == 1) {
+                    cached = pooled.statements.prepare((Connection) proxy, (String) args[0],
+                            StatementCache.NO_KEYS_FLAG);
+                } else if (args.length == 2 && args[1] instanceof Integer) {
+                    cached = pooled.statements.prepare((Connection) proxy, (String) args[0], (Integer) args[1]);
+                }
+                // null: cùng câu SQL đang được dùng, tạo statement không cache như các statement khác bên dưới
+                if (cached != null) {
+                    // Luôn đặt lại vì statement được cache giữ timeout của yêu cầu trước
+                    applyDeadline(cached, true);
+                    return cached;
+                }
+            }
+
+            Object result;
+            try {
+                result = method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof Statement) {
+                Statement statement = (Statement) result;
+                synchronized (this) {
+                    uncached.add(statement);
+                }
+                applyDeadline(statement, false);
+                return wrapStatement(statement, method.getReturnType(), (Connection) proxy);
+            }
+            return result;
+        }
+
+        /**
+         * Bọc statement không được cache để getConnection() trả về proxy kết nối thay vì kết nối vật lý
+         *
+         * @param statement Statement của kết nối vật lý
+         * @param type Kiểu trả về của phương thức tạo statement (Statement, PreparedStatement, CallableStatement)
+         * @param owner Proxy kết nối đang mượn
+         */
+        private Object wrapStatement(Statement statement, Class<?> type, Connection owner) {
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (stmtProxy, m, a) -> {
+                switch (m.getName()) {
+                    case "getConnection":
+                        return owner;
+                    case "equals":
+                        return stmtProxy == a[0];
+                    case "hashCode":
+                        return System.identityHashCode(stmtProxy);
+                    default:
+                        break;
+                }
+                try {
+                    return m.invoke(statement, a);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+        }
+
+        /**
+         * Đặt thời gian truy vấn tối đa theo hạn chót của yêu cầu hiện tại
+         *
+         * @param statement Statement vừa tạo
+         * @param reset Đặt cả khi không có hạn chót (timeout = 0)
+         */
+        private void applyDeadline(Statement statement, boolean reset) throws SQLException {
+            int timeoutSeconds;
+            try {
+                timeoutSeconds = RequestDeadline.queryTimeoutSeconds();
+            } catch (SQLException e) {
+                statement.close();
+                throw e;
+            }
+            if (timeoutSeconds > 0 || reset) {
+                statement.setQueryTimeout(timeoutSeconds);
+            }
+        }
+
+        /**
+         * Đóng statement không được cache và trả các statement được cache về StatementCache
+         */
+        private void closeStatements() {
+            for (Statement statement : uncached) {
+                try {
+                    if (!statement.isClosed()) {
+                        statement.close();
+                    }
+                } catch (SQLException e) {
+                    LOGGER.log(Level.FINE, "Lỗi khi đóng statement: " + e.getMessage(), e);
+                }
+            }
+            uncached.clear();
+            if (pooled.statements != null) {
+                pooled.statements.releaseAll();
+            }
+        }
+    }
+}
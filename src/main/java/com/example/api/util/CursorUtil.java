@@ -0,0 +1,48 @@
+package com.example.api.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Lớp tiện ích mã hóa/giải mã cursor cho phân trang keyset.
+ *
+ * Cursor là chuỗi base64url (không padding) của các giá trị khóa sắp xếp, ngăn cách
+ * bởi ký tự '|'. Client chỉ cần gửi lại nguyên cursor, không cần hiểu nội dung.
+ */
+public class CursorUtil {
+    private static final String SEPARATOR = "|";
+
+    private CursorUtil() {
+    }
+
+    /**
+     * Mã hóa các giá trị thành cursor
+     *
+     * @param parts Các giá trị (không được chứa ký tự '|')
+     * @return Cursor dạng base64url
+     */
+    public static String encode(String... parts) {
+        String raw = String.join(SEPARATOR, parts);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Giải mã cursor
+     *
+     * @param cursor Cursor dạng base64url
+     * @return Danh sách giá trị, hoặc null nếu cursor không hợp lệ
+     */
+    public static List<String> decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return Arrays.asList(raw.split("\\" + SEPARATOR, -1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -1,17 +1,24 @@
 package com.example.api.util;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Lớp tiện ích để quản lý kết nối đến cơ sở dữ liệu MySQL
+ *
+ * Các kết nối được lấy từ ConnectionPool, cấu hình qua các khóa db.* trong
+ * application.properties (xem AppConfig).
  */
 public class DatabaseUtil {
-    private static final String JDBC_URL = "jdbc:mysql://localhost:3306/review_system?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC";
-    private static final String JDBC_USER = "root";
-    private static final String JDBC_PASSWORD = "ServBay.dev";
-    
+    private static final Logger LOGGER = Logger.getLogger(DatabaseUtil.class.getName());
+
+    private static final String DEFAULT_JDBC_URL = "jdbc:mysql://localhost:3306/review_system?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC";
+    private static final String DEFAULT_JDBC_USER = "root";
+    private static final String DEFAULT_JDBC_PASSWORD = "ServBay.dev";
+
     static {
         try {
             Class.forName("com.mysql.cj.jdbc.Driver");
@@ -19,26 +26,35 @@ public class DatabaseUtil {
             e.printStackTrace();
         }
     }
-    
+
+    /**
+     * Khởi tạo pool khi được sử dụng lần đầu
+     */
+    private static class PoolHolder {
+        private static final ConnectionPool POOL = new ConnectionPool(
+                AppConfig.get("db.url", DEFAULT_JDBC_URL),
+                AppConfig.get("db.user", DEFAULT_JDBC_USER),
+                AppConfig.get("db.password", DEFAULT_JDBC_PASSWORD));
+    }
+
     /**
      * Lấy kết nối đến cơ sở dữ liệu
-     * 
-     * @return Connection đến cơ sở dữ liệu
+     *
+     * @return Connection đến cơ sở dữ liệu (đóng kết nối sẽ trả về pool)
      * @throws SQLException nếu không thể kết nối
      */
     public static Connection getConnection() throws SQLException {
         try {
-            return DriverManager.getConnection(JDBC_URL, JDBC_USER, JDBC_PASSWORD);
+            return PoolHolder.POOL.borrow();
         } catch (SQLException e) {
-            System.err.println("Lỗi kết nối cơ sở dữ liệu: " + e.getMessage());
-            e.printStackTrace();
+            LOGGER.log(Level.SEVERE, "Lỗi kết nối cơ sở dữ liệu: " + e.getMessage(), e);
             throw e;
         }
     }
-    
+
     /**
      * Đóng kết nối an toàn
-     * 
+     *
      * @param connection Kết nối cần đóng
      */
     public static void closeConnection(Connection connection) {
@@ -50,4 +66,29 @@ public class DatabaseUtil {
             }
         }
     }
+
+    /**
+     * Lấy thống kê của pool kết nối
+     *
+     * @return Map chứa các chỉ số của pool
+     */
+    public static Map<String, Object> getPoolStats() {
+        return PoolHolder.POOL.getStats();
+    }
+
+    /**
+     * Lấy số kết nối tối đa của pool (dùng để giới hạn số yêu cầu xử lý đồng thời)
+     *
+     * @return db.pool.maxSize
+     */
+    public static int getPoolMaxSize() {
+        return PoolHolder.POOL.getMaxSize();
+    }
+
+    /**
+     * Đóng pool kết nối khi ứng dụng dừng
+     */
+    public static void shutdown() {
+        PoolHolder.POOL.shutdown();
+    }
 }
@@ -1,11 +1,26 @@
 package com.example.api.util;
 
+import com.example.api.cache.TokenRevocationStore;
+import com.example.api.cache.TtlCache;
+import com.example.api.model.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import javax.crypto.SecretKey;
 
 /**
  * Lu1edbp tiu1ec7n u00edch xu1eed lu00fd JWT (JSON Web Token)
@@ -14,6 +29,33 @@ public class JwtUtil {
     private static final byte[] JWT_SECRET = Keys.secretKeyFor(SignatureAlgorithm.HS256).getEncoded();
     private static final long JWT_EXPIRATION = 86400000; // 24 giu1edd
     
+    // Claims thông tin người dùng, chỉ được tin cậy khi CLAIM_VERSION bằng users.token_version hiện tại
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_NAME = "name";
+    public static final String CLAIM_EMAIL = "email";
+    public static final String CLAIM_AVATAR = "avatar";
+    public static final String CLAIM_CREATED_AT = "joined";
+    public static final String CLAIM_VERSION = "ver";
+    
+    // Khóa và parser dùng chung (JwtParser không thay đổi sau khi build nên an toàn giữa các luồng)
+    private static final SecretKey SIGNING_KEY = Keys.hmacShaKeyFor(JWT_SECRET);
+    private static final JwtParser PARSER = Jwts.parserBuilder().setSigningKey(SIGNING_KEY).build();
+    
+    // Cache token đã xác thực (LRU), khóa là SHA-256 của token (không giữ token gốc trong bộ nhớ),
+    // mỗi phần tử hết hạn đúng thời điểm exp của token; khi đầy thì loại token ít dùng nhất
+    private static final boolean CACHE_ENABLED = AppConfig.getBoolean("jwt.cache.enabled", true);
+    private static final int CACHE_MAX_SIZE = Math.max(1, AppConfig.getInt("jwt.cache.maxSize", 10000));
+    private static final TtlCache<TokenKey, Claims> VERIFIED = new TtlCache<>("jwt", CACHE_MAX_SIZE, 0);
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+    private static final LongAdder CACHE_HITS = new LongAdder();
+    private static final LongAdder CACHE_MISSES = new LongAdder();
+    
     /**
      * Tu1ea1o JWT token cho ngu01b0u1eddi du00f9ng
      * 
@@ -25,13 +67,46 @@ public class JwtUtil {
         Date expiryDate = new Date(now.getTime() + JWT_EXPIRATION);
         
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(String.valueOf(userId))
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(Keys.hmacShaKeyFor(JWT_SECRET))
+                .signWith(SIGNING_KEY)
                 .compact();
     }
     
+    /**
+     * Tạo JWT token kèm vai trò và thông tin hồ sơ của người dùng, để các yêu cầu sau
+     * không phải đọc bảng users
+     * 
+     * @param user Người dùng
+     * @param version Phiên bản token hiện tại của người dùng (users.token_version)
+     * @return JWT token
+     */
+    public static String generateToken(User user, int version) {
+        Date now = new Date();
+        Date expiryDate = new Date(now.getTime() + JWT_EXPIRATION);
+        
+        JwtBuilder builder = Jwts.builder()
+                .setId(UUID.randomUUID().toString())
+                .setSubject(String.valueOf(user.getId()))
+                .setIssuedAt(now)
+                .setExpiration(expiryDate)
+                .claim(CLAIM_VERSION, version)
+                .claim(CLAIM_NAME, user.getName())
+                .claim(CLAIM_EMAIL, user.getEmail());
+        if (user.getRole() != null) {
+            builder.claim(CLAIM_ROLE, user.getRole().name());
+        }
+        if (user.getAvatar() != null) {
+            builder.claim(CLAIM_AVATAR, user.getAvatar());
+        }
+        if (user.getCreatedAt() != null) {
+            builder.claim(CLAIM_CREATED_AT, user.getCreatedAt().getTime());
+        }
+        return builder.signWith(SIGNING_KEY).compact();
+    }
+    
     /**
      * Xu00e1c thu1ef1c vu00e0 lu1ea5y thu00f4ng tin tu1eeb JWT token
      * 
@@ -39,11 +114,73 @@ public class JwtUtil {
      * @return Claims chu1ee9a thu00f4ng tin token
      */
     public static Claims validateToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(Keys.hmacShaKeyFor(JWT_SECRET))
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        Claims claims = verify(token);
+        // Kiểm tra cả khi lấy từ cache vì token có thể bị thu hồi sau khi được cache
+        if (TokenRevocationStore.getInstance().isRevoked(claims.getId())) {
+            throw new JwtException("Token đã bị thu hồi");
+        }
+        return claims;
+    }
+    
+    /**
+     * Thu hồi token (đăng xuất): token không còn được validateToken chấp nhận cho đến khi hết hạn
+     * 
+     * @param token JWT token
+     * @return true nếu token được thu hồi, false nếu token không có jti (phát hành trước khi hỗ trợ thu hồi)
+     * @throws JwtException nếu token không hợp lệ hoặc đã hết hạn
+     */
+    public static boolean revokeToken(String token) {
+        Claims claims = validateToken(token);
+        if (claims.getId() == null || claims.getExpiration() == null) {
+            return false;
+        }
+        return TokenRevocationStore.getInstance().revoke(claims.getId(), claims.getExpiration().getTime());
+    }
+    
+    /**
+     * Xác minh chữ ký và thời hạn của token, dùng cache token đã xác thực nếu được bật
+     */
+    private static Claims verify(String token) {
+        if (!CACHE_ENABLED || token == null) {
+            return PARSER.parseClaimsJws(token).getBody();
+        }
+        
+        TokenKey key = new TokenKey(SHA256.get().digest(token.getBytes(StandardCharsets.UTF_8)));
+        Claims cached = VERIFIED.getIfPresent(key);
+        if (cached != null) {
+            CACHE_HITS.increment();
+            return cached;
+        }
+        CACHE_MISSES.increment();
+        
+        // Token không hợp lệ/hết hạn ném JwtException như trước và không được cache
+        Claims claims = PARSER.parseClaimsJws(token).getBody();
+        Date expiration = claims.getExpiration();
+        if (expiration != null) {
+            VERIFIED.put(key, claims, expiration.getTime());
+        }
+        return claims;
+    }
+    
+    /**
+     * Thống kê cache token đã xác thực
+     * 
+     * @return Map các chỉ số
+     */
+    public static Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long hits = CACHE_HITS.sum();
+        long misses = CACHE_MISSES.sum();
+        stats.put("enabled", CACHE_ENABLED);
+        stats.put("size", VERIFIED.size());
+        stats.put("maxSize", CACHE_MAX_SIZE);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRatio", hits + misses == 0 ? 0.0 : hits / (double) (hits + misses));
+        Map<String, Object> cacheStats = VERIFIED.getStats();
+        stats.put("evictions", cacheStats.get("evictions"));
+        stats.put("expirations", cacheStats.get("expirations"));
+        return stats;
     }
     
     /**
@@ -69,4 +206,27 @@ public class JwtUtil {
     public static byte[] getJwtSecret() {
         return JWT_SECRET;
     }
+    
+    /**
+     * Khóa cache: SHA-256 của token
+     */
+    private static final class TokenKey {
+        private final byte[] digest;
+        private final int hash;
+        
+        TokenKey(byte[] digest) {
+            this.digest = digest;
+            this.hash = Arrays.hashCode(digest);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+        
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof TokenKey && Arrays.equals(digest, ((TokenKey) other).digest);
+        }
+    }
 }
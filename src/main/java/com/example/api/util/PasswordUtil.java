@@ -4,20 +4,90 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.Base64;
+import org.mindrot.jbcrypt.BCrypt;
 
 /**
- * Lớp tiện ích để mã hóa và kiểm tra mật khẩu
+ * Lớp tiện ích để mã hóa và kiểm tra mật khẩu.
+ *
+ * Mật khẩu mới được mã hóa bằng BCrypt; định dạng cũ "salt:hash" (một vòng SHA-256) chỉ còn được
+ * kiểm tra để đăng nhập và mã hóa lại. Các hàm ở đây chạy trên luồng gọi, nơi xử lý yêu cầu dùng
+ * PasswordHasher để giới hạn số luồng mã hóa đồng thời.
  */
 public class PasswordUtil {
     
     private static final int SALT_LENGTH = 16;
     
+    // Giới hạn cost của BCrypt (jbcrypt chấp nhận 4..30)
+    public static final int MIN_BCRYPT_COST = 4;
+    public static final int MAX_BCRYPT_COST = 30;
+    
+    /**
+     * Mã hóa mật khẩu bằng BCrypt
+     * 
+     * @param password Mật khẩu cần mã hóa
+     * @param cost Cost của BCrypt (số vòng = 2^cost)
+     * @return Mật khẩu đã mã hóa
+     */
+    public static String hash(String password, int cost) {
+        return BCrypt.hashpw(password, BCrypt.gensalt(cost));
+    }
+    
+    /**
+     * Kiểm tra mật khẩu với mật khẩu đã mã hóa theo BCrypt hoặc định dạng SHA-256 cũ
+     * 
+     * @param password Mật khẩu cần kiểm tra
+     * @param storedPassword Mật khẩu đã mã hóa
+     * @return true nếu mật khẩu khớp
+     */
+    public static boolean verify(String password, String storedPassword) {
+        if (password == null || storedPassword == null) {
+            return false;
+        }
+        if (isBcrypt(storedPassword)) {
+            try {
+                return BCrypt.checkpw(password, storedPassword);
+            } catch (IllegalArgumentException e) {
+                // Chuỗi BCrypt không hợp lệ
+                return false;
+            }
+        }
+        return checkPassword(password, storedPassword);
+    }
+    
+    /**
+     * Kiểm tra mật khẩu đã mã hóa có cần mã hóa lại không (định dạng cũ hoặc cost khác cấu hình)
+     * 
+     * @param storedPassword Mật khẩu đã mã hóa
+     * @param cost Cost hiện tại của BCrypt
+     * @return true nếu nên mã hóa lại khi người dùng đăng nhập thành công
+     */
+    public static boolean needsRehash(String storedPassword, int cost) {
+        return !isBcrypt(storedPassword) || bcryptCost(storedPassword) != cost;
+    }
+    
+    private static boolean isBcrypt(String storedPassword) {
+        return storedPassword.startsWith("$2a$") || storedPassword.startsWith("$2b$") || storedPassword.startsWith("$2y$");
+    }
+    
+    /**
+     * Đọc cost từ chuỗi BCrypt dạng $2a$10$...
+     */
+    private static int bcryptCost(String storedPassword) {
+        try {
+            return Integer.parseInt(storedPassword.substring(4, 6));
+        } catch (IndexOutOfBoundsException | NumberFormatException e) {
+            return -1;
+        }
+    }
+    
     /**
      * Mã hóa mật khẩu sử dụng SHA-256 với salt
      * 
      * @param password Mật khẩu cần mã hóa
      * @return Mật khẩu đã mã hóa (salt + hash)
+     * @deprecated Chỉ còn để tương thích, mật khẩu mới dùng {@link #hash(String, int)}
      */
+    @Deprecated
     public static String hashPassword(String password) {
         try {
             // Tạo salt ngẫu nhiên
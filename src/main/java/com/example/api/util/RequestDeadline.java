@@ -0,0 +1,89 @@
+package com.example.api.util;
+
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hạn chót (deadline) của yêu cầu đang xử lý trên luồng hiện tại.
+ *
+ * RequestExecutor đặt hạn chót khi bắt đầu xử lý yêu cầu; ConnectionPool đọc lại để giới hạn thời gian
+ * chờ mượn kết nối và đặt Statement.setQueryTimeout cho mọi statement được tạo trong yêu cầu, nên một
+ * truy vấn chậm bị driver hủy (KILL QUERY) khi hết hạn thay vì giữ luồng và kết nối vô thời hạn.
+ * PasswordHasher cũng không chờ quá hạn chót.
+ * Luồng không có hạn chót (job nền, khởi động ứng dụng) không bị giới hạn.
+ */
+public final class RequestDeadline {
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    // Thống kê
+    private static final LongAdder EXPIRED = new LongAdder();
+
+    private RequestDeadline() {
+    }
+
+    /**
+     * Đặt hạn chót cho luồng hiện tại
+     *
+     * @param timeoutMs Thời gian còn lại tính từ bây giờ (<= 0: không giới hạn)
+     * @return true nếu đã đặt hạn chót mới, false nếu luồng đã có hạn chót (yêu cầu được chuyển tiếp)
+     *         hoặc timeoutMs <= 0; chỉ nơi nhận true mới gọi clear()
+     */
+    public static boolean start(long timeoutMs) {
+        if (timeoutMs <= 0 || DEADLINE.get() != null) {
+            return false;
+        }
+        DEADLINE.set(System.currentTimeMillis() + timeoutMs);
+        return true;
+    }
+
+    /**
+     * Xóa hạn chót của luồng hiện tại
+     */
+    public static void clear() {
+        DEADLINE.remove();
+    }
+
+    /**
+     * Thời gian còn lại của yêu cầu hiện tại
+     *
+     * @return Số mili giây còn lại (có thể âm nếu đã hết hạn), hoặc Long.MAX_VALUE nếu không có hạn chót
+     */
+    public static long remainingMillis() {
+        Long deadline = DEADLINE.get();
+        return deadline == null ? Long.MAX_VALUE : deadline - System.currentTimeMillis();
+    }
+
+    /**
+     * Giá trị cho Statement.setQueryTimeout theo thời gian còn lại (làm tròn lên theo giây)
+     *
+     * @return Số giây, hoặc 0 nếu không có hạn chót
+     * @throws SQLTimeoutException nếu yêu cầu đã hết hạn
+     */
+    public static int queryTimeoutSeconds() throws SQLTimeoutException {
+        long remaining = remainingMillis();
+        if (remaining == Long.MAX_VALUE) {
+            return 0;
+        }
+        if (remaining <= 0) {
+            throw expired();
+        }
+        return (int) Math.min(Integer.MAX_VALUE, (remaining + 999) / 1000);
+    }
+
+    /**
+     * Tạo lỗi hết hạn (và đếm vào thống kê)
+     *
+     * @return SQLTimeoutException
+     */
+    public static SQLTimeoutException expired() {
+        EXPIRED.increment();
+        return new SQLTimeoutException("Yêu cầu đã vượt quá thời gian xử lý cho phép");
+    }
+
+    /**
+     * @return Số lần truy vấn hoặc mượn kết nối bị từ chối do yêu cầu đã hết hạn
+     */
+    public static long getExpiredCount() {
+        return EXPIRED.sum();
+    }
+}
@@ -11,6 +11,7 @@ public class SlugUtil {
     private static final Pattern NONLATIN = Pattern.compile("[^\\w-]");
     private static final Pattern WHITESPACE = Pattern.compile("[\\s]");
     private static final Pattern EDGESDHASHES = Pattern.compile("(^-|-$)");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
 
     /**
      * Tạo slug từ chuỗi
@@ -36,4 +37,22 @@ public class SlugUtil {
         
         return slug;
     }
+
+    /**
+     * Bỏ dấu tiếng Việt (và các dấu kết hợp khác) khỏi chuỗi, giữ nguyên khoảng trắng và chữ hoa/thường
+     * 
+     * Ví dụ: "Điện thoại" -> "Dien thoai"
+     * 
+     * @param input Chuỗi đầu vào
+     * @return Chuỗi đã bỏ dấu
+     */
+    public static String foldDiacritics(String input) {
+        if (input == null || input.isEmpty()) {
+            return "";
+        }
+        // "đ"/"Đ" không tách được bằng NFD nên phải thay thế riêng
+        String replaced = input.replace('đ', 'd').replace('Đ', 'D');
+        String normalized = Normalizer.normalize(replaced, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(normalized).replaceAll("");
+    }
 }
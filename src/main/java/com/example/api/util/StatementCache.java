@@ -0,0 +1,327 @@
+package com.example.api.util;
+
+import com.mysql.cj.jdbc.JdbcConnection;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bộ nhớ đệm PreparedStatement (LRU) gắn với một kết nối vật lý trong pool.
+ *
+ * Mỗi lần DAO gọi prepareStatement(sql) với cùng câu SQL, statement đã chuẩn bị
+ * sẽ được dùng lại thay vì gửi lại lên server. Câu SQL được dùng nhiều lần
+ * (vượt ngưỡng serverPrepareThreshold) sẽ được chuẩn bị phía server (COM_STMT_PREPARE)
+ * để server không phải phân tích lại câu lệnh.
+ */
+class StatementCache {
+    private static final Logger LOGGER = Logger.getLogger(StatementCache.class.getName());
+
+    /** Đánh dấu prepareStatement(sql) không có tham số autoGeneratedKeys */
+    static final int NO_KEYS_FLAG = -1;
+
+    private static final int MAX_TRACKED_SQL = 2048;
+    private static final Map<String, LongAdder> USAGE = new ConcurrentHashMap<>();
+    private static final Map<String, Boolean> SERVER_PREPARE_UNSUPPORTED = new ConcurrentHashMap<>();
+
+    // Thống kê dùng chung cho toàn bộ pool
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+    private static final LongAdder EVICTIONS = new LongAdder();
+    private static final LongAdder SERVER_PREPARES = new LongAdder();
+
+    private final Connection physical;
+    private final int maxSize;
+    private final int serverPrepareThreshold;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    StatementCache(Connection physical, int maxSize, int serverPrepareThreshold) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.serverPrepareThreshold = serverPrepareThreshold;
+    }
+
+    /**
+     * Lấy PreparedStatement từ cache hoặc chuẩn bị mới
+     *
+     * @param owner Proxy kết nối đang mượn (trả về cho Statement.getConnection())
+     * @param sql Câu SQL
+     * @param autoGeneratedKeys Cờ Statement.RETURN_GENERATED_KEYS hoặc NO_KEYS_FLAG
+     * @return PreparedStatement, gọi close() sẽ trả statement về cache; null nếu cùng câu SQL đang được dùng
+     *         trên kết nối này (người gọi tự tạo statement không cache và đóng khi trả kết nối)
+     * @throws SQLException nếu không thể chuẩn bị statement
+     */
+    synchronized PreparedStatement prepare(Connection owner, String sql, int autoGeneratedKeys) throws SQLException {
+        String key = autoGeneratedKeys == NO_KEYS_FLAG ? sql : autoGeneratedKeys + "\u0000" + sql;
+        boolean hot = recordUsage(key) >= serverPrepareThreshold;
+
+        Entry entry = entries.get(key);
+        if (entry != null && entry.inUse) {
+            // Cùng câu SQL đang được dùng trên kết nối này: để kết nối tạo statement riêng, không cache
+            MISSES.increment();
+            return null;
+        }
+
+        if (entry != null && hot && !entry.serverSide && canServerPrepare(sql)) {
+            // Câu SQL đã trở nên "nóng": chuyển sang chuẩn bị phía server
+            entries.remove(key);
+            closeQuietly(entry.statement);
+            entry = null;
+        }
+
+        if (entry != null) {
+            HITS.increment();
+        } else {
+            MISSES.increment();
+            boolean serverSide = hot && canServerPrepare(sql);
+            PreparedStatement statement;
+            try {
+                statement = doPrepare(sql, autoGeneratedKeys, serverSide);
+            } catch (SQLException e) {
+                if (!serverSide) {
+                    throw e;
+                }
+                // Server không hỗ trợ chuẩn bị câu lệnh này, dùng chuẩn bị phía client
+                SERVER_PREPARE_UNSUPPORTED.put(sql, Boolean.TRUE);
+                serverSide = false;
+                statement = doPrepare(sql, autoGeneratedKeys, false);
+            }
+            entry = new Entry(statement, serverSide);
+            entries.put(key, entry);
+            evictIfNeeded();
+        }
+
+        entry.inUse = true;
+        return entry.handle(owner, this);
+    }
+
+    private PreparedStatement doPrepare(String sql, int autoGeneratedKeys, boolean serverSide) throws SQLException {
+        if (serverSide) {
+            JdbcConnection mysql = physical.unwrap(JdbcConnection.class);
+            PreparedStatement statement = autoGeneratedKeys == NO_KEYS_FLAG
+                    ? mysql.serverPrepareStatement(sql)
+                    : mysql.serverPrepareStatement(sql, autoGeneratedKeys);
+            SERVER_PREPARES.increment();
+            return statement;
+        }
+        return autoGeneratedKeys == NO_KEYS_FLAG
+                ? physical.prepareStatement(sql)
+                : physical.prepareStatement(sql, autoGeneratedKeys);
+    }
+
+    private boolean canServerPrepare(String sql) {
+        // Câu lệnh nhiều truy vấn (có dấu ;) không thể chuẩn bị phía server
+        if (sql.indexOf(';') >= 0 || SERVER_PREPARE_UNSUPPORTED.containsKey(sql)) {
+            return false;
+        }
+        try {
+            return physical.isWrapperFor(JdbcConnection.class);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static long recordUsage(String key) {
+        LongAdder counter = USAGE.get(key);
+        if (counter == null) {
+            if (USAGE.size() >= MAX_TRACKED_SQL) {
+                return 0;
+            }
+            counter = USAGE.computeIfAbsent(key, k -> new LongAdder());
+        }
+        counter.increment();
+        return counter.sum();
+    }
+
+    /**
+     * Loại bỏ các statement ít dùng nhất khi vượt quá kích thước cache
+     */
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (entries.size() > maxSize && it.hasNext()) {
+            Entry eldest = it.next().getValue();
+            if (!eldest.inUse) {
+                it.remove();
+                closeQuietly(eldest.statement);
+                EVICTIONS.increment();
+            }
+        }
+    }
+
+    /**
+     * Trả statement về cache sau khi DAO gọi close()
+     */
+    private synchronized void checkIn(Entry entry) {
+        entry.inUse = false;
+        try {
+            entry.closeResults();
+            entry.statement.clearParameters();
+            entry.statement.clearBatch();
+            entry.statement.setMaxRows(0);
+            entry.statement.setQueryTimeout(0);
+        } catch (SQLException e) {
+            // Statement không còn dùng được, loại khỏi cache
+            entries.values().remove(entry);
+            closeQuietly(entry.statement);
+        }
+    }
+
+    /**
+     * Trả lại các statement DAO quên đóng khi kết nối được trả về pool
+     */
+    synchronized void releaseAll() {
+        for (Entry entry : new ArrayList<>(entries.values())) {
+            if (entry.inUse) {
+                entry.invalidateHandle();
+                checkIn(entry);
+            }
+        }
+    }
+
+    /**
+     * Đóng toàn bộ statement (khi kết nối vật lý bị hủy)
+     */
+    synchronized void closeAll() {
+        for (Entry entry : entries.values()) {
+            closeQuietly(entry.statement);
+        }
+        entries.clear();
+    }
+
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            LOGGER.log(Level.FINE, "Lỗi khi đóng statement: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Thống kê cache statement của toàn bộ pool
+     *
+     * @return Map chứa số lần trúng/trượt cache, số statement bị loại bỏ...
+     */
+    static Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long hits = HITS.sum();
+        long misses = MISSES.sum();
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRatio", hits + misses == 0 ? 0.0 : hits / (double) (hits + misses));
+        stats.put("evictions", EVICTIONS.sum());
+        stats.put("serverPrepares", SERVER_PREPARES.sum());
+        stats.put("trackedSql", USAGE.size());
+        return stats;
+    }
+
+    /**
+     * Một statement được cache
+     */
+    private static final class Entry {
+        private final PreparedStatement statement;
+        private final boolean serverSide;
+        private final List<ResultSet> openResults = new ArrayList<>(2);
+        private boolean inUse;
+        private Handle currentHandle;
+
+        Entry(PreparedStatement statement, boolean serverSide) {
+            this.statement = statement;
+            this.serverSide = serverSide;
+        }
+
+        PreparedStatement handle(Connection owner, StatementCache cache) {
+            currentHandle = new Handle(this, owner, cache);
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(), new Class<?>[] { PreparedStatement.class },
+                    currentHandle);
+        }
+
+        void invalidateHandle() {
+            if (currentHandle != null) {
+                currentHandle.closed = true;
+                currentHandle = null;
+            }
+        }
+
+        void closeResults() throws SQLException {
+            for (ResultSet rs : openResults) {
+                if (!rs.isClosed()) {
+                    rs.close();
+                }
+            }
+            openResults.clear();
+        }
+    }
+
+    /**
+     * Proxy của statement được cache cho một lần sử dụng
+     */
+    private static final class Handle implements InvocationHandler {
+        private final Entry entry;
+        private final Connection owner;
+        private final StatementCache cache;
+        private volatile boolean closed;
+
+        Handle(Entry entry, Connection owner, StatementCache cache) {
+            this.entry = entry;
+            this.owner = owner;
+            this.cache = cache;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        entry.currentHandle = null;
+                        cache.checkIn(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + entry.statement + "]";
+                default:
+                    break;
+            }
+
+            if (closed) {
+                throw new SQLException("Statement đã được đóng");
+            }
+
+            Object result;
+            try {
+                result = method.invoke(entry.statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof ResultSet) {
+                entry.openResults.add((ResultSet) result);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+-- ReviewDAO.markReviewHelpful gọi thủ tục này bằng một câu CALL (một round trip, không cần allowMultiQueries):
+-- cập nhật helpful_count theo chênh lệch giữa giá trị mới và bình chọn trước đó của người dùng
+-- (đọc qua LEFT JOIN trong cùng câu UPDATE, đồng thời khóa dòng đánh giá), upsert review_helpful,
+-- rồi trả về helpful_count mới và product_id. Không trả về dòng nào nếu đánh giá không tồn tại.
+DROP PROCEDURE IF EXISTS mark_review_helpful;
+
+DELIMITER //
+
+CREATE PROCEDURE mark_review_helpful(IN p_review_id INT UNSIGNED, IN p_user_id INT UNSIGNED, IN p_helpful BOOLEAN)
+BEGIN
+    DECLARE EXIT HANDLER FOR SQLEXCEPTION
+    BEGIN
+        ROLLBACK;
+        RESIGNAL;
+    END;
+
+    START TRANSACTION;
+
+    UPDATE reviews r
+    LEFT JOIN review_helpful rh ON rh.review_id = r.id AND rh.user_id = p_user_id
+    SET r.helpful_count = GREATEST(CAST(r.helpful_count AS SIGNED) + p_helpful - COALESCE(rh.is_helpful, 0), 0)
+    WHERE r.id = p_review_id;
+
+    -- INSERT ... SELECT để không vi phạm khóa ngoại khi đánh giá không tồn tại
+    INSERT INTO review_helpful (review_id, user_id, is_helpful)
+    SELECT id, p_user_id, p_helpful FROM reviews WHERE id = p_review_id
+    ON DUPLICATE KEY UPDATE is_helpful = VALUES(is_helpful);
+
+    SELECT helpful_count, product_id FROM reviews WHERE id = p_review_id;
+
+    COMMIT;
+END //
+
+DELIMITER ;
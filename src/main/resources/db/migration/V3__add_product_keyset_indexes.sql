@@ -0,0 +1,4 @@
+-- Chỉ mục cho phân trang keyset (cursor) của danh sách sản phẩm
+-- Sắp xếp price_asc/price_desc dùng products_price_index có sẵn (InnoDB tự thêm id vào cuối chỉ mục)
+CREATE INDEX products_created_at_id_index ON products(created_at, id);
+CREATE INDEX products_rating_keyset_index ON products(rating, review_count, id);
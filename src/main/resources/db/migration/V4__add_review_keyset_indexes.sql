@@ -0,0 +1,8 @@
+-- Chỉ mục cho phân trang keyset (cursor) của danh sách đánh giá
+-- Mỗi cách sắp xếp (date_desc, helpful_desc, rating_desc) kết thúc bằng id để thứ tự ổn định
+CREATE INDEX reviews_product_created_id_index ON reviews(product_id, created_at, id);
+CREATE INDEX reviews_product_helpful_id_index ON reviews(product_id, helpful_count, id);
+CREATE INDEX reviews_product_rating_id_index ON reviews(product_id, rating, id);
+CREATE INDEX reviews_user_created_id_index ON reviews(user_id, created_at, id);
+CREATE INDEX reviews_user_helpful_id_index ON reviews(user_id, helpful_count, id);
+CREATE INDEX reviews_user_rating_id_index ON reviews(user_id, rating, id);
@@ -0,0 +1,37 @@
+-- Tổng hợp rating tăng dần: lưu tổng số sao và số đánh giá theo từng mức sao trên products,
+-- ReviewDAO cộng/trừ chênh lệch trong transaction ghi đánh giá thay vì tính lại AVG/COUNT
+ALTER TABLE products
+ADD COLUMN rating_sum INT UNSIGNED NOT NULL DEFAULT 0 AFTER review_count,
+ADD COLUMN rating_1 INT UNSIGNED NOT NULL DEFAULT 0 AFTER rating_sum,
+ADD COLUMN rating_2 INT UNSIGNED NOT NULL DEFAULT 0 AFTER rating_1,
+ADD COLUMN rating_3 INT UNSIGNED NOT NULL DEFAULT 0 AFTER rating_2,
+ADD COLUMN rating_4 INT UNSIGNED NOT NULL DEFAULT 0 AFTER rating_3,
+ADD COLUMN rating_5 INT UNSIGNED NOT NULL DEFAULT 0 AFTER rating_4;
+
+-- Các trigger tính lại AVG/COUNT trên toàn bộ đánh giá, trùng với việc ReviewDAO cập nhật
+DROP TRIGGER IF EXISTS update_product_rating_after_review_insert;
+DROP TRIGGER IF EXISTS update_product_rating_after_review_update;
+DROP TRIGGER IF EXISTS update_product_rating_after_review_delete;
+
+-- Khởi tạo giá trị tổng hợp từ dữ liệu hiện có (chạy một lần)
+UPDATE products p
+JOIN (
+    SELECT product_id,
+           COUNT(*) AS review_count,
+           SUM(rating) AS rating_sum,
+           SUM(rating = 1) AS rating_1,
+           SUM(rating = 2) AS rating_2,
+           SUM(rating = 3) AS rating_3,
+           SUM(rating = 4) AS rating_4,
+           SUM(rating = 5) AS rating_5
+    FROM reviews
+    GROUP BY product_id
+) r ON r.product_id = p.id
+SET p.review_count = r.review_count,
+    p.rating_sum = r.rating_sum,
+    p.rating_1 = r.rating_1,
+    p.rating_2 = r.rating_2,
+    p.rating_3 = r.rating_3,
+    p.rating_4 = r.rating_4,
+    p.rating_5 = r.rating_5,
+    p.rating = ROUND(r.rating_sum / r.review_count, 2);
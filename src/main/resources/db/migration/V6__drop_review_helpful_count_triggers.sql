@@ -0,0 +1,14 @@
+-- ReviewDAO.markReviewHelpful cập nhật reviews.helpful_count theo chênh lệch trong cùng lượt ghi,
+-- các trigger đếm lại COUNT(*) trên review_helpful cho mỗi lượt bình chọn không còn cần thiết
+DROP TRIGGER IF EXISTS update_review_helpful_count_after_insert;
+DROP TRIGGER IF EXISTS update_review_helpful_count_after_update;
+DROP TRIGGER IF EXISTS update_review_helpful_count_after_delete;
+
+-- Đồng bộ lại helpful_count một lần từ dữ liệu hiện có
+UPDATE reviews r
+LEFT JOIN (
+    SELECT review_id, SUM(is_helpful) AS helpful_count
+    FROM review_helpful
+    GROUP BY review_id
+) h ON h.review_id = r.id
+SET r.helpful_count = COALESCE(h.helpful_count, 0);
@@ -0,0 +1,19 @@
+-- Điểm xếp hạng "đánh giá cao nhất": trung bình Bayes (rating_sum + m * C) / (review_count + m),
+-- C là điểm trung bình của toàn bộ đánh giá, m là trọng số tiên nghiệm (rank.priorWeight).
+-- Được tính lại nền bởi ProductRankingJob, không tính theo từng yêu cầu
+ALTER TABLE products
+ADD COLUMN rank_score DOUBLE NOT NULL DEFAULT 0 AFTER rating_5;
+
+CREATE INDEX products_rank_score_id_index ON products(rank_score, id);
+
+-- sort=rating_desc chuyển sang rank_score, chỉ mục keyset theo rating của V3 không còn truy vấn nào dùng
+DROP INDEX products_rating_keyset_index ON products;
+
+-- Khởi tạo điểm cho dữ liệu hiện có với m = 10 (giữ nguyên updated_at)
+UPDATE products p
+CROSS JOIN (
+    SELECT COALESCE(SUM(rating_sum) / NULLIF(SUM(review_count), 0), 3) AS mean
+    FROM products
+) g
+SET p.rank_score = (p.rating_sum + 10 * g.mean) / (p.review_count + 10),
+    p.updated_at = p.updated_at;
@@ -0,0 +1,18 @@
+-- Điểm hữu ích có suy giảm theo thời gian cho sort=helpful_desc (dạng "hot ranking"):
+-- helpful_score = LOG10(1 + helpful_count) + (UNIX_TIMESTAMP(created_at) - 1704067200) / decaySeconds
+-- Đánh giá mới hơn decaySeconds cần ít hơn 10 lần lượt hữu ích để đứng ngang đánh giá cũ.
+-- Điểm chỉ đổi khi helpful_count đổi, ReviewScoreJob cập nhật theo lô các đánh giá có bình chọn mới
+ALTER TABLE reviews
+ADD COLUMN helpful_score DOUBLE NOT NULL DEFAULT 0 AFTER helpful_count;
+
+CREATE INDEX reviews_product_helpful_score_id_index ON reviews(product_id, helpful_score, id);
+CREATE INDEX reviews_user_helpful_score_id_index ON reviews(user_id, helpful_score, id);
+
+-- Danh sách đánh giá của người dùng sắp xếp helpful_desc theo helpful_score, chỉ mục của V4 không còn dùng.
+-- Giữ reviews_product_helpful_id_index: tóm tắt đánh giá lấy đánh giá hữu ích nhất theo helpful_count
+DROP INDEX reviews_user_helpful_id_index ON reviews;
+
+-- Khởi tạo điểm cho dữ liệu hiện có với decaySeconds = 15552000 (180 ngày), giữ nguyên updated_at
+UPDATE reviews
+SET helpful_score = LOG10(1 + helpful_count) + (UNIX_TIMESTAMP(created_at) - 1704067200) / 15552000,
+    updated_at = updated_at;
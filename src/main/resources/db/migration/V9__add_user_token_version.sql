@@ -0,0 +1,5 @@
+-- Phiên bản thông tin người dùng nhúng trong JWT (vai trò, tên, ảnh đại diện).
+-- Tăng mỗi khi các thông tin này hoặc mật khẩu thay đổi: token mang phiên bản cũ không còn được
+-- dùng claims đã nhúng mà phải đọc lại từ bảng users
+ALTER TABLE users
+ADD COLUMN token_version INT NOT NULL DEFAULT 0 AFTER role;
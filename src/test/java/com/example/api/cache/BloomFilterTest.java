@@ -0,0 +1,56 @@
+package com.example.api.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class BloomFilterTest {
+
+    @Test
+    public void addedKeysAreAlwaysFound() {
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.add("jti-" + i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.mightContain("jti-" + i));
+        }
+    }
+
+    @Test
+    public void emptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(100, 0.01);
+        assertFalse(filter.mightContain("jti-0"));
+        assertFalse(filter.mightContain(""));
+    }
+
+    @Test
+    public void falsePositiveRateStaysNearTarget() {
+        BloomFilter filter = new BloomFilter(10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            filter.add("revoked-" + i);
+        }
+        int falsePositives = 0;
+        int probes = 100000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("other-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue("Tỷ lệ dương tính giả: " + falsePositives + "/" + probes, falsePositives < probes * 0.02);
+    }
+
+    @Test
+    public void sizingFollowsExpectedEntries() {
+        BloomFilter filter = new BloomFilter(10000, 0.01);
+        // m = -n ln p / (ln 2)^2 ~ 95851 bit, làm tròn lên bội số của 64; k = m / n ln 2 ~ 7
+        assertEquals(95872, filter.getBitCount());
+        assertEquals(7, filter.getHashCount());
+
+        BloomFilter tiny = new BloomFilter(0, 0.5);
+        assertEquals(64, tiny.getBitCount());
+        assertTrue(tiny.getHashCount() >= 1);
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.api.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Kiểm tra phần chênh lệch helpful_count của một dải bộ đệm bình chọn qua các bước put/drain/complete
+ */
+public class HelpfulVoteStripeTest {
+    private static final int REVIEW = 7;
+    private static final int USER = 3;
+
+    private AtomicLong coalesced;
+    private HelpfulVoteBuffer.Stripe stripe;
+
+    @Before
+    public void setUp() {
+        coalesced = new AtomicLong();
+        stripe = new HelpfulVoteBuffer.Stripe(coalesced);
+    }
+
+    private int delta() {
+        return stripe.deltas.getOrDefault(REVIEW, 0);
+    }
+
+    @Test
+    public void newHelpfulVoteAddsOne() {
+        stripe.put(REVIEW, USER, true, -1);
+        assertEquals(1, delta());
+        assertEquals(1, stripe.pending.size());
+    }
+
+    @Test
+    public void revoteIsCoalescedAndCancelsDelta() {
+        stripe.put(REVIEW, USER, true, -1);
+        stripe.put(REVIEW, USER, false, -1);
+        assertEquals(1, coalesced.get());
+        assertEquals(1, stripe.pending.size());
+        // Chênh lệch bằng 0 thì khóa bị xóa khỏi map
+        assertFalse(stripe.deltas.containsKey(REVIEW));
+    }
+
+    @Test
+    public void voteMatchingStoredStateHasNoDelta() {
+        stripe.put(REVIEW, USER, true, 1);
+        assertEquals(0, delta());
+        stripe.put(REVIEW, 4, false, 1);
+        assertEquals(-1, delta());
+    }
+
+    @Test
+    public void drainKeepsDeltaUntilComplete() {
+        stripe.put(REVIEW, USER, true, -1);
+        List<HelpfulVoteBuffer.VoteEntry> out = new ArrayList<>();
+        stripe.drain(out);
+
+        assertEquals(1, out.size());
+        assertTrue(stripe.pending.isEmpty());
+        assertEquals(1, stripe.inflight.size());
+        assertEquals(1, delta());
+
+        stripe.complete(out.get(0));
+        assertTrue(stripe.inflight.isEmpty());
+        assertFalse(stripe.deltas.containsKey(REVIEW));
+    }
+
+    @Test
+    public void voteDuringWriteUsesInflightValueAsPrevious() {
+        stripe.put(REVIEW, USER, true, -1);
+        List<HelpfulVoteBuffer.VoteEntry> out = new ArrayList<>();
+        stripe.drain(out);
+
+        // MySQL chưa có bình chọn đang ghi, nhưng bình chọn mới phải tính từ giá trị của nó
+        stripe.put(REVIEW, USER, false, -1);
+        assertEquals(0, delta());
+
+        stripe.complete(out.get(0));
+        assertEquals(-1, delta());
+
+        List<HelpfulVoteBuffer.VoteEntry> next = new ArrayList<>();
+        stripe.drain(next);
+        assertEquals(1, next.size());
+        assertEquals(1, next.get(0).previous);
+        stripe.complete(next.get(0));
+        assertFalse(stripe.deltas.containsKey(REVIEW));
+    }
+
+    @Test
+    public void failedBatchIsMergedWithNewerVote() {
+        stripe.put(REVIEW, USER, true, -1);
+        List<HelpfulVoteBuffer.VoteEntry> failed = new ArrayList<>();
+        stripe.drain(failed);
+
+        // Lô lỗi không complete, bình chọn mới hủy bình chọn cũ
+        stripe.put(REVIEW, USER, false, -1);
+        List<HelpfulVoteBuffer.VoteEntry> retry = new ArrayList<>();
+        stripe.drain(retry);
+
+        assertEquals(1, retry.size());
+        HelpfulVoteBuffer.VoteEntry merged = retry.get(0);
+        assertFalse(merged.value);
+        assertEquals(-1, merged.previous);
+        assertEquals(0, delta());
+
+        // Bản ghi của lô lỗi đã được thay thế nên complete không làm gì
+        stripe.complete(failed.get(0));
+        assertSame(merged, stripe.inflight.values().iterator().next());
+
+        stripe.complete(merged);
+        assertTrue(stripe.inflight.isEmpty());
+        assertFalse(stripe.deltas.containsKey(REVIEW));
+    }
+
+    @Test
+    public void recoveredVoteContributesNothing() {
+        stripe.put(REVIEW, USER, true, HelpfulVoteBuffer.UNKNOWN);
+        assertEquals(0, delta());
+
+        List<HelpfulVoteBuffer.VoteEntry> out = new ArrayList<>();
+        stripe.drain(out);
+        // Trạng thái trước vẫn chưa biết cho bình chọn đến khi bản ghi phục hồi đang được ghi
+        stripe.put(REVIEW, USER, false, 1);
+        assertNull(stripe.deltas.get(REVIEW));
+        assertEquals(HelpfulVoteBuffer.UNKNOWN, stripe.pending.values().iterator().next().previous);
+    }
+}
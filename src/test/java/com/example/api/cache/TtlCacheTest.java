@@ -0,0 +1,83 @@
+package com.example.api.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class TtlCacheTest {
+
+    @Test
+    public void loadsOnceAndCaches() {
+        TtlCache<Integer, String> cache = new TtlCache<>("test", 10, 0);
+        int[] loads = new int[1];
+        assertEquals("v1", cache.get(1, key -> {
+            loads[0]++;
+            return "v" + key;
+        }));
+        assertEquals("v1", cache.get(1, key -> "khác"));
+        assertEquals(1, loads[0]);
+    }
+
+    @Test
+    public void invalidateDuringLoadDropsValue() {
+        TtlCache<Integer, String> cache = new TtlCache<>("test", 10, 0);
+        assertEquals("cũ", cache.get(1, key -> {
+            cache.invalidate(1);
+            return "cũ";
+        }));
+        assertNull(cache.getIfPresent(1));
+    }
+
+    @Test
+    public void invalidateOtherKeyDuringLoadKeepsValue() {
+        TtlCache<Integer, String> cache = new TtlCache<>("test", 10, 0);
+        cache.get(1, key -> {
+            cache.invalidate(2);
+            return "v1";
+        });
+        assertEquals("v1", cache.getIfPresent(1));
+    }
+
+    @Test
+    public void invalidateAllDuringLoadDropsValue() {
+        TtlCache<Integer, String> cache = new TtlCache<>("test", 10, 0);
+        cache.get(1, key -> {
+            cache.invalidateAll();
+            return "v1";
+        });
+        assertNull(cache.getIfPresent(1));
+    }
+
+    @Test
+    public void invalidationBeforeLoadDoesNotAffectNextLoad() {
+        TtlCache<Integer, String> cache = new TtlCache<>("test", 10, 0);
+        cache.get(1, key -> {
+            cache.invalidate(1);
+            return "cũ";
+        });
+        assertEquals("mới", cache.get(1, key -> "mới"));
+        assertEquals("mới", cache.getIfPresent(1));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        TtlCache<Integer, String> cache = new TtlCache<>("test", 2, 0);
+        cache.put(1, "a");
+        cache.put(2, "b");
+        cache.getIfPresent(1);
+        cache.put(3, "c");
+        assertEquals("a", cache.getIfPresent(1));
+        assertNull(cache.getIfPresent(2));
+        assertEquals("c", cache.getIfPresent(3));
+    }
+
+    @Test
+    public void entryExpiresAtGivenTime() {
+        TtlCache<Integer, String> cache = new TtlCache<>("test", 10, 0);
+        cache.put(1, "hết hạn", System.currentTimeMillis() - 1);
+        cache.put(2, "còn hạn", System.currentTimeMillis() + 60000);
+        assertNull(cache.getIfPresent(1));
+        assertEquals("còn hạn", cache.getIfPresent(2));
+    }
+}
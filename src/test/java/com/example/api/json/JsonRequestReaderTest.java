@@ -0,0 +1,198 @@
+package com.example.api.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.reflect.Proxy;
+
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.junit.Test;
+
+public class JsonRequestReaderTest {
+    private static final long MAX_BYTES = (Long) JsonRequestReader.getStats().get("maxBytes");
+
+    /**
+     * Yêu cầu mẫu: một trường chuỗi và một trường số nguyên
+     */
+    static final class SampleBody implements JsonRequestBody {
+        String name;
+        Integer count;
+
+        @Override
+        public boolean readField(String field, JsonReader in) throws IOException {
+            switch (field) {
+                case "name":
+                    name = JsonRequestReader.readString(in);
+                    return true;
+                case "count":
+                    count = JsonRequestReader.readInteger(in);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    /**
+     * @param contentLength Content-Length gửi kèm, -1 nếu không có
+     * @param reads Đếm số ký tự đã đọc khỏi body (có thể null)
+     */
+    private static HttpServletRequest request(String body, long contentLength, int[] reads) {
+        Reader source = new StringReader(body) {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                int n = super.read(buffer, offset, length);
+                if (reads != null && n > 0) {
+                    reads[0] += n;
+                }
+                return n;
+            }
+        };
+        BufferedReader reader = new BufferedReader(source);
+        return (HttpServletRequest) Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(),
+                new Class<?>[] { HttpServletRequest.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getContentLengthLong":
+                            return contentLength;
+                        case "getContentLength":
+                            return (int) contentLength;
+                        case "getReader":
+                            return reader;
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private static HttpServletRequest request(String body) {
+        return request(body, body.length(), null);
+    }
+
+    private static void assertRejected(int status, HttpServletRequest request) throws IOException {
+        try {
+            JsonRequestReader.read(request, SampleBody::new);
+            fail("Body phải bị từ chối với " + status);
+        } catch (RequestBodyException e) {
+            assertEquals(status, e.getStatus());
+        }
+    }
+
+    private static String padding(long length) {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < length) {
+            sb.append(' ');
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void readsKnownFieldsAndSkipsUnknownOnes() throws IOException {
+        SampleBody body = JsonRequestReader.read(request(
+                "{\"extra\": {\"nested\": [1, 2, {\"x\": null}]}, \"name\": \"abc\", \"count\": 3, \"flag\": true}"),
+                SampleBody::new);
+        assertNotNull(body);
+        assertEquals("abc", body.name);
+        assertEquals(Integer.valueOf(3), body.count);
+    }
+
+    @Test
+    public void acceptsNumericStringsAndNulls() throws IOException {
+        SampleBody body = JsonRequestReader.read(request("{\"name\": 12, \"count\": \"7\"}"), SampleBody::new);
+        assertEquals("12", body.name);
+        assertEquals(Integer.valueOf(7), body.count);
+
+        body = JsonRequestReader.read(request("{\"name\": null, \"count\": null}"), SampleBody::new);
+        assertNull(body.name);
+        assertNull(body.count);
+    }
+
+    @Test
+    public void emptyOrNullBodyReturnsNull() throws IOException {
+        assertNull(JsonRequestReader.read(request(""), SampleBody::new));
+        assertNull(JsonRequestReader.read(request("  \n"), SampleBody::new));
+        assertNull(JsonRequestReader.read(request("null"), SampleBody::new));
+        assertNull(JsonRequestReader.readObject(request("")));
+        assertNull(JsonRequestReader.readObject(request("null")));
+    }
+
+    @Test
+    public void rejectsOversizedContentLengthBeforeReading() throws IOException {
+        int[] reads = { 0 };
+        assertRejected(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE,
+                request("{\"name\": \"abc\"}", MAX_BYTES + 1, reads));
+        assertEquals(0, reads[0]);
+    }
+
+    @Test
+    public void rejectsOversizedBodyWithoutContentLengthWhileReading() throws IOException {
+        String body = "{\"name\": \"abc\"" + padding(MAX_BYTES) + "}";
+        assertRejected(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, request(body, -1, null));
+
+        try {
+            JsonRequestReader.readObject(request(body, -1, null));
+            fail("Body phải bị từ chối với 413");
+        } catch (RequestBodyException e) {
+            assertEquals(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, e.getStatus());
+        }
+    }
+
+    @Test
+    public void bodyAtLimitWithoutContentLengthIsAccepted() throws IOException {
+        String prefix = "{\"name\": \"abc\"";
+        String body = prefix + padding(MAX_BYTES - prefix.length() - 1) + "}";
+        assertEquals(MAX_BYTES, body.length());
+        assertEquals("abc", JsonRequestReader.read(request(body, -1, null), SampleBody::new).name);
+    }
+
+    @Test
+    public void rejectsTrailingGarbage() throws IOException {
+        assertRejected(HttpServletResponse.SC_BAD_REQUEST, request("{\"name\": \"abc\"} x"));
+        assertRejected(HttpServletResponse.SC_BAD_REQUEST, request("{\"name\": \"abc\"} {}"));
+        try {
+            JsonRequestReader.readObject(request("{\"name\": \"abc\"} 1"));
+            fail("Body phải bị từ chối với 400");
+        } catch (RequestBodyException e) {
+            assertEquals(HttpServletResponse.SC_BAD_REQUEST, e.getStatus());
+        }
+    }
+
+    @Test
+    public void rejectsNonObjectBodies() throws IOException {
+        assertRejected(HttpServletResponse.SC_BAD_REQUEST, request("[1, 2]"));
+        assertRejected(HttpServletResponse.SC_BAD_REQUEST, request("\"abc\""));
+        assertRejected(HttpServletResponse.SC_BAD_REQUEST, request("42"));
+        try {
+            JsonRequestReader.readObject(request("[1, 2]"));
+            fail("Body phải bị từ chối với 400");
+        } catch (RequestBodyException e) {
+            assertEquals(HttpServletResponse.SC_BAD_REQUEST, e.getStatus());
+        }
+    }
+
+    @Test
+    public void rejectsTruncatedAndMistypedBodies() throws IOException {
+        assertRejected(HttpServletResponse.SC_BAD_REQUEST, request("{\"name\": \"abc\""));
+        assertRejected(HttpServletResponse.SC_BAD_REQUEST, request("{\"count\": 4.5}"));
+        assertRejected(HttpServletResponse.SC_BAD_REQUEST, request("{\"count\": \"abc\"}"));
+        assertRejected(HttpServletResponse.SC_BAD_REQUEST, request("{\"name\": {\"a\": 1}}"));
+    }
+
+    @Test
+    public void readObjectReturnsTheParsedTree() throws IOException {
+        JsonObject object = JsonRequestReader.readObject(request("{\"a\": 1, \"b\": [true]}"));
+        assertEquals(1, object.get("a").getAsInt());
+        assertFalse(object.get("b").getAsJsonArray().isEmpty());
+    }
+}
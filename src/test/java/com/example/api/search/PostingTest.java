@@ -0,0 +1,64 @@
+package com.example.api.search;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class PostingTest {
+
+    private static int[] ids(ProductSearchIndex.Posting posting) {
+        return Arrays.copyOf(posting.ids, posting.size);
+    }
+
+    private static int[] frequencies(ProductSearchIndex.Posting posting) {
+        return Arrays.copyOf(posting.frequencies, posting.size);
+    }
+
+    @Test
+    public void keepsIdsSortedWhateverTheInsertOrder() {
+        ProductSearchIndex.Posting posting = new ProductSearchIndex.Posting("dien");
+        posting.add(5, 1);
+        posting.add(9, 2);
+        posting.add(1, 3);
+        posting.add(7, 4);
+        posting.add(3, 5);
+        assertArrayEquals(new int[] { 1, 3, 5, 7, 9 }, ids(posting));
+        assertArrayEquals(new int[] { 3, 5, 1, 4, 2 }, frequencies(posting));
+    }
+
+    @Test
+    public void addExistingIdReplacesFrequency() {
+        ProductSearchIndex.Posting posting = new ProductSearchIndex.Posting("dien");
+        posting.add(1, 1);
+        posting.add(2, 1);
+        posting.add(1, 7);
+        assertArrayEquals(new int[] { 1, 2 }, ids(posting));
+        assertArrayEquals(new int[] { 7, 1 }, frequencies(posting));
+    }
+
+    @Test
+    public void removeKeepsOrderAndFrequencies() {
+        ProductSearchIndex.Posting posting = new ProductSearchIndex.Posting("dien");
+        for (int id = 1; id <= 6; id++) {
+            posting.add(id, id * 10);
+        }
+        assertTrue(posting.remove(1));
+        assertTrue(posting.remove(4));
+        assertTrue(posting.remove(6));
+        assertFalse(posting.remove(4));
+        assertFalse(posting.remove(100));
+        assertArrayEquals(new int[] { 2, 3, 5 }, ids(posting));
+        assertArrayEquals(new int[] { 20, 30, 50 }, frequencies(posting));
+
+        assertTrue(posting.remove(2));
+        assertTrue(posting.remove(3));
+        assertTrue(posting.remove(5));
+        assertEquals(0, posting.size);
+        assertFalse(posting.remove(5));
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.api.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class SuggestTrieTest {
+
+    private static SuggestTrie.Suggestion suggestion(int id, double weight, String... keys) {
+        return new SuggestTrie.Suggestion(id, "Sản phẩm " + id, "san-pham-" + id, weight, keys);
+    }
+
+    private static List<Integer> ids(List<SuggestTrie.Suggestion> suggestions) {
+        List<Integer> ids = new ArrayList<>();
+        for (SuggestTrie.Suggestion suggestion : suggestions) {
+            ids.add(suggestion.id);
+        }
+        return ids;
+    }
+
+    @Test
+    public void splitsSharedEdge() {
+        SuggestTrie trie = new SuggestTrie(10);
+        trie.add(suggestion(1, 1, "abc"));
+        assertEquals(2, trie.nodeCount());
+
+        trie.add(suggestion(2, 2, "abd"));
+        // gốc -> "ab" -> {"c", "d"}
+        assertEquals(4, trie.nodeCount());
+        assertEquals(List.of(2, 1), ids(trie.lookup("a", 10)));
+        assertEquals(List.of(2, 1), ids(trie.lookup("ab", 10)));
+        assertEquals(List.of(1), ids(trie.lookup("abc", 10)));
+        assertEquals(List.of(2), ids(trie.lookup("abd", 10)));
+    }
+
+    @Test
+    public void prefixEndingInsideLabel() {
+        SuggestTrie trie = new SuggestTrie(10);
+        trie.add(suggestion(1, 1, "hello"));
+        assertEquals(List.of(1), ids(trie.lookup("hel", 10)));
+        assertEquals(List.of(1), ids(trie.lookup("", 10)));
+        assertTrue(trie.lookup("hex", 10).isEmpty());
+        assertTrue(trie.lookup("hello world", 10).isEmpty());
+        assertTrue(trie.lookup("x", 10).isEmpty());
+    }
+
+    @Test
+    public void removePrunesAndMergesNodes() {
+        SuggestTrie trie = new SuggestTrie(10);
+        SuggestTrie.Suggestion abc = suggestion(1, 1, "abc");
+        SuggestTrie.Suggestion abd = suggestion(2, 2, "abd");
+        trie.add(abc);
+        trie.add(abd);
+
+        trie.remove(abd);
+        // "d" bị xóa, "ab" chỉ còn một con nên được gộp thành "abc"
+        assertEquals(2, trie.nodeCount());
+        assertEquals(List.of(1), ids(trie.lookup("ab", 10)));
+        assertTrue(trie.lookup("abd", 10).isEmpty());
+
+        trie.remove(abc);
+        assertEquals(1, trie.nodeCount());
+        assertTrue(trie.lookup("a", 10).isEmpty());
+    }
+
+    @Test
+    public void removeKeepsNodeThatStillHasTerminals() {
+        SuggestTrie trie = new SuggestTrie(10);
+        SuggestTrie.Suggestion ab = suggestion(1, 1, "ab");
+        SuggestTrie.Suggestion abc = suggestion(2, 2, "abc");
+        trie.add(ab);
+        trie.add(abc);
+        assertEquals(3, trie.nodeCount());
+
+        trie.remove(abc);
+        assertEquals(2, trie.nodeCount());
+        assertEquals(List.of(1), ids(trie.lookup("a", 10)));
+    }
+
+    @Test
+    public void topKIsOrderedAndBounded() {
+        SuggestTrie trie = new SuggestTrie(2);
+        SuggestTrie.Suggestion best = suggestion(2, 3, "pho bo");
+        trie.add(suggestion(1, 1, "pho ga"));
+        trie.add(best);
+        trie.add(suggestion(3, 2, "pho cuon"));
+
+        assertEquals(List.of(2, 3), ids(trie.lookup("pho", 10)));
+        assertEquals(List.of(2), ids(trie.lookup("pho", 1)));
+
+        trie.remove(best);
+        assertEquals(List.of(3, 1), ids(trie.lookup("pho", 10)));
+    }
+
+    @Test
+    public void equalWeightsPreferHigherId() {
+        SuggestTrie trie = new SuggestTrie(3);
+        trie.add(suggestion(1, 5, "tai nghe"));
+        trie.add(suggestion(2, 5, "tai loa"));
+        assertEquals(List.of(2, 1), ids(trie.lookup("tai", 10)));
+    }
+
+    @Test
+    public void suggestionWithManyKeysIsNotDuplicated() {
+        SuggestTrie trie = new SuggestTrie(10);
+        trie.add(suggestion(1, 1, "may anh sony", "anh sony", "sony"));
+        trie.add(suggestion(2, 2, "may giat", "giat"));
+
+        assertEquals(List.of(2, 1), ids(trie.lookup("", 10)));
+        assertEquals(List.of(1), ids(trie.lookup("anh", 10)));
+        assertEquals(List.of(2, 1), ids(trie.lookup("may", 10)));
+    }
+}
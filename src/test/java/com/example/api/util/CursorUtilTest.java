@@ -0,0 +1,40 @@
+package com.example.api.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class CursorUtilTest {
+
+    @Test
+    public void roundTrip() {
+        String cursor = CursorUtil.encode("4.5", "2024-01-02 03:04:05.0", "42");
+        assertEquals(Arrays.asList("4.5", "2024-01-02 03:04:05.0", "42"), CursorUtil.decode(cursor));
+    }
+
+    @Test
+    public void keepsEmptyAndUnicodeParts() {
+        String cursor = CursorUtil.encode("", "Điện thoại", "");
+        assertEquals(Arrays.asList("", "Điện thoại", ""), CursorUtil.decode(cursor));
+    }
+
+    @Test
+    public void cursorIsUrlSafeWithoutPadding() {
+        for (int i = 0; i < 50; i++) {
+            String cursor = CursorUtil.encode("giá trị ??>>" + i, String.valueOf(i * 7919));
+            assertFalse(cursor, cursor.contains("+") || cursor.contains("/") || cursor.contains("="));
+        }
+    }
+
+    @Test
+    public void invalidCursorDecodesToNull() {
+        assertNull(CursorUtil.decode(null));
+        assertNull(CursorUtil.decode(""));
+        assertNull(CursorUtil.decode("không-phải-base64!"));
+        assertNull(CursorUtil.decode("a"));
+    }
+}
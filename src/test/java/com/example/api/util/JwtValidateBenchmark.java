@@ -0,0 +1,77 @@
+package com.example.api.util;
+
+import java.util.concurrent.TimeUnit;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark JMH cho JwtUtil.validateToken (số token/giây): xác minh đầy đủ mỗi lần (giải mã base64,
+ * parse JSON, HMAC), trúng cache token đã xác thực, và xoay vòng số token gấp đôi jwt.cache.maxSize
+ * (cache đầy, mỗi lần trượt phải xác minh lại và loại một token).
+ *
+ * Cấu hình cache đọc một lần khi nạp JwtUtil nên được truyền vào JVM fork bằng system property
+ * (-Djwt.cache.maxSize=...). Không cần máy chủ hay cơ sở dữ liệu.
+ *
+ * Cách dùng: ./bench/jwt-validate-bench.sh
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Djwt.cache.maxSize=1000" })
+@State(Scope.Thread)
+public class JwtValidateBenchmark {
+    private JwtParser parser;
+    private String token;
+    private String[] rotating;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        parser = Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(JwtUtil.getJwtSecret())).build();
+        token = JwtUtil.generateToken(1);
+
+        Claims expected = parser.parseClaimsJws(token).getBody();
+        if (!expected.equals(JwtUtil.validateToken(token)) || !expected.equals(JwtUtil.validateToken(token))) {
+            throw new IllegalStateException("Claims từ validateToken không khớp claims xác minh trực tiếp");
+        }
+
+        int maxSize = ((Number) JwtUtil.getCacheStats().get("maxSize")).intValue();
+        rotating = new String[Math.max(2, maxSize * 2)];
+        for (int i = 0; i < rotating.length; i++) {
+            rotating[i] = JwtUtil.generateToken(i + 1);
+        }
+    }
+
+    @Benchmark
+    public Claims fullVerification() {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    @Benchmark
+    public Claims cacheHit() {
+        return JwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public Claims rotatingBeyondMaxSize() {
+        String t = rotating[next];
+        next = next + 1 == rotating.length ? 0 : next + 1;
+        return JwtUtil.validateToken(t);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.api.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class StatementCacheTest {
+    private final List<String> prepared = new ArrayList<>();
+    private final List<String> closed = new ArrayList<>();
+    private Connection owner;
+    private StatementCache cache;
+
+    @Before
+    public void setUp() {
+        Connection physical = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "prepareStatement":
+                            prepared.add((String) args[0]);
+                            return fakeStatement((String) args[0]);
+                        case "isWrapperFor":
+                            return false;
+                        default:
+                            return null;
+                    }
+                });
+        owner = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, (proxy, method, args) -> null);
+        // Ngưỡng cao để không thử chuẩn bị phía server
+        cache = new StatementCache(physical, 2, Integer.MAX_VALUE);
+    }
+
+    private PreparedStatement fakeStatement(String sql) {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> {
+                    if ("close".equals(method.getName())) {
+                        closed.add(sql);
+                    }
+                    Class<?> type = method.getReturnType();
+                    return type == boolean.class ? false : type == int.class ? 0 : null;
+                });
+    }
+
+    @Test
+    public void reusesStatementAfterClose() throws Exception {
+        PreparedStatement first = cache.prepare(owner, "SELECT 1", StatementCache.NO_KEYS_FLAG);
+        first.close();
+        PreparedStatement second = cache.prepare(owner, "SELECT 1", StatementCache.NO_KEYS_FLAG);
+        assertEquals(1, prepared.size());
+        assertSame(owner, second.getConnection());
+        assertTrue(first.isClosed());
+    }
+
+    @Test
+    public void sqlInUseIsLeftToTheCaller() throws Exception {
+        PreparedStatement first = cache.prepare(owner, "SELECT 1", StatementCache.NO_KEYS_FLAG);
+        assertNotNull(first);
+        // Không trả statement vật lý chưa được theo dõi: kết nối tự tạo statement không cache
+        assertNull(cache.prepare(owner, "SELECT 1", StatementCache.NO_KEYS_FLAG));
+        assertEquals(1, prepared.size());
+
+        first.close();
+        assertNotNull(cache.prepare(owner, "SELECT 1", StatementCache.NO_KEYS_FLAG));
+        assertEquals(1, prepared.size());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedIdleStatement() throws Exception {
+        cache.prepare(owner, "SELECT 1", StatementCache.NO_KEYS_FLAG).close();
+        cache.prepare(owner, "SELECT 2", StatementCache.NO_KEYS_FLAG).close();
+        cache.prepare(owner, "SELECT 3", StatementCache.NO_KEYS_FLAG).close();
+        assertEquals(List.of("SELECT 1"), closed);
+    }
+}